@@ -0,0 +1,63 @@
+package software.leonov.system.monitor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reader throughput when 64 threads (simulating request threads) read usage metrics from a single shared monitor
+ * at the same time.
+ * 
+ * @author Zhenya Leonov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class ContendedReadBenchmark {
+
+    private LazySystemMonitor       lazy;
+    private BackgroundSystemMonitor background;
+
+    @Setup
+    public void setup() {
+        lazy       = LazySystemMonitor.withUpdateThreshold(Duration.ofMillis(100));
+        background = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(100)).start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        background.close();
+    }
+
+    @Benchmark
+    public CpuUsage lazy_getCpuUsage() {
+        return lazy.getCpuUsage();
+    }
+
+    @Benchmark
+    public MemoryUsage lazy_getMemoryUsage() {
+        return lazy.getMemoryUsage();
+    }
+
+    @Benchmark
+    public CpuUsage background_getCpuUsage() {
+        return background.getCpuUsage();
+    }
+
+}
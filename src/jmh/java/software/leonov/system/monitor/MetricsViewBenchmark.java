@@ -0,0 +1,78 @@
+package software.leonov.system.monitor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reads through {@link MetricsView} while a background monitor is updating it. Run with {@code -prof gc}: the
+ * reads are expected to allocate 0 bytes per operation.
+ * 
+ * @author Zhenya Leonov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MetricsViewBenchmark {
+
+    private BackgroundSystemMonitor monitor;
+    private MetricsView             view;
+
+    @Setup
+    public void setup() {
+        monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(10)).start();
+        view    = monitor.getMetricsView();
+    }
+
+    @TearDown
+    public void tearDown() {
+        monitor.close();
+    }
+
+    @Benchmark
+    public double getProcessCpuLoad() {
+        return monitor.getMetricsView().getProcessCpuLoad();
+    }
+
+    @Benchmark
+    public long getUsedMemory() {
+        return monitor.getMetricsView().getUsedMemory();
+    }
+
+    @Benchmark
+    public double consistentRead() {
+        long   stamp;
+        double cpu;
+        long   memory;
+
+        do {
+            stamp  = view.beginRead();
+            cpu    = view.getProcessCpuLoad();
+            memory = view.getUsedMemory();
+        } while (!view.validate(stamp));
+
+        return cpu + memory;
+    }
+
+    @Benchmark
+    public double getCpuUsage() {
+        return monitor.getCpuUsage().getProcessCpuLoad();
+    }
+
+}
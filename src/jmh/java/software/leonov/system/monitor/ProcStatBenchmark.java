@@ -0,0 +1,58 @@
+package software.leonov.system.monitor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the per-tick cost of reading the process and system CPU loads from {@code com.sun.management.OperatingSystemMXBean}
+ * with reading them directly from {@code /proc} using a {@link ProcStatReader}. Linux only.
+ * <p>
+ * Run with {@code -prof gc} to report the number of bytes allocated per tick.
+ * 
+ * @author Zhenya Leonov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcStatBenchmark {
+
+    private ProcStatReader reader;
+
+    @Setup
+    public void setup() {
+        reader = ProcStatReader.open();
+        if (reader == null || Sampler.SUN_OS_BEAN == null)
+            throw new IllegalStateException("/proc or com.sun.management.OperatingSystemMXBean is not available");
+    }
+
+    @TearDown
+    public void tearDown() {
+        reader.close();
+    }
+
+    @Benchmark
+    public double mxbean_cpuLoad() {
+        return Sampler.SUN_OS_BEAN.getProcessCpuLoad() + Sampler.SUN_OS_BEAN.getSystemCpuLoad();
+    }
+
+    @Benchmark
+    public double proc_cpuLoad() {
+        reader.update();
+        return reader.getProcessCpuLoad() + reader.getSystemCpuLoad();
+    }
+
+}
@@ -0,0 +1,106 @@
+package software.leonov.system.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of computing the total process CPU time and allocated bytes from the {@code ThreadMXBean} with a
+ * large number of live threads: a per-thread loop versus {@link ThreadMetricsReader}.
+ * 
+ * @author Zhenya Leonov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadMetricsReaderBenchmark {
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    @Param({ "100", "5000" })
+    private int threads;
+
+    private CountDownLatch      release;
+    private ThreadMetricsReader reader;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        release = new CountDownLatch(1);
+
+        for (int i = 0; i < threads; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        reader = new ThreadMetricsReader(THREAD_BEAN);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Benchmark
+    public long per_thread_loop() {
+        long totalCpuTime = 0;
+
+        for (final long threadId : THREAD_BEAN.getAllThreadIds()) {
+            final long threadCpuTime = THREAD_BEAN.getThreadCpuTime(threadId);
+            if (threadCpuTime > 0)
+                totalCpuTime += threadCpuTime;
+        }
+
+        return totalCpuTime;
+    }
+
+    @Benchmark
+    public long thread_cpu_reader() {
+        return reader.readCpuTime();
+    }
+
+    @Benchmark
+    @SuppressWarnings("restriction")
+    public long per_thread_allocated_bytes_loop() {
+        final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+
+        long totalAllocatedBytes = 0;
+
+        for (final long threadId : sunBean.getAllThreadIds()) {
+            final long allocatedBytes = sunBean.getThreadAllocatedBytes(threadId);
+            if (allocatedBytes > 0)
+                totalAllocatedBytes += allocatedBytes;
+        }
+
+        return totalAllocatedBytes;
+    }
+
+    @Benchmark
+    public long thread_allocated_bytes_reader() {
+        return reader.readAllocatedBytes();
+    }
+
+}
@@ -0,0 +1,65 @@
+package software.leonov.system.monitor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a single metrics update (one sampling tick) for each monitor type, and the cost of a cached read
+ * when no update is due.
+ * <p>
+ * Run with {@code -prof gc} to report the number of bytes allocated per tick.
+ * 
+ * @author Zhenya Leonov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UpdateMetricsBenchmark {
+
+    private BackgroundSystemMonitor background;
+    private LazySystemMonitor       lazyExpired;
+    private LazySystemMonitor       lazyCached;
+
+    @Setup
+    public void setup() {
+        background = BackgroundSystemMonitor.withDefaultUpdateInterval(); // never started, ticks are driven by the benchmark
+        lazyExpired = new LazySystemMonitor(Duration.ZERO);               // the threshold is always exceeded
+        lazyCached  = new LazySystemMonitor(Duration.ofHours(1));         // the threshold is never exceeded
+        lazyCached.getCpuUsage();
+    }
+
+    @Benchmark
+    public void background_updateMetrics() {
+        background.updateMetrics();
+    }
+
+    @Benchmark
+    public CpuUsage lazy_getCpuUsage_expired() {
+        return lazyExpired.getCpuUsage();
+    }
+
+    @Benchmark
+    public CpuUsage lazy_getCpuUsage_cached() {
+        return lazyCached.getCpuUsage();
+    }
+
+    @Benchmark
+    public CpuUsage unsupported_getCpuUsage() {
+        return UnsupportedSystemMonitor.getInstance().getCpuUsage();
+    }
+
+}
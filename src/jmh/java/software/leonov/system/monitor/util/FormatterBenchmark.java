@@ -0,0 +1,66 @@
+package software.leonov.system.monitor.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of the {@link Formatter} methods.
+ * 
+ * @author Zhenya Leonov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatterBenchmark {
+
+    private double pct   = 12.3456;
+    private long   bytes = 123_456_789L;
+
+    private final StringBuilder sb = new StringBuilder(64);
+
+    @Benchmark
+    public String formatPercent() {
+        return Formatter.formatPercent(pct);
+    }
+
+    @Benchmark
+    public String formatDecimalBytes() {
+        return Formatter.formatDecimalBytes(bytes);
+    }
+
+    @Benchmark
+    public String formatBinaryBytes() {
+        return Formatter.formatBinaryBytes(bytes);
+    }
+
+    @Benchmark
+    public StringBuilder appendPercent() {
+        sb.setLength(0);
+        return Formatter.formatPercent(pct, sb);
+    }
+
+    @Benchmark
+    public StringBuilder appendDecimalBytes() {
+        sb.setLength(0);
+        return Formatter.formatDecimalBytes(bytes, sb);
+    }
+
+    @Benchmark
+    public StringBuilder appendBinaryBytes() {
+        sb.setLength(0);
+        return Formatter.formatBinaryBytes(bytes, sb);
+    }
+
+}
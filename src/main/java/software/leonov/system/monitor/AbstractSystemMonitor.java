@@ -1,27 +1,23 @@
 package software.leonov.system.monitor;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryMXBean;
-import java.lang.management.OperatingSystemMXBean;
-import java.lang.management.RuntimeMXBean;
-import java.lang.management.ThreadMXBean;
+import static software.leonov.system.monitor.Sampler.CGROUP;
+import static software.leonov.system.monitor.Sampler.GC;
+import static software.leonov.system.monitor.Sampler.MEMORY_BEAN;
+import static software.leonov.system.monitor.Sampler.OS_BEAN;
+import static software.leonov.system.monitor.Sampler.PROC_STAT;
+import static software.leonov.system.monitor.Sampler.RUNTIME_BEAN;
+import static software.leonov.system.monitor.Sampler.SUN_OS_BEAN;
+import static software.leonov.system.monitor.Sampler.THREAD_METRICS;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 
-@SuppressWarnings("restriction")
 abstract class AbstractSystemMonitor implements SystemMonitor {
 
-    private static final OperatingSystemMXBean                    OS_BEAN = ManagementFactory.getOperatingSystemMXBean();
-    private static final com.sun.management.OperatingSystemMXBean SUN_OS_BEAN;
+    static final Duration[] DEFAULT_AVERAGE_HORIZONS = { Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15) };
 
-    private static final ThreadMXBean  THREAD_BEAN  = ManagementFactory.getThreadMXBean();
-    private static final MemoryMXBean  MEMORY_BEAN  = ManagementFactory.getMemoryMXBean();
-    private static final RuntimeMXBean RUNTIME_BEAN = ManagementFactory.getRuntimeMXBean();
-
-    static {
-        if (OS_BEAN instanceof com.sun.management.OperatingSystemMXBean)
-            SUN_OS_BEAN = (com.sun.management.OperatingSystemMXBean) OS_BEAN;
-        else
-            SUN_OS_BEAN = null;
-    }
+    static final Duration PERCENTILE_WINDOW = Duration.ofMinutes(5);
 
     // State for tracking current CPU metrics
     private double processCpu;
@@ -43,6 +39,11 @@ abstract class AbstractSystemMonitor implements SystemMonitor {
     // State for tracking memory maximums
     private long maxUsedMemory = -1;
 
+    // State for allocation rate calculations
+    private long allocationRate         = -1;
+    private long lastAllocatedBytes     = -1;
+    private long lastAllocatedBytesTime = -1;
+
     // State for current CPU calculations using ThreadMxBean
     private long lastCpuTime = -1;
     private long lastTime    = -1;
@@ -59,8 +60,104 @@ abstract class AbstractSystemMonitor implements SystemMonitor {
     private long   lastSystemCpuTime      = -1;
     private double lastSystemCpuReading   = 0.0;
 
-    private volatile CpuUsage    cpu;
-    private volatile MemoryUsage memory;
+    // State for tracking CPU moving averages over fixed horizons
+    private Duration[]                 horizons;
+    private SlidingWindowAverage[]     processCpuWindows;
+    private SlidingWindowAverage[]     systemCpuWindows;
+    private ExponentialMovingAverage[] processCpuEmas;
+    private ExponentialMovingAverage[] systemCpuEmas;
+
+    // State for container CPU and throttling calculations
+    private long lastCgroupTime             = -1;
+    private long lastCgroupCpuTime          = -1;
+    private long lastCgroupPeriods          = -1;
+    private long lastCgroupThrottledPeriods = -1;
+
+    // State for GC calculations, totals are counted from the first update
+    private GcTotals  firstGc         = null;
+    private GcTotals  lastGc          = null;
+    private long      lastGcTime      = -1;
+    private Histogram lastGcHistogram = null;
+
+    // State for tracking percentiles of the recent values
+    private final HistogramWindow processCpuHistogram = new HistogramWindow(Histogram::forCpuUsage, PERCENTILE_WINDOW);
+    private final HistogramWindow systemCpuHistogram  = new HistogramWindow(Histogram::forCpuUsage, PERCENTILE_WINDOW);
+    private final HistogramWindow usedMemoryHistogram = new HistogramWindow(Histogram::forMemoryUsage, PERCENTILE_WINDOW);
+
+    private long sequenceNumber = 0;
+
+    private volatile SnapshotImpl snapshot = UnsupportedSystemMonitor.NEGATIVE_SNAPSHOT;
+
+    private final MetricsView view;
+
+    // Optional history of past metrics
+    volatile MetricsHistory history = null;
+
+    // Optional recording of past metrics
+    volatile MetricsRecorder recorder = null;
+
+    // Optional publication of the latest metrics to other processes
+    volatile SharedMetricsWriter sharedMetrics = null;
+
+    // Optional report of the threads with the highest CPU usage
+    volatile TopThreadsTracker topThreads = null;
+
+    // Optional report of the threads with the highest allocation rate
+    volatile TopThreadsTracker topAllocators = null;
+
+    AbstractSystemMonitor() {
+        this(false);
+    }
+
+    /**
+     * Creates a new monitor.
+     * 
+     * @param refreshOnRead whether reading the {@link #getMetricsView() metrics view} calls {@link #updateMetrics()}
+     */
+    AbstractSystemMonitor(final boolean refreshOnRead) {
+        view = new MetricsView(refreshOnRead ? this::updateMetrics : null);
+        setAverageHorizons(DEFAULT_AVERAGE_HORIZONS);
+    }
+
+    /**
+     * Sets the horizons of the CPU moving averages, discarding any averages collected so far.
+     * 
+     * @param horizons the specified horizons
+     */
+    synchronized void setAverageHorizons(final Duration[] horizons) {
+        this.horizons     = horizons.clone();
+        processCpuWindows = new SlidingWindowAverage[horizons.length];
+        systemCpuWindows  = new SlidingWindowAverage[horizons.length];
+        processCpuEmas    = new ExponentialMovingAverage[horizons.length];
+        systemCpuEmas     = new ExponentialMovingAverage[horizons.length];
+
+        for (int i = 0; i < horizons.length; i++) {
+            final long nanos = horizons[i].toNanos();
+            processCpuWindows[i] = new SlidingWindowAverage(nanos);
+            systemCpuWindows[i]  = new SlidingWindowAverage(nanos);
+            processCpuEmas[i]    = new ExponentialMovingAverage(nanos);
+            systemCpuEmas[i]     = new ExponentialMovingAverage(nanos);
+        }
+    }
+
+    private double[] updateMovingAverages(final long time) {
+        final double[] averages = new double[horizons.length * CpuUsageImpl.AVERAGES_PER_HORIZON];
+
+        for (int i = 0; i < horizons.length; i++) {
+            processCpuWindows[i].update(processCpu, time);
+            systemCpuWindows[i].update(systemCpu, time);
+            processCpuEmas[i].update(processCpu, time);
+            systemCpuEmas[i].update(systemCpu, time);
+
+            final int offset = i * CpuUsageImpl.AVERAGES_PER_HORIZON;
+            averages[offset + CpuUsageImpl.MOVING_PROCESS]      = processCpuWindows[i].get();
+            averages[offset + CpuUsageImpl.MOVING_SYSTEM]       = systemCpuWindows[i].get();
+            averages[offset + CpuUsageImpl.EXPONENTIAL_PROCESS] = processCpuEmas[i].get();
+            averages[offset + CpuUsageImpl.EXPONENTIAL_SYSTEM]  = systemCpuEmas[i].get();
+        }
+
+        return averages;
+    }
 
     static long getAvailableMemory() {
         return MEMORY_BEAN.getHeapMemoryUsage().getMax();
@@ -71,7 +168,19 @@ abstract class AbstractSystemMonitor implements SystemMonitor {
     }
 
     static boolean isSystemCpuUsageSupported() {
-        return SUN_OS_BEAN != null;
+        return SUN_OS_BEAN != null || PROC_STAT != null;
+    }
+
+    static boolean isAllocationRateSupported() {
+        return THREAD_METRICS.isAllocatedBytesEnabled();
+    }
+
+    static boolean isGcUsageSupported() {
+        return GC != null;
+    }
+
+    static boolean isContainerUsageSupported() {
+        return CGROUP != null;
     }
 
     static String getOperatingSystemName() {
@@ -96,25 +205,42 @@ abstract class AbstractSystemMonitor implements SystemMonitor {
 
     @Override
     public CpuUsage getCpuUsage() {
-        return cpu;
+        return snapshot.getCpuUsage();
     }
 
     @Override
     public MemoryUsage getMemoryUsage() {
-        return memory;
+        return snapshot.getMemoryUsage();
     }
 
-    private double getProcessCpuUsage() {
-        final double cpuUsage = SUN_OS_BEAN == null ? calculateProcessCpuUsage() : SUN_OS_BEAN.getProcessCpuLoad();
-        return cpuUsage < 0 ? -1.0 : Math.min(cpuUsage * 100.0, 100.0);
+    @Override
+    public ContainerUsage getContainerUsage() {
+        return snapshot.getContainerUsage();
+    }
+
+    @Override
+    public GcUsage getGcUsage() {
+        return snapshot.getGcUsage();
     }
 
-    private double calculateProcessCpuUsage() {
-        final long currentTime    = System.nanoTime();
-        final long currentCpuTime = getTotalThreadCpuTime();
+    @Override
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
 
-        if (currentCpuTime < 0)
-            return -1.0;
+    @Override
+    public MetricsView getMetricsView() {
+        return view;
+    }
+
+    private double getProcessCpuUsage(final Sample sample) {
+        final double cpuUsage = sample.processCpuTime < 0 ? sample.processCpuLoad : calculateProcessCpuUsage(sample);
+        return cpuUsage < 0 ? -1.0 : Math.min(cpuUsage * 100.0, 100.0);
+    }
+
+    private double calculateProcessCpuUsage(final Sample sample) {
+        final long currentTime    = sample.time;
+        final long currentCpuTime = sample.processCpuTime;
 
         if (lastTime == -1) {
             lastTime    = currentTime;
@@ -132,23 +258,104 @@ abstract class AbstractSystemMonitor implements SystemMonitor {
         if (timeDiff <= 0 || cpuTimeDiff < 0)
             return 0.0;
 
-        return cpuTimeDiff / timeDiff;
+        // The CPU time of all threads can be up to the elapsed time times the number of processors
+        return (double) cpuTimeDiff / timeDiff / getAvailableProcessors();
     }
 
-    private double calculateSystemCpuUsage() {
-        if (SUN_OS_BEAN == null)
-            return -1.0;
+    private ContainerUsage getContainerUsage(final Sample sample) {
+        double cpuLoad             = -1.0;
+        double throttledPercentage = -1.0;
+
+        if (lastCgroupTime != -1) {
+            final long timeDiff = sample.time - lastCgroupTime;
 
-        double cpuUsage = SUN_OS_BEAN.getSystemCpuLoad();
-        return cpuUsage < 0 ? -1.0 : cpuUsage * 100.0;
+            if (sample.cgroupCpuTime >= 0 && lastCgroupCpuTime >= 0 && timeDiff > 0) {
+                final double cpus = sample.cgroupCpuLimit > 0 ? sample.cgroupCpuLimit : getAvailableProcessors();
+                cpuLoad = Math.max(0.0, Math.min((sample.cgroupCpuTime - lastCgroupCpuTime) / (timeDiff * cpus) * 100.0, 100.0));
+            }
+
+            if (sample.cgroupThrottledPeriods >= 0 && lastCgroupThrottledPeriods >= 0) {
+                final long periods = sample.cgroupPeriods - lastCgroupPeriods;
+                throttledPercentage = periods > 0 ? Math.min((double) (sample.cgroupThrottledPeriods - lastCgroupThrottledPeriods) / periods * 100.0, 100.0) : 0.0;
+            }
+        }
+
+        lastCgroupTime             = sample.time;
+        lastCgroupCpuTime          = sample.cgroupCpuTime;
+        lastCgroupPeriods          = sample.cgroupPeriods;
+        lastCgroupThrottledPeriods = sample.cgroupThrottledPeriods;
+
+        return new ContainerUsageImpl(sample.cgroupCpuLimit, cpuLoad, throttledPercentage, sample.cgroupThrottledPeriods, sample.cgroupThrottledTime, sample.cgroupUsedMemory, sample.cgroupMemoryLimit);
+    }
+
+    private long calculateAllocationRate(final Sample sample) {
+        final long currentTime  = sample.time;
+        final long currentBytes = sample.allocatedBytes;
+
+        if (currentBytes < 0)
+            return -1;
+
+        final long timeDiff  = currentTime - lastAllocatedBytesTime;
+        final long bytesDiff = currentBytes - lastAllocatedBytes;
+        final long previous  = lastAllocatedBytes;
+
+        lastAllocatedBytesTime = currentTime;
+        lastAllocatedBytes     = currentBytes;
+
+        if (previous < 0)
+            return -1;
+
+        // Keep the previous rate if no time has elapsed
+        if (timeDiff <= 0)
+            return allocationRate;
+
+        return bytesDiff < 0 ? 0 : (long) (bytesDiff * 1e9 / timeDiff);
+    }
+
+    private GcUsage getGcUsage(final Sample sample) {
+        final GcTotals gc = sample.gc;
+
+        long   pauseCount = -1;
+        long   pauseTime  = -1;
+        double overhead   = -1.0;
+
+        if (firstGc == null) {
+            firstGc         = gc;
+            lastGcHistogram = Histogram.EMPTY_PAUSE_TIME;
+        } else {
+            pauseCount = gc.pauseCount - lastGc.pauseCount;
+            pauseTime  = gc.pauseTime - lastGc.pauseTime;
+
+            final long timeDiff = sample.time - lastGcTime;
+            if (timeDiff > 0)
+                overhead = Math.min(pauseTime * 1e6 / timeDiff * 100.0, 100.0);
+
+            // Only compute a new histogram if a collection ended since the previous update
+            if (gc != lastGc)
+                lastGcHistogram = gc.pauseHistogram.intervalSince(firstGc.pauseHistogram);
+        }
+
+        lastGc     = gc;
+        lastGcTime = sample.time;
+
+        final long[] counts = new long[gc.names.length];
+        final long[] times  = new long[gc.names.length];
+        for (int i = 0; i < counts.length && i < firstGc.counts.length; i++) {
+            counts[i] = gc.counts[i] - firstGc.counts[i];
+            times[i]  = gc.times[i] - firstGc.times[i];
+        }
+
+        return new GcUsageImpl(pauseCount, pauseTime, overhead, gc.pauseCount - firstGc.pauseCount, gc.pauseTime - firstGc.pauseTime, lastGcHistogram, gc.names, counts, times);
+    }
+
+    private static double getSystemCpuUsage(final Sample sample) {
+        return sample.systemCpuLoad < 0 ? -1.0 : sample.systemCpuLoad * 100.0;
     }
 
-    private double calculateAverageProcessCpuLoad() {
+    private double calculateAverageProcessCpuLoad(final long currentTime) {
         if (processCpu < 0)
             return -1.0;
 
-        final long currentTime = System.nanoTime();
-
         if (processCpuStartTime == -1) {
             processCpuStartTime   = currentTime;
             lastProcessCpuTime    = currentTime;
@@ -168,12 +375,10 @@ abstract class AbstractSystemMonitor implements SystemMonitor {
         return average;
     }
 
-    private double calculateAverageSystemCpuLoad() {
+    private double calculateAverageSystemCpuLoad(final long currentTime) {
         if (systemCpu < 0)
             return -1.0;
 
-        final long currentTime = System.nanoTime();
-
         if (systemCpuStartTime == -1) {
             systemCpuStartTime   = currentTime;
             lastSystemCpuTime    = currentTime;
@@ -193,46 +398,115 @@ abstract class AbstractSystemMonitor implements SystemMonitor {
         return average;
     }
 
-    private static long getTotalThreadCpuTime() {
-        long totalCpuTime = 0;
+    /**
+     * Takes a new {@link Sample} and updates the usage metrics.
+     */
+    protected void updateMetrics() {
+        updateMetrics(Sampler.sample());
+    }
+
+    /**
+     * Updates the usage metrics from the specified {@link Sample}.
+     * 
+     * @param sample the specified sample
+     */
+    void updateMetrics(final Sample sample) {
+        updateMetrics(sample, false);
+    }
 
-        for (final long threadId : THREAD_BEAN.getAllThreadIds())
-            try {
-                final long threadCpuTime = THREAD_BEAN.getThreadCpuTime(threadId);
-                if (threadCpuTime > 0)
-                    totalCpuTime += threadCpuTime;
-            } catch (final UnsupportedOperationException e) {
-                return -1;
-            }
+    /**
+     * Resets the {@link #getMetricsView() metrics view} to negative values.
+     */
+    synchronized void clearMetricsView() {
+        view.clear();
+    }
+
+    /**
+     * Publishes the most recent metrics to the {@link #getMetricsView() metrics view}.
+     */
+    synchronized void restoreMetricsView() {
+        view.update(processCpu, systemCpu, systemLoadAverage, avgProcessCpuLoad, avgSystemCpuLoad, maxProcessCpu, maxSystemCpu, usedMemory, totalMemory, maxUsedMemory);
+    }
 
-        return totalCpuTime > 0 ? totalCpuTime : -1;
+    /**
+     * Marks the current snapshot as {@link Snapshot#isStale() stale}.
+     */
+    synchronized void markStale() {
+        snapshot = snapshot.asStale();
     }
 
-    protected synchronized void updateMetrics() {
+    /**
+     * Updates the usage metrics from the specified {@link Sample}.
+     * 
+     * @param sample the specified sample
+     * @param stale  whether the new snapshot is {@link Snapshot#isStale() stale}
+     */
+    synchronized void updateMetrics(final Sample sample, final boolean stale) {
         // Update total memory
-        totalMemory = MEMORY_BEAN.getHeapMemoryUsage().getCommitted();
+        totalMemory = sample.totalMemory;
 
         // Update used memory
-        usedMemory    = MEMORY_BEAN.getHeapMemoryUsage().getUsed();
+        usedMemory    = sample.usedMemory;
         maxUsedMemory = Math.max(usedMemory, maxUsedMemory);
 
+        // Update allocation rate
+        allocationRate = calculateAllocationRate(sample);
+
         // Update process CPU metrics
-        processCpu    = getProcessCpuUsage();
+        processCpu    = getProcessCpuUsage(sample);
         maxProcessCpu = Math.max(processCpu, maxProcessCpu);
 
         // Update system CPU metrics
-        systemCpu    = calculateSystemCpuUsage();
+        systemCpu    = getSystemCpuUsage(sample);
         maxSystemCpu = Math.max(systemCpu, maxSystemCpu);
 
         // Update system load average
-        systemLoadAverage = OS_BEAN.getSystemLoadAverage();
+        systemLoadAverage = sample.systemLoadAverage;
 
         // Update average cpu metrics
-        avgProcessCpuLoad = calculateAverageProcessCpuLoad();
-        avgSystemCpuLoad  = calculateAverageSystemCpuLoad();
+        avgProcessCpuLoad = calculateAverageProcessCpuLoad(sample.time);
+        avgSystemCpuLoad  = calculateAverageSystemCpuLoad(sample.time);
+
+        // Update moving averages
+        final double[] averages = updateMovingAverages(sample.time);
+
+        // Update histograms
+        processCpuHistogram.record(sample.time, processCpu);
+        systemCpuHistogram.record(sample.time, systemCpu);
+        usedMemoryHistogram.record(sample.time, usedMemory);
+
+        final CpuUsage    cpu    = new CpuUsageImpl(processCpu, systemCpu, systemLoadAverage, avgProcessCpuLoad, avgSystemCpuLoad, maxProcessCpu, maxSystemCpu, horizons, averages, processCpuHistogram.freeze(), systemCpuHistogram.freeze());
+        final MemoryUsage memory = new MemoryUsageImpl(usedMemory, totalMemory, maxUsedMemory, allocationRate, sample.memoryPools, usedMemoryHistogram.freeze());
+
+        // Update container metrics
+        final ContainerUsage container = CGROUP == null ? UnsupportedSystemMonitor.NEGATIVE_CONTAINER_USAGE : getContainerUsage(sample);
+
+        // Update GC metrics
+        final GcUsage gc = GC == null ? UnsupportedSystemMonitor.NEGATIVE_GC_USAGE : getGcUsage(sample);
+
+        // Update the top threads
+        final TopThreadsTracker topThreads = this.topThreads;
+        final List<ThreadUsage> threads    = topThreads == null ? Collections.emptyList() : topThreads.update(sample.getThreadTimes(), getAvailableProcessors());
+
+        // Update the top allocators
+        final TopThreadsTracker topAllocators = this.topAllocators;
+        final List<ThreadUsage> allocators    = topAllocators == null ? Collections.emptyList() : topAllocators.update(sample.getThreadTimes(), getAvailableProcessors());
+
+        snapshot = new SnapshotImpl(++sequenceNumber, sample.timestamp, sample.time, cpu, memory, container, gc, threads, allocators, stale);
+
+        view.update(processCpu, systemCpu, systemLoadAverage, avgProcessCpuLoad, avgSystemCpuLoad, maxProcessCpu, maxSystemCpu, usedMemory, totalMemory, maxUsedMemory);
+
+        final SharedMetricsWriter sharedMetrics = this.sharedMetrics;
+        if (sharedMetrics != null)
+            sharedMetrics.update(sequenceNumber, sample.timestamp, processCpu, systemCpu, systemLoadAverage, avgProcessCpuLoad, avgSystemCpuLoad, maxProcessCpu, maxSystemCpu, usedMemory, totalMemory, maxUsedMemory, allocationRate);
+
+        final MetricsHistory history = this.history;
+        if (history != null)
+            history.record(sample.timestamp, processCpu, systemCpu, systemLoadAverage, usedMemory, totalMemory);
 
-        cpu    = new CpuUsageImpl(processCpu, systemCpu, systemLoadAverage, avgProcessCpuLoad, avgSystemCpuLoad, maxProcessCpu, maxSystemCpu);
-        memory = new MemoryUsageImpl(usedMemory, totalMemory, maxUsedMemory);
+        final MetricsRecorder recorder = this.recorder;
+        if (recorder != null)
+            recorder.record(sample.timestamp, processCpu, systemCpu, systemLoadAverage, usedMemory, totalMemory, allocationRate, gc.getOverhead());
     }
 
 }
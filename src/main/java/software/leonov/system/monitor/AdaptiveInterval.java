@@ -0,0 +1,94 @@
+package software.leonov.system.monitor;
+
+/**
+ * Computes the update interval of an adaptive {@link BackgroundSystemMonitor}.
+ * <p>
+ * The interval drops to the minimum as soon as the metrics are changing fast (the CPU load moved by at least
+ * {@value #CPU_CHANGE} or the used heap by at least {@value #MEMORY_CHANGE} of the maximum heap size since the previous
+ * update) or are near a threshold (the CPU load, the used heap, or the used direct memory reached {@value #NEAR_THRESHOLD}
+ * of its maximum or of the configured alert fraction). Otherwise the interval doubles on each update until it reaches
+ * the maximum.
+ * <p>
+ * This class is not thread-safe, but {@link #getIntervalNanos()} may be called from any thread.
+ *
+ * @author Zhenya Leonov
+ */
+final class AdaptiveInterval {
+
+    static final double CPU_CHANGE     = 0.1;
+    static final double MEMORY_CHANGE  = 0.1;
+    static final double NEAR_THRESHOLD = 0.8;
+
+    private final long   minIntervalNanos;
+    private final long   maxIntervalNanos;
+    private final long   maxMemory;
+    private final double memoryFraction;
+
+    private volatile long intervalNanos; // read by other threads
+
+    private double lastProcessCpuLoad = -1.0;
+    private double lastSystemCpuLoad  = -1.0;
+    private long   lastUsedMemory     = -1;
+
+    /**
+     * @param minIntervalNanos the minimum interval in nanoseconds
+     * @param maxIntervalNanos the maximum interval in nanoseconds
+     * @param maxMemory        the maximum heap size in bytes or a negative value if undefined
+     * @param memoryFraction   the fraction (0.0 to 1.0] of the maximum memory size memory alerts are raised at or 1.0
+     */
+    AdaptiveInterval(final long minIntervalNanos, final long maxIntervalNanos, final long maxMemory, final double memoryFraction) {
+        this.minIntervalNanos = minIntervalNanos;
+        this.maxIntervalNanos = maxIntervalNanos;
+        this.maxMemory        = maxMemory;
+        this.memoryFraction   = memoryFraction;
+        this.intervalNanos    = minIntervalNanos;
+    }
+
+    /**
+     * Returns the current interval in nanoseconds.
+     *
+     * @return the current interval in nanoseconds
+     */
+    long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Updates the interval with the metrics of the latest update. Negative values indicate unavailable metrics.
+     *
+     * @param processCpuLoad    the process CPU load
+     * @param systemCpuLoad     the system CPU load
+     * @param usedMemory        the used heap memory
+     * @param directMemoryUsed  the used direct memory
+     * @param directMemoryLimit the direct memory limit
+     * @return the new interval in nanoseconds
+     */
+    long update(final double processCpuLoad, final double systemCpuLoad, final long usedMemory, final long directMemoryUsed, final long directMemoryLimit) {
+        final boolean active = changed(lastProcessCpuLoad, processCpuLoad) || changed(lastSystemCpuLoad, systemCpuLoad) || changed(lastUsedMemory, usedMemory) || processCpuLoad >= NEAR_THRESHOLD
+                || systemCpuLoad >= NEAR_THRESHOLD || near(usedMemory, maxMemory) || near(directMemoryUsed, directMemoryLimit);
+
+        lastProcessCpuLoad = processCpuLoad;
+        lastSystemCpuLoad  = systemCpuLoad;
+        lastUsedMemory     = usedMemory;
+
+        if (active)
+            intervalNanos = minIntervalNanos;
+        else
+            intervalNanos = intervalNanos > maxIntervalNanos / 2 ? maxIntervalNanos : intervalNanos * 2;
+
+        return intervalNanos;
+    }
+
+    private static boolean changed(final double last, final double current) {
+        return last >= 0 && current >= 0 && Math.abs(current - last) >= CPU_CHANGE;
+    }
+
+    private boolean changed(final long last, final long current) {
+        return maxMemory > 0 && last >= 0 && current >= 0 && Math.abs(current - last) >= MEMORY_CHANGE * maxMemory;
+    }
+
+    private boolean near(final long used, final long max) {
+        return max > 0 && used >= 0 && used >= NEAR_THRESHOLD * memoryFraction * max;
+    }
+
+}
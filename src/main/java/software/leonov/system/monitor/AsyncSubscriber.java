@@ -0,0 +1,160 @@
+package software.leonov.system.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Delivers values published by a single producer to a subscriber on the subscriber's own {@link Executor}, so that a
+ * slow subscriber never blocks the producer.
+ * <p>
+ * Values are queued in a bounded lock-free ring buffer. When the buffer is full the {@link OverflowPolicy} determines
+ * which values are discarded. Values are delivered in batches of {@code batchSize}: a drain task is submitted to the
+ * executor once a full batch is queued, and at most one drain task runs at a time, so the subscriber is never invoked
+ * concurrently. {@link #close()} delivers the remaining values as a final, possibly smaller, batch.
+ * <p>
+ * A subscriber which throws an exception keeps receiving values, the exception is passed to the executing thread's
+ * {@link Thread.UncaughtExceptionHandler uncaught exception handler}.
+ *
+ * @author Zhenya Leonov
+ */
+final class AsyncSubscriber<T> {
+
+    private final Executor                  executor;
+    private final OverflowPolicy            overflowPolicy;
+    private final int                       batchSize;
+    private final Consumer<? super List<T>> subscriber;
+
+    private final AtomicReferenceArray<T> buffer;
+    private final AtomicLong              head = new AtomicLong(); // the next value to be delivered
+    private final AtomicLong              tail = new AtomicLong(); // the next value to be published, written only by the producer
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong    dropped   = new AtomicLong();
+    private volatile boolean    closed    = false;
+
+    AsyncSubscriber(final Executor executor, final int capacity, final OverflowPolicy overflowPolicy, final int batchSize, final Consumer<? super List<T>> subscriber) {
+        this.executor       = executor;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize      = batchSize;
+        this.subscriber     = subscriber;
+        this.buffer         = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Publishes the specified value. Must only be called by one thread at a time.
+     *
+     * @param value the specified value
+     */
+    void offer(final T value) {
+        if (closed)
+            return;
+
+        final long t = tail.get();
+        final long h = head.get();
+
+        if (t - h >= buffer.length())
+            switch (overflowPolicy) {
+            case DROP_NEWEST:
+                dropped.incrementAndGet();
+                return;
+            case DROP_OLDEST:
+                // If the CAS fails the consumer has just made room
+                if (head.compareAndSet(h, h + 1))
+                    dropped.incrementAndGet();
+                break;
+            case CONFLATE:
+                if (head.compareAndSet(h, t))
+                    dropped.addAndGet(t - h);
+                break;
+            }
+
+        buffer.set(index(t), value);
+        tail.set(t + 1);
+
+        if (tail.get() - head.get() >= batchSize)
+            schedule();
+    }
+
+    /**
+     * Stops accepting new values and delivers the remaining values.
+     */
+    void close() {
+        closed = true;
+        schedule();
+    }
+
+    /**
+     * Returns the number of values discarded by the {@link OverflowPolicy}.
+     *
+     * @return the number of values discarded by the {@link OverflowPolicy}
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private int index(final long sequence) {
+        return (int) (sequence % buffer.length());
+    }
+
+    private boolean isReady() {
+        final long size = tail.get() - head.get();
+        return size >= batchSize || closed && size > 0;
+    }
+
+    private void schedule() {
+        if (isReady() && scheduled.compareAndSet(false, true))
+            try {
+                executor.execute(this::drain);
+            } catch (final RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+    }
+
+    private void drain() {
+        try {
+            while (isReady()) {
+                final List<T> batch = poll();
+                if (batch.isEmpty())
+                    break;
+
+                try {
+                    subscriber.accept(Collections.unmodifiableList(batch));
+                } catch (final RuntimeException e) {
+                    final Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+
+        // Values published while the flag was still set
+        schedule();
+    }
+
+    private List<T> poll() {
+        final List<T> batch = new ArrayList<>(batchSize);
+
+        while (batch.size() < batchSize) {
+            final long h = head.get();
+            if (h == tail.get())
+                break;
+
+            final T value = buffer.get(index(h));
+
+            // If the CAS fails the producer has discarded the value, so read the new head
+            if (head.compareAndSet(h, h + 1))
+                batch.add(value);
+        }
+
+        return batch;
+    }
+
+}
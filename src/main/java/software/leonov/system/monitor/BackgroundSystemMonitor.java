@@ -3,50 +3,81 @@ package software.leonov.system.monitor;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import software.leonov.system.monitor.SamplingScheduler.Subscription;
 
 /**
- * A thread-safe {@link SystemMonitor} implementation that asynchronously updates usage metrics using a dedicated
- * background daemon thread.
+ * A thread-safe {@link SystemMonitor} implementation that asynchronously updates usage metrics using a background daemon
+ * thread.
  * <p>
  * The monitor can be instantiated using a {@link #withDefaultUpdateInterval() default} or a
- * {@link #updateEvery(Duration) custom} update interval. The background thread must be explicitly started with the
+ * {@link #updateEvery(Duration) custom} update interval. The monitor must be explicitly started with the
  * {@link #start()} method. To shut down the monitor call {@link #stop()} or {@link #close()}.
+ * <p>
+ * All {@code BackgroundSystemMonitor} instances share a single background thread. Monitors which are due to be updated
+ * at the same time (for example a monitor updated every second and a monitor updated every 5 seconds) are updated from
+ * the same sample, so the underlying platform MXBeans are read only once per tick regardless of the number of monitors.
+ * Listeners are invoked on the shared thread and should return quickly, slow consumers should be registered as
+ * {@link #subscribe(Executor, int, OverflowPolicy, int, Consumer) asynchronous subscribers} instead. A monitor can also
+ * be updated by a {@link #scheduleOn(ScheduledExecutorService) user-supplied executor} or on a thread created by a
+ * {@link #withThreadFactory(ThreadFactory) custom thread factory}, such as a virtual thread factory.
+ * <p>
+ * Updates are scheduled at a fixed rate on an absolute time grid, so the time spent sampling and invoking listeners does
+ * not cause the updates to drift. The update interval can be {@link #setUpdateInterval(Duration) changed} while the
+ * monitor is running.
  *
  * @author Zhenya Leonov
  */
 public final class BackgroundSystemMonitor extends AbstractSystemMonitor {
 
     private static final Duration DEFAULT_UPDATE_INTERVAL = Duration.ofSeconds(1);
+    private static final int      DEFAULT_QUEUE_CAPACITY  = 64;
+
+    private final Object               lock         = new Object();
+    private boolean                    closed       = false; // guarded by lock
+    private volatile SamplingScheduler scheduler    = SamplingScheduler.getSharedInstance();
+    private volatile Subscription      subscription = null;
 
-    private final long updateIntervalMillis;
+    private long                      updateIntervalNanos;     // guarded by lock
+    private long                      maxUpdateIntervalNanos;  // guarded by lock
+    private volatile AdaptiveInterval adaptiveInterval = null; // created by start() if the interval is adaptive
 
-    private final Thread t;
+    private volatile long    idleTimeoutNanos = 0;
+    private volatile boolean suspendable      = false; // set by start()
+    private volatile boolean suspended        = false; // written while holding lock
+    private volatile boolean resumed          = false; // the next update is the first after suspension
+    private volatile long    lastReadTime;
 
     private volatile BiConsumer<CpuUsage, MemoryUsage> updateListener = null;
     private volatile BiConsumer<CpuUsage, MemoryUsage> closeListener  = null;
 
+    private final List<AsyncSubscriber<Snapshot>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile double                        memoryThreshold     = 0;
+    private volatile Consumer<MemoryAlert>         alertListener       = null;
+    private volatile MemoryThresholds.Registration alertRegistration   = null;
+    private boolean                                directMemoryAlerted = false; // accessed only by the updating thread
+
     BackgroundSystemMonitor() {
         this(DEFAULT_UPDATE_INTERVAL);
     }
 
     BackgroundSystemMonitor(final Duration updateInterval) {
-        updateIntervalMillis = updateInterval.toMillis();
-
-        t = new Thread(() -> {
-            try {
-                while (true) {
-                    Thread.sleep(updateIntervalMillis);
-                    updateMetrics();
-                }
-            } catch (final InterruptedException e) {
-                // Thread is terminating, no need to restore interrupt status because it's "our" thread
-            }
-        });
-
-        t.setDaemon(true);
+        this(updateInterval, updateInterval);
+    }
 
+    BackgroundSystemMonitor(final Duration minUpdateInterval, final Duration maxUpdateInterval) {
+        updateIntervalNanos    = minUpdateInterval.toNanos();
+        maxUpdateIntervalNanos = maxUpdateInterval.toNanos();
         super.updateMetrics();
+        clearMetricsView();
     }
 
     /**
@@ -61,7 +92,7 @@ public final class BackgroundSystemMonitor extends AbstractSystemMonitor {
     /**
      * Creates a new {@link BackgroundSystemMonitor} configured with the specified update interval.
      * <p>
-     * The monitor's background thread will update all usage metrics after every {@code updateInterval}.
+     * The background thread will update all usage metrics after every {@code updateInterval}.
      *
      * @param updateInterval the time interval between consecutive metric updates
      * @return a new {@link BackgroundSystemMonitor} configured with the specified update interval
@@ -73,14 +104,188 @@ public final class BackgroundSystemMonitor extends AbstractSystemMonitor {
         return new BackgroundSystemMonitor(updateInterval);
     }
 
+    /**
+     * Creates a new {@link BackgroundSystemMonitor} whose update interval adapts to the activity of the system, between
+     * the specified minimum and maximum intervals.
+     * <p>
+     * The monitor starts at the minimum interval. While the system is quiet the interval doubles on each update until it
+     * reaches the maximum, which reduces the monitoring overhead of idle processes. The interval drops back to the minimum
+     * as soon as the metrics are changing fast (the process or system CPU load moved by 10 percentage points or the used
+     * heap by 10% of the maximum heap size since the previous update) or are near a threshold (the CPU load, the used
+     * heap, or the used direct memory reached 80% of its maximum or of the fraction configured with
+     * {@link #onMemoryThreshold(double, Consumer)}).
+     * <p>
+     * Moving averages and the {@link #keepHistory(int) history} are time-weighted and timestamped, so they remain
+     * accurate when the interval changes.
+     *
+     * @param minUpdateInterval the minimum time interval between consecutive metric updates
+     * @param maxUpdateInterval the maximum time interval between consecutive metric updates
+     * @return a new {@link BackgroundSystemMonitor} configured with an adaptive update interval
+     * @throws IllegalArgumentException if {@code minUpdateInterval} is not positive or {@code maxUpdateInterval} is less
+     *                                  than {@code minUpdateInterval}
+     */
+    public static BackgroundSystemMonitor updateAdaptively(final Duration minUpdateInterval, final Duration maxUpdateInterval) {
+        requireNonNull(minUpdateInterval, "minUpdateInterval == null");
+        requireNonNull(maxUpdateInterval, "maxUpdateInterval == null");
+        if (minUpdateInterval.isNegative() || minUpdateInterval.isZero())
+            throw new IllegalArgumentException("minUpdateInterval <= 0");
+        if (maxUpdateInterval.compareTo(minUpdateInterval) < 0)
+            throw new IllegalArgumentException("maxUpdateInterval < minUpdateInterval");
+        return new BackgroundSystemMonitor(minUpdateInterval, maxUpdateInterval);
+    }
+
     @Override
     public CpuUsage getCpuUsage() {
-        return t.isAlive() ? super.getCpuUsage() : UnsupportedSystemMonitor.getInstance().getCpuUsage();
+        return isRunning() ? super.getCpuUsage() : UnsupportedSystemMonitor.getInstance().getCpuUsage();
     }
 
     @Override
     public MemoryUsage getMemoryUsage() {
-        return t.isAlive() ? super.getMemoryUsage() : UnsupportedSystemMonitor.getInstance().getMemoryUsage();
+        return isRunning() ? super.getMemoryUsage() : UnsupportedSystemMonitor.getInstance().getMemoryUsage();
+    }
+
+    @Override
+    public ContainerUsage getContainerUsage() {
+        return isRunning() ? super.getContainerUsage() : UnsupportedSystemMonitor.getInstance().getContainerUsage();
+    }
+
+    @Override
+    public GcUsage getGcUsage() {
+        return isRunning() ? super.getGcUsage() : UnsupportedSystemMonitor.getInstance().getGcUsage();
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        return isRunning() ? super.getSnapshot() : UnsupportedSystemMonitor.getInstance().getSnapshot();
+    }
+
+    @Override
+    public MetricsView getMetricsView() {
+        // The view reports negative values itself while the monitor is not running
+        isRunning();
+        return super.getMetricsView();
+    }
+
+    private boolean isRunning() {
+        if (suspendable)
+            onRead();
+        final Subscription subscription = this.subscription;
+        return subscription != null && (subscription.isActive() || suspended);
+    }
+
+    private void onRead() {
+        lastReadTime = System.nanoTime();
+        if (suspended)
+            resume();
+    }
+
+    private boolean suspend() {
+        synchronized (lock) {
+            if (closed || suspended)
+                return false;
+            suspended = true;
+            scheduler.unsubscribe(subscription);
+            markStale();
+            return true;
+        }
+    }
+
+    private void resume() {
+        synchronized (lock) {
+            if (closed || !suspended)
+                return;
+            // Sample right away on the scheduler thread rather than make this reader (and every other reader waiting for
+            // the lock) pay for it, until then readers see the stale snapshot taken before the monitor was suspended
+            resumed      = true;
+            subscription = scheduler.subscribe(this::updateMetrics, updateIntervalNanos, true);
+            suspended    = false;
+        }
+    }
+
+    /**
+     * Returns {@code true} if this monitor has been {@link #suspendWhenIdle(Duration) suspended} because it was idle.
+     *
+     * @return {@code true} if this monitor has been suspended because it was idle
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    private void checkNotStarted() {
+        synchronized (lock) {
+            if (subscription != null || closed)
+                throw new IllegalStateException("monitor has already started");
+        }
+    }
+
+    /**
+     * Returns the current update interval. The interval of a monitor created with
+     * {@link #updateAdaptively(Duration, Duration)} changes with the activity of the system.
+     *
+     * @return the current update interval
+     */
+    public Duration getUpdateInterval() {
+        final AdaptiveInterval adaptiveInterval = this.adaptiveInterval;
+        if (adaptiveInterval != null)
+            return Duration.ofNanos(adaptiveInterval.getIntervalNanos());
+        synchronized (lock) {
+            return Duration.ofNanos(updateIntervalNanos);
+        }
+    }
+
+    /**
+     * Changes the update interval of this monitor. If the monitor is running the next update is aligned to the new
+     * interval. If the monitor was created with {@link #updateAdaptively(Duration, Duration)} the interval stops adapting
+     * and remains fixed.
+     *
+     * @param updateInterval the time interval between consecutive metric updates
+     * @throws IllegalArgumentException if {@code updateInterval} is not positive
+     */
+    public void setUpdateInterval(final Duration updateInterval) {
+        requireNonNull(updateInterval, "updateInterval == null");
+        if (updateInterval.isNegative() || updateInterval.isZero())
+            throw new IllegalArgumentException("updateInterval <= 0");
+
+        synchronized (lock) {
+            updateIntervalNanos    = updateInterval.toNanos();
+            maxUpdateIntervalNanos = updateIntervalNanos;
+            adaptiveInterval       = null;
+            if (subscription != null)
+                scheduler.setInterval(subscription, updateIntervalNanos);
+        }
+    }
+
+    /**
+     * Updates this monitor using the specified executor instead of the thread shared by all
+     * {@code BackgroundSystemMonitor}s. Monitors updated by the same executor do not share samples.
+     * <p>
+     * The executor is not shut down when the monitor closes, and must not be shut down while the monitor is running.
+     *
+     * @param executor the specified executor
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalStateException if the monitor has already started
+     */
+    public BackgroundSystemMonitor scheduleOn(final ScheduledExecutorService executor) {
+        requireNonNull(executor, "executor == null");
+        checkNotStarted();
+        this.scheduler = new SamplingScheduler(executor);
+        return this;
+    }
+
+    /**
+     * Updates this monitor on a thread created by the specified thread factory instead of the thread shared by all
+     * {@code BackgroundSystemMonitor}s. For example {@code Thread.ofVirtual().factory()} updates the monitor on a virtual
+     * thread. The thread terminates when the monitor has been idle for a minute.
+     *
+     * @param threadFactory the specified thread factory
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalStateException if the monitor has already started
+     */
+    public BackgroundSystemMonitor withThreadFactory(final ThreadFactory threadFactory) {
+        requireNonNull(threadFactory, "threadFactory == null");
+        checkNotStarted();
+        this.scheduler = new SamplingScheduler(threadFactory);
+        return this;
     }
 
     /**
@@ -92,12 +297,261 @@ public final class BackgroundSystemMonitor extends AbstractSystemMonitor {
      */
     public BackgroundSystemMonitor onUpdate(final BiConsumer<CpuUsage, MemoryUsage> updateListener) {
         requireNonNull(updateListener, "updateListener == null");
-        if (t.getState() != Thread.State.NEW)
-            throw new IllegalStateException("monitor has already started");
+        checkNotStarted();
         this.updateListener = updateListener;
         return this;
     }
 
+    /**
+     * Registers a subscriber which will be invoked on the specified executor with the {@link Snapshot} of each update.
+     * <p>
+     * This method is equivalent to {@link #subscribe(Executor, int, OverflowPolicy, int, Consumer) subscribe(executor,
+     * 64, OverflowPolicy.DROP_OLDEST, 1, ...)}.
+     * 
+     * @param executor   the executor which invokes the subscriber
+     * @param subscriber the specified subscriber
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalStateException if the monitor has already started
+     */
+    public BackgroundSystemMonitor subscribe(final Executor executor, final Consumer<Snapshot> subscriber) {
+        requireNonNull(subscriber, "subscriber == null");
+        return subscribe(executor, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST, 1, batch -> batch.forEach(subscriber));
+    }
+
+    /**
+     * Registers a subscriber which will be invoked on the specified executor with batches of {@code batchSize}
+     * {@link Snapshot}s, in the order of the updates. Any number of subscribers can be registered.
+     * <p>
+     * Unlike {@link #onUpdate(BiConsumer) update listeners}, subscribers do not run on the thread which updates the
+     * monitor. Each subscriber has its own bounded lock-free queue of up to {@code capacity} snapshots. Updating the
+     * monitor only adds the new snapshot to the queue of each subscriber, so the update interval is not affected by slow
+     * subscribers. If a subscriber falls behind and its queue is full the {@code overflowPolicy} determines which snapshots
+     * are discarded.
+     * <p>
+     * The subscriber is invoked once {@code batchSize} snapshots are queued and is never invoked concurrently. When the
+     * monitor {@link #close() closes} the remaining snapshots are delivered as a final, possibly smaller, batch. A
+     * subscriber which throws an exception keeps receiving snapshots.
+     * 
+     * @param executor       the executor which invokes the subscriber
+     * @param capacity       the maximum number of queued snapshots
+     * @param overflowPolicy what to do when the queue is full
+     * @param batchSize      the number of snapshots delivered to each invocation
+     * @param subscriber     the specified subscriber
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalArgumentException if {@code capacity} or {@code batchSize} is not positive, or {@code batchSize} is
+     *                                  greater than {@code capacity}
+     * @throws IllegalStateException    if the monitor has already started
+     */
+    public BackgroundSystemMonitor subscribe(final Executor executor, final int capacity, final OverflowPolicy overflowPolicy, final int batchSize, final Consumer<List<Snapshot>> subscriber) {
+        requireNonNull(executor, "executor == null");
+        requireNonNull(overflowPolicy, "overflowPolicy == null");
+        requireNonNull(subscriber, "subscriber == null");
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity <= 0");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize <= 0");
+        if (batchSize > capacity)
+            throw new IllegalArgumentException("batchSize > capacity");
+        checkNotStarted();
+        subscribers.add(new AsyncSubscriber<>(executor, capacity, overflowPolicy, batchSize, subscriber));
+        return this;
+    }
+
+    /**
+     * Enables a fixed-size {@link MetricsHistory history} which retains the usage metrics collected during the most recent
+     * {@code capacity} updates. For example, a monitor updated every second with a capacity of 3600 retains the last hour
+     * of metrics.
+     * 
+     * @param capacity the maximum number of updates to retain
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     * @throws IllegalStateException    if the monitor has already started
+     */
+    public BackgroundSystemMonitor keepHistory(final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity <= 0");
+        checkNotStarted();
+        this.history = new MetricsHistory(capacity);
+        return this;
+    }
+
+    /**
+     * Returns the {@link MetricsHistory history} of this monitor or {@code null} if it was not enabled with
+     * {@link #keepHistory(int)}.
+     * 
+     * @return the {@link MetricsHistory history} of this monitor or {@code null} if it was not enabled
+     */
+    public MetricsHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Appends the usage metrics collected during every update to the specified {@link MetricsRecorder recording}, which
+     * can be replayed with {@link MetricsRecording}. The recorder is not closed when this monitor is closed.
+     * 
+     * @param recorder the recorder which receives every update
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalStateException if the monitor has already started
+     */
+    public BackgroundSystemMonitor recordTo(final MetricsRecorder recorder) {
+        requireNonNull(recorder, "recorder == null");
+        checkNotStarted();
+        this.recorder = recorder;
+        Sampler.requestAllocatedBytes();
+        return this;
+    }
+
+    /**
+     * Publishes the latest usage metrics after every update to the specified {@link SharedMetricsWriter shared memory
+     * file}, where any local process can read them with a {@link SharedMetricsReader}. The writer is not closed when this
+     * monitor is closed.
+     * 
+     * @param writer the writer which receives every update
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalStateException if the monitor has already started
+     */
+    public BackgroundSystemMonitor publishTo(final SharedMetricsWriter writer) {
+        requireNonNull(writer, "writer == null");
+        checkNotStarted();
+        this.sharedMetrics = writer;
+        Sampler.requestAllocatedBytes();
+        return this;
+    }
+
+    /**
+     * Enables a report of the {@code n} threads which used the most CPU time during each update interval, available from
+     * {@link Snapshot#getTopThreads()}. Useful to find runaway threads or thread pools without attaching a profiler.
+     * <p>
+     * Each update reads the CPU time of every live thread from the {@code ThreadMXBean}, but only the names of the
+     * reported threads.
+     * 
+     * @param n the number of threads to report
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalArgumentException if {@code n} is not positive
+     * @throws IllegalStateException    if the monitor has already started
+     */
+    public BackgroundSystemMonitor trackTopThreads(final int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n <= 0");
+        checkNotStarted();
+        this.topThreads = new TopThreadsTracker(n, Sampler.THREAD_BEAN);
+        return this;
+    }
+
+    /**
+     * Enables a report of the {@code n} threads which allocated the most heap memory during each update interval,
+     * available from {@link Snapshot#getTopAllocators()}. Useful to find the source of a high
+     * {@link MemoryUsage#getAllocationRate() allocation rate}.
+     * <p>
+     * Each update reads the allocated bytes of every live thread from the {@code ThreadMXBean} with a single bulk call,
+     * shared with {@link #trackTopThreads(int)} if both reports are enabled, but only the names of the reported threads.
+     * 
+     * @param n the number of threads to report
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalArgumentException if {@code n} is not positive
+     * @throws IllegalStateException    if the monitor has already started
+     */
+    public BackgroundSystemMonitor trackTopAllocators(final int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n <= 0");
+        checkNotStarted();
+        this.topAllocators = new TopThreadsTracker(n, Sampler.THREAD_BEAN, true);
+        Sampler.requestAllocatedBytes();
+        return this;
+    }
+
+    /**
+     * Sets the horizons of the CPU moving averages reported by {@link CpuUsage#getMovingAverageProcessCpuLoad(Duration)},
+     * {@link CpuUsage#getMovingAverageSystemCpuLoad(Duration)}, {@link CpuUsage#getExponentialAverageProcessCpuLoad(Duration)},
+     * and {@link CpuUsage#getExponentialAverageSystemCpuLoad(Duration)}. The default horizons are 1, 5, and 15 minutes.
+     * <p>
+     * Maintaining each average takes constant time per update regardless of the length of its horizon.
+     * 
+     * @param horizons the specified horizons
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalArgumentException if any horizon is not positive
+     * @throws IllegalStateException    if the monitor has already started
+     */
+    public BackgroundSystemMonitor averageOver(final Duration... horizons) {
+        requireNonNull(horizons, "horizons == null");
+        for (final Duration horizon : horizons) {
+            requireNonNull(horizon, "horizon == null");
+            if (horizon.isNegative() || horizon.isZero())
+                throw new IllegalArgumentException("horizon <= 0");
+        }
+        checkNotStarted();
+        setAverageHorizons(horizons);
+        return this;
+    }
+
+    /**
+     * Registers a listener which will be invoked when the memory usage of the old generation (or any other heap memory
+     * pool which supports usage thresholds) or of direct buffers crosses the specified fraction (0.0 to 1.0] of its
+     * maximum size.
+     * <p>
+     * Heap alerts are event-driven: the usage and collection usage thresholds of the heap memory pools are armed while
+     * the monitor is running, and the listener is invoked from the JVM's notification thread as soon as the JVM detects
+     * that a threshold was crossed, independently of the update interval. Memory pool thresholds are process-wide, arming
+     * them replaces any thresholds set by other code. If several monitors register alerts the lowest fraction is armed and
+     * each listener is invoked only when its own fraction has been reached. A listener is invoked again once the usage
+     * after a garbage collection has dropped below its fraction, which is checked on each update.
+     * <p>
+     * The JVM does not support thresholds on direct buffers. Direct memory alerts are raised on the first update after the
+     * {@link MemoryUsage#getDirectMemoryUsed() direct memory used} crosses the fraction of the
+     * {@link MemoryUsage#getDirectMemoryLimit() direct memory limit}, and once again only after it has dropped below it.
+     * <p>
+     * The listener should return quickly.
+     * 
+     * @param fraction      the fraction (0.0 to 1.0] of the maximum size of a memory pool
+     * @param alertListener the specified listener
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalArgumentException if {@code fraction} is not positive or is greater than 1
+     * @throws IllegalStateException    if the monitor has already started or a memory threshold listener has already been
+     *                                  set
+     */
+    public BackgroundSystemMonitor onMemoryThreshold(final double fraction, final Consumer<MemoryAlert> alertListener) {
+        requireNonNull(alertListener, "alertListener == null");
+        if (!(fraction > 0 && fraction <= 1))
+            throw new IllegalArgumentException("fraction <= 0 || fraction > 1");
+        checkNotStarted();
+        if (this.alertListener != null)
+            throw new IllegalStateException("memory threshold listener has already been set");
+        this.memoryThreshold = fraction;
+        this.alertListener   = alertListener;
+        return this;
+    }
+
+    /**
+     * Suspends the monitor when none of its metrics have been read for the specified idle timeout, and resumes it
+     * transparently on the next read. A suspended monitor does not take any samples, which eliminates the monitoring
+     * overhead of processes whose metrics are rarely read.
+     * <p>
+     * While the monitor is suspended the getters return the last {@link Snapshot} taken before it was suspended, marked as
+     * {@link Snapshot#isStale() stale}. The first read after the idle timeout resumes the monitor: it schedules an
+     * immediate update on the sampling thread and returns the stale snapshot without waiting for it. The snapshot published
+     * by that update is also stale, since its rates are averaged over the suspended period. The snapshots published by the
+     * following updates are fresh.
+     * <p>
+     * Only calls to {@link #getCpuUsage()}, {@link #getMemoryUsage()}, {@link #getContainerUsage()},
+     * {@link #getGcUsage()}, {@link #getSnapshot()}, and {@link #getMetricsView()} count as reads, reading a previously
+     * returned {@link MetricsView} does not. A monitor is never suspended if it has update listeners, asynchronous
+     * subscribers, memory threshold listeners, a {@link #keepHistory(int) history}, a {@link #recordTo(MetricsRecorder)
+     * recorder}, or a {@link #publishTo(SharedMetricsWriter) shared memory file}, since they consume every update.
+     * 
+     * @param idleTimeout the time without reads after which the monitor is suspended
+     * @return this {@link BackgroundSystemMonitor} instance
+     * @throws IllegalArgumentException if {@code idleTimeout} is not positive
+     * @throws IllegalStateException    if the monitor has already started
+     */
+    public BackgroundSystemMonitor suspendWhenIdle(final Duration idleTimeout) {
+        requireNonNull(idleTimeout, "idleTimeout == null");
+        if (idleTimeout.isNegative() || idleTimeout.isZero())
+            throw new IllegalArgumentException("idleTimeout <= 0");
+        checkNotStarted();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        return this;
+    }
+
     /**
      * Registers a listener which will be invoked when this monitor {@link #close() closes}.
      * 
@@ -107,35 +561,102 @@ public final class BackgroundSystemMonitor extends AbstractSystemMonitor {
      */
     public BackgroundSystemMonitor onClose(final BiConsumer<CpuUsage, MemoryUsage> closeListener) {
         requireNonNull(closeListener, "closeListener == null");
-        if (t.getState() != Thread.State.NEW)
-            throw new IllegalStateException("monitor has already started");
+        checkNotStarted();
         this.closeListener = closeListener;
         return this;
     }
 
     @Override
-    protected void updateMetrics() {
-        super.updateMetrics();
-        if (updateListener != null)
-            updateListener.accept(getCpuUsage(), getMemoryUsage());
+    void updateMetrics(final Sample sample) {
+        if (suspendable && sample.time - lastReadTime > idleTimeoutNanos && suspend())
+            return;
+        if (resumed) {
+            // The rates of the first update after suspension are averaged over the suspended period
+            resumed = false;
+            super.updateMetrics(sample, true);
+        } else
+            super.updateMetrics(sample);
+        if (alertListener != null) {
+            checkDirectMemory(super.getMemoryUsage(), sample.timestamp);
+            MemoryThresholds.getSharedInstance().poll();
+        }
+        adapt(sample);
+        if (!subscribers.isEmpty()) {
+            final Snapshot snapshot = super.getSnapshot();
+            for (final AsyncSubscriber<Snapshot> subscriber : subscribers)
+                subscriber.offer(snapshot);
+        }
+        if (updateListener != null) {
+            final Snapshot snapshot = getSnapshot();
+            updateListener.accept(snapshot.getCpuUsage(), snapshot.getMemoryUsage());
+        }
+    }
+
+    private void adapt(final Sample sample) {
+        final AdaptiveInterval adaptiveInterval = this.adaptiveInterval;
+        if (adaptiveInterval == null)
+            return;
+
+        // Without the OS process CPU load (see Sampler) the load computed from the CPU time of all threads is used
+        final double processCpuLoad = sample.processCpuLoad >= 0 ? sample.processCpuLoad : super.getCpuUsage().getProcessCpuLoad() / 100.0;
+        final long   intervalNanos  = adaptiveInterval.update(processCpuLoad, sample.systemCpuLoad, sample.usedMemory, sample.memoryPools.directMemoryUsed, sample.memoryPools.directMemoryLimit);
+
+        synchronized (lock) {
+            // Unless the interval was fixed by setUpdateInterval in the meantime
+            if (this.adaptiveInterval == adaptiveInterval && subscription != null)
+                scheduler.setInterval(subscription, intervalNanos);
+        }
+    }
+
+    private void checkDirectMemory(final MemoryUsage memory, final long timestamp) {
+        final long used  = memory.getDirectMemoryUsed();
+        final long limit = memory.getDirectMemoryLimit();
+
+        if (used < 0 || limit <= 0)
+            return;
+
+        final long threshold = (long) (memoryThreshold * limit);
+
+        if (used < threshold)
+            directMemoryAlerted = false;
+        else if (!directMemoryAlerted) {
+            directMemoryAlerted = true;
+            alertListener.accept(new MemoryAlertImpl(MemoryAlert.Type.DIRECT_MEMORY_THRESHOLD_EXCEEDED, "direct", used, limit, threshold, timestamp));
+        }
     }
 
     /**
-     * Starts this monitor's background thread.
+     * Starts this monitor. Calling this method on a monitor which is already running has no effect.
      * 
      * @return this monitor instance
+     * @throws IllegalStateException if the monitor has been closed
      */
     public BackgroundSystemMonitor start() {
-        if (!t.isAlive()) {
-            t.start();
-            if (updateListener != null)
-                updateListener.accept(getCpuUsage(), getMemoryUsage());
+        synchronized (lock) {
+            if (closed)
+                throw new IllegalStateException("monitor has been closed");
+            if (subscription != null)
+                return this;
+            if (maxUpdateIntervalNanos > updateIntervalNanos) {
+                final long maxMemory = Runtime.getRuntime().maxMemory();
+                adaptiveInterval = new AdaptiveInterval(updateIntervalNanos, maxUpdateIntervalNanos, maxMemory == Long.MAX_VALUE ? -1 : maxMemory, alertListener == null ? 1.0 : memoryThreshold);
+            }
+            lastReadTime = System.nanoTime();
+            suspendable  = idleTimeoutNanos > 0 && updateListener == null && subscribers.isEmpty() && alertListener == null && history == null && recorder == null && sharedMetrics == null;
+            subscription = scheduler.subscribe(this::updateMetrics, updateIntervalNanos);
+            restoreMetricsView();
+            if (alertListener != null)
+                alertRegistration = MemoryThresholds.getSharedInstance().register(memoryThreshold, alertListener);
         }
+
+        if (updateListener != null)
+            updateListener.accept(getCpuUsage(), getMemoryUsage());
+
         return this;
     }
 
     /**
-     * Stops this monitor's background thread and waits for it to finish running.
+     * Stops this monitor and waits for an in-progress update to finish.
      * <p>
      * This method delegates to {@link #close()}.
      */
@@ -144,17 +665,30 @@ public final class BackgroundSystemMonitor extends AbstractSystemMonitor {
     }
 
     /**
-     * Stops this monitor's background thread and waits for it to finish running.
+     * Stops this monitor and waits for an in-progress update to finish.
      */
     @Override
     public void close() {
-        t.interrupt();
+        final Subscription                  subscription;
+        final MemoryThresholds.Registration alertRegistration;
+
+        synchronized (lock) {
+            closed                 = true;
+            suspended              = false;
+            subscription           = this.subscription;
+            alertRegistration      = this.alertRegistration;
+            this.alertRegistration = null;
+        }
 
         try {
-            t.join();
-        } catch (final InterruptedException e) {
-            Thread.currentThread().interrupt();
+            if (alertRegistration != null)
+                MemoryThresholds.getSharedInstance().unregister(alertRegistration);
+            if (subscription != null)
+                scheduler.unsubscribe(subscription);
         } finally {
+            clearMetricsView();
+            for (final AsyncSubscriber<Snapshot> subscriber : subscribers)
+                subscriber.close();
             if (closeListener != null)
                 closeListener.accept(super.getCpuUsage(), super.getMemoryUsage());
         }
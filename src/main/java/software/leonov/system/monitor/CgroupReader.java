@@ -0,0 +1,344 @@
+package software.leonov.system.monitor;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the CPU and memory accounting of the control group (cgroup) of this process on Linux, supporting both cgroup v1
+ * and cgroup v2 (unified) hierarchies.
+ * <p>
+ * The cgroup of this process is located once using {@code /proc/self/cgroup} and {@code /proc/self/mountinfo}. The
+ * accounting files are kept open and re-read on every {@link #update()} with positional reads into a single reused
+ * buffer, in the same way as {@link ProcStatReader}.
+ * <p>
+ * All values are cumulative or instantaneous raw readings, monitors compute rates from the difference between two
+ * updates. Values which are unavailable or unlimited are reported as -1.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class CgroupReader implements AutoCloseable {
+
+    private static final byte[] NR_PERIODS     = "nr_periods".getBytes(US_ASCII);
+    private static final byte[] NR_THROTTLED   = "nr_throttled".getBytes(US_ASCII);
+    private static final byte[] THROTTLED_TIME = "throttled_time".getBytes(US_ASCII); // v1, nanoseconds
+    private static final byte[] THROTTLED_USEC = "throttled_usec".getBytes(US_ASCII); // v2, microseconds
+    private static final byte[] USAGE_USEC     = "usage_usec".getBytes(US_ASCII);     // v2, microseconds
+
+    // cgroup v1 reports "no limit" as the largest multiple of the page size
+    private static final long V1_UNLIMITED = 1L << 62;
+
+    private final boolean v2;
+
+    // Any of these may be null if the corresponding controller is not available
+    private final FileChannel cpuQuota;  // v1 cpu.cfs_quota_us, v2 cpu.max
+    private final FileChannel cpuPeriod; // v1 cpu.cfs_period_us
+    private final FileChannel cpuStat;   // cpu.stat
+    private final FileChannel cpuUsage;  // v1 cpuacct.usage
+    private final FileChannel memoryUsage;
+    private final FileChannel memoryLimit;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+    private long   cpuTime          = -1;
+    private double cpuLimit         = -1.0;
+    private long   periods          = -1;
+    private long   throttledPeriods = -1;
+    private long   throttledTime    = -1;
+    private long   usedMemory       = -1;
+    private long   memoryLimitBytes = -1;
+
+    private CgroupReader(final boolean v2, final Path cpu, final Path cpuacct, final Path memory) {
+        this.v2 = v2;
+
+        cpuQuota    = cpu == null ? null : ProcFiles.open(cpu.resolve(v2 ? "cpu.max" : "cpu.cfs_quota_us"));
+        cpuPeriod   = cpu == null || v2 ? null : ProcFiles.open(cpu.resolve("cpu.cfs_period_us"));
+        cpuStat     = cpu == null ? null : ProcFiles.open(cpu.resolve("cpu.stat"));
+        cpuUsage    = cpuacct == null || v2 ? null : ProcFiles.open(cpuacct.resolve("cpuacct.usage"));
+        memoryUsage = memory == null ? null : ProcFiles.open(memory.resolve(v2 ? "memory.current" : "memory.usage_in_bytes"));
+        memoryLimit = memory == null ? null : ProcFiles.open(memory.resolve(v2 ? "memory.max" : "memory.limit_in_bytes"));
+    }
+
+    /**
+     * Returns a new {@code CgroupReader} for this process or {@code null} if this process does not belong to a cgroup with
+     * CPU or memory accounting.
+     *
+     * @return a new {@code CgroupReader} for this process or {@code null}
+     */
+    static CgroupReader open() {
+        if (!System.getProperty("os.name", "").startsWith("Linux"))
+            return null;
+
+        return open(Paths.get("/proc/self/cgroup"), Paths.get("/proc/self/mountinfo"));
+    }
+
+    /**
+     * Returns a new {@code CgroupReader} for the process described by the specified {@code /proc/[pid]/cgroup} and
+     * {@code /proc/[pid]/mountinfo} files or {@code null} if the process does not belong to a cgroup with CPU or memory
+     * accounting.
+     *
+     * @param cgroupFile    the {@code /proc/[pid]/cgroup} file
+     * @param mountinfoFile the {@code /proc/[pid]/mountinfo} file
+     * @return a new {@code CgroupReader} or {@code null}
+     */
+    static CgroupReader open(final Path cgroupFile, final Path mountinfoFile) {
+        final List<String> cgroups;
+        final List<String> mounts;
+
+        try {
+            cgroups = Files.readAllLines(cgroupFile, US_ASCII);
+            mounts  = Files.readAllLines(mountinfoFile, US_ASCII);
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+
+        // Controller name (or "" for the unified hierarchy) -> cgroup path
+        final Map<String, String> paths = new HashMap<>();
+        for (final String line : cgroups) {
+            final String[] fields = line.split(":", 3);
+            if (fields.length == 3)
+                for (final String controller : fields[1].split(","))
+                    paths.put(controller, fields[2]);
+        }
+
+        Path cpu     = null;
+        Path cpuacct = null;
+        Path memory  = null;
+        Path unified = null;
+
+        for (final String line : mounts) {
+            // id parent major:minor root mount-point options [optional fields] - type source super-options
+            final String[] fields    = line.split(" ");
+            final int      separator = Arrays.asList(fields).indexOf("-");
+
+            if (separator < 5 || separator + 3 >= fields.length)
+                continue;
+
+            final String root  = fields[3];
+            final String point = fields[4];
+            final String type  = fields[separator + 1];
+
+            if (type.equals("cgroup2") && paths.containsKey(""))
+                unified = resolve(point, root, paths.get(""));
+            else if (type.equals("cgroup"))
+                for (final String option : fields[separator + 3].split(","))
+                    if (paths.containsKey(option))
+                        switch (option) {
+                        case "cpu":
+                            cpu = resolve(point, root, paths.get(option));
+                            break;
+                        case "cpuacct":
+                            cpuacct = resolve(point, root, paths.get(option));
+                            break;
+                        case "memory":
+                            memory = resolve(point, root, paths.get(option));
+                            break;
+                        }
+        }
+
+        final CgroupReader reader;
+
+        // In hybrid mode the v1 controllers take precedence, as the unified hierarchy does not have any controllers
+        if (cpu != null || memory != null)
+            reader = new CgroupReader(false, cpu, cpuacct, memory);
+        else if (unified != null)
+            reader = new CgroupReader(true, unified, null, unified);
+        else
+            return null;
+
+        if (reader.update())
+            return reader;
+
+        reader.close();
+        return null;
+    }
+
+    private static Path resolve(final String mountPoint, final String root, final String path) {
+        final String relative;
+
+        if (root.equals("/"))
+            relative = path;
+        else if (path.startsWith(root))
+            relative = path.substring(root.length());
+        else // The cgroup is outside of the mounted subtree, as seen from inside a container
+            relative = "";
+
+        final Path directory = Paths.get(mountPoint, relative);
+
+        // In containers without a cgroup namespace the path may refer to the host hierarchy
+        return Files.isDirectory(directory) ? directory : Paths.get(mountPoint);
+    }
+
+    /**
+     * Re-reads the cgroup accounting files.
+     *
+     * @return {@code false} if none of the accounting files could be read
+     */
+    boolean update() {
+        if (v2) {
+            cpuLimit = readCpuMax();
+            readCpuStat(1000, USAGE_USEC, THROTTLED_USEC);
+        } else {
+            final long quota  = ProcFiles.readLong(cpuQuota, buffer);
+            final long period = ProcFiles.readLong(cpuPeriod, buffer);
+
+            cpuLimit = quota > 0 && period > 0 ? (double) quota / period : -1.0;
+            readCpuStat(1, null, THROTTLED_TIME);
+            cpuTime = ProcFiles.readLong(cpuUsage, buffer);
+        }
+
+        usedMemory = ProcFiles.readLong(memoryUsage, buffer);
+
+        final long limit = ProcFiles.readLong(memoryLimit, buffer);
+        memoryLimitBytes = !v2 && limit >= V1_UNLIMITED ? -1 : limit;
+
+        return cpuTime >= 0 || periods >= 0 || usedMemory >= 0;
+    }
+
+    // cpu.max is "$MAX $PERIOD" where $MAX is "max" if there is no limit
+    private double readCpuMax() {
+        if (cpuQuota == null)
+            return -1.0;
+
+        try {
+            ProcFiles.read(cpuQuota, buffer);
+        } catch (final IOException e) {
+            return -1.0;
+        }
+
+        final long quota = ProcFiles.parseLong(buffer);
+        if (quota <= 0)
+            return -1.0;
+
+        final long period = ProcFiles.parseLong(buffer);
+        return period > 0 ? (double) quota / period : -1.0;
+    }
+
+    private void readCpuStat(final long nanosPerUnit, final byte[] usageKey, final byte[] throttledKey) {
+        periods          = -1;
+        throttledPeriods = -1;
+        throttledTime    = -1;
+
+        if (v2)
+            cpuTime = -1;
+
+        if (cpuStat == null)
+            return;
+
+        try {
+            ProcFiles.read(cpuStat, buffer);
+        } catch (final IOException e) {
+            return;
+        }
+
+        if (usageKey != null && ProcFiles.findKey(buffer, usageKey))
+            cpuTime = multiply(ProcFiles.parseLong(buffer), nanosPerUnit);
+
+        if (ProcFiles.findKey(buffer, NR_PERIODS))
+            periods = ProcFiles.parseLong(buffer);
+
+        if (ProcFiles.findKey(buffer, NR_THROTTLED))
+            throttledPeriods = ProcFiles.parseLong(buffer);
+
+        if (ProcFiles.findKey(buffer, throttledKey))
+            throttledTime = multiply(ProcFiles.parseLong(buffer), nanosPerUnit);
+    }
+
+    private static long multiply(final long value, final long factor) {
+        return value < 0 ? -1 : value * factor;
+    }
+
+    /**
+     * Returns {@code true} if this process belongs to a cgroup v2 (unified) hierarchy.
+     *
+     * @return {@code true} if this process belongs to a cgroup v2 (unified) hierarchy
+     */
+    boolean isV2() {
+        return v2;
+    }
+
+    /**
+     * Returns the total CPU time (in nanoseconds) consumed by all tasks in the cgroup or -1 if it is unavailable.
+     *
+     * @return the total CPU time (in nanoseconds) consumed by all tasks in the cgroup or -1 if it is unavailable
+     */
+    long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * Returns the CFS quota expressed in CPUs (quota divided by period) or -1.0 if there is no quota.
+     *
+     * @return the CFS quota expressed in CPUs or -1.0 if there is no quota
+     */
+    double getCpuLimit() {
+        return cpuLimit;
+    }
+
+    /**
+     * Returns the number of elapsed CFS enforcement periods or -1 if it is unavailable.
+     *
+     * @return the number of elapsed CFS enforcement periods or -1 if it is unavailable
+     */
+    long getPeriods() {
+        return periods;
+    }
+
+    /**
+     * Returns the number of CFS enforcement periods in which the cgroup was throttled or -1 if it is unavailable.
+     *
+     * @return the number of CFS enforcement periods in which the cgroup was throttled or -1 if it is unavailable
+     */
+    long getThrottledPeriods() {
+        return throttledPeriods;
+    }
+
+    /**
+     * Returns the total time (in nanoseconds) the cgroup was throttled or -1 if it is unavailable.
+     *
+     * @return the total time (in nanoseconds) the cgroup was throttled or -1 if it is unavailable
+     */
+    long getThrottledTime() {
+        return throttledTime;
+    }
+
+    /**
+     * Returns the memory (in bytes) currently used by the cgroup or -1 if it is unavailable.
+     *
+     * @return the memory (in bytes) currently used by the cgroup or -1 if it is unavailable
+     */
+    long getUsedMemory() {
+        return usedMemory;
+    }
+
+    /**
+     * Returns the memory limit (in bytes) of the cgroup or -1 if there is no limit.
+     *
+     * @return the memory limit (in bytes) of the cgroup or -1 if there is no limit
+     */
+    long getMemoryLimit() {
+        return memoryLimitBytes;
+    }
+
+    @Override
+    public void close() {
+        ProcFiles.closeQuietly(cpuQuota);
+        ProcFiles.closeQuietly(cpuPeriod);
+        ProcFiles.closeQuietly(cpuStat);
+        ProcFiles.closeQuietly(cpuUsage);
+        ProcFiles.closeQuietly(memoryUsage);
+        ProcFiles.closeQuietly(memoryLimit);
+    }
+
+}
@@ -0,0 +1,77 @@
+package software.leonov.system.monitor;
+
+/**
+ * The CPU and memory usage metrics of the Linux control group (cgroup) the JVM is running in, for example a Docker or
+ * Kubernetes container.
+ * <p>
+ * Inside a container {@link SystemMonitor#getAvailableProcessors()} and {@link CpuUsage#getSystemCpuLoad()} can be
+ * misleading: the container may be limited to a fraction of the host CPUs by a CFS quota, and is throttled (not allowed
+ * to run until the next enforcement period) once it exhausts its quota. These metrics report the usage against the
+ * container's own limits. Both cgroup v1 and cgroup v2 are supported.
+ *
+ * @author Zhenya Leonov
+ * @see SystemMonitor#isContainerUsageSupported()
+ */
+public interface ContainerUsage {
+
+    /**
+     * Returns the CPU quota of the container expressed as a number of CPUs (for example 1.5) or -1.0 if the container
+     * does not have a CPU quota or the information is unavailable.
+     *
+     * @return the CPU quota of the container expressed as a number of CPUs or -1.0 if the container does not have a CPU
+     *         quota or the information is unavailable
+     */
+    public double getCpuLimit();
+
+    /**
+     * Returns the CPU usage of the container (0.0 to 100.0) since the previous update, relative to its
+     * {@link #getCpuLimit() CPU quota}, or to all {@link SystemMonitor#getAvailableProcessors() available processors} if it
+     * does not have a quota, or -1.0 if it is not supported or not ready.
+     *
+     * @return the CPU usage of the container since the previous update or -1.0 if it is not supported or not ready
+     */
+    public double getCpuLoad();
+
+    /**
+     * Returns the percentage (0.0 to 100.0) of CFS enforcement periods since the previous update in which the container
+     * was throttled or -1.0 if it is not supported or not ready.
+     *
+     * @return the percentage of CFS enforcement periods since the previous update in which the container was throttled or
+     *         -1.0 if it is not supported or not ready
+     */
+    public double getThrottledPercentage();
+
+    /**
+     * Returns the total number of CFS enforcement periods in which the container was throttled or -1 if the information
+     * is unavailable.
+     *
+     * @return the total number of CFS enforcement periods in which the container was throttled or -1 if the information
+     *         is unavailable
+     */
+    public long getThrottledPeriods();
+
+    /**
+     * Returns the total time (in nanoseconds) the container was throttled or -1 if the information is unavailable.
+     *
+     * @return the total time (in nanoseconds) the container was throttled or -1 if the information is unavailable
+     */
+    public long getThrottledTime();
+
+    /**
+     * Returns the amount of memory (in bytes) currently used by the container, including memory used by the operating
+     * system on its behalf such as the page cache, or -1 if the information is unavailable.
+     *
+     * @return the amount of memory (in bytes) currently used by the container or -1 if the information is unavailable
+     */
+    public long getUsedMemory();
+
+    /**
+     * Returns the memory limit (in bytes) of the container or -1 if the container does not have a memory limit or the
+     * information is unavailable.
+     *
+     * @return the memory limit (in bytes) of the container or -1 if the container does not have a memory limit or the
+     *         information is unavailable
+     */
+    public long getMemoryLimit();
+
+}
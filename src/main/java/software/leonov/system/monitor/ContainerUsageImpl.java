@@ -0,0 +1,80 @@
+package software.leonov.system.monitor;
+
+import static software.leonov.system.monitor.util.Formatter.formatDecimalBytes;
+import static software.leonov.system.monitor.util.Formatter.formatPercent;
+
+/**
+ * An implementation of the {@link ContainerUsage} interface.
+ * 
+ * @author Zhenya Leonov
+ */
+final class ContainerUsageImpl implements ContainerUsage {
+
+    private final double cpuLimit;
+    private final double cpuLoad;
+    private final double throttledPercentage;
+    private final long   throttledPeriods;
+    private final long   throttledTime;
+    private final long   usedMemory;
+    private final long   memoryLimit;
+
+    ContainerUsageImpl(final double cpuLimit, final double cpuLoad, final double throttledPercentage, final long throttledPeriods, final long throttledTime, final long usedMemory, final long memoryLimit) {
+        this.cpuLimit            = cpuLimit;
+        this.cpuLoad             = cpuLoad;
+        this.throttledPercentage = throttledPercentage;
+        this.throttledPeriods    = throttledPeriods;
+        this.throttledTime       = throttledTime;
+        this.usedMemory          = usedMemory;
+        this.memoryLimit         = memoryLimit;
+    }
+
+    @Override
+    public double getCpuLimit() {
+        return cpuLimit;
+    }
+
+    @Override
+    public double getCpuLoad() {
+        return cpuLoad;
+    }
+
+    @Override
+    public double getThrottledPercentage() {
+        return throttledPercentage;
+    }
+
+    @Override
+    public long getThrottledPeriods() {
+        return throttledPeriods;
+    }
+
+    @Override
+    public long getThrottledTime() {
+        return throttledTime;
+    }
+
+    @Override
+    public long getUsedMemory() {
+        return usedMemory;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    @Override
+    public String toString() {
+        // @formatter:off
+        return String.format("[cpuLimit=%s, cpuLoad=%s, throttledPercentage=%s, throttledPeriods=%d, throttledTime=%d, usedMemory=%s, memoryLimit=%s]",
+                      cpuLimit,
+                      formatPercent(cpuLoad),
+                      formatPercent(throttledPercentage),
+                      throttledPeriods,
+                      throttledTime,
+                      formatDecimalBytes(usedMemory),
+                      formatDecimalBytes(memoryLimit));
+        // @formatter:on
+    }
+
+}
@@ -1,6 +1,7 @@
 package software.leonov.system.monitor;
 
 import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
 
 /**
  * The Central Processing Unit (CPU) usage metrics.
@@ -47,6 +48,72 @@ public interface CpuUsage {
      */
     public double getAverageSystemCpuLoad();
 
+    /**
+     * Returns the average JVM process CPU usage over the specified sliding time window (for example the last 5 minutes) or
+     * -1.0 if it is not supported, not ready, or the monitor does not track the specified window.
+     * <p>
+     * Unless otherwise configured, monitors track windows of 1, 5, and 15 minutes.
+     * <p>
+     * The default implementation returns -1.0.
+     * 
+     * @param horizon the length of the time window
+     * @return the average JVM process CPU usage over the specified time window or -1.0 if it is not supported, not ready,
+     *         or the monitor does not track the specified window
+     */
+    public default double getMovingAverageProcessCpuLoad(final Duration horizon) {
+        return -1.0;
+    }
+
+    /**
+     * Returns the average system-wide CPU usage over the specified sliding time window (for example the last 5 minutes) or
+     * -1.0 if it is not supported, not ready, or the monitor does not track the specified window.
+     * <p>
+     * Unless otherwise configured, monitors track windows of 1, 5, and 15 minutes.
+     * <p>
+     * The default implementation returns -1.0.
+     * 
+     * @param horizon the length of the time window
+     * @return the average system-wide CPU usage over the specified time window or -1.0 if it is not supported, not ready,
+     *         or the monitor does not track the specified window
+     */
+    public default double getMovingAverageSystemCpuLoad(final Duration horizon) {
+        return -1.0;
+    }
+
+    /**
+     * Returns the exponentially weighted moving average of the JVM process CPU usage with the specified time constant or
+     * -1.0 if it is not supported, not ready, or the monitor does not track the specified time constant. This is the same
+     * kind of average as the Unix 1, 5, and 15 minute system load averages.
+     * <p>
+     * Unless otherwise configured, monitors track time constants of 1, 5, and 15 minutes.
+     * <p>
+     * The default implementation returns -1.0.
+     * 
+     * @param horizon the time constant of the average
+     * @return the exponentially weighted moving average of the JVM process CPU usage or -1.0 if it is not supported, not
+     *         ready, or the monitor does not track the specified time constant
+     */
+    public default double getExponentialAverageProcessCpuLoad(final Duration horizon) {
+        return -1.0;
+    }
+
+    /**
+     * Returns the exponentially weighted moving average of the system-wide CPU usage with the specified time constant or
+     * -1.0 if it is not supported, not ready, or the monitor does not track the specified time constant. This is the same
+     * kind of average as the Unix 1, 5, and 15 minute system load averages.
+     * <p>
+     * Unless otherwise configured, monitors track time constants of 1, 5, and 15 minutes.
+     * <p>
+     * The default implementation returns -1.0.
+     * 
+     * @param horizon the time constant of the average
+     * @return the exponentially weighted moving average of the system-wide CPU usage or -1.0 if it is not supported, not
+     *         ready, or the monitor does not track the specified time constant
+     */
+    public default double getExponentialAverageSystemCpuLoad(final Duration horizon) {
+        return -1.0;
+    }
+
     /**
      * Returns the maximum observed JVM process CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready.
      *
@@ -61,4 +128,58 @@ public interface CpuUsage {
      */
     public double getMaxSystemCpuLoad();
 
+    /**
+     * Returns the JVM process CPU usage at the specified percentile (0.0 to 100.0) of the values observed during the last 5
+     * to 10 minutes or -1.0 if it is not supported or not ready. For example {@code getProcessCpuLoadPercentile(99)} returns
+     * the 99th percentile.
+     * <p>
+     * The default implementation returns the specified percentile of {@link #getProcessCpuLoadHistogram()}.
+     *
+     * @param percentile the specified percentile
+     * @return the JVM process CPU usage at the specified percentile or -1.0 if it is not supported or not ready
+     * @throws IllegalArgumentException if the percentile is less than 0.0 or greater than 100.0
+     */
+    public default double getProcessCpuLoadPercentile(final double percentile) {
+        return getProcessCpuLoadHistogram().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Returns the system-wide CPU usage at the specified percentile (0.0 to 100.0) of the values observed during the last 5
+     * to 10 minutes or -1.0 if it is not supported or not ready. For example {@code getSystemCpuLoadPercentile(99)} returns
+     * the 99th percentile.
+     * <p>
+     * The default implementation returns the specified percentile of {@link #getSystemCpuLoadHistogram()}.
+     *
+     * @param percentile the specified percentile
+     * @return the system-wide CPU usage at the specified percentile or -1.0 if it is not supported or not ready
+     * @throws IllegalArgumentException if the percentile is less than 0.0 or greater than 100.0
+     */
+    public default double getSystemCpuLoadPercentile(final double percentile) {
+        return getSystemCpuLoadHistogram().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Returns the {@link Histogram} of the JVM process CPU usage values observed during the last 5 to 10 minutes. The
+     * histogram is empty if the JVM process CPU usage is not supported or not ready.
+     * <p>
+     * The default implementation returns an empty histogram.
+     *
+     * @return the {@link Histogram} of the recently observed JVM process CPU usage values
+     */
+    public default Histogram getProcessCpuLoadHistogram() {
+        return Histogram.EMPTY_CPU_USAGE;
+    }
+
+    /**
+     * Returns the {@link Histogram} of the system-wide CPU usage values observed during the last 5 to 10 minutes. The
+     * histogram is empty if the system-wide CPU usage is not supported or not ready.
+     * <p>
+     * The default implementation returns an empty histogram.
+     *
+     * @return the {@link Histogram} of the recently observed system-wide CPU usage values
+     */
+    public default Histogram getSystemCpuLoadHistogram() {
+        return Histogram.EMPTY_CPU_USAGE;
+    }
+
 }
@@ -2,6 +2,8 @@ package software.leonov.system.monitor;
 
 import static software.leonov.system.monitor.util.Formatter.formatPercent;
 
+import java.time.Duration;
+
 /**
  * An implementation of the {@link CpuUsage} interface.
  * 
@@ -9,6 +11,17 @@ import static software.leonov.system.monitor.util.Formatter.formatPercent;
  */
 final class CpuUsageImpl implements CpuUsage {
 
+    private static final Duration[]             NO_HORIZONS  = {};
+    private static final double[]               NO_AVERAGES  = {};
+    private static final HistogramWindow.Frozen NO_HISTOGRAM = new HistogramWindow.Frozen(Histogram.EMPTY_CPU_USAGE);
+
+    // Offsets of the moving averages for each horizon
+    static final int MOVING_PROCESS       = 0;
+    static final int MOVING_SYSTEM        = 1;
+    static final int EXPONENTIAL_PROCESS  = 2;
+    static final int EXPONENTIAL_SYSTEM   = 3;
+    static final int AVERAGES_PER_HORIZON = 4;
+
     private final double processCpu;
     private final double systemCpu;
     private final double systemLoadAverage;
@@ -17,14 +30,31 @@ final class CpuUsageImpl implements CpuUsage {
     private final double maxProcessCpu;
     private final double maxSystemCpu;
 
+    private final Duration[] horizons;
+    private final double[]   averages;
+
+    private final HistogramWindow.Frozen processCpuHistogram;
+    private final HistogramWindow.Frozen systemCpuHistogram;
+
     CpuUsageImpl(final double processCpu, final double systemCpu, final double systemLoadAverage, final double avgProcessCpuLoad, final double avgSystemCpuLoad, final double maxProcessCpu, final double maxSystemCpu) {
-        this.processCpu        = processCpu;
-        this.systemCpu         = systemCpu;
-        this.systemLoadAverage = systemLoadAverage;
-        this.avgProcessCpuLoad = avgProcessCpuLoad;
-        this.avgSystemCpuLoad  = avgSystemCpuLoad;
-        this.maxProcessCpu     = maxProcessCpu;
-        this.maxSystemCpu      = maxSystemCpu;
+        this(processCpu, systemCpu, systemLoadAverage, avgProcessCpuLoad, avgSystemCpuLoad, maxProcessCpu, maxSystemCpu, NO_HORIZONS, NO_AVERAGES, NO_HISTOGRAM, NO_HISTOGRAM);
+    }
+
+    /**
+     * {@code averages} contains {@link #AVERAGES_PER_HORIZON} moving averages for each horizon in {@code horizons}.
+     */
+    CpuUsageImpl(final double processCpu, final double systemCpu, final double systemLoadAverage, final double avgProcessCpuLoad, final double avgSystemCpuLoad, final double maxProcessCpu, final double maxSystemCpu, final Duration[] horizons, final double[] averages, final HistogramWindow.Frozen processCpuHistogram, final HistogramWindow.Frozen systemCpuHistogram) {
+        this.processCpu          = processCpu;
+        this.systemCpu           = systemCpu;
+        this.systemLoadAverage   = systemLoadAverage;
+        this.avgProcessCpuLoad   = avgProcessCpuLoad;
+        this.avgSystemCpuLoad    = avgSystemCpuLoad;
+        this.maxProcessCpu       = maxProcessCpu;
+        this.maxSystemCpu        = maxSystemCpu;
+        this.horizons            = horizons;
+        this.averages            = averages;
+        this.processCpuHistogram = processCpuHistogram;
+        this.systemCpuHistogram  = systemCpuHistogram;
     }
 
     @Override
@@ -52,6 +82,34 @@ final class CpuUsageImpl implements CpuUsage {
         return avgSystemCpuLoad;
     }
 
+    @Override
+    public double getMovingAverageProcessCpuLoad(final Duration horizon) {
+        return getAverage(horizon, MOVING_PROCESS);
+    }
+
+    @Override
+    public double getMovingAverageSystemCpuLoad(final Duration horizon) {
+        return getAverage(horizon, MOVING_SYSTEM);
+    }
+
+    @Override
+    public double getExponentialAverageProcessCpuLoad(final Duration horizon) {
+        return getAverage(horizon, EXPONENTIAL_PROCESS);
+    }
+
+    @Override
+    public double getExponentialAverageSystemCpuLoad(final Duration horizon) {
+        return getAverage(horizon, EXPONENTIAL_SYSTEM);
+    }
+
+    private double getAverage(final Duration horizon, final int offset) {
+        for (int i = 0; i < horizons.length; i++)
+            if (horizons[i].equals(horizon))
+                return averages[i * AVERAGES_PER_HORIZON + offset];
+
+        return -1.0;
+    }
+
     @Override
     public double getMaxProcessCpuLoad() {
         return maxProcessCpu;
@@ -62,18 +120,39 @@ final class CpuUsageImpl implements CpuUsage {
         return maxSystemCpu;
     }
 
+    @Override
+    public double getProcessCpuLoadPercentile(final double percentile) {
+        return processCpuHistogram.get().getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public double getSystemCpuLoadPercentile(final double percentile) {
+        return systemCpuHistogram.get().getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public Histogram getProcessCpuLoadHistogram() {
+        return processCpuHistogram.get();
+    }
+
+    @Override
+    public Histogram getSystemCpuLoadHistogram() {
+        return systemCpuHistogram.get();
+    }
+
     @Override
     public String toString() {
-        // @formatter:off
-        return String.format("[processCpu=%s, systemCpu=%s, systemLoadAverage=%s, avgProcessCpuLoad=%s, avgSystemCpuLoad=%s, maxProcessCpu=%s, maxSystemCpu=%s]",
-                      formatPercent(processCpu),
-                      formatPercent(systemCpu),
-                      formatPercent(systemLoadAverage),
-                      formatPercent(avgProcessCpuLoad),
-                      formatPercent(avgSystemCpuLoad),
-                      formatPercent(maxProcessCpu),
-                      formatPercent(maxSystemCpu));
-        // @formatter:on
+        final StringBuilder sb = new StringBuilder(160);
+
+        formatPercent(processCpu, sb.append("[processCpu="));
+        formatPercent(systemCpu, sb.append(", systemCpu="));
+        formatPercent(systemLoadAverage, sb.append(", systemLoadAverage="));
+        formatPercent(avgProcessCpuLoad, sb.append(", avgProcessCpuLoad="));
+        formatPercent(avgSystemCpuLoad, sb.append(", avgSystemCpuLoad="));
+        formatPercent(maxProcessCpu, sb.append(", maxProcessCpu="));
+        formatPercent(maxSystemCpu, sb.append(", maxSystemCpu="));
+
+        return sb.append(']').toString();
     }
 
 }
@@ -0,0 +1,58 @@
+package software.leonov.system.monitor;
+
+/**
+ * A time-based exponentially weighted moving average, similar to the Unix system load averages.
+ * <p>
+ * Each new value is weighted by {@code 1 - exp(-elapsed / horizon)}, where {@code elapsed} is the time since the previous
+ * value, so the result does not depend on how often values are recorded. Values recorded more than a few horizons ago
+ * have a negligible effect on the average.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class ExponentialMovingAverage {
+
+    private final double horizonNanos;
+
+    private double average  = -1.0;
+    private long   lastTime = 0;
+
+    /**
+     * @param horizonNanos the time constant of this average in nanoseconds
+     */
+    ExponentialMovingAverage(final long horizonNanos) {
+        this.horizonNanos = horizonNanos;
+    }
+
+    /**
+     * Records a new value. Negative (unavailable) values are ignored.
+     *
+     * @param value the value to record
+     * @param time  the value of {@link System#nanoTime()} when the value was measured
+     */
+    void update(final double value, final long time) {
+        if (value < 0)
+            return;
+
+        if (average < 0)
+            average = value;
+        else {
+            final long elapsed = time - lastTime;
+            if (elapsed > 0)
+                average += (1.0 - Math.exp(-elapsed / horizonNanos)) * (value - average);
+        }
+
+        lastTime = time;
+    }
+
+    /**
+     * Returns the current average or -1.0 if no values have been recorded.
+     *
+     * @return the current average or -1.0 if no values have been recorded
+     */
+    double get() {
+        return average;
+    }
+
+}
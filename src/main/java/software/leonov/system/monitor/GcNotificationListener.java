@@ -0,0 +1,134 @@
+package software.leonov.system.monitor;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Accumulates garbage collection metrics from the notifications sent by the {@code GarbageCollectorMXBean}s at the end
+ * of every collection.
+ * <p>
+ * Unlike polling the {@code GarbageCollectorMXBean}s, notifications report the duration of every individual collection
+ * and cost nothing between collections. The collections of concurrent collectors which run alongside the application
+ * (for example {@code ZGC Cycles} and {@code Shenandoah Cycles}) are counted per collector but are not counted as pauses.
+ * <p>
+ * Notifications are delivered asynchronously on a JMX thread shortly after each collection ends. The accumulated totals
+ * are read with {@link #read()}, which returns the same immutable {@link GcTotals} instance until the next collection.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+@SuppressWarnings("restriction")
+final class GcNotificationListener implements NotificationListener {
+
+    private final String[] names;
+    private final long[]   counts;
+    private final long[]   times;
+
+    private final Histogram pauseHistogram = Histogram.forPauseTime();
+
+    private long pauseCount = 0;
+    private long pauseTime  = 0;
+
+    // The most recently read totals or null if a collection ended since
+    private GcTotals totals = null;
+
+    /**
+     * @param names the names of the collectors, collections of other collectors are only counted as pauses
+     */
+    GcNotificationListener(final String... names) {
+        this.names = names.clone();
+        counts     = new long[names.length];
+        times      = new long[names.length];
+    }
+
+    /**
+     * Returns a new {@code GcNotificationListener} registered with all {@code GarbageCollectorMXBean}s or {@code null} if
+     * garbage collection notifications are not supported.
+     *
+     * @return a new {@code GcNotificationListener} or {@code null} if garbage collection notifications are not supported
+     */
+    static GcNotificationListener install() {
+        try {
+            Class.forName("com.sun.management.GarbageCollectionNotificationInfo");
+
+            final List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+
+            final String[] names = new String[beans.size()];
+            for (int i = 0; i < names.length; i++)
+                names[i] = beans.get(i).getName();
+
+            final GcNotificationListener listener   = new GcNotificationListener(names);
+            boolean                      registered = false;
+
+            for (final GarbageCollectorMXBean bean : beans)
+                if (bean instanceof NotificationEmitter) {
+                    ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+                    registered = true;
+                }
+
+            return registered ? listener : null;
+        } catch (final ClassNotFoundException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void handleNotification(final Notification notification, final Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+            return;
+
+        final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+
+        record(info.getGcName(), info.getGcAction(), info.getGcInfo().getDuration());
+    }
+
+    /**
+     * Records a collection.
+     *
+     * @param name     the name of the collector
+     * @param action   the action performed by the collector, for example {@code "end of minor GC"}
+     * @param duration the duration of the collection in milliseconds
+     */
+    synchronized void record(final String name, final String action, final long duration) {
+        for (int i = 0; i < names.length; i++)
+            if (names[i].equals(name)) {
+                counts[i]++;
+                times[i] += duration;
+                break;
+            }
+
+        if (isPause(name, action)) {
+            pauseCount++;
+            pauseTime += duration;
+            pauseHistogram.record(duration);
+        }
+
+        totals = null;
+    }
+
+    // Concurrent cycles run alongside the application, their pauses are reported separately (for example "ZGC Pauses")
+    private static boolean isPause(final String name, final String action) {
+        return !action.endsWith("cycle") && !name.endsWith("Cycles");
+    }
+
+    /**
+     * Returns the totals accumulated since this listener was created.
+     *
+     * @return the totals accumulated since this listener was created
+     */
+    synchronized GcTotals read() {
+        if (totals == null)
+            totals = new GcTotals(names, counts.clone(), times.clone(), pauseCount, pauseTime, pauseHistogram.copy());
+        return totals;
+    }
+
+}
@@ -0,0 +1,37 @@
+package software.leonov.system.monitor;
+
+/**
+ * The garbage collection totals accumulated by a {@link GcNotificationListener} at a single point in time.
+ *
+ * @author Zhenya Leonov
+ */
+final class GcTotals {
+
+    static final GcTotals EMPTY = new GcTotals(new String[0], new long[0], new long[0], 0, 0, Histogram.EMPTY_PAUSE_TIME);
+
+    final String[]  names;
+    final long[]    counts;
+    final long[]    times;
+    final long      pauseCount;
+    final long      pauseTime;
+    final Histogram pauseHistogram;
+
+    /**
+     * @param names          the names of the collectors
+     * @param counts         the number of collections of each collector
+     * @param times          the total duration (in milliseconds) of the collections of each collector
+     * @param pauseCount     the number of collections which paused the application
+     * @param pauseTime      the total duration (in milliseconds) of the collections which paused the application
+     * @param pauseHistogram the {@link Histogram} of the durations (in milliseconds) of the collections which paused the
+     *                       application
+     */
+    GcTotals(final String[] names, final long[] counts, final long[] times, final long pauseCount, final long pauseTime, final Histogram pauseHistogram) {
+        this.names          = names;
+        this.counts         = counts;
+        this.times          = times;
+        this.pauseCount     = pauseCount;
+        this.pauseTime      = pauseTime;
+        this.pauseHistogram = pauseHistogram;
+    }
+
+}
@@ -0,0 +1,95 @@
+package software.leonov.system.monitor;
+
+import java.util.Map;
+
+/**
+ * The garbage collection (GC) metrics of the JVM.
+ * <p>
+ * These metrics are collected from the notifications sent by the JVM at the end of every collection rather than by
+ * polling, so every individual pause is accounted for. Pause durations are reported by the JVM in whole milliseconds.
+ * The collections of concurrent collectors which run alongside the application (for example {@code ZGC Cycles}) are
+ * reported by {@link #getCollectionCounts()} and {@link #getCollectionTimes()} but are not counted as pauses.
+ * <p>
+ * Totals are counted from the first update of the monitor.
+ *
+ * @author Zhenya Leonov
+ * @see SystemMonitor#isGcUsageSupported()
+ */
+public interface GcUsage {
+
+    /**
+     * Returns the number of GC pauses during the most recent update interval or -1 if it is not supported or not ready.
+     *
+     * @return the number of GC pauses during the most recent update interval or -1 if it is not supported or not ready
+     */
+    public long getPauseCount();
+
+    /**
+     * Returns the total duration (in milliseconds) of the GC pauses during the most recent update interval or -1 if it is
+     * not supported or not ready.
+     *
+     * @return the total duration (in milliseconds) of the GC pauses during the most recent update interval or -1 if it is
+     *         not supported or not ready
+     */
+    public long getPauseTime();
+
+    /**
+     * Returns the percentage (0.0 to 100.0) of wall-clock time the application was paused by the garbage collector during
+     * the most recent update interval or -1.0 if it is not supported or not ready.
+     *
+     * @return the percentage of wall-clock time the application was paused by the garbage collector during the most
+     *         recent update interval or -1.0 if it is not supported or not ready
+     */
+    public double getOverhead();
+
+    /**
+     * Returns the total number of GC pauses or -1 if it is not supported.
+     *
+     * @return the total number of GC pauses or -1 if it is not supported
+     */
+    public long getTotalPauseCount();
+
+    /**
+     * Returns the total duration (in milliseconds) of all GC pauses or -1 if it is not supported.
+     *
+     * @return the total duration (in milliseconds) of all GC pauses or -1 if it is not supported
+     */
+    public long getTotalPauseTime();
+
+    /**
+     * Returns the duration (in milliseconds) of a GC pause at the specified percentile (0.0 to 100.0) of all pauses or -1
+     * if there were no pauses or it is not supported. For example {@code getPauseTimePercentile(99)} returns the 99th
+     * percentile.
+     *
+     * @param percentile the specified percentile
+     * @return the duration (in milliseconds) of a GC pause at the specified percentile or -1 if there were no pauses or it
+     *         is not supported
+     * @throws IllegalArgumentException if the percentile is less than 0.0 or greater than 100.0
+     */
+    public long getPauseTimePercentile(double percentile);
+
+    /**
+     * Returns the {@link Histogram} of the durations (in milliseconds) of all GC pauses. The histogram is empty if there
+     * were no pauses or it is not supported.
+     *
+     * @return the {@link Histogram} of the durations (in milliseconds) of all GC pauses
+     */
+    public Histogram getPauseTimeHistogram();
+
+    /**
+     * Returns the total number of collections of each garbage collector, keyed by the name of the collector (for example
+     * {@code "G1 Young Generation"}). Returns an empty map if it is not supported.
+     *
+     * @return the total number of collections of each garbage collector
+     */
+    public Map<String, Long> getCollectionCounts();
+
+    /**
+     * Returns the total duration (in milliseconds) of the collections of each garbage collector, keyed by the name of the
+     * collector. Returns an empty map if it is not supported.
+     *
+     * @return the total duration (in milliseconds) of the collections of each garbage collector
+     */
+    public Map<String, Long> getCollectionTimes();
+
+}
@@ -0,0 +1,102 @@
+package software.leonov.system.monitor;
+
+import static software.leonov.system.monitor.util.Formatter.formatPercent;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An implementation of the {@link GcUsage} interface.
+ *
+ * @author Zhenya Leonov
+ */
+final class GcUsageImpl implements GcUsage {
+
+    private final long      pauseCount;
+    private final long      pauseTime;
+    private final double    overhead;
+    private final long      totalPauseCount;
+    private final long      totalPauseTime;
+    private final Histogram pauseTimeHistogram;
+    private final String[]  names;
+    private final long[]    collectionCounts;
+    private final long[]    collectionTimes;
+
+    GcUsageImpl(final long pauseCount, final long pauseTime, final double overhead, final long totalPauseCount, final long totalPauseTime, final Histogram pauseTimeHistogram, final String[] names, final long[] collectionCounts, final long[] collectionTimes) {
+        this.pauseCount         = pauseCount;
+        this.pauseTime          = pauseTime;
+        this.overhead           = overhead;
+        this.totalPauseCount    = totalPauseCount;
+        this.totalPauseTime     = totalPauseTime;
+        this.pauseTimeHistogram = pauseTimeHistogram;
+        this.names              = names;
+        this.collectionCounts   = collectionCounts;
+        this.collectionTimes    = collectionTimes;
+    }
+
+    @Override
+    public long getPauseCount() {
+        return pauseCount;
+    }
+
+    @Override
+    public long getPauseTime() {
+        return pauseTime;
+    }
+
+    @Override
+    public double getOverhead() {
+        return overhead;
+    }
+
+    @Override
+    public long getTotalPauseCount() {
+        return totalPauseCount;
+    }
+
+    @Override
+    public long getTotalPauseTime() {
+        return totalPauseTime;
+    }
+
+    @Override
+    public long getPauseTimePercentile(final double percentile) {
+        return (long) pauseTimeHistogram.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public Histogram getPauseTimeHistogram() {
+        return pauseTimeHistogram;
+    }
+
+    @Override
+    public Map<String, Long> getCollectionCounts() {
+        return toMap(collectionCounts);
+    }
+
+    @Override
+    public Map<String, Long> getCollectionTimes() {
+        return toMap(collectionTimes);
+    }
+
+    private Map<String, Long> toMap(final long[] values) {
+        final Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++)
+            map.put(names[i], values[i]);
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String toString() {
+        // @formatter:off
+        return String.format("[pauseCount=%d, pauseTime=%dms, overhead=%s, totalPauseCount=%d, totalPauseTime=%dms]",
+                      pauseCount,
+                      pauseTime,
+                      formatPercent(overhead),
+                      totalPauseCount,
+                      totalPauseTime);
+        // @formatter:on
+    }
+
+}
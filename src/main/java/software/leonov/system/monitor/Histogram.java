@@ -0,0 +1,339 @@
+package software.leonov.system.monitor;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-footprint histogram of observed values which can report percentiles (for example the 99th percentile of the
+ * JVM process CPU usage) without storing individual values.
+ * <p>
+ * Values are counted in logarithmic buckets, each of which is divided into 64 linear sub-buckets (the same layout as
+ * <a href="https://github.com/HdrHistogram/HdrHistogram">HdrHistogram</a>). Reported percentiles are accurate to within
+ * 1/64 (about 1.6%) of the actual value, while the memory used by the histogram only depends on the range of trackable
+ * values and not on the number of recorded values.
+ * <p>
+ * Histograms returned by this library are immutable snapshots. The {@link #merge(Histogram)} and
+ * {@link #intervalSince(Histogram)} methods return new histograms which can be used to combine histograms of different
+ * monitors or to obtain the histogram of the values recorded between two snapshots.
+ *
+ * @author Zhenya Leonov
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS  = 7;
+    private static final int HALF_BUCKET_BITS = SUB_BUCKET_BITS - 1;
+
+    private static final long[] NO_COUNTS = {};
+
+    // Immutable and empty, shared by all usage metrics which are unavailable
+    static final Histogram EMPTY_CPU_USAGE    = empty(0.01, 100.0);
+    static final Histogram EMPTY_MEMORY_USAGE = empty(1, Long.MAX_VALUE);
+    static final Histogram EMPTY_PAUSE_TIME   = empty(1, 3_600_000);
+
+    private final double resolution;
+    private final long   highestTrackableValue;
+
+    // counts[i] is the count of the bucket with index offset + i
+    private final int    offset;
+    private final long[] counts;
+
+    private long   totalCount = 0;
+    private long   minValue   = Long.MAX_VALUE;
+    private long   maxValue   = -1;
+    private double sum        = 0.0;
+
+    /**
+     * Creates an empty, mutable histogram.
+     *
+     * @param resolution            the smallest distinguishable difference between values, for example 0.01 for CPU usage
+     *                              percentages or 1 for memory usage in bytes
+     * @param highestTrackableValue the highest value that can be recorded, higher values are recorded as this value
+     */
+    Histogram(final double resolution, final double highestTrackableValue) {
+        this(resolution, Math.round(highestTrackableValue / resolution), 0, new long[indexOf(Math.round(highestTrackableValue / resolution)) + 1]);
+    }
+
+    /**
+     * Returns an empty, mutable histogram of CPU usage percentages (0.0 to 100.0).
+     *
+     * @return an empty, mutable histogram of CPU usage percentages
+     */
+    static Histogram forCpuUsage() {
+        return new Histogram(0.01, 100.0);
+    }
+
+    /**
+     * Returns an empty, mutable histogram of memory usage in bytes.
+     *
+     * @return an empty, mutable histogram of memory usage in bytes
+     */
+    static Histogram forMemoryUsage() {
+        return new Histogram(1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns an empty, mutable histogram of pause durations in milliseconds (up to 1 hour).
+     *
+     * @return an empty, mutable histogram of pause durations in milliseconds
+     */
+    static Histogram forPauseTime() {
+        return new Histogram(1, 3_600_000);
+    }
+
+    private static Histogram empty(final double resolution, final double highestTrackableValue) {
+        return new Histogram(resolution, Math.round(highestTrackableValue / resolution), 0, NO_COUNTS);
+    }
+
+    private Histogram(final double resolution, final long highestTrackableValue, final int offset, final long[] counts) {
+        this.resolution            = resolution;
+        this.highestTrackableValue = highestTrackableValue;
+        this.offset                = offset;
+        this.counts                = counts;
+    }
+
+    private static int indexOf(final long value) {
+        final int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - HALF_BUCKET_BITS);
+        return (shift << HALF_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    private static int shiftOf(final int index) {
+        return Math.max(0, (index >> HALF_BUCKET_BITS) - 1);
+    }
+
+    private static long lowestEquivalentValue(final int index) {
+        final int shift = shiftOf(index);
+        return (long) (index - (shift << HALF_BUCKET_BITS)) << shift;
+    }
+
+    private static long highestEquivalentValue(final int index) {
+        final int shift = shiftOf(index);
+        return ((long) (index - (shift << HALF_BUCKET_BITS) + 1) << shift) - 1;
+    }
+
+    /**
+     * Records the specified value. Negative (unavailable) values are ignored. Must not be called concurrently by multiple
+     * threads or on a histogram which has been returned to the user.
+     *
+     * @param value the value to record
+     */
+    void record(final double value) {
+        if (value < 0)
+            return;
+
+        final long units = Math.min(Math.round(value / resolution), highestTrackableValue);
+
+        counts[indexOf(units) - offset]++;
+        totalCount++;
+        minValue = Math.min(minValue, units);
+        maxValue = Math.max(maxValue, units);
+        sum += units;
+    }
+
+    /**
+     * Removes all recorded values. Must not be called on a histogram which has been returned to the user.
+     */
+    void reset() {
+        if (totalCount > 0)
+            Arrays.fill(counts, indexOf(minValue) - offset, indexOf(maxValue) - offset + 1, 0);
+        totalCount = 0;
+        minValue   = Long.MAX_VALUE;
+        maxValue   = -1;
+        sum        = 0.0;
+    }
+
+    /**
+     * Returns an immutable copy of this histogram. Only the buckets between the lowest and highest recorded values are
+     * copied.
+     *
+     * @return an immutable copy of this histogram
+     */
+    Histogram copy() {
+        if (totalCount == 0)
+            return new Histogram(resolution, highestTrackableValue, 0, NO_COUNTS);
+
+        final int from = indexOf(minValue);
+        final int to   = indexOf(maxValue) + 1;
+
+        final long[] copy = new long[to - from];
+        System.arraycopy(counts, from - offset, copy, 0, copy.length);
+
+        return withStatistics(new Histogram(resolution, highestTrackableValue, from, copy), totalCount, minValue, maxValue, sum);
+    }
+
+    private static Histogram withStatistics(final Histogram histogram, final long totalCount, final long minValue, final long maxValue, final double sum) {
+        histogram.totalCount = totalCount;
+        histogram.minValue   = minValue;
+        histogram.maxValue   = maxValue;
+        histogram.sum        = sum;
+        return histogram;
+    }
+
+    private long getCount(final int index) {
+        final int i = index - offset;
+        return i < 0 || i >= counts.length ? 0 : counts[i];
+    }
+
+    /**
+     * Returns the number of values recorded in this histogram.
+     *
+     * @return the number of values recorded in this histogram
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the lowest value recorded in this histogram or -1.0 if it is empty.
+     *
+     * @return the lowest value recorded in this histogram or -1.0 if it is empty
+     */
+    public double getMin() {
+        return totalCount == 0 ? -1.0 : minValue * resolution;
+    }
+
+    /**
+     * Returns the highest value recorded in this histogram or -1.0 if it is empty.
+     *
+     * @return the highest value recorded in this histogram or -1.0 if it is empty
+     */
+    public double getMax() {
+        return totalCount == 0 ? -1.0 : maxValue * resolution;
+    }
+
+    /**
+     * Returns the arithmetic mean of the values recorded in this histogram or -1.0 if it is empty.
+     *
+     * @return the arithmetic mean of the values recorded in this histogram or -1.0 if it is empty
+     */
+    public double getMean() {
+        return totalCount == 0 ? -1.0 : sum / totalCount * resolution;
+    }
+
+    /**
+     * Returns the value at the specified percentile (0.0 to 100.0) or -1.0 if this histogram is empty. For example
+     * {@code getValueAtPercentile(99)} returns a value such that 99% of the recorded values are less than or equal to it.
+     *
+     * @param percentile the specified percentile
+     * @return the value at the specified percentile or -1.0 if this histogram is empty
+     * @throws IllegalArgumentException if the percentile is less than 0.0 or greater than 100.0
+     */
+    public double getValueAtPercentile(final double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0))
+            throw new IllegalArgumentException("percentile < 0 || percentile > 100");
+
+        if (totalCount == 0)
+            return -1.0;
+
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= target) {
+                final long value = highestEquivalentValue(offset + i);
+                return Math.max(minValue, Math.min(value, maxValue)) * resolution;
+            }
+        }
+
+        return maxValue * resolution;
+    }
+
+    /**
+     * Returns a new histogram containing the values recorded in both this and the specified histogram.
+     *
+     * @param other the specified histogram
+     * @return a new histogram containing the values recorded in both this and the specified histogram
+     * @throws IllegalArgumentException if the histograms have a different resolution
+     */
+    public Histogram merge(final Histogram other) {
+        checkCompatible(other);
+
+        if (other.totalCount == 0)
+            return this;
+        if (totalCount == 0)
+            return other;
+
+        final int from = Math.min(offset, other.offset);
+        final int to   = Math.max(offset + counts.length, other.offset + other.counts.length);
+
+        final long[] merged = new long[to - from];
+        for (int i = 0; i < merged.length; i++)
+            merged[i] = getCount(from + i) + other.getCount(from + i);
+
+        final long highest = Math.max(highestTrackableValue, other.highestTrackableValue);
+
+        return withStatistics(new Histogram(resolution, highest, from, merged), totalCount + other.totalCount, Math.min(minValue, other.minValue), Math.max(maxValue, other.maxValue), sum + other.sum);
+    }
+
+    /**
+     * Returns a new histogram containing the values recorded in this histogram since the specified earlier snapshot of the
+     * same histogram was taken.
+     * <p>
+     * The lowest and highest values of the returned histogram are only known to the precision of the histogram buckets.
+     *
+     * @param earlier an earlier snapshot of this histogram
+     * @return a new histogram containing the values recorded in this histogram since the specified snapshot was taken
+     * @throws IllegalArgumentException if the histograms have a different resolution or the specified histogram is not an
+     *                                  earlier snapshot of this histogram
+     */
+    public Histogram intervalSince(final Histogram earlier) {
+        checkCompatible(earlier);
+
+        if (earlier.totalCount > totalCount)
+            throw new IllegalArgumentException("earlier histogram has more values than this histogram");
+
+        final long[] interval = new long[counts.length];
+
+        long count = 0;
+        int  min   = -1;
+        int  max   = -1;
+
+        for (int i = 0; i < interval.length; i++) {
+            interval[i] = counts[i] - earlier.getCount(offset + i);
+
+            if (interval[i] < 0)
+                throw new IllegalArgumentException("histogram is not an earlier snapshot of this histogram");
+            if (interval[i] > 0) {
+                count += interval[i];
+                if (min < 0)
+                    min = i;
+                max = i;
+            }
+        }
+
+        // Values of the earlier histogram which fall outside the range of this histogram
+        if (count != totalCount - earlier.totalCount)
+            throw new IllegalArgumentException("histogram is not an earlier snapshot of this histogram");
+
+        final Histogram result = new Histogram(resolution, highestTrackableValue, offset, interval);
+
+        if (min < 0)
+            return result;
+
+        final long minValue = Math.max(this.minValue, lowestEquivalentValue(offset + min));
+        final long maxValue = Math.min(this.maxValue, highestEquivalentValue(offset + max));
+
+        return withStatistics(result, totalCount - earlier.totalCount, minValue, maxValue, Math.max(0.0, sum - earlier.sum));
+    }
+
+    private void checkCompatible(final Histogram other) {
+        requireNonNull(other, "other == null");
+        if (other.resolution != resolution)
+            throw new IllegalArgumentException("histograms have a different resolution");
+    }
+
+    @Override
+    public String toString() {
+        // @formatter:off
+        return String.format("[totalCount=%d, min=%s, p50=%s, p95=%s, p99=%s, max=%s]",
+                      totalCount,
+                      getMin(),
+                      getValueAtPercentile(50),
+                      getValueAtPercentile(95),
+                      getValueAtPercentile(99),
+                      getMax());
+        // @formatter:on
+    }
+
+}
@@ -0,0 +1,152 @@
+package software.leonov.system.monitor;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * The values of a metric recorded during the current and the previous time window, such as the last 5 minutes, from
+ * which each snapshot builds the {@link Histogram} of recent values when it is first requested.
+ * <p>
+ * Recording a value does not allocate: values are appended to a buffer which is never modified below the length seen by
+ * a {@link #freeze() frozen} view, so the views share it with the window. The buffer is only folded into an immutable
+ * histogram (and replaced) when it fills up or the window ends. The histogram of a view contains the values recorded
+ * during the previous window and the current window up to the time the view was taken, that is between one and two
+ * windows of values.
+ * <p>
+ * This class is not thread-safe, the views are.
+ *
+ * @author Zhenya Leonov
+ */
+final class HistogramWindow {
+
+    private static final int CAPACITY = 1024;
+
+    private final Supplier<Histogram> factory;
+    private final long                windowNanos;
+    private final Histogram           scratch;
+    private final Histogram           empty;
+
+    private Histogram previous;               // the values of the previous window
+    private Histogram current;                // the values of the current window which did not fit in the buffer
+    private double[]  values      = new double[CAPACITY];
+    private int       count       = 0;
+    private long      windowStart = -1;
+
+    /**
+     * Creates a new window.
+     *
+     * @param factory returns an empty, mutable histogram for the metric, for example {@link Histogram#forCpuUsage()}
+     * @param window  the length of the window
+     */
+    HistogramWindow(final Supplier<Histogram> factory, final Duration window) {
+        this.factory     = factory;
+        this.windowNanos = window.toNanos();
+        this.scratch     = factory.get();
+        this.empty       = scratch.copy();
+        this.previous    = empty;
+        this.current     = empty;
+    }
+
+    /**
+     * Records the specified value. Negative (unavailable) values are ignored.
+     *
+     * @param time  the time (in nanoseconds) the value was measured at
+     * @param value the value to record
+     */
+    void record(final long time, final double value) {
+        if (windowStart < 0)
+            windowStart = time;
+        else if (time - windowStart >= windowNanos) {
+            // If more than a window passed since the current window ended nothing was recorded during the previous window
+            previous    = time - windowStart < 2 * windowNanos ? fold() : empty;
+            current     = empty;
+            windowStart = time;
+            reallocate();
+        }
+
+        if (value < 0)
+            return;
+
+        if (count == values.length) {
+            current = fold();
+            reallocate();
+        }
+
+        values[count++] = value;
+    }
+
+    /**
+     * Returns a view of the values recorded so far.
+     *
+     * @return a view of the values recorded so far
+     */
+    Frozen freeze() {
+        return new Frozen(factory, previous, current, values, count);
+    }
+
+    private Histogram fold() {
+        for (int i = 0; i < count; i++)
+            scratch.record(values[i]);
+
+        final Histogram folded = current.merge(scratch.copy());
+        scratch.reset();
+        return folded;
+    }
+
+    private void reallocate() {
+        // Views only read the values below their own count, so an empty buffer can be reused
+        if (count > 0)
+            values = new double[CAPACITY];
+        count = 0;
+    }
+
+    /**
+     * The values recorded in a {@link HistogramWindow} at a single point in time.
+     */
+    static final class Frozen {
+
+        private final Supplier<Histogram> factory;
+        private final Histogram           previous;
+        private final Histogram           current;
+        private final double[]            values;
+        private final int                 count;
+
+        private volatile Histogram histogram;
+
+        /**
+         * Creates a view of the specified histogram.
+         *
+         * @param histogram the specified immutable histogram
+         */
+        Frozen(final Histogram histogram) {
+            this(null, histogram, histogram, null, 0);
+            this.histogram = histogram;
+        }
+
+        private Frozen(final Supplier<Histogram> factory, final Histogram previous, final Histogram current, final double[] values, final int count) {
+            this.factory  = factory;
+            this.previous = previous;
+            this.current  = current;
+            this.values   = values;
+            this.count    = count;
+        }
+
+        /**
+         * Returns the immutable histogram of the values, computing it on the first call.
+         *
+         * @return the immutable histogram of the values
+         */
+        Histogram get() {
+            Histogram result = histogram;
+            if (result == null) {
+                final Histogram recent = factory.get();
+                for (int i = 0; i < count; i++)
+                    recent.record(values[i]);
+                histogram = result = previous.merge(current).merge(recent.copy());
+            }
+            return result;
+        }
+
+    }
+
+}
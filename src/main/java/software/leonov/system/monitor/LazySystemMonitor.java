@@ -3,14 +3,20 @@ package software.leonov.system.monitor;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A thread-safe {@link SystemMonitor} implementation that updates usage metrics on demand.
  * <p>
- * Usage metrics are updated when either {@link #getCpuUsage()} or {@link #getMemoryUsage()} is called, but only if a
- * update threshold has elapsed since the last update. A {@link #withUpdateThreshold(Duration) custom} threshold can be
+ * Usage metrics are updated when {@link #getCpuUsage()}, {@link #getMemoryUsage()}, {@link #getSnapshot()}, or
+ * {@link #getMetricsView()} is called, or when a previously returned {@link MetricsView} is read, but only if a update
+ * threshold has elapsed since the last update. A {@link #withUpdateThreshold(Duration) custom} threshold can be
  * specified when this class is created.
  * <p>
+ * Reads never block: the most recently cached metrics are returned while an update is in progress, and at most one
+ * calling thread performs the update once the threshold expires. The initial metrics are collected when this monitor is
+ * created.
+ * <p>
  * No underlying resources are managed by this monitor. The {@link #close()} method is a no-op and can be safely
  * ignored.
  *
@@ -20,15 +26,21 @@ public final class LazySystemMonitor extends AbstractSystemMonitor {
 
     private static final Duration DEFAULT_UPDATE_THRESHOLD = Duration.ofSeconds(1);
 
-    private final long updateThresholdMillis;
-    private long       lastUpdateTimeMillis = -1;
+    // Sentinel deadline indicating that an update is in progress
+    private static final long UPDATING = Long.MIN_VALUE;
+
+    private final long       updateThresholdNanos;
+    private final AtomicLong nextUpdateTime;
 
     LazySystemMonitor() {
         this(DEFAULT_UPDATE_THRESHOLD);
     }
 
     LazySystemMonitor(final Duration updateThreshold) {
-        this.updateThresholdMillis = updateThreshold.toMillis();
+        super(true);
+        this.updateThresholdNanos = updateThreshold.toNanos();
+        super.updateMetrics();
+        this.nextUpdateTime = new AtomicLong(System.nanoTime() + updateThresholdNanos);
     }
 
     /**
@@ -70,13 +82,40 @@ public final class LazySystemMonitor extends AbstractSystemMonitor {
     }
 
     @Override
-    protected synchronized void updateMetrics() {
-        final long currentTimeMillis = System.currentTimeMillis();
+    public ContainerUsage getContainerUsage() {
+        updateMetrics();
+        return super.getContainerUsage();
+    }
+
+    @Override
+    public GcUsage getGcUsage() {
+        updateMetrics();
+        return super.getGcUsage();
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        updateMetrics();
+        return super.getSnapshot();
+    }
+
+    @Override
+    public MetricsView getMetricsView() {
+        updateMetrics();
+        return super.getMetricsView();
+    }
+
+    @Override
+    protected void updateMetrics() {
+        final long deadline = nextUpdateTime.get();
 
-        if (lastUpdateTimeMillis == -1 || (currentTimeMillis - lastUpdateTimeMillis) >= updateThresholdMillis) {
-            super.updateMetrics();
-            lastUpdateTimeMillis = currentTimeMillis;
-        }
+        // Only the thread which wins the CAS updates the metrics, everyone else returns the cached values
+        if (deadline != UPDATING && System.nanoTime() - deadline >= 0 && nextUpdateTime.compareAndSet(deadline, UPDATING))
+            try {
+                super.updateMetrics();
+            } finally {
+                nextUpdateTime.set(System.nanoTime() + updateThresholdNanos);
+            }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package software.leonov.system.monitor;
+
+import java.util.Arrays;
+
+/**
+ * A minimal open-addressing hash map from {@code long} keys to {@code long} values which does not box its keys or values.
+ * Used to track per-thread state keyed by thread ID.
+ * <p>
+ * The key 0 is reserved to mark empty slots (thread IDs are always positive). Entries cannot be removed individually,
+ * instead the map is {@link #clear() cleared} and rebuilt.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class LongLongHashMap {
+
+    private long[] keys;
+    private long[] values;
+    private int    size;
+
+    /**
+     * @param expectedSize the expected number of entries
+     */
+    LongLongHashMap(final int expectedSize) {
+        final int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys   = new long[capacity];
+        values = new long[capacity];
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the value of the specified key or the specified default value if the key is not present.
+     *
+     * @param key          the specified key (not 0)
+     * @param defaultValue the specified default value
+     * @return the value of the specified key or the specified default value if the key is not present
+     */
+    long get(final long key, final long defaultValue) {
+        final int mask = keys.length - 1;
+
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return values[i];
+            if (keys[i] == 0)
+                return defaultValue;
+        }
+    }
+
+    /**
+     * Associates the specified value with the specified key, replacing any previous value.
+     *
+     * @param key   the specified key (not 0)
+     * @param value the specified value
+     */
+    void put(final long key, final long value) {
+        final int mask = keys.length - 1;
+
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            if (keys[i] == 0) {
+                keys[i]   = key;
+                values[i] = value;
+                if (++size * 2 > keys.length)
+                    resize();
+                return;
+            }
+        }
+    }
+
+    private void resize() {
+        final long[] oldKeys   = keys;
+        final long[] oldValues = values;
+
+        keys   = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        size   = 0;
+
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldKeys[i] != 0)
+                put(oldKeys[i], oldValues[i]);
+    }
+
+    /**
+     * Returns the number of entries in this map.
+     *
+     * @return the number of entries in this map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries from this map, retaining its capacity.
+     */
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+}
@@ -0,0 +1,78 @@
+package software.leonov.system.monitor;
+
+/**
+ * An alert raised when the usage of a memory pool crosses a configured fraction of its maximum size.
+ *
+ * @author Zhenya Leonov
+ * @see BackgroundSystemMonitor#onMemoryThreshold(double, java.util.function.Consumer)
+ */
+public interface MemoryAlert {
+
+    /**
+     * The type of a {@link MemoryAlert}.
+     */
+    public enum Type {
+
+        /**
+         * The memory usage of a heap memory pool (for example the old generation) crossed the threshold. Raised
+         * immediately by the JVM, but the memory may be reclaimed by the next garbage collection.
+         */
+        USAGE_THRESHOLD_EXCEEDED,
+
+        /**
+         * The memory usage of a heap memory pool was still above the threshold after a garbage collection. Indicates that
+         * the live data set itself is approaching the maximum size of the pool.
+         */
+        COLLECTION_USAGE_THRESHOLD_EXCEEDED,
+
+        /**
+         * The memory used by direct buffers crossed the threshold. Raised on the first update after the threshold was
+         * crossed.
+         */
+        DIRECT_MEMORY_THRESHOLD_EXCEEDED
+
+    }
+
+    /**
+     * Returns the type of this alert.
+     *
+     * @return the type of this alert
+     */
+    public Type getType();
+
+    /**
+     * Returns the name of the memory pool, for example {@code "G1 Old Gen"}, or {@code "direct"} for direct buffers.
+     *
+     * @return the name of the memory pool
+     */
+    public String getPoolName();
+
+    /**
+     * Returns the amount of memory (in bytes) used by the memory pool when the alert was raised.
+     *
+     * @return the amount of memory (in bytes) used by the memory pool when the alert was raised
+     */
+    public long getUsedMemory();
+
+    /**
+     * Returns the maximum amount of memory (in bytes) the memory pool can use.
+     *
+     * @return the maximum amount of memory (in bytes) the memory pool can use
+     */
+    public long getMaxMemory();
+
+    /**
+     * Returns the threshold (in bytes) which was crossed.
+     *
+     * @return the threshold (in bytes) which was crossed
+     */
+    public long getThreshold();
+
+    /**
+     * Returns the time the alert was raised in milliseconds since the epoch.
+     *
+     * @return the time the alert was raised in milliseconds since the epoch
+     */
+    public long getTimestamp();
+
+}
@@ -0,0 +1,63 @@
+package software.leonov.system.monitor;
+
+import static software.leonov.system.monitor.util.Formatter.formatDecimalBytes;
+
+/**
+ * An implementation of the {@link MemoryAlert} interface.
+ *
+ * @author Zhenya Leonov
+ */
+final class MemoryAlertImpl implements MemoryAlert {
+
+    private final Type   type;
+    private final String poolName;
+    private final long   usedMemory;
+    private final long   maxMemory;
+    private final long   threshold;
+    private final long   timestamp;
+
+    MemoryAlertImpl(final Type type, final String poolName, final long usedMemory, final long maxMemory, final long threshold, final long timestamp) {
+        this.type       = type;
+        this.poolName   = poolName;
+        this.usedMemory = usedMemory;
+        this.maxMemory  = maxMemory;
+        this.threshold  = threshold;
+        this.timestamp  = timestamp;
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public long getUsedMemory() {
+        return usedMemory;
+    }
+
+    @Override
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    @Override
+    public long getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[type=%s, poolName=%s, usedMemory=%s, maxMemory=%s, threshold=%s, timestamp=%d]", type, poolName, formatDecimalBytes(usedMemory), formatDecimalBytes(maxMemory), formatDecimalBytes(threshold), timestamp);
+    }
+
+}
@@ -0,0 +1,116 @@
+package software.leonov.system.monitor;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * Reads the usage of every JVM memory pool and of the direct and mapped buffer pools from the platform MXBeans.
+ * <p>
+ * The MXBeans, the names of the pools, and the maximum amount of direct memory are looked up once. Each
+ * {@link #read()} makes a single call to the MXBean of each pool.
+ * <p>
+ * The values are not written into a preallocated structure: each {@code read()} returns new arrays wrapped in a new
+ * {@link MemoryPools}, because the result is shared by every monitor updated from the same {@link Sample} and is
+ * retained by the {@link software.leonov.system.monitor.MemoryUsage MemoryUsage} of each {@link Snapshot}, so it must
+ * never change once published.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class MemoryPoolReader {
+
+    private final MemoryPoolMXBean[] pools;
+    private final String[]           names;
+    private final boolean[]          heap;
+    private final BufferPoolMXBean   direct;
+    private final BufferPoolMXBean   mapped;
+    private final long               directMemoryLimit;
+
+    MemoryPoolReader() {
+        final List<MemoryPoolMXBean> beans = ManagementFactory.getMemoryPoolMXBeans();
+
+        pools = beans.toArray(new MemoryPoolMXBean[0]);
+        names = new String[pools.length];
+        heap  = new boolean[pools.length];
+
+        for (int i = 0; i < pools.length; i++) {
+            names[i] = pools[i].getName();
+            heap[i]  = pools[i].getType() == MemoryType.HEAP;
+        }
+
+        BufferPoolMXBean direct = null;
+        BufferPoolMXBean mapped = null;
+
+        for (final BufferPoolMXBean bean : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+            if (bean.getName().equals("direct"))
+                direct = bean;
+            else if (bean.getName().equals("mapped"))
+                mapped = bean;
+
+        this.direct            = direct;
+        this.mapped            = mapped;
+        this.directMemoryLimit = readDirectMemoryLimit();
+    }
+
+    // -XX:MaxDirectMemorySize, which defaults to the maximum heap size
+    @SuppressWarnings("restriction")
+    private static long readDirectMemoryLimit() {
+        try {
+            final com.sun.management.HotSpotDiagnosticMXBean bean  = ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            final long                                       limit = Long.parseLong(bean.getVMOption("MaxDirectMemorySize").getValue());
+            return limit > 0 ? limit : Runtime.getRuntime().maxMemory();
+        } catch (final LinkageError | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the current usage of every memory pool.
+     *
+     * @return the current usage of every memory pool
+     */
+    MemoryPools read() {
+        final long[] used  = new long[pools.length];
+        final long[] total = new long[pools.length];
+        final long[] max   = new long[pools.length];
+
+        long nonHeapUsed  = 0;
+        long nonHeapTotal = 0;
+
+        for (int i = 0; i < pools.length; i++) {
+            final MemoryUsage usage = pools[i].getUsage(); // null if the pool is no longer valid
+
+            if (usage == null) {
+                used[i]  = -1;
+                total[i] = -1;
+                max[i]   = -1;
+                continue;
+            }
+
+            used[i]  = usage.getUsed();
+            total[i] = usage.getCommitted();
+            max[i]   = usage.getMax();
+
+            if (!heap[i]) {
+                nonHeapUsed  += used[i];
+                nonHeapTotal += total[i];
+            }
+        }
+
+        // @formatter:off
+        return new MemoryPools(names, heap, used, total, max, nonHeapUsed, nonHeapTotal,
+                               direct == null ? -1 : direct.getCount(),
+                               direct == null ? -1 : direct.getMemoryUsed(),
+                               direct == null ? -1 : direct.getTotalCapacity(),
+                               directMemoryLimit,
+                               mapped == null ? -1 : mapped.getCount(),
+                               mapped == null ? -1 : mapped.getMemoryUsed());
+        // @formatter:on
+    }
+
+}
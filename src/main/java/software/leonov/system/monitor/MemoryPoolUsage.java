@@ -0,0 +1,49 @@
+package software.leonov.system.monitor;
+
+/**
+ * The usage of a single JVM memory pool, for example the Eden space of the heap or the Metaspace.
+ *
+ * @author Zhenya Leonov
+ * @see MemoryUsage#getMemoryPools()
+ */
+public interface MemoryPoolUsage {
+
+    /**
+     * Returns the name of the memory pool, for example {@code "G1 Eden Space"} or {@code "Metaspace"}.
+     *
+     * @return the name of the memory pool
+     */
+    public String getName();
+
+    /**
+     * Returns {@code true} if the memory pool belongs to the heap, or {@code false} if it is a non-heap memory pool such as
+     * the Metaspace or the code cache.
+     *
+     * @return {@code true} if the memory pool belongs to the heap
+     */
+    public boolean isHeap();
+
+    /**
+     * Returns the amount of memory (in bytes) currently used by the memory pool or -1 if the information is unavailable.
+     *
+     * @return the amount of memory (in bytes) currently used by the memory pool or -1 if the information is unavailable
+     */
+    public long getUsedMemory();
+
+    /**
+     * Returns the amount of memory (in bytes) that is currently committed for the memory pool or -1 if the information is
+     * unavailable.
+     *
+     * @return the amount of memory (in bytes) that is currently committed for the memory pool or -1 if the information is
+     *         unavailable
+     */
+    public long getTotalMemory();
+
+    /**
+     * Returns the maximum amount of memory (in bytes) the memory pool can use or -1 if it is undefined.
+     *
+     * @return the maximum amount of memory (in bytes) the memory pool can use or -1 if it is undefined
+     */
+    public long getMaxMemory();
+
+}
@@ -0,0 +1,56 @@
+package software.leonov.system.monitor;
+
+import static software.leonov.system.monitor.util.Formatter.formatDecimalBytes;
+
+/**
+ * An implementation of the {@link MemoryPoolUsage} interface.
+ *
+ * @author Zhenya Leonov
+ */
+final class MemoryPoolUsageImpl implements MemoryPoolUsage {
+
+    private final String  name;
+    private final boolean heap;
+    private final long    usedMemory;
+    private final long    totalMemory;
+    private final long    maxMemory;
+
+    MemoryPoolUsageImpl(final String name, final boolean heap, final long usedMemory, final long totalMemory, final long maxMemory) {
+        this.name        = name;
+        this.heap        = heap;
+        this.usedMemory  = usedMemory;
+        this.totalMemory = totalMemory;
+        this.maxMemory   = maxMemory;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isHeap() {
+        return heap;
+    }
+
+    @Override
+    public long getUsedMemory() {
+        return usedMemory;
+    }
+
+    @Override
+    public long getTotalMemory() {
+        return totalMemory;
+    }
+
+    @Override
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[name=%s, heap=%s, usedMemory=%s, totalMemory=%s, maxMemory=%s]", name, heap, formatDecimalBytes(usedMemory), formatDecimalBytes(totalMemory), formatDecimalBytes(maxMemory));
+    }
+
+}
@@ -0,0 +1,48 @@
+package software.leonov.system.monitor;
+
+/**
+ * The usage of every JVM memory pool and of the direct and mapped buffer pools at a single point in time, read by a
+ * {@link MemoryPoolReader}.
+ * <p>
+ * The values are stored in primitive arrays indexed by pool and are shared by all monitors updated with the same
+ * {@link Sample}. {@link MemoryPoolUsage} objects are only created when requested.
+ *
+ * @author Zhenya Leonov
+ */
+final class MemoryPools {
+
+    static final MemoryPools EMPTY = new MemoryPools(new String[0], new boolean[0], new long[0], new long[0], new long[0], -1, -1, -1, -1, -1, -1, -1, -1);
+
+    final String[]  names;
+    final boolean[] heap;
+    final long[]    usedMemory;
+    final long[]    totalMemory;
+    final long[]    maxMemory;
+
+    final long nonHeapUsedMemory;
+    final long nonHeapTotalMemory;
+
+    final long directBufferCount;
+    final long directMemoryUsed;
+    final long directMemoryCapacity;
+    final long directMemoryLimit;
+    final long mappedBufferCount;
+    final long mappedMemoryUsed;
+
+    MemoryPools(final String[] names, final boolean[] heap, final long[] usedMemory, final long[] totalMemory, final long[] maxMemory, final long nonHeapUsedMemory, final long nonHeapTotalMemory, final long directBufferCount, final long directMemoryUsed, final long directMemoryCapacity, final long directMemoryLimit, final long mappedBufferCount, final long mappedMemoryUsed) {
+        this.names                = names;
+        this.heap                 = heap;
+        this.usedMemory           = usedMemory;
+        this.totalMemory          = totalMemory;
+        this.maxMemory            = maxMemory;
+        this.nonHeapUsedMemory    = nonHeapUsedMemory;
+        this.nonHeapTotalMemory   = nonHeapTotalMemory;
+        this.directBufferCount    = directBufferCount;
+        this.directMemoryUsed     = directMemoryUsed;
+        this.directMemoryCapacity = directMemoryCapacity;
+        this.directMemoryLimit    = directMemoryLimit;
+        this.mappedBufferCount    = mappedBufferCount;
+        this.mappedMemoryUsed     = mappedMemoryUsed;
+    }
+
+}
@@ -0,0 +1,260 @@
+package software.leonov.system.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Arms the usage and collection usage thresholds of the heap memory pools which support them (the old generation) and
+ * delivers the resulting JMX notifications to any number of registered listeners.
+ * <p>
+ * The JVM checks the thresholds itself and sends a notification as soon as a threshold is crossed, no polling is
+ * involved in detecting a crossing. A usage threshold notification is only sent once per crossing, and each memory pool
+ * has a single usage threshold, so the usage threshold is armed at the lowest fraction which the pool has not reached
+ * yet and is re-armed at the next fraction after every notification. Each registration is alerted once when its
+ * fraction is reached, and again after a notification or a poll has shown the usage below its fraction. The collection
+ * usage threshold, which is checked after every garbage collection, is armed at the lowest fraction and its
+ * notifications are delivered to every registration whose fraction has been reached.
+ * <p>
+ * Usage only decreases during garbage collections. A decrease is observed through the collection usage notifications,
+ * but no notification is sent when the usage drops below the lowest fraction, so {@link #poll()} must be called
+ * periodically to observe it through the usage after the most recent garbage collection.
+ * <p>
+ * Arming the thresholds replaces any thresholds set by other code. The thresholds are disabled and the listener is
+ * removed from the {@code MemoryMXBean} once all registrations are cancelled.
+ * <p>
+ * Listeners are invoked on the JVM's notification thread. A listener which throws an exception does not prevent other
+ * listeners from being invoked, the exception is passed to the thread's {@link Thread.UncaughtExceptionHandler uncaught
+ * exception handler}.
+ *
+ * @author Zhenya Leonov
+ */
+final class MemoryThresholds implements NotificationListener {
+
+    private static final MemoryThresholds SHARED = new MemoryThresholds(ManagementFactory.getMemoryMXBean(), ManagementFactory.getMemoryPoolMXBeans());
+
+    private final MemoryMXBean           bean;
+    private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private boolean                  listening     = false; // guarded by this
+
+    MemoryThresholds(final MemoryMXBean bean, final List<MemoryPoolMXBean> pools) {
+        this.bean = bean;
+        for (final MemoryPoolMXBean pool : pools)
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported())
+                this.pools.add(pool);
+    }
+
+    /**
+     * Returns the instance shared by all {@link BackgroundSystemMonitor}s.
+     *
+     * @return the instance shared by all {@link BackgroundSystemMonitor}s
+     */
+    static MemoryThresholds getSharedInstance() {
+        return SHARED;
+    }
+
+    /**
+     * Registers the specified listener to be notified when the usage of a heap memory pool crosses the specified fraction
+     * (0.0 to 1.0) of its maximum size.
+     *
+     * @param fraction the specified fraction
+     * @param listener the specified listener
+     * @return the new {@link Registration}
+     */
+    Registration register(final double fraction, final Consumer<MemoryAlert> listener) {
+        final Registration registration = new Registration(fraction, listener);
+
+        synchronized (this) {
+            if (!listening && bean instanceof NotificationEmitter) {
+                ((NotificationEmitter) bean).addNotificationListener(this, null, null);
+                listening = true;
+            }
+            registrations.add(registration);
+            arm();
+        }
+
+        return registration;
+    }
+
+    /**
+     * Cancels the specified registration.
+     *
+     * @param registration the specified registration
+     */
+    synchronized void unregister(final Registration registration) {
+        if (!registrations.remove(registration))
+            return;
+
+        arm();
+
+        if (registrations.isEmpty() && listening) {
+            try {
+                ((NotificationEmitter) bean).removeNotificationListener(this);
+            } catch (final ListenerNotFoundException e) {
+                // Already removed
+            }
+            listening = false;
+        }
+    }
+
+    private void arm() {
+        for (final MemoryPoolMXBean pool : pools) {
+            final MemoryUsage usage = pool.getUsage(); // null if the pool is no longer valid
+            if (usage != null)
+                arm(pool, usage.getUsed(), usage.getMax());
+        }
+    }
+
+    // Arms the usage threshold at the lowest fraction above the specified usage and the collection usage threshold at the lowest fraction
+    private void arm(final MemoryPoolMXBean pool, final long usedMemory, final long maxMemory) {
+        if (maxMemory <= 0)
+            return;
+
+        double lowest  = Double.MAX_VALUE;
+        double highest = 0;
+        double next    = Double.MAX_VALUE;
+
+        for (final Registration registration : registrations) {
+            lowest  = Math.min(lowest, registration.fraction);
+            highest = Math.max(highest, registration.fraction);
+            if (threshold(registration.fraction, maxMemory) > usedMemory)
+                next = Math.min(next, registration.fraction);
+        }
+
+        // A threshold of 0 disables the threshold, once every fraction has been reached the highest one stays armed
+        final boolean disabled = registrations.isEmpty();
+
+        pool.setUsageThreshold(disabled ? 0 : threshold(next == Double.MAX_VALUE ? highest : next, maxMemory));
+        if (pool.isCollectionUsageThresholdSupported())
+            pool.setCollectionUsageThreshold(disabled ? 0 : threshold(lowest, maxMemory));
+    }
+
+    private static long threshold(final double fraction, final long maxMemory) {
+        return Math.max(1, (long) (fraction * maxMemory));
+    }
+
+    /**
+     * Returns the heap memory pools whose thresholds are armed.
+     *
+     * @return the heap memory pools whose thresholds are armed
+     */
+    List<MemoryPoolMXBean> getPools() {
+        return pools;
+    }
+
+    @Override
+    public void handleNotification(final Notification notification, final Object handback) {
+        final MemoryAlert.Type type;
+
+        if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(notification.getType()))
+            type = MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED;
+        else if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+            type = MemoryAlert.Type.COLLECTION_USAGE_THRESHOLD_EXCEEDED;
+        else
+            return;
+
+        final MemoryNotificationInfo info  = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+        final MemoryUsage            usage = info.getUsage();
+
+        dispatch(type, info.getPoolName(), usage.getUsed(), usage.getMax(), notification.getTimeStamp());
+    }
+
+    /**
+     * Delivers an alert to every registration whose fraction has been reached, at most once per crossing for usage
+     * threshold alerts, and re-arms the usage threshold of the pool at the next fraction.
+     */
+    void dispatch(final MemoryAlert.Type type, final String poolName, final long usedMemory, final long maxMemory, final long timestamp) {
+        final List<Registration> recipients = new ArrayList<>();
+
+        synchronized (this) {
+            for (final Registration registration : registrations)
+                if (usedMemory < threshold(registration.fraction, maxMemory))
+                    registration.alerted.remove(poolName);
+                else if (registration.alerted.add(poolName) || type == MemoryAlert.Type.COLLECTION_USAGE_THRESHOLD_EXCEEDED)
+                    recipients.add(registration);
+
+            for (final MemoryPoolMXBean pool : pools)
+                if (pool.getName().equals(poolName))
+                    arm(pool, usedMemory, maxMemory);
+        }
+
+        for (final Registration registration : recipients) {
+            final long threshold = threshold(registration.fraction, maxMemory);
+
+            try {
+                registration.listener.accept(new MemoryAlertImpl(type, poolName, usedMemory, maxMemory, threshold, timestamp));
+            } catch (final RuntimeException e) {
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    /**
+     * Observes the usage of each pool after its most recent garbage collection, which is not notified if it is below the
+     * lowest fraction. Called on each update of a {@link BackgroundSystemMonitor} with a memory threshold listener, as
+     * direct memory is checked.
+     */
+    void poll() {
+        for (final MemoryPoolMXBean pool : pools) {
+            final MemoryUsage usage = pool.getCollectionUsage(); // null if unsupported
+            if (usage != null)
+                collected(pool.getName(), usage.getUsed(), usage.getMax());
+        }
+    }
+
+    /**
+     * Forgets the alerts of every registration whose fraction is above the usage of the specified pool after a garbage
+     * collection, and re-arms the usage threshold of the pool at the lowest such fraction.
+     */
+    synchronized void collected(final String poolName, final long usedMemory, final long maxMemory) {
+        if (maxMemory <= 0)
+            return;
+
+        boolean dropped = false;
+        for (final Registration registration : registrations)
+            if (usedMemory < threshold(registration.fraction, maxMemory) && registration.alerted.remove(poolName))
+                dropped = true;
+
+        if (dropped)
+            for (final MemoryPoolMXBean pool : pools)
+                if (pool.getName().equals(poolName))
+                    arm(pool, usedMemory, maxMemory);
+    }
+
+    /**
+     * A listener registered with a {@link MemoryThresholds}.
+     */
+    static final class Registration {
+
+        private final double                fraction;
+        private final Consumer<MemoryAlert> listener;
+
+        // The pools which have reached the fraction since the last notification below it, guarded by MemoryThresholds.this
+        private final Set<String> alerted = new HashSet<>();
+
+        private Registration(final double fraction, final Consumer<MemoryAlert> listener) {
+            this.fraction = fraction;
+            this.listener = listener;
+        }
+
+    }
+
+}
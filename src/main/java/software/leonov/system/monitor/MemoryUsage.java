@@ -1,7 +1,13 @@
 package software.leonov.system.monitor;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * The system physical memory (RAM) usage metrics.
+ * <p>
+ * In addition to the heap, the JVM uses non-heap memory (the Metaspace, the code cache, etc.) and native memory for
+ * direct and mapped buffers, which are not limited by the maximum heap size and are reported separately.
  * 
  * @author Zhenya Leonov
  */
@@ -33,4 +39,160 @@ public interface MemoryUsage {
      */
     public long getMaxUsedMemory();
 
+    /**
+     * Returns the rate (in bytes per second) at which the JVM's threads allocated heap memory during the most recent update
+     * interval or -1 if the information is unavailable. A high allocation rate drives the frequency of garbage
+     * collections.
+     * <p>
+     * To avoid the cost of measuring allocations when nobody uses them, the allocated bytes are only measured after this
+     * method has been called for the first time (or a monitor which records, publishes, or tracks the top allocators has
+     * been configured). The allocation rate is available from the second update after that.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the rate (in bytes per second) at which the JVM's threads allocated heap memory during the most recent update
+     *         interval or -1 if the information is unavailable
+     * @see SystemMonitor#isAllocationRateSupported()
+     */
+    public default long getAllocationRate() {
+        return -1;
+    }
+
+    /**
+     * Returns the amount of non-heap memory (in bytes) currently used by the JVM, the sum of all non-heap
+     * {@link #getMemoryPools() memory pools}, or -1 if the information is unavailable.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the amount of non-heap memory (in bytes) currently used by the JVM or -1 if the information is unavailable
+     */
+    public default long getNonHeapUsedMemory() {
+        return -1;
+    }
+
+    /**
+     * Returns the amount of non-heap memory (in bytes) that is currently committed for the JVM's use, the sum of all
+     * non-heap {@link #getMemoryPools() memory pools}, or -1 if the information is unavailable.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the amount of non-heap memory (in bytes) that is currently committed for the JVM's use or -1 if the
+     *         information is unavailable
+     */
+    public default long getNonHeapTotalMemory() {
+        return -1;
+    }
+
+    /**
+     * Returns the amount of native memory (in bytes) currently used by direct buffers (for example
+     * {@link java.nio.ByteBuffer#allocateDirect(int)}) or -1 if the information is unavailable.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the amount of native memory (in bytes) currently used by direct buffers or -1 if the information is
+     *         unavailable
+     */
+    public default long getDirectMemoryUsed() {
+        return -1;
+    }
+
+    /**
+     * Returns the total capacity (in bytes) of all direct buffers or -1 if the information is unavailable.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the total capacity (in bytes) of all direct buffers or -1 if the information is unavailable
+     */
+    public default long getDirectMemoryCapacity() {
+        return -1;
+    }
+
+    /**
+     * Returns the maximum amount of native memory (in bytes) which can be used by direct buffers
+     * ({@code -XX:MaxDirectMemorySize}) or -1 if the information is unavailable. Allocating a direct buffer beyond this
+     * limit throws an {@code OutOfMemoryError}.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the maximum amount of native memory (in bytes) which can be used by direct buffers or -1 if the information
+     *         is unavailable
+     */
+    public default long getDirectMemoryLimit() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of direct buffers or -1 if the information is unavailable.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the number of direct buffers or -1 if the information is unavailable
+     */
+    public default long getDirectBufferCount() {
+        return -1;
+    }
+
+    /**
+     * Returns the amount of memory (in bytes) currently used by mapped buffers (see
+     * {@link java.nio.channels.FileChannel#map FileChannel.map}) or -1 if the information is unavailable.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the amount of memory (in bytes) currently used by mapped buffers or -1 if the information is unavailable
+     */
+    public default long getMappedMemoryUsed() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of mapped buffers or -1 if the information is unavailable.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the number of mapped buffers or -1 if the information is unavailable
+     */
+    public default long getMappedBufferCount() {
+        return -1;
+    }
+
+    /**
+     * Returns the usage of each heap and non-heap memory pool of the JVM (for example the Eden, Survivor, and Old
+     * generation spaces, the Metaspace, and the code cache) or an empty list if the information is unavailable.
+     * <p>
+     * The default implementation returns an empty list.
+     *
+     * @return the usage of each heap and non-heap memory pool of the JVM
+     */
+    public default List<MemoryPoolUsage> getMemoryPools() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the amount of heap memory (in bytes) used by the JVM at the specified percentile (0.0 to 100.0) of the
+     * values observed during the last 5 to 10 minutes or -1 if the information is unavailable. For example
+     * {@code getUsedMemoryPercentile(99)} returns the 99th percentile.
+     * <p>
+     * The default implementation returns the specified percentile of {@link #getUsedMemoryHistogram()}.
+     *
+     * @param percentile the specified percentile
+     * @return the amount of heap memory (in bytes) used by the JVM at the specified percentile or -1 if the information is
+     *         unavailable
+     * @throws IllegalArgumentException if the percentile is less than 0.0 or greater than 100.0
+     */
+    public default long getUsedMemoryPercentile(final double percentile) {
+        return (long) getUsedMemoryHistogram().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Returns the {@link Histogram} of the amounts of heap memory (in bytes) used by the JVM observed during the last 5 to
+     * 10 minutes. The histogram is empty if the information is unavailable.
+     * <p>
+     * The default implementation returns an empty histogram.
+     *
+     * @return the {@link Histogram} of the recently observed amounts of heap memory (in bytes) used by the JVM
+     */
+    public default Histogram getUsedMemoryHistogram() {
+        return Histogram.EMPTY_MEMORY_USAGE;
+    }
+
 }
@@ -2,6 +2,10 @@ package software.leonov.system.monitor;
 
 import static software.leonov.system.monitor.util.Formatter.formatDecimalBytes;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * An implementation of the {@link MemoryUsage} interface.
  * 
@@ -9,14 +13,27 @@ import static software.leonov.system.monitor.util.Formatter.formatDecimalBytes;
  */
 final class MemoryUsageImpl implements MemoryUsage {
 
+    private static final HistogramWindow.Frozen NO_HISTOGRAM = new HistogramWindow.Frozen(Histogram.EMPTY_MEMORY_USAGE);
+
     private final long usedMemory;
     private final long totalMemory;
     private final long maxUsedMemory;
+    private final long allocationRate;
+
+    private final MemoryPools            memoryPools;
+    private final HistogramWindow.Frozen usedMemoryHistogram;
 
     MemoryUsageImpl(final long usedMemory, final long totalMemory, final long maxUsedMemory) {
-        this.usedMemory    = usedMemory;
-        this.totalMemory   = totalMemory;
-        this.maxUsedMemory = maxUsedMemory;
+        this(usedMemory, totalMemory, maxUsedMemory, -1, MemoryPools.EMPTY, NO_HISTOGRAM);
+    }
+
+    MemoryUsageImpl(final long usedMemory, final long totalMemory, final long maxUsedMemory, final long allocationRate, final MemoryPools memoryPools, final HistogramWindow.Frozen usedMemoryHistogram) {
+        this.usedMemory          = usedMemory;
+        this.totalMemory         = totalMemory;
+        this.maxUsedMemory       = maxUsedMemory;
+        this.allocationRate      = allocationRate;
+        this.memoryPools         = memoryPools;
+        this.usedMemoryHistogram = usedMemoryHistogram;
     }
 
     @Override
@@ -34,9 +51,84 @@ final class MemoryUsageImpl implements MemoryUsage {
         return maxUsedMemory;
     }
 
+    @Override
+    public long getAllocationRate() {
+        Sampler.requestAllocatedBytes();
+        return allocationRate;
+    }
+
+    @Override
+    public long getNonHeapUsedMemory() {
+        return memoryPools.nonHeapUsedMemory;
+    }
+
+    @Override
+    public long getNonHeapTotalMemory() {
+        return memoryPools.nonHeapTotalMemory;
+    }
+
+    @Override
+    public long getDirectMemoryUsed() {
+        return memoryPools.directMemoryUsed;
+    }
+
+    @Override
+    public long getDirectMemoryCapacity() {
+        return memoryPools.directMemoryCapacity;
+    }
+
+    @Override
+    public long getDirectMemoryLimit() {
+        return memoryPools.directMemoryLimit;
+    }
+
+    @Override
+    public long getDirectBufferCount() {
+        return memoryPools.directBufferCount;
+    }
+
+    @Override
+    public long getMappedMemoryUsed() {
+        return memoryPools.mappedMemoryUsed;
+    }
+
+    @Override
+    public long getMappedBufferCount() {
+        return memoryPools.mappedBufferCount;
+    }
+
+    @Override
+    public List<MemoryPoolUsage> getMemoryPools() {
+        final MemoryPoolUsage[] pools = new MemoryPoolUsage[memoryPools.names.length];
+
+        for (int i = 0; i < pools.length; i++)
+            pools[i] = new MemoryPoolUsageImpl(memoryPools.names[i], memoryPools.heap[i], memoryPools.usedMemory[i], memoryPools.totalMemory[i], memoryPools.maxMemory[i]);
+
+        return Collections.unmodifiableList(Arrays.asList(pools));
+    }
+
+    @Override
+    public long getUsedMemoryPercentile(final double percentile) {
+        return (long) usedMemoryHistogram.get().getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public Histogram getUsedMemoryHistogram() {
+        return usedMemoryHistogram.get();
+    }
+
     @Override
     public String toString() {
-        return String.format("[usedMemory=%s, totalMemory=%s, maxUsedMemory=%s]", formatDecimalBytes(usedMemory), formatDecimalBytes(totalMemory), formatDecimalBytes(maxUsedMemory));
+        // @formatter:off
+        return String.format("[usedMemory=%s, totalMemory=%s, maxUsedMemory=%s, allocationRate=%s, nonHeapUsedMemory=%s, directMemoryUsed=%s, mappedMemoryUsed=%s]",
+                      formatDecimalBytes(usedMemory),
+                      formatDecimalBytes(totalMemory),
+                      formatDecimalBytes(maxUsedMemory),
+                      allocationRate < 0 ? "N/A" : formatDecimalBytes(allocationRate) + "/s",
+                      formatDecimalBytes(memoryPools.nonHeapUsedMemory),
+                      formatDecimalBytes(memoryPools.directMemoryUsed),
+                      formatDecimalBytes(memoryPools.mappedMemoryUsed));
+        // @formatter:on
     }
 
 }
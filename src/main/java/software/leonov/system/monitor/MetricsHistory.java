@@ -0,0 +1,156 @@
+package software.leonov.system.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size history of the most recent usage metrics, for example the last hour of metrics collected every second.
+ * <p>
+ * The history is stored in preallocated primitive arrays (a ring buffer): appending a new entry takes constant time and
+ * does not allocate, and once the history is full each new entry replaces the oldest one. The history is written by a
+ * single monitor and can be read by any number of threads without locking. Readers copy a window of the most recent
+ * entries into arrays supplied by the caller using the {@link #read(long[], double[], double[], double[], long[], long[])
+ * read} method.
+ * <p>
+ * As with the rest of this library, metrics which were unavailable, uninitialized, or unsupported at the time they were
+ * recorded are reported as negative values.
+ *
+ * @author Zhenya Leonov
+ */
+public final class MetricsHistory {
+
+    private final int capacity;
+
+    private final AtomicLongArray timestamps;
+    private final AtomicLongArray processCpuLoad;
+    private final AtomicLongArray systemCpuLoad;
+    private final AtomicLongArray systemLoadAverage;
+    private final AtomicLongArray usedMemory;
+    private final AtomicLongArray totalMemory;
+
+    // The number of entries whose recording has started, and the number of entries which have been completely recorded
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong count   = new AtomicLong();
+
+    MetricsHistory(final int capacity) {
+        this.capacity     = capacity;
+        timestamps        = new AtomicLongArray(capacity);
+        processCpuLoad    = new AtomicLongArray(capacity);
+        systemCpuLoad     = new AtomicLongArray(capacity);
+        systemLoadAverage = new AtomicLongArray(capacity);
+        usedMemory        = new AtomicLongArray(capacity);
+        totalMemory       = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Appends a new entry, replacing the oldest entry if this history is full. Must not be called concurrently by multiple
+     * threads.
+     */
+    void record(final long timestamp, final double processCpu, final double systemCpu, final double loadAverage, final long used, final long total) {
+        final long n = count.get();
+        final int  i = (int) (n % capacity);
+
+        started.set(n + 1);
+
+        timestamps.set(i, timestamp);
+        processCpuLoad.set(i, Double.doubleToRawLongBits(processCpu));
+        systemCpuLoad.set(i, Double.doubleToRawLongBits(systemCpu));
+        systemLoadAverage.set(i, Double.doubleToRawLongBits(loadAverage));
+        usedMemory.set(i, used);
+        totalMemory.set(i, total);
+
+        count.set(n + 1);
+    }
+
+    /**
+     * Returns the maximum number of entries retained by this history.
+     *
+     * @return the maximum number of entries retained by this history
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the total number of entries recorded since this history was created, including entries which have since been
+     * replaced.
+     *
+     * @return the total number of entries recorded since this history was created
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the number of entries currently retained by this history.
+     *
+     * @return the number of entries currently retained by this history
+     */
+    public int size() {
+        return (int) Math.min(count.get(), capacity);
+    }
+
+    /**
+     * Copies the most recent entries, oldest first, into the specified arrays.
+     * <p>
+     * Any array may be {@code null}, in which case the corresponding metric is not copied. The number of entries copied is
+     * the smaller of {@link #size()} and the length of the shortest non-null array. All arrays receive values from the same
+     * entries: element {@code i} of every array belongs to the same update.
+     * <p>
+     * Timestamps are in milliseconds since the epoch, CPU usage metrics are percentages (0.0 to 100.0), and memory usage
+     * metrics are in bytes.
+     *
+     * @param timestamps        the array which receives the time each entry was recorded or {@code null}
+     * @param processCpuLoad    the array which receives the JVM process CPU usage or {@code null}
+     * @param systemCpuLoad     the array which receives the system-wide CPU usage or {@code null}
+     * @param systemLoadAverage the array which receives the system load average or {@code null}
+     * @param usedMemory        the array which receives the amount of used heap memory or {@code null}
+     * @param totalMemory       the array which receives the amount of committed heap memory or {@code null}
+     * @return the number of entries copied
+     */
+    public int read(final long[] timestamps, final double[] processCpuLoad, final double[] systemCpuLoad, final double[] systemLoadAverage, final long[] usedMemory, final long[] totalMemory) {
+        int max = Integer.MAX_VALUE;
+
+        max = min(max, timestamps == null ? -1 : timestamps.length);
+        max = min(max, processCpuLoad == null ? -1 : processCpuLoad.length);
+        max = min(max, systemCpuLoad == null ? -1 : systemCpuLoad.length);
+        max = min(max, systemLoadAverage == null ? -1 : systemLoadAverage.length);
+        max = min(max, usedMemory == null ? -1 : usedMemory.length);
+        max = min(max, totalMemory == null ? -1 : totalMemory.length);
+
+        if (max == Integer.MAX_VALUE)
+            return 0;
+
+        while (true) {
+            final long end   = count.get();
+            final int  n     = (int) Math.min(Math.min(end, capacity), max);
+            final long start = end - n;
+
+            for (int j = 0; j < n; j++) {
+                final int i = (int) ((start + j) % capacity);
+
+                if (timestamps != null)
+                    timestamps[j] = this.timestamps.get(i);
+                if (processCpuLoad != null)
+                    processCpuLoad[j] = Double.longBitsToDouble(this.processCpuLoad.get(i));
+                if (systemCpuLoad != null)
+                    systemCpuLoad[j] = Double.longBitsToDouble(this.systemCpuLoad.get(i));
+                if (systemLoadAverage != null)
+                    systemLoadAverage[j] = Double.longBitsToDouble(this.systemLoadAverage.get(i));
+                if (usedMemory != null)
+                    usedMemory[j] = this.usedMemory.get(i);
+                if (totalMemory != null)
+                    totalMemory[j] = this.totalMemory.get(i);
+            }
+
+            // Retry if the writer started replacing any of the copied entries
+            if (started.get() - capacity <= start)
+                return n;
+        }
+    }
+
+    private static int min(final int max, final int length) {
+        return length < 0 ? max : Math.min(max, length);
+    }
+
+}
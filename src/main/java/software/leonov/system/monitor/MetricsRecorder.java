@@ -0,0 +1,178 @@
+package software.leonov.system.monitor;
+
+import static java.util.Objects.requireNonNull;
+import static software.leonov.system.monitor.SharedMetricsWriter.fence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Records the usage metrics of every update of a {@link BackgroundSystemMonitor} as fixed-width binary records in an
+ * append-only, memory-mapped recording which can be replayed with {@link MetricsRecording}.
+ * <p>
+ * The recording is a directory of segment files, each holding a fixed number of 64-byte records. Appending a record is a
+ * handful of stores into the mapped segment: it does not allocate, retain anything on the heap, or perform any system
+ * calls. The operating system writes the pages back to the file in the background. A new segment is created (and the
+ * oldest segments beyond {@code maxSegments} are deleted) only when the current segment is full, for example once a day
+ * for a monitor updated every second with 86,400 records per segment (about 5.5 MB).
+ * <p>
+ * Each record contains the timestamp and the process CPU usage, system CPU usage, system load average, used heap memory,
+ * committed heap memory, allocation rate, and GC overhead of a single update. Timestamps never decrease within a
+ * recording, which allows {@link MetricsRecording} to find records by timestamp with a binary search. As with the rest of
+ * this library, metrics which were unavailable at the time they were recorded are stored as negative values.
+ * <p>
+ * A recorder continues an existing recording in a new segment, with timestamps no lower than the last timestamp of the
+ * existing recording. If a segment cannot be created the recorder stops recording, closes itself, and passes the
+ * exception to the updating thread's {@link Thread.UncaughtExceptionHandler uncaught exception handler}.
+ *
+ * @author Zhenya Leonov
+ * @see BackgroundSystemMonitor#recordTo(MetricsRecorder)
+ */
+public final class MetricsRecorder implements Closeable {
+
+    static final int MAGIC        = 0x534D5243; // "SMRC"
+    static final int VERSION      = 1;
+    static final int HEADER_SIZE  = 64;
+    static final int RECORD_SIZE  = 64;
+    static final int COUNT_OFFSET = 16;
+
+    static final String SUFFIX = ".smr";
+
+    private final Path directory;
+    private final int  recordsPerSegment;
+    private final int  maxSegments;
+
+    private final Deque<Path> segments      = new ArrayDeque<>(); // guarded by this
+    private MappedByteBuffer  buffer;                             // guarded by this
+    private long              segment;                            // guarded by this
+    private int               count;                              // guarded by this
+    private long              lastTimestamp;                      // guarded by this
+    private boolean           closed        = false;              // guarded by this
+
+    private MetricsRecorder(final Path directory, final int recordsPerSegment, final int maxSegments) throws IOException {
+        this.directory         = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxSegments       = maxSegments;
+
+        final List<Path> existing = MetricsRecording.listSegments(directory);
+
+        segments.addAll(existing);
+        segment = segments.isEmpty() ? 0 : MetricsRecording.segmentNumber(segments.getLast()) + 1;
+
+        // Continue the sorted timestamps of the existing recording even if the clock went back across a restart
+        lastTimestamp = MetricsRecording.lastTimestamp(existing);
+        rotate();
+    }
+
+    /**
+     * Opens a recorder which appends to the recording in the specified directory, creating the directory if it does not
+     * exist.
+     *
+     * @param directory         the directory of the recording
+     * @param recordsPerSegment the number of records in each segment file
+     * @param maxSegments       the maximum number of segment files to retain, including the segment being written
+     * @return a new {@link MetricsRecorder}
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if {@code recordsPerSegment} or {@code maxSegments} is not positive
+     */
+    public static MetricsRecorder open(final Path directory, final int recordsPerSegment, final int maxSegments) throws IOException {
+        requireNonNull(directory, "directory == null");
+        if (recordsPerSegment <= 0)
+            throw new IllegalArgumentException("recordsPerSegment <= 0");
+        if ((long) recordsPerSegment * RECORD_SIZE > Integer.MAX_VALUE - HEADER_SIZE)
+            throw new IllegalArgumentException("recordsPerSegment too large");
+        if (maxSegments <= 0)
+            throw new IllegalArgumentException("maxSegments <= 0");
+        Files.createDirectories(directory);
+        return new MetricsRecorder(directory, recordsPerSegment, maxSegments);
+    }
+
+    /**
+     * Returns the directory of the recording.
+     *
+     * @return the directory of the recording
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Appends a new record. Does nothing if this recorder is closed.
+     */
+    synchronized void record(final long timestamp, final double processCpu, final double systemCpu, final double loadAverage, final long used, final long total, final long allocationRate, final double gcOverhead) {
+        if (closed)
+            return;
+
+        if (count == recordsPerSegment)
+            try {
+                rotate();
+            } catch (final IOException e) {
+                close();
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, new UncheckedIOException(e));
+                return;
+            }
+
+        // Keep the timestamps sorted if the clock goes backwards
+        lastTimestamp = Math.max(timestamp, lastTimestamp);
+
+        final int offset = HEADER_SIZE + count * RECORD_SIZE;
+
+        buffer.putLong(offset, lastTimestamp);
+        buffer.putDouble(offset + 8, processCpu);
+        buffer.putDouble(offset + 16, systemCpu);
+        buffer.putDouble(offset + 24, loadAverage);
+        buffer.putLong(offset + 32, used);
+        buffer.putLong(offset + 40, total);
+        buffer.putLong(offset + 48, allocationRate);
+        buffer.putDouble(offset + 56, gcOverhead);
+
+        // Publish the record after it has been written
+        fence();
+        buffer.putLong(COUNT_OFFSET, ++count);
+    }
+
+    private void rotate() throws IOException {
+        final Path path = directory.resolve(MetricsRecording.segmentName(segment++));
+        final long size = HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putInt(12, recordsPerSegment);
+        buffer.putLong(COUNT_OFFSET, 0);
+        count = 0;
+
+        segments.addLast(path);
+        while (segments.size() > maxSegments)
+            Files.deleteIfExists(segments.removeFirst());
+    }
+
+    /**
+     * Stops recording and flushes the current segment to the file. The recording remains readable.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        buffer.force();
+        buffer = null;
+    }
+
+}
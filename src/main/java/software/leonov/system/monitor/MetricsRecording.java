@@ -0,0 +1,298 @@
+package software.leonov.system.monitor;
+
+import static java.util.Objects.requireNonNull;
+import static software.leonov.system.monitor.MetricsRecorder.COUNT_OFFSET;
+import static software.leonov.system.monitor.MetricsRecorder.HEADER_SIZE;
+import static software.leonov.system.monitor.MetricsRecorder.MAGIC;
+import static software.leonov.system.monitor.MetricsRecorder.RECORD_SIZE;
+import static software.leonov.system.monitor.MetricsRecorder.SUFFIX;
+import static software.leonov.system.monitor.MetricsRecorder.VERSION;
+import static software.leonov.system.monitor.SharedMetricsWriter.fence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only view of a recording written by a {@link MetricsRecorder}.
+ * <p>
+ * The segments of the recording are memory-mapped when the recording is opened: records are read directly from the page
+ * cache and only the records which are accessed are ever loaded. Records are addressed by their index, from {@code 0}
+ * (the oldest record) to {@link #size()} {@code - 1}. The index of the first record at or after a point in time is found
+ * with a binary search by {@link #indexOf(long)}, so that a range of records can be queried with:
+ *
+ * <pre>
+ * final long from = recording.indexOf(start);
+ * final long to   = recording.indexOf(end);
+ * final int  n    = recording.read(from, timestamps, processCpuLoad, null, null, usedMemory, null, null, null);
+ * </pre>
+ * <p>
+ * A recording can be read while it is being written. Records appended to the newest segment become visible immediately,
+ * but segments created after the recording was opened are not: the recording must be opened again to see them.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Zhenya Leonov
+ * @see MetricsRecorder
+ */
+public final class MetricsRecording {
+
+    private final ByteBuffer[] segments;
+    private final long[]       offsets; // the index of the first record of each segment
+
+    private MetricsRecording(final ByteBuffer[] segments, final long[] offsets) {
+        this.segments = segments;
+        this.offsets  = offsets;
+    }
+
+    /**
+     * Opens the recording in the specified directory.
+     *
+     * @param directory the directory of the recording
+     * @return the recording in the specified directory
+     * @throws IOException if an I/O error occurs or a segment file is not part of a recording
+     */
+    public static MetricsRecording open(final Path directory) throws IOException {
+        requireNonNull(directory, "directory == null");
+
+        final List<Path>   paths    = listSegments(directory);
+        final ByteBuffer[] segments = new ByteBuffer[paths.size()];
+        final long[]       offsets  = new long[paths.size()];
+
+        long offset = 0;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = map(paths.get(i));
+            offsets[i]  = offset;
+            offset     += count(segments[i]);
+        }
+
+        return new MetricsRecording(segments, offsets);
+    }
+
+    /**
+     * Returns the number of records in this recording.
+     *
+     * @return the number of records in this recording
+     */
+    public long size() {
+        final int last = segments.length - 1;
+        return last < 0 ? 0 : offsets[last] + count(segments[last]);
+    }
+
+    /**
+     * Returns the index of the first record whose timestamp is greater than or equal to the specified timestamp, or
+     * {@link #size()} if there is no such record.
+     *
+     * @param timestamp the specified timestamp, in milliseconds since the epoch
+     * @return the index of the first record whose timestamp is greater than or equal to the specified timestamp
+     */
+    public long indexOf(final long timestamp) {
+        long low  = 0;
+        long high = size();
+
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (getTimestamp(mid) < timestamp)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the timestamp of the record at the specified index.
+     *
+     * @param index the index of the record
+     * @return the timestamp of the record at the specified index, in milliseconds since the epoch
+     * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+     */
+    public long getTimestamp(final long index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+        final int segment = segment(index);
+        return segments[segment].getLong(offset(segment, index));
+    }
+
+    /**
+     * Copies consecutive records, starting with the record at the specified index, into the specified arrays.
+     * <p>
+     * Any array may be {@code null}, in which case the corresponding metric is not copied. The number of records copied is
+     * the smaller of the number of records from {@code index} to the end of this recording and the length of the shortest
+     * non-null array. All arrays receive values from the same records: element {@code i} of every array belongs to the same
+     * update.
+     * <p>
+     * Timestamps are in milliseconds since the epoch, CPU usage metrics are percentages (0.0 to 100.0), memory usage metrics
+     * are in bytes, the allocation rate is in bytes per second, and the GC overhead is a percentage of the elapsed time.
+     *
+     * @param index             the index of the first record to copy
+     * @param timestamps        the array which receives the time each record was recorded or {@code null}
+     * @param processCpuLoad    the array which receives the JVM process CPU usage or {@code null}
+     * @param systemCpuLoad     the array which receives the system-wide CPU usage or {@code null}
+     * @param systemLoadAverage the array which receives the system load average or {@code null}
+     * @param usedMemory        the array which receives the amount of used heap memory or {@code null}
+     * @param totalMemory       the array which receives the amount of committed heap memory or {@code null}
+     * @param allocationRate    the array which receives the allocation rate or {@code null}
+     * @param gcOverhead        the array which receives the GC overhead or {@code null}
+     * @return the number of records copied
+     * @throws IndexOutOfBoundsException if {@code index < 0 || index > size()}
+     */
+    public int read(final long index, final long[] timestamps, final double[] processCpuLoad, final double[] systemCpuLoad, final double[] systemLoadAverage, final long[] usedMemory, final long[] totalMemory, final long[] allocationRate, final double[] gcOverhead) {
+        final long size = size();
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+
+        int max = Integer.MAX_VALUE;
+
+        max = min(max, timestamps == null ? -1 : timestamps.length);
+        max = min(max, processCpuLoad == null ? -1 : processCpuLoad.length);
+        max = min(max, systemCpuLoad == null ? -1 : systemCpuLoad.length);
+        max = min(max, systemLoadAverage == null ? -1 : systemLoadAverage.length);
+        max = min(max, usedMemory == null ? -1 : usedMemory.length);
+        max = min(max, totalMemory == null ? -1 : totalMemory.length);
+        max = min(max, allocationRate == null ? -1 : allocationRate.length);
+        max = min(max, gcOverhead == null ? -1 : gcOverhead.length);
+
+        if (max == Integer.MAX_VALUE)
+            return 0;
+
+        final int n = (int) Math.min(size - index, max);
+
+        for (int j = 0; j < n; j++) {
+            final int        segment = segment(index + j);
+            final ByteBuffer buffer  = segments[segment];
+            final int        offset  = offset(segment, index + j);
+
+            if (timestamps != null)
+                timestamps[j] = buffer.getLong(offset);
+            if (processCpuLoad != null)
+                processCpuLoad[j] = buffer.getDouble(offset + 8);
+            if (systemCpuLoad != null)
+                systemCpuLoad[j] = buffer.getDouble(offset + 16);
+            if (systemLoadAverage != null)
+                systemLoadAverage[j] = buffer.getDouble(offset + 24);
+            if (usedMemory != null)
+                usedMemory[j] = buffer.getLong(offset + 32);
+            if (totalMemory != null)
+                totalMemory[j] = buffer.getLong(offset + 40);
+            if (allocationRate != null)
+                allocationRate[j] = buffer.getLong(offset + 48);
+            if (gcOverhead != null)
+                gcOverhead[j] = buffer.getDouble(offset + 56);
+        }
+
+        return n;
+    }
+
+    private int segment(final long index) {
+        int low  = 0;
+        int high = offsets.length - 1;
+
+        // Find the last segment whose first record is at or before the index
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+
+        // Skip empty segments which share their offset with the next segment
+        while (low + 1 < offsets.length && offsets[low + 1] <= index)
+            low++;
+
+        return low;
+    }
+
+    private int offset(final int segment, final long index) {
+        return HEADER_SIZE + (int) (index - offsets[segment]) * RECORD_SIZE;
+    }
+
+    private static int min(final int max, final int length) {
+        return length < 0 ? max : Math.min(max, length);
+    }
+
+    private static int count(final ByteBuffer segment) {
+        final int count = (int) segment.getLong(COUNT_OFFSET);
+        // Read the records only after the count which publishes them
+        fence();
+        return count;
+    }
+
+    private static ByteBuffer map(final Path path) throws IOException {
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path)) {
+            if (channel.size() < HEADER_SIZE)
+                throw new IOException("not a recording segment: " + path);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE)
+            throw new IOException("not a recording segment: " + path);
+        if (HEADER_SIZE + (long) buffer.getInt(12) * RECORD_SIZE > buffer.capacity())
+            throw new IOException("truncated recording segment: " + path);
+
+        return buffer;
+    }
+
+    /**
+     * Returns the timestamp of the last record in the specified segments or {@code Long.MIN_VALUE} if they are empty.
+     *
+     * @param paths the segments of a recording, oldest first
+     * @return the timestamp of the last record in the specified segments or {@code Long.MIN_VALUE} if they are empty
+     * @throws IOException if an I/O error occurs or a segment file is not part of a recording
+     */
+    static long lastTimestamp(final List<Path> paths) throws IOException {
+        // The newest segments may be empty if a recorder was closed before it recorded anything
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            final ByteBuffer segment = map(paths.get(i));
+            final int        count   = count(segment);
+            if (count > 0)
+                return segment.getLong(HEADER_SIZE + (count - 1) * RECORD_SIZE);
+        }
+        return Long.MIN_VALUE;
+    }
+
+    static List<Path> listSegments(final Path directory) throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory))
+            return segments;
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (final Path path : stream)
+                if (isSegmentName(path.getFileName().toString()))
+                    segments.add(path);
+        }
+
+        // Segment names are zero-padded, so lexicographic order is numeric order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    static String segmentName(final long number) {
+        return String.format("%016d%s", number, SUFFIX);
+    }
+
+    static long segmentNumber(final Path path) {
+        final String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static boolean isSegmentName(final String name) {
+        if (name.length() != 16 + SUFFIX.length())
+            return false;
+        for (int i = 0; i < 16; i++)
+            if (!Character.isDigit(name.charAt(i)))
+                return false;
+        return true;
+    }
+
+}
@@ -0,0 +1,241 @@
+package software.leonov.system.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A live, allocation-free view of the most recent usage metrics collected by a {@link SystemMonitor}.
+ * <p>
+ * Unlike {@link CpuUsage} and {@link MemoryUsage}, which are immutable objects created on every update, a
+ * {@code MetricsView} is created once per monitor and updated in place. Its accessors read primitive values directly and
+ * never allocate, which makes this class suitable for hot paths such as per-request admission control.
+ * <p>
+ * Each accessor returns the latest value of a single metric. To read several metrics from the same update use the
+ * {@link #beginRead()} and {@link #validate(long)} methods:
+ *
+ * <pre>
+ * <code>
+ * final MetricsView view = monitor.getMetricsView();
+ * long   stamp;
+ * double cpu;
+ * long   memory;
+ *
+ * do {
+ *     stamp  = view.beginRead();
+ *     cpu    = view.getProcessCpuLoad();
+ *     memory = view.getUsedMemory();
+ * } while (!view.validate(stamp));
+ * </code>
+ * </pre>
+ *
+ * A view can be kept and read repeatedly, it always reflects the current state of its monitor. The view of a
+ * {@link LazySystemMonitor} updates the metrics when it is read, subject to the monitor's update threshold. The view of
+ * a {@link BackgroundSystemMonitor} reports negative values while the monitor is not running.
+ * <p>
+ * As with the rest of this library, metrics which are unavailable, uninitialized, or unsupported are reported as negative
+ * values.
+ *
+ * @author Zhenya Leonov
+ */
+public final class MetricsView {
+
+    private static final int PROCESS_CPU_LOAD         = 0;
+    private static final int SYSTEM_CPU_LOAD          = 1;
+    private static final int SYSTEM_LOAD_AVERAGE      = 2;
+    private static final int AVERAGE_PROCESS_CPU_LOAD = 3;
+    private static final int AVERAGE_SYSTEM_CPU_LOAD  = 4;
+    private static final int MAX_PROCESS_CPU_LOAD     = 5;
+    private static final int MAX_SYSTEM_CPU_LOAD      = 6;
+    private static final int USED_MEMORY              = 7;
+    private static final int TOTAL_MEMORY             = 8;
+    private static final int MAX_USED_MEMORY          = 9;
+    private static final int METRIC_COUNT             = 10;
+
+    static final MetricsView NEGATIVE_METRICS_VIEW = new MetricsView();
+
+    // A seqlock: the version is odd while an update is in progress
+    private final AtomicLong      version = new AtomicLong();
+    private final AtomicLongArray values  = new AtomicLongArray(METRIC_COUNT);
+
+    // Invoked before every read, or null
+    private final Runnable refresher;
+
+    MetricsView() {
+        this(null);
+    }
+
+    /**
+     * Creates a new view which invokes the specified refresher before every read.
+     * 
+     * @param refresher the specified refresher or {@code null}
+     */
+    MetricsView(final Runnable refresher) {
+        this.refresher = refresher;
+        for (int i = 0; i < METRIC_COUNT; i++)
+            values.set(i, i < USED_MEMORY ? Double.doubleToRawLongBits(-1.0) : -1L);
+    }
+
+    /**
+     * Updates this view. Must not be called concurrently by multiple threads.
+     */
+    void update(final double processCpu, final double systemCpu, final double systemLoadAverage, final double avgProcessCpuLoad, final double avgSystemCpuLoad, final double maxProcessCpu, final double maxSystemCpu, final long usedMemory, final long totalMemory, final long maxUsedMemory) {
+        final long v = version.get();
+
+        version.set(v + 1);
+
+        values.set(PROCESS_CPU_LOAD, Double.doubleToRawLongBits(processCpu));
+        values.set(SYSTEM_CPU_LOAD, Double.doubleToRawLongBits(systemCpu));
+        values.set(SYSTEM_LOAD_AVERAGE, Double.doubleToRawLongBits(systemLoadAverage));
+        values.set(AVERAGE_PROCESS_CPU_LOAD, Double.doubleToRawLongBits(avgProcessCpuLoad));
+        values.set(AVERAGE_SYSTEM_CPU_LOAD, Double.doubleToRawLongBits(avgSystemCpuLoad));
+        values.set(MAX_PROCESS_CPU_LOAD, Double.doubleToRawLongBits(maxProcessCpu));
+        values.set(MAX_SYSTEM_CPU_LOAD, Double.doubleToRawLongBits(maxSystemCpu));
+        values.set(USED_MEMORY, usedMemory);
+        values.set(TOTAL_MEMORY, totalMemory);
+        values.set(MAX_USED_MEMORY, maxUsedMemory);
+
+        version.set(v + 2);
+    }
+
+    /**
+     * Resets all metrics to negative values. Must not be called concurrently with {@link #update}.
+     */
+    void clear() {
+        update(-1.0, -1.0, -1.0, -1.0, -1.0, -1.0, -1.0, -1L, -1L, -1L);
+    }
+
+    /**
+     * Begins a consistent read of multiple metrics and returns a stamp which must be passed to {@link #validate(long)}
+     * after the metrics are read. This method waits (spins) if an update is in progress.
+     *
+     * @return a stamp to be passed to {@link #validate(long)}
+     */
+    public long beginRead() {
+        refresh();
+        long stamp;
+        while (((stamp = version.get()) & 1) != 0) {
+            // An update is in progress, it only takes a few volatile writes to complete
+        }
+        return stamp;
+    }
+
+    /**
+     * Returns {@code true} if this view has not been updated since the specified stamp was obtained from
+     * {@link #beginRead()}, in which case all metrics read in between belong to the same update.
+     *
+     * @param stamp the stamp returned by {@link #beginRead()}
+     * @return {@code true} if this view has not been updated since the specified stamp was obtained
+     */
+    public boolean validate(final long stamp) {
+        return version.get() == stamp;
+    }
+
+    /**
+     * Returns the JVM process CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the JVM process CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getProcessCpuLoad() {
+        return getDouble(PROCESS_CPU_LOAD);
+    }
+
+    /**
+     * Returns the system-wide CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the system-wide CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getSystemCpuLoad() {
+        return getDouble(SYSTEM_CPU_LOAD);
+    }
+
+    /**
+     * Returns the system load average for the last minute or -1.0 if it is not supported or not ready.
+     *
+     * @return the system load average for the last minute or -1.0 if it is not supported or not ready
+     * @see CpuUsage#getSystemLoadAverage()
+     */
+    public double getSystemLoadAverage() {
+        return getDouble(SYSTEM_LOAD_AVERAGE);
+    }
+
+    /**
+     * Returns the average JVM process CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the average JVM process CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getAverageProcessCpuLoad() {
+        return getDouble(AVERAGE_PROCESS_CPU_LOAD);
+    }
+
+    /**
+     * Returns the average system-wide CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the average system-wide CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getAverageSystemCpuLoad() {
+        return getDouble(AVERAGE_SYSTEM_CPU_LOAD);
+    }
+
+    /**
+     * Returns the maximum observed JVM process CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready.
+     *
+     * @return the maximum observed JVM process CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready
+     */
+    public double getMaxProcessCpuLoad() {
+        return getDouble(MAX_PROCESS_CPU_LOAD);
+    }
+
+    /**
+     * Returns the maximum observed system-wide CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready.
+     *
+     * @return the maximum observed system-wide CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready
+     */
+    public double getMaxSystemCpuLoad() {
+        return getDouble(MAX_SYSTEM_CPU_LOAD);
+    }
+
+    /**
+     * Returns the amount of heap memory (in bytes) currently used by the JVM or -1 if the information is unavailable.
+     *
+     * @return the amount of heap memory (in bytes) currently used by the JVM or -1 if the information is unavailable
+     */
+    public long getUsedMemory() {
+        refresh();
+        return values.get(USED_MEMORY);
+    }
+
+    /**
+     * Returns the amount of heap memory (in bytes) that is currently committed for the JVM's use or -1 if the information
+     * is unavailable.
+     *
+     * @return the amount of heap memory (in bytes) that is currently committed for the JVM's use or -1 if the information
+     *         is unavailable
+     */
+    public long getTotalMemory() {
+        refresh();
+        return values.get(TOTAL_MEMORY);
+    }
+
+    /**
+     * Returns the maximum observed amount of heap memory (in bytes) that has been used by the JVM or -1 if the information
+     * is unavailable.
+     *
+     * @return the maximum observed amount of heap memory (in bytes) that has been used by the JVM or -1 if the information
+     *         is unavailable
+     */
+    public long getMaxUsedMemory() {
+        refresh();
+        return values.get(MAX_USED_MEMORY);
+    }
+
+    private double getDouble(final int index) {
+        refresh();
+        return Double.longBitsToDouble(values.get(index));
+    }
+
+    private void refresh() {
+        if (refresher != null)
+            refresher.run();
+    }
+
+}
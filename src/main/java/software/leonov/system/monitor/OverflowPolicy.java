@@ -0,0 +1,31 @@
+package software.leonov.system.monitor;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Determines what happens when a new snapshot is published to an asynchronous subscriber whose queue is full because it
+ * cannot keep up with the update interval.
+ *
+ * @author Zhenya Leonov
+ * @see BackgroundSystemMonitor#subscribe(Executor, int, OverflowPolicy, int, Consumer)
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The oldest queued snapshot is discarded to make room for the new snapshot.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new snapshot is discarded.
+     */
+    DROP_NEWEST,
+
+    /**
+     * All queued snapshots are discarded and only the new snapshot is kept, so that a slow subscriber catches up with the
+     * latest metrics instead of processing a backlog of stale ones.
+     */
+    CONFLATE
+
+}
@@ -0,0 +1,176 @@
+package software.leonov.system.monitor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Static utility methods for reading and parsing the small text files exposed by the Linux {@code /proc} and
+ * {@code /sys/fs/cgroup} file systems without allocating.
+ * <p>
+ * Files are kept open and re-read from the beginning with positional reads into a reused buffer. The parsing methods
+ * operate on the buffer's contents in place, starting at its current position.
+ *
+ * @author Zhenya Leonov
+ */
+final class ProcFiles {
+
+    private ProcFiles() {
+    }
+
+    /**
+     * Opens the specified file for reading or returns {@code null} if it cannot be opened.
+     *
+     * @param path the specified file
+     * @return the open file or {@code null} if it cannot be opened
+     */
+    static FileChannel open(final Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the specified file from the beginning into the specified buffer, which is then flipped. Files larger than the
+     * buffer are truncated.
+     *
+     * @param channel the specified file
+     * @param buffer  the specified buffer
+     * @throws IOException if an I/O error occurs
+     */
+    static void read(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.clear();
+
+        long position = 0;
+        int  n;
+        while (buffer.hasRemaining() && (n = channel.read(buffer, position)) > 0)
+            position += n;
+
+        buffer.flip();
+    }
+
+    /**
+     * Reads the specified file and parses the first number in it.
+     *
+     * @param channel the specified file or {@code null}
+     * @param buffer  the buffer to read into
+     * @return the first number in the file or -1 if the file is {@code null}, cannot be read, or does not start with a
+     *         non-negative number
+     */
+    static long readLong(final FileChannel channel, final ByteBuffer buffer) {
+        if (channel == null)
+            return -1;
+
+        try {
+            read(channel, buffer);
+        } catch (final IOException e) {
+            return -1;
+        }
+
+        return parseLong(buffer);
+    }
+
+    /**
+     * Positions the buffer after the first occurrence of the specified key at the start of a line and followed by a
+     * space, such as {@code nr_throttled} in {@code "nr_throttled 42"}.
+     *
+     * @param buffer the buffer to search from the beginning
+     * @param key    the ASCII bytes of the key
+     * @return {@code true} if the key was found, otherwise the position of the buffer is undefined
+     */
+    static boolean findKey(final ByteBuffer buffer, final byte[] key) {
+        int line = 0;
+
+        while (line + key.length < buffer.limit()) {
+            int i = 0;
+            while (i < key.length && buffer.get(line + i) == key[i])
+                i++;
+
+            if (i == key.length && buffer.get(line + i) == ' ') {
+                buffer.position(line + i);
+                return true;
+            }
+
+            while (line < buffer.limit() && buffer.get(line) != '\n')
+                line++;
+            line++;
+        }
+
+        return false;
+    }
+
+    /**
+     * Parses the non-negative decimal number at the current position, skipping leading spaces.
+     *
+     * @param buffer the buffer to parse
+     * @return the number or -1 if there is no number at the current position (for example "max" or "-1"), in which case
+     *         the rest of the field is not consumed
+     */
+    static long parseLong(final ByteBuffer buffer) {
+        skipSpaces(buffer);
+
+        long value  = 0;
+        int  digits = 0;
+
+        while (buffer.hasRemaining()) {
+            final byte b = buffer.get(buffer.position());
+            if (b < '0' || b > '9')
+                break;
+            value = value * 10 + (b - '0');
+            digits++;
+            buffer.get();
+        }
+
+        return digits == 0 ? -1 : value;
+    }
+
+    /**
+     * Skips the space-separated field at the current position.
+     *
+     * @param buffer the buffer to parse
+     * @return {@code false} if there are no more fields
+     */
+    static boolean skipField(final ByteBuffer buffer) {
+        skipSpaces(buffer);
+
+        if (!buffer.hasRemaining())
+            return false;
+
+        while (buffer.hasRemaining()) {
+            final byte b = buffer.get(buffer.position());
+            if (b == ' ' || b == '\n')
+                break;
+            buffer.get();
+        }
+
+        return true;
+    }
+
+    /**
+     * Skips any spaces at the current position.
+     *
+     * @param buffer the buffer to parse
+     */
+    static void skipSpaces(final ByteBuffer buffer) {
+        while (buffer.hasRemaining() && buffer.get(buffer.position()) == ' ')
+            buffer.get();
+    }
+
+    /**
+     * Closes the specified file, ignoring any exceptions.
+     *
+     * @param channel the specified file or {@code null}
+     */
+    static void closeQuietly(final FileChannel channel) {
+        if (channel != null)
+            try {
+                channel.close();
+            } catch (final IOException e) {
+            }
+    }
+
+}
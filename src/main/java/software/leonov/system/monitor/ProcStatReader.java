@@ -0,0 +1,205 @@
+package software.leonov.system.monitor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Computes the JVM process and system-wide CPU load on Linux directly from {@code /proc/self/stat} and
+ * {@code /proc/stat}.
+ * <p>
+ * {@code com.sun.management.OperatingSystemMXBean} reads the same files, but reopens them and allocates on every call.
+ * This class keeps both files open, re-reads them with positional reads into a single reused direct buffer, and parses the
+ * numbers in place without creating any objects.
+ * <p>
+ * Both loads are computed from the difference in clock ticks since the previous {@link #update()}: the process load is
+ * the number of ticks spent by this process divided by the number of ticks elapsed on all CPUs, and the system load is
+ * the fraction of those ticks which were not idle. Since both files use the same unit the clock tick frequency does not
+ * need to be known.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class ProcStatReader implements AutoCloseable {
+
+    private static final Path PROCESS_STAT = Paths.get("/proc/self/stat");
+    private static final Path SYSTEM_STAT  = Paths.get("/proc/stat");
+
+    // /proc/self/stat fields after the command name: utime and stime are fields 14 and 15 of the file
+    private static final int UTIME_FIELD = 14 - 3;
+
+    // The first line of /proc/stat is "cpu user nice system idle iowait irq softirq steal guest guest_nice", guest time is
+    // already included in user time
+    private static final int CPU_FIELDS   = 8;
+    private static final int IDLE_FIELD   = 3;
+    private static final int IOWAIT_FIELD = 4;
+
+    private final FileChannel process;
+    private final FileChannel system;
+    private final ByteBuffer  buffer = ByteBuffer.allocateDirect(4096);
+    private final long[]      ticks  = new long[CPU_FIELDS];
+
+    private long lastProcessTicks = -1;
+    private long lastTotalTicks   = -1;
+    private long lastIdleTicks    = -1;
+
+    private double processCpuLoad = -1.0;
+    private double systemCpuLoad  = -1.0;
+
+    private ProcStatReader(final FileChannel process, final FileChannel system) {
+        this.process = process;
+        this.system  = system;
+    }
+
+    /**
+     * Returns a new {@code ProcStatReader} or {@code null} if {@code /proc} is not available or cannot be parsed.
+     *
+     * @return a new {@code ProcStatReader} or {@code null} if {@code /proc} is not available or cannot be parsed
+     */
+    static ProcStatReader open() {
+        if (!System.getProperty("os.name", "").startsWith("Linux"))
+            return null;
+
+        final FileChannel process = ProcFiles.open(PROCESS_STAT);
+        final FileChannel system  = ProcFiles.open(SYSTEM_STAT);
+
+        if (process != null && system != null) {
+            final ProcStatReader reader = new ProcStatReader(process, system);
+            if (reader.update())
+                return reader;
+        }
+
+        ProcFiles.closeQuietly(process);
+        ProcFiles.closeQuietly(system);
+        return null;
+    }
+
+    /**
+     * Re-reads both files and recomputes the CPU loads.
+     *
+     * @return {@code false} if the files could not be read or parsed
+     */
+    boolean update() {
+        final long processTicks;
+        final long totalTicks;
+        final long idleTicks;
+
+        try {
+            ProcFiles.read(process, buffer);
+            processTicks = parseProcessTicks(buffer);
+
+            ProcFiles.read(system, buffer);
+            if (!parseSystemTicks(buffer, ticks))
+                return false;
+
+            long total = 0;
+            for (int i = 0; i < CPU_FIELDS; i++)
+                total += ticks[i];
+
+            totalTicks = total;
+            idleTicks  = ticks[IDLE_FIELD] + ticks[IOWAIT_FIELD];
+        } catch (final IOException e) {
+            return false;
+        }
+
+        if (processTicks < 0)
+            return false;
+
+        if (lastTotalTicks >= 0) {
+            final long elapsed = totalTicks - lastTotalTicks;
+
+            // Less than a clock tick has elapsed, keep the previous loads and the previous baseline
+            if (elapsed <= 0)
+                return true;
+
+            processCpuLoad = clamp((double) (processTicks - lastProcessTicks) / elapsed);
+            systemCpuLoad  = clamp(1.0 - (double) (idleTicks - lastIdleTicks) / elapsed);
+        }
+
+        lastProcessTicks = processTicks;
+        lastTotalTicks   = totalTicks;
+        lastIdleTicks    = idleTicks;
+
+        return true;
+    }
+
+    /**
+     * Returns the JVM process CPU load (0.0 to 1.0) since the previous update or -1.0 if it is not ready.
+     *
+     * @return the JVM process CPU load (0.0 to 1.0) since the previous update or -1.0 if it is not ready
+     */
+    double getProcessCpuLoad() {
+        return processCpuLoad;
+    }
+
+    /**
+     * Returns the system-wide CPU load (0.0 to 1.0) since the previous update or -1.0 if it is not ready.
+     *
+     * @return the system-wide CPU load (0.0 to 1.0) since the previous update or -1.0 if it is not ready
+     */
+    double getSystemCpuLoad() {
+        return systemCpuLoad;
+    }
+
+    /**
+     * Returns the sum of the user and system time of the process in the specified contents of {@code /proc/[pid]/stat} or
+     * -1 if it cannot be parsed.
+     */
+    static long parseProcessTicks(final ByteBuffer buffer) {
+        // The command name is enclosed in parentheses and can contain spaces and parentheses
+        int i = buffer.limit() - 1;
+        while (i >= 0 && buffer.get(i) != ')')
+            i--;
+
+        if (i < 0)
+            return -1;
+
+        buffer.position(i + 1);
+
+        for (int field = 0; field < UTIME_FIELD; field++)
+            if (!ProcFiles.skipField(buffer))
+                return -1;
+
+        final long utime = ProcFiles.parseLong(buffer);
+        final long stime = ProcFiles.parseLong(buffer);
+
+        return utime < 0 || stime < 0 ? -1 : utime + stime;
+    }
+
+    /**
+     * Parses the aggregate {@code cpu} line of the specified contents of {@code /proc/stat} into the specified array.
+     * Fields which are not reported by older kernels are set to 0.
+     */
+    static boolean parseSystemTicks(final ByteBuffer buffer, final long[] ticks) {
+        buffer.position(0);
+
+        if (buffer.remaining() < 4 || buffer.get() != 'c' || buffer.get() != 'p' || buffer.get() != 'u' || buffer.get() != ' ')
+            return false;
+
+        for (int i = 0; i < ticks.length; i++) {
+            final long value = ProcFiles.parseLong(buffer);
+            if (value < 0) {
+                if (i <= IOWAIT_FIELD)
+                    return false;
+                ticks[i] = 0;
+            } else
+                ticks[i] = value;
+        }
+
+        return true;
+    }
+
+    private static double clamp(final double load) {
+        return Math.max(0.0, Math.min(load, 1.0));
+    }
+
+    @Override
+    public void close() {
+        ProcFiles.closeQuietly(process);
+        ProcFiles.closeQuietly(system);
+    }
+
+}
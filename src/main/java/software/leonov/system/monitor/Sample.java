@@ -0,0 +1,99 @@
+package software.leonov.system.monitor;
+
+/**
+ * The raw, process-wide readings taken from the platform MXBeans (and on Linux from {@code /proc} and the cgroup file
+ * system) at a single point in time.
+ * <p>
+ * A {@code Sample} contains no monitor-specific state (averages, maximums, etc.) and can be shared between any number of
+ * monitors.
+ * 
+ * @author Zhenya Leonov
+ */
+final class Sample {
+
+    final long time;
+    final long timestamp;
+
+    final long usedMemory;
+    final long totalMemory;
+    final long allocatedBytes;
+
+    final MemoryPools memoryPools;
+
+    final double processCpuLoad;
+    final long   processCpuTime;
+    final double systemCpuLoad;
+    final double systemLoadAverage;
+
+    final long   cgroupCpuTime;
+    final double cgroupCpuLimit;
+    final long   cgroupPeriods;
+    final long   cgroupThrottledPeriods;
+    final long   cgroupThrottledTime;
+    final long   cgroupUsedMemory;
+    final long   cgroupMemoryLimit;
+
+    final GcTotals gc;
+
+    // Only read if a monitor needs per-thread metrics, then shared by all monitors updated with this sample
+    private ThreadTimes threadTimes;
+
+    /**
+     * @param time              the value of {@link System#nanoTime()} when this sample was taken
+     * @param timestamp         the value of {@link System#currentTimeMillis()} when this sample was taken
+     * @param usedMemory        the amount of used heap memory in bytes
+     * @param totalMemory       the amount of committed heap memory in bytes
+     * @param allocatedBytes    the total number of bytes allocated on the heap by the JVM's threads or -1 if it is
+     *                          unavailable
+     * @param memoryPools       the usage of the memory pools
+     * @param processCpuLoad    the JVM process CPU load (0.0 to 1.0) or a negative value if it is unavailable
+     * @param processCpuTime    the total CPU time (in nanoseconds) used by the JVM's threads or -1 if it was not collected
+     * @param systemCpuLoad     the system-wide CPU load (0.0 to 1.0) or a negative value if it is unavailable
+     * @param systemLoadAverage the system load average for the last minute or a negative value if it is unavailable
+     * @param cgroup            the cgroup readings or {@code null} if this process does not belong to a cgroup
+     * @param gc                the garbage collection totals
+     */
+    Sample(final long time, final long timestamp, final long usedMemory, final long totalMemory, final long allocatedBytes, final MemoryPools memoryPools, final double processCpuLoad, final long processCpuTime, final double systemCpuLoad, final double systemLoadAverage, final CgroupReader cgroup, final GcTotals gc) {
+        this.time              = time;
+        this.timestamp         = timestamp;
+        this.usedMemory        = usedMemory;
+        this.totalMemory       = totalMemory;
+        this.allocatedBytes    = allocatedBytes;
+        this.memoryPools       = memoryPools;
+        this.processCpuLoad    = processCpuLoad;
+        this.processCpuTime    = processCpuTime;
+        this.systemCpuLoad     = systemCpuLoad;
+        this.systemLoadAverage = systemLoadAverage;
+        this.gc                = gc;
+
+        if (cgroup == null) {
+            cgroupCpuTime          = -1;
+            cgroupCpuLimit         = -1.0;
+            cgroupPeriods          = -1;
+            cgroupThrottledPeriods = -1;
+            cgroupThrottledTime    = -1;
+            cgroupUsedMemory       = -1;
+            cgroupMemoryLimit      = -1;
+        } else {
+            cgroupCpuTime          = cgroup.getCpuTime();
+            cgroupCpuLimit         = cgroup.getCpuLimit();
+            cgroupPeriods          = cgroup.getPeriods();
+            cgroupThrottledPeriods = cgroup.getThrottledPeriods();
+            cgroupThrottledTime    = cgroup.getThrottledTime();
+            cgroupUsedMemory       = cgroup.getUsedMemory();
+            cgroupMemoryLimit      = cgroup.getMemoryLimit();
+        }
+    }
+
+    /**
+     * Returns the CPU time and allocated bytes of each live thread, which are read the first time this method is called.
+     * 
+     * @return the CPU time and allocated bytes of each live thread
+     */
+    synchronized ThreadTimes getThreadTimes() {
+        if (threadTimes == null)
+            threadTimes = Sampler.readThreadTimes();
+        return threadTimes;
+    }
+
+}
@@ -0,0 +1,127 @@
+package software.leonov.system.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Takes {@link Sample samples} from the platform MXBeans. On Linux the CPU loads are read directly from {@code /proc}
+ * using a {@link ProcStatReader} instead.
+ * 
+ * @author Zhenya Leonov
+ */
+@SuppressWarnings("restriction")
+final class Sampler {
+
+    static final OperatingSystemMXBean                    OS_BEAN = ManagementFactory.getOperatingSystemMXBean();
+    static final com.sun.management.OperatingSystemMXBean SUN_OS_BEAN;
+
+    static final ThreadMXBean  THREAD_BEAN  = ManagementFactory.getThreadMXBean();
+    static final MemoryMXBean  MEMORY_BEAN  = ManagementFactory.getMemoryMXBean();
+    static final RuntimeMXBean RUNTIME_BEAN = ManagementFactory.getRuntimeMXBean();
+
+    // null if /proc is not available, guarded by itself
+    static final ProcStatReader PROC_STAT = ProcStatReader.open();
+
+    // Reads the allocated bytes, and the CPU time if neither /proc nor SUN_OS_BEAN is available, guarded by itself
+    static final ThreadMetricsReader THREAD_METRICS = new ThreadMetricsReader(THREAD_BEAN);
+
+    // null if this process does not belong to a cgroup, guarded by itself
+    static final CgroupReader CGROUP = CgroupReader.open();
+
+    static final MemoryPoolReader MEMORY_POOLS = new MemoryPoolReader();
+
+    // null if garbage collection notifications are not supported
+    static final GcNotificationListener GC = GcNotificationListener.install();
+
+    // The allocated bytes are only read once the allocation rate has been requested
+    private static volatile boolean allocatedBytesRequested = false;
+
+    static {
+        if (OS_BEAN instanceof com.sun.management.OperatingSystemMXBean)
+            SUN_OS_BEAN = (com.sun.management.OperatingSystemMXBean) OS_BEAN;
+        else
+            SUN_OS_BEAN = null;
+    }
+
+    private Sampler() {
+    }
+
+    /**
+     * Requests that every subsequent sample reads the total number of bytes allocated by the JVM's threads, which is
+     * otherwise reported as -1 to avoid the cost of reading it.
+     */
+    static void requestAllocatedBytes() {
+        if (!allocatedBytesRequested)
+            allocatedBytesRequested = true;
+    }
+
+    /**
+     * Reads the CPU time and allocated bytes of each live thread.
+     * 
+     * @return the CPU time and allocated bytes of each live thread or {@link ThreadTimes#EMPTY} if neither thread CPU time
+     *         nor thread memory allocation measurement is supported
+     */
+    static ThreadTimes readThreadTimes() {
+        synchronized (THREAD_METRICS) {
+            return THREAD_METRICS.readThreadTimes();
+        }
+    }
+
+    /**
+     * Reads the current values from the platform MXBeans.
+     * 
+     * @return the current values from the platform MXBeans
+     */
+    static Sample sample() {
+        final java.lang.management.MemoryUsage heap = MEMORY_BEAN.getHeapMemoryUsage();
+
+        double  processCpuLoad = -1.0;
+        long    processCpuTime = -1;
+        double  systemCpuLoad  = -1.0;
+        boolean proc           = false;
+
+        if (PROC_STAT != null)
+            synchronized (PROC_STAT) {
+                proc = PROC_STAT.update();
+                if (proc) {
+                    processCpuLoad = PROC_STAT.getProcessCpuLoad();
+                    systemCpuLoad  = PROC_STAT.getSystemCpuLoad();
+                }
+            }
+
+        if (proc) {
+            // Already read from /proc
+        } else if (SUN_OS_BEAN == null) {
+            synchronized (THREAD_METRICS) {
+                processCpuTime = THREAD_METRICS.readCpuTime();
+            }
+        } else {
+            processCpuLoad = SUN_OS_BEAN.getProcessCpuLoad();
+            systemCpuLoad  = SUN_OS_BEAN.getSystemCpuLoad();
+        }
+
+        long allocatedBytes = -1;
+        if (allocatedBytesRequested)
+            synchronized (THREAD_METRICS) {
+                allocatedBytes = THREAD_METRICS.readAllocatedBytes();
+            }
+
+        final long   time              = System.nanoTime();
+        final long   timestamp         = System.currentTimeMillis();
+        final double systemLoadAverage = OS_BEAN.getSystemLoadAverage();
+
+        final MemoryPools memoryPools = MEMORY_POOLS.read();
+        final GcTotals    gc          = GC == null ? GcTotals.EMPTY : GC.read();
+
+        if (CGROUP == null)
+            return new Sample(time, timestamp, heap.getUsed(), heap.getCommitted(), allocatedBytes, memoryPools, processCpuLoad, processCpuTime, systemCpuLoad, systemLoadAverage, null, gc);
+
+        synchronized (CGROUP) {
+            return new Sample(time, timestamp, heap.getUsed(), heap.getCommitted(), allocatedBytes, memoryPools, processCpuLoad, processCpuTime, systemCpuLoad, systemLoadAverage, CGROUP.update() ? CGROUP : null, gc);
+        }
+    }
+
+}
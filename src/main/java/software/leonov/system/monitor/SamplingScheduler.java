@@ -0,0 +1,234 @@
+package software.leonov.system.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules periodic {@link Sample samples} for any number of subscribers using a single daemon thread, a thread
+ * created by a custom {@link ThreadFactory}, or a user-supplied {@link ScheduledExecutorService}.
+ * <p>
+ * Each subscriber is updated at its own interval. Subscriber deadlines are aligned to a common time grid (multiples of
+ * their interval since this scheduler was created) so that subscribers which become due at the same time share a single
+ * sample: the platform MXBeans are read once per tick no matter how many subscribers are updated. Deadlines are absolute,
+ * so the time spent sampling and updating subscribers does not accumulate into drift. A tick which is late by more than
+ * an interval is coalesced rather than repeated.
+ * <p>
+ * Subscribers are invoked sequentially on the scheduler thread. If the executor has more than one thread, different
+ * subscribers may be updated concurrently, but each subscriber is still updated sequentially and a sample older than the
+ * last sample delivered to it is discarded. A subscriber which throws an exception is cancelled and the exception is
+ * passed to the scheduler thread's {@link Thread.UncaughtExceptionHandler uncaught exception handler}.
+ *
+ * @author Zhenya Leonov
+ */
+final class SamplingScheduler {
+
+    // Subscribers whose deadline falls within this window of the current tick are updated with the same sample
+    private static final long TOLERANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final SamplingScheduler SHARED = new SamplingScheduler("system-monitor-sampler");
+
+    private final ScheduledExecutorService executor;
+    private final long                     epoch = System.nanoTime();
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private ScheduledFuture<?>       pending;
+    private long                     pendingTime;
+
+    SamplingScheduler(final String threadName) {
+        this(r -> {
+            final Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    SamplingScheduler(final ThreadFactory threadFactory) {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+
+        // Let the thread terminate when there is nothing to do
+        executor.setKeepAliveTime(1, TimeUnit.MINUTES);
+        executor.allowCoreThreadTimeOut(true);
+        executor.setRemoveOnCancelPolicy(true);
+
+        this.executor = executor;
+    }
+
+    SamplingScheduler(final ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the scheduler shared by all {@link BackgroundSystemMonitor}s.
+     *
+     * @return the scheduler shared by all {@link BackgroundSystemMonitor}s
+     */
+    static SamplingScheduler getSharedInstance() {
+        return SHARED;
+    }
+
+    /**
+     * Subscribes the specified listener to receive a new {@link Sample} at the specified interval.
+     *
+     * @param listener      the specified listener
+     * @param intervalNanos the interval in nanoseconds
+     * @return the new {@link Subscription}
+     */
+    Subscription subscribe(final Consumer<Sample> listener, final long intervalNanos) {
+        return subscribe(listener, intervalNanos, false);
+    }
+
+    /**
+     * Subscribes the specified listener to receive a new {@link Sample} at the specified interval, optionally starting
+     * with an update as soon as possible. The following updates are aligned to the interval.
+     *
+     * @param listener      the specified listener
+     * @param intervalNanos the interval in nanoseconds
+     * @param immediately   whether the first update is due right away
+     * @return the new {@link Subscription}
+     */
+    Subscription subscribe(final Consumer<Sample> listener, final long intervalNanos, final boolean immediately) {
+        final Subscription subscription = new Subscription(listener, intervalNanos);
+
+        synchronized (this) {
+            subscription.nextTime = immediately ? System.nanoTime() : nextGridTime(System.nanoTime() + intervalNanos / 2, intervalNanos);
+            subscriptions.add(subscription);
+            reschedule();
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Cancels the specified subscription. If the subscriber is currently being updated by the scheduler thread this method
+     * waits for the update to complete (unless it is called from the subscriber itself).
+     *
+     * @param subscription the subscription to cancel
+     */
+    void unsubscribe(final Subscription subscription) {
+        synchronized (this) {
+            subscription.active = false;
+            subscriptions.remove(subscription);
+            reschedule();
+        }
+
+        // Wait for an in-progress update to finish
+        synchronized (subscription) {
+        }
+    }
+
+    /**
+     * Changes the interval of the specified subscription. The next update is aligned to the new interval.
+     *
+     * @param subscription  the specified subscription
+     * @param intervalNanos the new interval in nanoseconds
+     */
+    synchronized void setInterval(final Subscription subscription, final long intervalNanos) {
+        if (!subscription.active || subscription.intervalNanos == intervalNanos)
+            return;
+
+        subscription.intervalNanos = intervalNanos;
+        subscription.nextTime      = nextGridTime(System.nanoTime() + intervalNanos / 2, intervalNanos);
+        reschedule();
+    }
+
+    private long nextGridTime(final long time, final long intervalNanos) {
+        final long elapsed = time - epoch;
+        return epoch + (elapsed / intervalNanos + 1) * intervalNanos;
+    }
+
+    // Must be called while holding this scheduler's lock
+    private void reschedule() {
+        if (subscriptions.isEmpty()) {
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+            return;
+        }
+
+        long nextTime = subscriptions.get(0).nextTime;
+        for (final Subscription subscription : subscriptions)
+            if (subscription.nextTime - nextTime < 0)
+                nextTime = subscription.nextTime;
+
+        if (pending != null) {
+            if (pendingTime == nextTime)
+                return;
+            pending.cancel(false);
+        }
+
+        pendingTime = nextTime;
+        pending     = executor.schedule(this::tick, nextTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        final List<Subscription> due = new ArrayList<>();
+        final long               now = System.nanoTime();
+
+        synchronized (this) {
+            pending = null;
+
+            for (final Subscription subscription : subscriptions)
+                if (subscription.nextTime - now <= TOLERANCE_NANOS) {
+                    due.add(subscription);
+                    // Skips missed ticks and aligns an immediate first update to the grid
+                    subscription.nextTime = nextGridTime(now + TOLERANCE_NANOS, subscription.intervalNanos);
+                }
+
+            reschedule();
+        }
+
+        if (due.isEmpty())
+            return;
+
+        final Sample sample = Sampler.sample();
+
+        for (final Subscription subscription : due)
+            synchronized (subscription) {
+                if (subscription.active && sample.time - subscription.lastTime > 0)
+                    try {
+                        subscription.lastTime = sample.time;
+                        subscription.listener.accept(sample);
+                    } catch (final Throwable e) {
+                        unsubscribe(subscription);
+                        final Thread t = Thread.currentThread();
+                        t.getUncaughtExceptionHandler().uncaughtException(t, e);
+                    }
+            }
+    }
+
+    /**
+     * A subscription to a {@link SamplingScheduler}.
+     */
+    static final class Subscription {
+
+        private final Consumer<Sample> listener;
+
+        private long             intervalNanos;                // guarded by the scheduler
+        private long             nextTime;                     // guarded by the scheduler
+        private long             lastTime = System.nanoTime(); // guarded by this
+        private volatile boolean active   = true;
+
+        private Subscription(final Consumer<Sample> listener, final long intervalNanos) {
+            this.listener      = listener;
+            this.intervalNanos = intervalNanos;
+        }
+
+        /**
+         * Returns {@code true} until this subscription is cancelled or its listener throws an exception.
+         *
+         * @return {@code true} until this subscription is cancelled or its listener throws an exception
+         */
+        boolean isActive() {
+            return active;
+        }
+
+    }
+
+}
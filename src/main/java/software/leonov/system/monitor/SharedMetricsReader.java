@@ -0,0 +1,276 @@
+package software.leonov.system.monitor;
+
+import static java.util.Objects.requireNonNull;
+import static software.leonov.system.monitor.SharedMetricsWriter.ALLOCATION_RATE;
+import static software.leonov.system.monitor.SharedMetricsWriter.AVERAGE_PROCESS_CPU_LOAD;
+import static software.leonov.system.monitor.SharedMetricsWriter.AVERAGE_SYSTEM_CPU_LOAD;
+import static software.leonov.system.monitor.SharedMetricsWriter.MAGIC;
+import static software.leonov.system.monitor.SharedMetricsWriter.MAX_PROCESS_CPU_LOAD;
+import static software.leonov.system.monitor.SharedMetricsWriter.MAX_SYSTEM_CPU_LOAD;
+import static software.leonov.system.monitor.SharedMetricsWriter.MAX_USED_MEMORY;
+import static software.leonov.system.monitor.SharedMetricsWriter.PID;
+import static software.leonov.system.monitor.SharedMetricsWriter.PROCESS_CPU_LOAD;
+import static software.leonov.system.monitor.SharedMetricsWriter.SEQLOCK;
+import static software.leonov.system.monitor.SharedMetricsWriter.SEQUENCE_NUMBER;
+import static software.leonov.system.monitor.SharedMetricsWriter.SIZE;
+import static software.leonov.system.monitor.SharedMetricsWriter.SYSTEM_CPU_LOAD;
+import static software.leonov.system.monitor.SharedMetricsWriter.SYSTEM_LOAD_AVERAGE;
+import static software.leonov.system.monitor.SharedMetricsWriter.TIMESTAMP;
+import static software.leonov.system.monitor.SharedMetricsWriter.TOTAL_MEMORY;
+import static software.leonov.system.monitor.SharedMetricsWriter.USED_MEMORY;
+import static software.leonov.system.monitor.SharedMetricsWriter.VERSION;
+import static software.leonov.system.monitor.SharedMetricsWriter.fence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the usage metrics published by another (or the same) JVM through a {@link SharedMetricsWriter}. Reading is a
+ * handful of loads from a memory-mapped file: it does not allocate, perform system calls, or involve the monitored JVM
+ * in any way.
+ * <p>
+ * Each accessor returns the latest value of a single metric. As with {@link MetricsView}, several metrics from the same
+ * update are read with the {@link #beginRead()} and {@link #validate(long)} methods:
+ *
+ * <pre>
+ * <code>
+ * final SharedMetricsReader reader = SharedMetricsReader.open(SharedMetricsWriter.defaultPath(pid));
+ * long   stamp;
+ * double cpu;
+ * long   memory;
+ *
+ * do {
+ *     stamp  = reader.beginRead();
+ *     cpu    = reader.getProcessCpuLoad();
+ *     memory = reader.getUsedMemory();
+ * } while (!reader.validate(stamp));
+ * </code>
+ * </pre>
+ *
+ * A reader keeps returning the last published metrics after the writer is closed or the monitored JVM exits: use
+ * {@link #getTimestamp()} to detect stale metrics. If the monitored JVM dies in the middle of an update the update never
+ * completes, in which case {@link #beginRead()} gives up after {@value #MAX_WAIT_MILLIS} milliseconds and throws an
+ * {@code IllegalStateException}.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+public final class SharedMetricsReader {
+
+    /**
+     * The maximum time in milliseconds {@link #beginRead()} waits for an update in progress to complete.
+     */
+    public static final long MAX_WAIT_MILLIS = 1000;
+
+    // The number of spins before the elapsed time is checked, an update normally completes within a few
+    private static final int SPINS = 1000;
+
+    private final ByteBuffer buffer;
+
+    private SharedMetricsReader(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens a reader of the specified file.
+     *
+     * @param path the path of the file
+     * @return a new {@link SharedMetricsReader}
+     * @throws IOException if an I/O error occurs or the file was not written by a {@link SharedMetricsWriter}
+     */
+    public static SharedMetricsReader open(final Path path) throws IOException {
+        requireNonNull(path, "path == null");
+
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path)) {
+            if (channel.size() < SIZE)
+                throw new IOException("not a shared metrics file: " + path);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IOException("not a shared metrics file: " + path);
+
+        return new SharedMetricsReader(buffer);
+    }
+
+    /**
+     * Begins a consistent read of multiple metrics and returns a stamp which must be passed to {@link #validate(long)}
+     * after the metrics are read. This method waits (spins) if an update is in progress.
+     * <p>
+     * An update only takes a few stores to complete. If an update is still in progress after {@value #MAX_WAIT_MILLIS}
+     * milliseconds the writer has most likely terminated in the middle of the update, and this method throws an
+     * {@code IllegalStateException} rather than waiting forever. The metrics of that update will never be consistent,
+     * the file should be opened again once the monitored JVM has been restarted.
+     *
+     * @return a stamp to be passed to {@link #validate(long)}
+     * @throws IllegalStateException if an update has been in progress for longer than {@value #MAX_WAIT_MILLIS}
+     *                               milliseconds
+     */
+    public long beginRead() {
+        long stamp;
+        long deadline = 0;
+
+        for (int spins = 0; ((stamp = buffer.getLong(SEQLOCK)) & 1) != 0; spins++)
+            if (spins == SPINS)
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MILLIS);
+            else if (spins > SPINS && System.nanoTime() - deadline > 0)
+                throw new IllegalStateException("update in progress for more than " + MAX_WAIT_MILLIS + " ms, the writer may have terminated");
+
+        fence();
+        return stamp;
+    }
+
+    /**
+     * Returns {@code true} if the metrics have not been updated since the specified stamp was obtained from
+     * {@link #beginRead()}, in which case all metrics read in between belong to the same update.
+     *
+     * @param stamp the stamp returned by {@link #beginRead()}
+     * @return {@code true} if the metrics have not been updated since the specified stamp was obtained
+     */
+    public boolean validate(final long stamp) {
+        fence();
+        return buffer.getLong(SEQLOCK) == stamp;
+    }
+
+    /**
+     * Returns the process ID of the monitored JVM or -1 if it is unknown.
+     *
+     * @return the process ID of the monitored JVM or -1 if it is unknown
+     */
+    public long getPid() {
+        return buffer.getLong(PID);
+    }
+
+    /**
+     * Returns the sequence number of the latest update or -1 if no update has been published yet.
+     *
+     * @return the sequence number of the latest update or -1 if no update has been published yet
+     * @see Snapshot#getSequenceNumber()
+     */
+    public long getSequenceNumber() {
+        return buffer.getLong(SEQUENCE_NUMBER);
+    }
+
+    /**
+     * Returns the time of the latest update in milliseconds since the epoch or -1 if no update has been published yet.
+     *
+     * @return the time of the latest update in milliseconds since the epoch or -1 if no update has been published yet
+     */
+    public long getTimestamp() {
+        return buffer.getLong(TIMESTAMP);
+    }
+
+    /**
+     * Returns the JVM process CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the JVM process CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getProcessCpuLoad() {
+        return buffer.getDouble(PROCESS_CPU_LOAD);
+    }
+
+    /**
+     * Returns the system-wide CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the system-wide CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getSystemCpuLoad() {
+        return buffer.getDouble(SYSTEM_CPU_LOAD);
+    }
+
+    /**
+     * Returns the system load average for the last minute or -1.0 if it is not supported or not ready.
+     *
+     * @return the system load average for the last minute or -1.0 if it is not supported or not ready
+     * @see CpuUsage#getSystemLoadAverage()
+     */
+    public double getSystemLoadAverage() {
+        return buffer.getDouble(SYSTEM_LOAD_AVERAGE);
+    }
+
+    /**
+     * Returns the average JVM process CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the average JVM process CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getAverageProcessCpuLoad() {
+        return buffer.getDouble(AVERAGE_PROCESS_CPU_LOAD);
+    }
+
+    /**
+     * Returns the average system-wide CPU usage or -1.0 if it is not supported or not ready.
+     *
+     * @return the average system-wide CPU usage or -1.0 if it is not supported or not ready
+     */
+    public double getAverageSystemCpuLoad() {
+        return buffer.getDouble(AVERAGE_SYSTEM_CPU_LOAD);
+    }
+
+    /**
+     * Returns the maximum observed JVM process CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready.
+     *
+     * @return the maximum observed JVM process CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready
+     */
+    public double getMaxProcessCpuLoad() {
+        return buffer.getDouble(MAX_PROCESS_CPU_LOAD);
+    }
+
+    /**
+     * Returns the maximum observed system-wide CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready.
+     *
+     * @return the maximum observed system-wide CPU usage (0.0 to 100.0) or -1.0 if it is not supported or not ready
+     */
+    public double getMaxSystemCpuLoad() {
+        return buffer.getDouble(MAX_SYSTEM_CPU_LOAD);
+    }
+
+    /**
+     * Returns the amount of heap memory (in bytes) currently used by the JVM or -1 if the information is unavailable.
+     *
+     * @return the amount of heap memory (in bytes) currently used by the JVM or -1 if the information is unavailable
+     */
+    public long getUsedMemory() {
+        return buffer.getLong(USED_MEMORY);
+    }
+
+    /**
+     * Returns the amount of heap memory (in bytes) that is currently committed for the JVM's use or -1 if the information
+     * is unavailable.
+     *
+     * @return the amount of heap memory (in bytes) that is currently committed for the JVM's use or -1 if the information
+     *         is unavailable
+     */
+    public long getTotalMemory() {
+        return buffer.getLong(TOTAL_MEMORY);
+    }
+
+    /**
+     * Returns the maximum observed amount of heap memory (in bytes) that has been used by the JVM or -1 if the information
+     * is unavailable.
+     *
+     * @return the maximum observed amount of heap memory (in bytes) that has been used by the JVM or -1 if the information
+     *         is unavailable
+     */
+    public long getMaxUsedMemory() {
+        return buffer.getLong(MAX_USED_MEMORY);
+    }
+
+    /**
+     * Returns the rate at which the JVM allocates heap memory in bytes per second or -1 if it is not supported or not
+     * ready.
+     *
+     * @return the rate at which the JVM allocates heap memory in bytes per second or -1 if it is not supported or not
+     *         ready
+     * @see MemoryUsage#getAllocationRate()
+     */
+    public long getAllocationRate() {
+        return buffer.getLong(ALLOCATION_RATE);
+    }
+
+}
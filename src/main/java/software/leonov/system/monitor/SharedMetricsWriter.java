@@ -0,0 +1,303 @@
+package software.leonov.system.monitor;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Publishes the latest usage metrics of a {@link BackgroundSystemMonitor} into a small memory-mapped file, in the spirit
+ * of the JVM's own {@code hsperfdata} files, so that any local process can read them with {@link SharedMetricsReader}
+ * (or directly from the documented layout) without JMX, sockets, or any cost to the monitored JVM.
+ * <p>
+ * The file is {@value #SIZE} bytes long. All values are little-endian and naturally aligned, doubles are IEEE 754, and
+ * as with the rest of this library, unavailable metrics are negative:
+ *
+ * <pre>
+ * offset  type    value
+ *      0  int32   magic number 0x534D4F4E ("SMON" when read as a big-endian int)
+ *      4  int32   layout version (1)
+ *      8  int64   seqlock: odd while an update is in progress, incremented by 2 on every update
+ *     16  int64   process ID of the monitored JVM
+ *     24  int64   update sequence number
+ *     32  int64   update timestamp in milliseconds since the epoch
+ *     40  double  JVM process CPU usage (0.0 to 100.0)
+ *     48  double  system-wide CPU usage (0.0 to 100.0)
+ *     56  double  system load average for the last minute
+ *     64  double  average JVM process CPU usage
+ *     72  double  average system-wide CPU usage
+ *     80  double  maximum JVM process CPU usage
+ *     88  double  maximum system-wide CPU usage
+ *     96  int64   used heap memory in bytes
+ *    104  int64   committed heap memory in bytes
+ *    112  int64   maximum used heap memory in bytes
+ *    120  int64   allocation rate in bytes per second
+ * </pre>
+ *
+ * A reader reads the seqlock, waits while it is odd, reads the values, and then reads the seqlock again: if it has
+ * changed the values may be torn and must be read again. Readers never write to the file.
+ * <p>
+ * Publishing an update is a handful of stores into the mapping: it does not allocate or perform any system calls. The
+ * file is deleted when the writer is {@link #close() closed}.
+ * <p>
+ * As with {@code hsperfdata}, the file usually lives in a directory shared by all users, so it is created defensively:
+ * on POSIX file systems the directory is created with {@code rwx------} permissions and must be owned by the current
+ * user and not writable by anyone else, and the file is created with {@code rw-------} permissions. Symbolic links are
+ * never followed and an existing file is only replaced if it is a regular file owned by the current user. Readers must
+ * therefore run as the same user as the monitored JVM.
+ *
+ * @author Zhenya Leonov
+ * @see BackgroundSystemMonitor#publishTo(SharedMetricsWriter)
+ */
+public final class SharedMetricsWriter implements Closeable {
+
+    static final int MAGIC   = 0x534D4F4E; // "SMON"
+    static final int VERSION = 1;
+
+    static final int SEQLOCK                  = 8;
+    static final int PID                      = 16;
+    static final int SEQUENCE_NUMBER          = 24;
+    static final int TIMESTAMP                = 32;
+    static final int PROCESS_CPU_LOAD         = 40;
+    static final int SYSTEM_CPU_LOAD          = 48;
+    static final int SYSTEM_LOAD_AVERAGE      = 56;
+    static final int AVERAGE_PROCESS_CPU_LOAD = 64;
+    static final int AVERAGE_SYSTEM_CPU_LOAD  = 72;
+    static final int MAX_PROCESS_CPU_LOAD     = 80;
+    static final int MAX_SYSTEM_CPU_LOAD      = 88;
+    static final int USED_MEMORY              = 96;
+    static final int TOTAL_MEMORY             = 104;
+    static final int MAX_USED_MEMORY          = 112;
+    static final int ALLOCATION_RATE          = 120;
+
+    /**
+     * The size of the file in bytes.
+     */
+    public static final int SIZE = 128;
+
+    // Writing and then reading a volatile field orders all memory accesses before it with all memory accesses after it,
+    // Java 8 has no other way to fence accesses to a mapped buffer
+    private static volatile int fence;
+
+    private final Path path;
+
+    private MappedByteBuffer buffer;         // guarded by this
+    private boolean          closed = false; // guarded by this
+
+    private SharedMetricsWriter(final Path path, final MappedByteBuffer buffer) {
+        this.path   = path;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates the specified file, replacing a file left behind by a previous process, and opens a writer which publishes
+     * metrics into it.
+     * <p>
+     * The parent directory is created if it does not exist. On POSIX file systems it must be owned by the current user
+     * and must not be writable by the group or by other users. An existing file is deleted and created again, but only
+     * if it is a regular file owned by the current user. Readers which have the replaced file open keep reading it.
+     *
+     * @param path the path of the file
+     * @return a new {@link SharedMetricsWriter}
+     * @throws IOException if an I/O error occurs, the parent directory is not secure, or the path exists and is not a
+     *                     regular file owned by the current user
+     * @see #defaultPath(long)
+     */
+    public static SharedMetricsWriter open(final Path path) throws IOException {
+        requireNonNull(path, "path == null");
+
+        final Path    absolute = path.toAbsolutePath();
+        final Path    parent   = absolute.getParent();
+        final boolean posix    = absolute.getFileSystem().supportedFileAttributeViews().contains("posix");
+
+        final UserPrincipal user = posix ? absolute.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name")) : null;
+
+        if (parent != null) {
+            if (posix)
+                Files.createDirectories(parent, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            else
+                Files.createDirectories(parent);
+            checkDirectory(parent, user);
+        }
+
+        deleteStaleFile(absolute, user);
+
+        final Set<OpenOption>    options    = new HashSet<>(Arrays.asList(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS));
+        final FileAttribute<?>[] attributes = posix ? new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")) } : new FileAttribute<?>[0];
+
+        // The file is new, so mapping it extends it to its full size and it never needs to be truncated
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(absolute, options, attributes)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        // Readers cannot open the file until the magic number is written
+        buffer.putLong(SEQLOCK, 1);
+        fence();
+
+        buffer.putInt(4, VERSION);
+        buffer.putLong(PID, getPid());
+        buffer.putLong(SEQUENCE_NUMBER, -1);
+        buffer.putLong(TIMESTAMP, -1);
+        for (int offset = PROCESS_CPU_LOAD; offset < USED_MEMORY; offset += 8)
+            buffer.putDouble(offset, -1.0);
+        for (int offset = USED_MEMORY; offset < SIZE; offset += 8)
+            buffer.putLong(offset, -1);
+        buffer.putInt(0, MAGIC);
+
+        fence();
+        buffer.putLong(SEQLOCK, 2);
+
+        return new SharedMetricsWriter(path, buffer);
+    }
+
+    // The directory must be a real directory which only the current user can modify
+    private static void checkDirectory(final Path directory, final UserPrincipal user) throws IOException {
+        if (user == null) {
+            if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS))
+                throw new IOException("not a directory: " + directory);
+            return;
+        }
+
+        final PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+        if (!attributes.isDirectory())
+            throw new IOException("not a directory: " + directory);
+        if (!attributes.owner().equals(user))
+            throw new IOException("directory is not owned by " + user.getName() + ": " + directory);
+        if (attributes.permissions().contains(PosixFilePermission.GROUP_WRITE) || attributes.permissions().contains(PosixFilePermission.OTHERS_WRITE))
+            throw new IOException("directory is writable by other users: " + directory);
+    }
+
+    // Only a regular file owned by the current user, presumably left behind by a previous process, is deleted
+    private static void deleteStaleFile(final Path path, final UserPrincipal user) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            if (user == null)
+                attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            else
+                attributes = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (final NoSuchFileException e) {
+            return;
+        }
+
+        if (!attributes.isRegularFile() || user != null && !((PosixFileAttributes) attributes).owner().equals(user))
+            throw new FileAlreadyExistsException(path.toString(), null, "not a regular file owned by the current user");
+
+        Files.delete(path);
+    }
+
+    /**
+     * Returns the conventional path of the file of the process with the specified ID:
+     * {@code <java.io.tmpdir>/sysmon_<user.name>/<pid>}.
+     *
+     * @param pid the process ID
+     * @return the conventional path of the file of the process with the specified ID
+     */
+    public static Path defaultPath(final long pid) {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "sysmon_" + System.getProperty("user.name"), Long.toString(pid));
+    }
+
+    /**
+     * Returns the conventional path of the file of the current process.
+     *
+     * @return the conventional path of the file of the current process
+     * @see #defaultPath(long)
+     */
+    public static Path defaultPath() {
+        return defaultPath(getPid());
+    }
+
+    /**
+     * Returns the path of the file.
+     *
+     * @return the path of the file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Publishes the specified metrics. Does nothing if this writer is closed.
+     */
+    synchronized void update(final long sequenceNumber, final long timestamp, final double processCpu, final double systemCpu, final double systemLoadAverage, final double avgProcessCpuLoad, final double avgSystemCpuLoad, final double maxProcessCpu, final double maxSystemCpu, final long usedMemory, final long totalMemory, final long maxUsedMemory, final long allocationRate) {
+        if (closed)
+            return;
+
+        final long seqlock = buffer.getLong(SEQLOCK);
+
+        buffer.putLong(SEQLOCK, seqlock + 1);
+        fence();
+
+        buffer.putLong(SEQUENCE_NUMBER, sequenceNumber);
+        buffer.putLong(TIMESTAMP, timestamp);
+        buffer.putDouble(PROCESS_CPU_LOAD, processCpu);
+        buffer.putDouble(SYSTEM_CPU_LOAD, systemCpu);
+        buffer.putDouble(SYSTEM_LOAD_AVERAGE, systemLoadAverage);
+        buffer.putDouble(AVERAGE_PROCESS_CPU_LOAD, avgProcessCpuLoad);
+        buffer.putDouble(AVERAGE_SYSTEM_CPU_LOAD, avgSystemCpuLoad);
+        buffer.putDouble(MAX_PROCESS_CPU_LOAD, maxProcessCpu);
+        buffer.putDouble(MAX_SYSTEM_CPU_LOAD, maxSystemCpu);
+        buffer.putLong(USED_MEMORY, usedMemory);
+        buffer.putLong(TOTAL_MEMORY, totalMemory);
+        buffer.putLong(MAX_USED_MEMORY, maxUsedMemory);
+        buffer.putLong(ALLOCATION_RATE, allocationRate);
+
+        fence();
+        buffer.putLong(SEQLOCK, seqlock + 2);
+    }
+
+    /**
+     * Stops publishing and deletes the file. Readers which have already opened the file can still read the last published
+     * metrics.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        buffer = null;
+        Files.deleteIfExists(path);
+    }
+
+    static int fence() {
+        fence = 0;
+        return fence;
+    }
+
+    private static long getPid() {
+        // The name of the runtime is "pid@hostname" on all known JVMs
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        final int    at   = name.indexOf('@');
+        try {
+            return Long.parseLong(at < 0 ? name : name.substring(0, at));
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package software.leonov.system.monitor;
+
+/**
+ * A time-weighted average of the values recorded during a sliding time window, such as the last 5 minutes.
+ * <p>
+ * The window is divided into a fixed number of buckets. Each value is weighted by the time elapsed since the previous
+ * value (the period it was measured over) and added to the bucket for the time it was recorded. Running totals are
+ * maintained for the whole window and buckets are subtracted from the totals when they slide out of the window, so each
+ * update takes constant time regardless of the number of values in the window. The window advances one bucket at a
+ * time, so the average covers between {@code (buckets - 1) / buckets} of the horizon and the full horizon.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class SlidingWindowAverage {
+
+    static final int DEFAULT_BUCKETS = 60;
+
+    private final long bucketNanos;
+
+    private final double[] weightedSums;
+    private final long[]   weights;
+
+    private double totalWeightedSum = 0.0;
+    private long   totalWeight      = 0;
+
+    private long   origin     = 0;
+    private long   lastTime   = 0;
+    private long   lastBucket = -1;
+    private double lastValue  = -1.0;
+
+    /**
+     * @param horizonNanos the length of the window in nanoseconds
+     */
+    SlidingWindowAverage(final long horizonNanos) {
+        this(horizonNanos, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param horizonNanos the length of the window in nanoseconds
+     * @param buckets      the number of buckets the window is divided into
+     */
+    SlidingWindowAverage(final long horizonNanos, final int buckets) {
+        bucketNanos  = Math.max(1, horizonNanos / buckets);
+        weightedSums = new double[buckets];
+        weights      = new long[buckets];
+    }
+
+    /**
+     * Records a new value. Negative (unavailable) values are ignored.
+     *
+     * @param value the value to record
+     * @param time  the value of {@link System#nanoTime()} when the value was measured
+     */
+    void update(final double value, final long time) {
+        if (value < 0)
+            return;
+
+        if (lastBucket < 0) {
+            origin     = time;
+            lastTime   = time;
+            lastBucket = 0;
+            lastValue  = value;
+            return;
+        }
+
+        final long elapsed = time - lastTime;
+        if (elapsed <= 0)
+            return;
+
+        final long bucket = (time - origin) / bucketNanos;
+        expire(bucket);
+
+        final int i = (int) (bucket % weights.length);
+        weightedSums[i]  += value * elapsed;
+        weights[i]       += elapsed;
+        totalWeightedSum += value * elapsed;
+        totalWeight      += elapsed;
+
+        lastTime  = time;
+        lastValue = value;
+    }
+
+    // Clears the buckets which slid out of the window since the last update
+    private void expire(final long bucket) {
+        final long stale = Math.min(bucket - lastBucket, weights.length);
+
+        for (long b = bucket - stale + 1; b <= bucket; b++) {
+            final int i = (int) (b % weights.length);
+            totalWeightedSum -= weightedSums[i];
+            totalWeight      -= weights[i];
+            weightedSums[i]   = 0.0;
+            weights[i]        = 0;
+        }
+
+        if (totalWeight <= 0) { // avoid accumulating floating point errors once the window is empty
+            totalWeightedSum = 0.0;
+            totalWeight      = 0;
+        }
+
+        lastBucket = bucket;
+    }
+
+    /**
+     * Returns the current average or -1.0 if no values have been recorded.
+     *
+     * @return the current average or -1.0 if no values have been recorded
+     */
+    double get() {
+        return totalWeight > 0 ? totalWeightedSum / totalWeight : lastValue;
+    }
+
+}
@@ -0,0 +1,99 @@
+package software.leonov.system.monitor;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * An immutable snapshot of all usage metrics collected by a {@link SystemMonitor} during a single update.
+ * <p>
+ * A new snapshot is published atomically on every update, so the metrics returned by a given snapshot are always
+ * consistent with each other. Snapshots are numbered consecutively: consumers can detect that a monitor has not been
+ * updated since the last snapshot they processed by comparing {@link #getSequenceNumber() sequence numbers}, and
+ * compute exact rates between two snapshots using their {@link #getNanoTime() timestamps}.
+ *
+ * @author Zhenya Leonov
+ */
+public interface Snapshot {
+
+    /**
+     * Returns the sequence number of this snapshot or -1 if it is not available. The first snapshot taken by a monitor has
+     * a sequence number of 1 and each subsequent snapshot is numbered one higher than its predecessor.
+     * 
+     * @return the sequence number of this snapshot or -1 if it is not available
+     */
+    public long getSequenceNumber();
+
+    /**
+     * Returns the time this snapshot was taken in milliseconds since the epoch (see {@link System#currentTimeMillis()}) or
+     * -1 if it is not available.
+     * 
+     * @return the time this snapshot was taken in milliseconds since the epoch or -1 if it is not available
+     */
+    public long getTimestamp();
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when this snapshot was taken. This value is only meaningful when
+     * compared to other values obtained from {@code System.nanoTime()} in the same JVM. If the
+     * {@link #getSequenceNumber() sequence number} is -1 this method returns 0.
+     * 
+     * @return the value of {@link System#nanoTime()} when this snapshot was taken
+     */
+    public long getNanoTime();
+
+    /**
+     * Returns the Central Processing Unit (CPU) usage metrics.
+     * 
+     * @return the Central Processing Unit (CPU) usage metrics
+     */
+    public CpuUsage getCpuUsage();
+
+    /**
+     * Returns the physical memory (RAM) usage metrics.
+     * 
+     * @return the physical memory (RAM) usage metrics
+     */
+    public MemoryUsage getMemoryUsage();
+
+    /**
+     * Returns the container (cgroup) usage metrics.
+     * 
+     * @return the container (cgroup) usage metrics
+     */
+    public ContainerUsage getContainerUsage();
+
+    /**
+     * Returns the garbage collection metrics.
+     * 
+     * @return the garbage collection metrics
+     */
+    public GcUsage getGcUsage();
+
+    /**
+     * Returns the threads which used the most CPU time during the update interval that ended with this snapshot, in
+     * descending order of CPU usage. Returns an empty list unless the monitor was configured to track the top threads (see
+     * {@link BackgroundSystemMonitor#trackTopThreads(int)}).
+     * 
+     * @return the threads which used the most CPU time during the most recent update interval
+     */
+    public List<ThreadUsage> getTopThreads();
+
+    /**
+     * Returns the threads which allocated the most heap memory during the update interval that ended with this snapshot,
+     * in descending order of allocation rate. Returns an empty list unless the monitor was configured to track the top
+     * allocators (see {@link BackgroundSystemMonitor#trackTopAllocators(int)}).
+     * 
+     * @return the threads which allocated the most heap memory during the most recent update interval
+     */
+    public List<ThreadUsage> getTopAllocators();
+
+    /**
+     * Returns {@code true} if the metrics of this snapshot may be out of date because the monitor was suspended while idle
+     * (see {@link BackgroundSystemMonitor#suspendWhenIdle(Duration)}). A suspended monitor keeps returning the last
+     * snapshot taken before it was suspended, and the first snapshot taken when it resumes is also stale because its rates
+     * are averaged over the suspended period. The snapshots taken after that are fresh again.
+     * 
+     * @return {@code true} if the metrics of this snapshot may be out of date
+     */
+    public boolean isStale();
+
+}
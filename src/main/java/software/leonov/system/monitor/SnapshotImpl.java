@@ -0,0 +1,104 @@
+package software.leonov.system.monitor;
+
+import java.util.List;
+
+/**
+ * An implementation of the {@link Snapshot} interface.
+ * 
+ * @author Zhenya Leonov
+ */
+final class SnapshotImpl implements Snapshot {
+
+    private final long              sequenceNumber;
+    private final long              timestamp;
+    private final long              nanoTime;
+    private final CpuUsage          cpu;
+    private final MemoryUsage       memory;
+    private final ContainerUsage    container;
+    private final GcUsage           gc;
+    private final List<ThreadUsage> topThreads;
+    private final List<ThreadUsage> topAllocators;
+    private final boolean           stale;
+
+    SnapshotImpl(final long sequenceNumber, final long timestamp, final long nanoTime, final CpuUsage cpu, final MemoryUsage memory, final ContainerUsage container, final GcUsage gc, final List<ThreadUsage> topThreads, final List<ThreadUsage> topAllocators) {
+        this(sequenceNumber, timestamp, nanoTime, cpu, memory, container, gc, topThreads, topAllocators, false);
+    }
+
+    SnapshotImpl(final long sequenceNumber, final long timestamp, final long nanoTime, final CpuUsage cpu, final MemoryUsage memory, final ContainerUsage container, final GcUsage gc, final List<ThreadUsage> topThreads, final List<ThreadUsage> topAllocators, final boolean stale) {
+        this.sequenceNumber = sequenceNumber;
+        this.timestamp      = timestamp;
+        this.nanoTime       = nanoTime;
+        this.cpu            = cpu;
+        this.memory         = memory;
+        this.container      = container;
+        this.gc             = gc;
+        this.topThreads     = topThreads;
+        this.topAllocators  = topAllocators;
+        this.stale          = stale;
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    @Override
+    public CpuUsage getCpuUsage() {
+        return cpu;
+    }
+
+    @Override
+    public MemoryUsage getMemoryUsage() {
+        return memory;
+    }
+
+    @Override
+    public ContainerUsage getContainerUsage() {
+        return container;
+    }
+
+    @Override
+    public GcUsage getGcUsage() {
+        return gc;
+    }
+
+    @Override
+    public List<ThreadUsage> getTopThreads() {
+        return topThreads;
+    }
+
+    @Override
+    public List<ThreadUsage> getTopAllocators() {
+        return topAllocators;
+    }
+
+    @Override
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Returns a copy of this snapshot which is {@link #isStale() stale}.
+     *
+     * @return a copy of this snapshot which is stale
+     */
+    SnapshotImpl asStale() {
+        return stale ? this : new SnapshotImpl(sequenceNumber, timestamp, nanoTime, cpu, memory, container, gc, topThreads, topAllocators, true);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[sequenceNumber=%d, timestamp=%d, stale=%s, cpu=%s, memory=%s, container=%s, gc=%s]", sequenceNumber, timestamp, stale, cpu, memory, container, gc);
+    }
+
+}
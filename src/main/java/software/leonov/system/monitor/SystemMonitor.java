@@ -47,6 +47,36 @@ public interface SystemMonitor extends AutoCloseable {
         return AbstractSystemMonitor.isSystemCpuUsageSupported();
     }
 
+    /**
+     * Returns whether or not {@link MemoryUsage#getAllocationRate()} is supported, that is whether the JVM supports and
+     * has enabled thread memory allocation measurement.
+     * 
+     * @return whether or not {@link MemoryUsage#getAllocationRate()} is supported
+     */
+    public static boolean isAllocationRateSupported() {
+        return AbstractSystemMonitor.isAllocationRateSupported();
+    }
+
+    /**
+     * Returns whether or not {@link GcUsage garbage collection metrics} are supported, that is whether the JVM sends
+     * garbage collection notifications.
+     * 
+     * @return whether or not {@link GcUsage garbage collection metrics} are supported
+     */
+    public static boolean isGcUsageSupported() {
+        return AbstractSystemMonitor.isGcUsageSupported();
+    }
+
+    /**
+     * Returns whether or not {@link ContainerUsage container usage metrics} are supported, that is whether the JVM is
+     * running on Linux in a control group (cgroup) with CPU or memory accounting.
+     * 
+     * @return whether or not {@link ContainerUsage container usage metrics} are supported
+     */
+    public static boolean isContainerUsageSupported() {
+        return AbstractSystemMonitor.isContainerUsageSupported();
+    }
+
     /**
      * Returns the Operating System name.
      * 
@@ -106,6 +136,60 @@ public interface SystemMonitor extends AutoCloseable {
      */
     public MemoryUsage getMemoryUsage();
 
+    /**
+     * Returns the container (cgroup) usage metrics.
+     * 
+     * <p>
+     * The default implementation returns the container usage of {@link UnsupportedSystemMonitor#getInstance()}, all of
+     * whose metrics are negative.
+     * 
+     * @return the container (cgroup) usage metrics
+     * @see #isContainerUsageSupported()
+     */
+    default public ContainerUsage getContainerUsage() {
+        return UnsupportedSystemMonitor.getInstance().getContainerUsage();
+    }
+
+    /**
+     * Returns the garbage collection metrics.
+     * 
+     * <p>
+     * The default implementation returns the garbage collection usage of {@link UnsupportedSystemMonitor#getInstance()},
+     * all of whose metrics are negative.
+     * 
+     * @return the garbage collection metrics
+     * @see #isGcUsageSupported()
+     */
+    default public GcUsage getGcUsage() {
+        return UnsupportedSystemMonitor.getInstance().getGcUsage();
+    }
+
+    /**
+     * Returns a consistent snapshot of all usage metrics collected during the most recent update.
+     * 
+     * <p>
+     * The default implementation returns the snapshot of {@link UnsupportedSystemMonitor#getInstance()}, all of whose
+     * metrics are negative.
+     * 
+     * @return a consistent snapshot of all usage metrics collected during the most recent update
+     */
+    default public Snapshot getSnapshot() {
+        return UnsupportedSystemMonitor.getInstance().getSnapshot();
+    }
+
+    /**
+     * Returns a live, allocation-free view of the most recent usage metrics.
+     * 
+     * <p>
+     * The default implementation returns the view of {@link UnsupportedSystemMonitor#getInstance()}, all of whose metrics
+     * are negative.
+     * 
+     * @return a live, allocation-free view of the most recent usage metrics
+     */
+    default public MetricsView getMetricsView() {
+        return UnsupportedSystemMonitor.getInstance().getMetricsView();
+    }
+
     /**
      * The default implementation of the {@code close} method is a no-op.
      */
@@ -0,0 +1,273 @@
+package software.leonov.system.monitor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Computes the total CPU time and the total number of bytes allocated on the heap by the JVM process from the metrics of
+ * its threads.
+ * <p>
+ * The IDs of live threads are cached and only re-read when new threads have been started, and if the
+ * {@code com.sun.management.ThreadMXBean} extension is available the metrics of all threads are read with a single bulk
+ * call per metric. The metrics of each thread are tracked separately and only the increase since the previous read is
+ * added to the total, so the totals never decrease when threads terminate: the CPU time and allocated bytes of a
+ * terminated thread up to the last read in which it was alive are retained.
+ * <p>
+ * On Java 21 and later the total number of allocated bytes, including the bytes allocated by all terminated threads, is
+ * read directly with {@code getTotalThreadAllocatedBytes()} instead.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+@SuppressWarnings("restriction")
+final class ThreadMetricsReader {
+
+    private static final long[] NO_THREADS = {};
+
+    // com.sun.management.ThreadMXBean.getTotalThreadAllocatedBytes() or null before Java 21
+    private static final MethodHandle TOTAL_ALLOCATED_BYTES = findTotalAllocatedBytes();
+
+    private final ThreadMXBean                     bean;
+    private final com.sun.management.ThreadMXBean sunBean;
+
+    // The tracked threads and their metrics at the previous read
+    private long[] ids                = NO_THREADS;
+    private long[] lastCpuTimes       = NO_THREADS;
+    private long[] lastAllocatedBytes = NO_THREADS;
+    private long[] cpuTimes           = NO_THREADS;
+
+    private final LongLongHashMap previous = new LongLongHashMap(256);
+
+    private long startedThreadCount  = -1;
+    private long totalCpuTime        = 0;
+    private long totalAllocatedBytes = 0;
+
+    /**
+     * @param bean the {@code ThreadMXBean} to read from
+     */
+    ThreadMetricsReader(final ThreadMXBean bean) {
+        this.bean    = bean;
+        this.sunBean = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    private static MethodHandle findTotalAllocatedBytes() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(com.sun.management.ThreadMXBean.class, "getTotalThreadAllocatedBytes", MethodType.methodType(long.class));
+        } catch (final ReflectiveOperationException | LinkageError | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the total CPU time (in nanoseconds) used by the threads of this JVM, including threads which have since
+     * terminated, or -1 if thread CPU time measurement is not supported or disabled.
+     * <p>
+     * Only the difference between two values returned by this method is meaningful.
+     *
+     * @return the total CPU time (in nanoseconds) used by the threads of this JVM or -1 if thread CPU time measurement is
+     *         not supported or disabled
+     */
+    long readCpuTime() {
+        try {
+            if (!isCpuTimeEnabled())
+                return -1;
+
+            refreshIfStarted();
+            accumulateCpuTimes();
+            return totalCpuTime;
+        } catch (final UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the total number of bytes allocated on the heap by the threads of this JVM, including threads which have
+     * since terminated, or -1 if thread memory allocation measurement is not supported or disabled.
+     * <p>
+     * Only the difference between two values returned by this method is meaningful.
+     *
+     * @return the total number of bytes allocated on the heap by the threads of this JVM or -1 if thread memory allocation
+     *         measurement is not supported or disabled
+     */
+    long readAllocatedBytes() {
+        try {
+            if (!isAllocatedBytesEnabled())
+                return -1;
+
+            if (TOTAL_ALLOCATED_BYTES != null)
+                try {
+                    return (long) TOTAL_ALLOCATED_BYTES.invokeExact(sunBean);
+                } catch (final UnsupportedOperationException e) {
+                    throw e;
+                } catch (final Throwable e) {
+                    // Fall back to the allocated bytes of the live threads
+                }
+
+            refreshIfStarted();
+            accumulateAllocatedBytes();
+            return totalAllocatedBytes;
+        } catch (final UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the CPU time and the number of allocated bytes of each live thread. The metrics which are not supported or
+     * disabled are reported as -1.
+     *
+     * @return the CPU time and the number of allocated bytes of each live thread or {@link ThreadTimes#EMPTY} if neither
+     *         metric is supported
+     */
+    ThreadTimes readThreadTimes() {
+        boolean cpu       = false;
+        boolean allocated = false;
+
+        try {
+            cpu       = isCpuTimeEnabled();
+            allocated = isAllocatedBytesEnabled();
+
+            if (!cpu && !allocated)
+                return ThreadTimes.EMPTY;
+
+            refreshIfStarted();
+
+            if (cpu)
+                accumulateCpuTimes();
+            if (allocated)
+                accumulateAllocatedBytes();
+        } catch (final UnsupportedOperationException e) {
+            if (!cpu && !allocated)
+                return ThreadTimes.EMPTY;
+        }
+
+        return new ThreadTimes(System.nanoTime(), ids.clone(), cpu ? lastCpuTimes.clone() : unavailable(ids.length), allocated ? lastAllocatedBytes.clone() : unavailable(ids.length));
+    }
+
+    private static long[] unavailable(final int length) {
+        final long[] values = new long[length];
+        Arrays.fill(values, -1);
+        return values;
+    }
+
+    private boolean isCpuTimeEnabled() {
+        return bean.isThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Returns whether thread memory allocation measurement is supported and enabled. Unlike the other methods of this class
+     * this method is thread-safe.
+     *
+     * @return whether thread memory allocation measurement is supported and enabled
+     */
+    boolean isAllocatedBytesEnabled() {
+        return sunBean != null && sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled();
+    }
+
+    private void refreshIfStarted() {
+        final long started = bean.getTotalStartedThreadCount();
+        if (started != startedThreadCount) {
+            startedThreadCount = started;
+            refresh(bean.getAllThreadIds());
+        }
+    }
+
+    private void accumulateCpuTimes() {
+        final long[] times = readCpuTimes();
+
+        int live = 0;
+        for (int i = 0; i < times.length; i++)
+            if (times[i] >= 0) {
+                if (times[i] > lastCpuTimes[i])
+                    totalCpuTime += times[i] - lastCpuTimes[i];
+                lastCpuTimes[i] = times[i];
+                live++;
+            }
+
+        // Stop tracking terminated threads
+        if (live < times.length)
+            compact(times, live);
+    }
+
+    private void accumulateAllocatedBytes() {
+        final long[] bytes = sunBean.getThreadAllocatedBytes(ids);
+
+        int live = 0;
+        for (int i = 0; i < bytes.length; i++)
+            if (bytes[i] >= 0) {
+                if (bytes[i] > lastAllocatedBytes[i])
+                    totalAllocatedBytes += bytes[i] - lastAllocatedBytes[i];
+                lastAllocatedBytes[i] = bytes[i];
+                live++;
+            }
+
+        // Stop tracking terminated threads
+        if (live < bytes.length)
+            compact(bytes, live);
+    }
+
+    private long[] readCpuTimes() {
+        if (sunBean != null)
+            return sunBean.getThreadCpuTime(ids);
+
+        for (int i = 0; i < ids.length; i++)
+            cpuTimes[i] = bean.getThreadCpuTime(ids[i]);
+
+        return cpuTimes;
+    }
+
+    private void refresh(final long[] threadIds) {
+        // The entire CPU time and allocated bytes of a new thread were used since the previous read
+        final long[] lastCpu       = carryOver(threadIds, lastCpuTimes);
+        final long[] lastAllocated = carryOver(threadIds, lastAllocatedBytes);
+
+        ids                = threadIds;
+        lastCpuTimes       = lastCpu;
+        lastAllocatedBytes = lastAllocated;
+        cpuTimes           = new long[threadIds.length];
+    }
+
+    private long[] carryOver(final long[] threadIds, final long[] values) {
+        previous.clear();
+        for (int i = 0; i < ids.length; i++)
+            previous.put(ids[i], values[i]);
+
+        final long[] last = new long[threadIds.length];
+        for (int i = 0; i < threadIds.length; i++)
+            last[i] = previous.get(threadIds[i], 0);
+
+        return last;
+    }
+
+    private void compact(final long[] values, final int live) {
+        final long[] liveIds       = new long[live];
+        final long[] liveCpu       = new long[live];
+        final long[] liveAllocated = new long[live];
+
+        for (int i = 0, j = 0; i < values.length; i++)
+            if (values[i] >= 0) {
+                liveIds[j]       = ids[i];
+                liveCpu[j]       = lastCpuTimes[i];
+                liveAllocated[j] = lastAllocatedBytes[i];
+                j++;
+            }
+
+        ids                = liveIds;
+        lastCpuTimes       = liveCpu;
+        lastAllocatedBytes = liveAllocated;
+        cpuTimes           = new long[live];
+    }
+
+    /**
+     * Returns the number of threads currently tracked.
+     *
+     * @return the number of threads currently tracked
+     */
+    int getThreadCount() {
+        return ids.length;
+    }
+
+}
@@ -0,0 +1,31 @@
+package software.leonov.system.monitor;
+
+/**
+ * The cumulative CPU time and allocated bytes of each live thread at a single point in time, read in bulk from the
+ * {@code ThreadMXBean}.
+ * 
+ * @author Zhenya Leonov
+ */
+final class ThreadTimes {
+
+    static final ThreadTimes EMPTY = new ThreadTimes(0, new long[0], new long[0], new long[0]);
+
+    final long   time;
+    final long[] ids;
+    final long[] cpuTimes;
+    final long[] allocatedBytes;
+
+    /**
+     * @param time           the value of {@link System#nanoTime()} when the times were read
+     * @param ids            the thread IDs
+     * @param cpuTimes       the CPU time (in nanoseconds) of each thread or -1 if it is unavailable
+     * @param allocatedBytes the number of bytes allocated on the heap by each thread or -1 if it is unavailable
+     */
+    ThreadTimes(final long time, final long[] ids, final long[] cpuTimes, final long[] allocatedBytes) {
+        this.time           = time;
+        this.ids            = ids;
+        this.cpuTimes       = cpuTimes;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+}
@@ -0,0 +1,46 @@
+package software.leonov.system.monitor;
+
+/**
+ * The resource usage of a single JVM thread during the most recent update interval.
+ * 
+ * @author Zhenya Leonov
+ * @see Snapshot#getTopThreads()
+ * @see Snapshot#getTopAllocators()
+ */
+public interface ThreadUsage {
+
+    /**
+     * Returns the ID of the thread.
+     * 
+     * @return the ID of the thread
+     * @see Thread#getId()
+     */
+    public long getThreadId();
+
+    /**
+     * Returns the name of the thread or an empty string if the thread terminated before its name could be read.
+     * 
+     * @return the name of the thread or an empty string if the thread terminated before its name could be read
+     */
+    public String getThreadName();
+
+    /**
+     * Returns the CPU usage of the thread during the most recent update interval. The value is normalized in the same way
+     * as {@link CpuUsage#getProcessCpuLoad()}: the sum of the CPU usage of all threads is the JVM process CPU usage. Returns
+     * -1.0 if the information is unavailable.
+     * 
+     * @return the CPU usage of the thread during the most recent update interval or -1.0 if the information is unavailable
+     */
+    public double getCpuLoad();
+
+    /**
+     * Returns the rate (in bytes per second) at which the thread allocated heap memory during the most recent update
+     * interval or -1 if the information is unavailable.
+     * 
+     * @return the rate (in bytes per second) at which the thread allocated heap memory during the most recent update
+     *         interval or -1 if the information is unavailable
+     * @see MemoryUsage#getAllocationRate()
+     */
+    public long getAllocationRate();
+
+}
@@ -0,0 +1,50 @@
+package software.leonov.system.monitor;
+
+import static software.leonov.system.monitor.util.Formatter.formatDecimalBytes;
+import static software.leonov.system.monitor.util.Formatter.formatPercent;
+
+/**
+ * An implementation of the {@link ThreadUsage} interface.
+ * 
+ * @author Zhenya Leonov
+ */
+final class ThreadUsageImpl implements ThreadUsage {
+
+    private final long   threadId;
+    private final String threadName;
+    private final double cpuLoad;
+    private final long   allocationRate;
+
+    ThreadUsageImpl(final long threadId, final String threadName, final double cpuLoad, final long allocationRate) {
+        this.threadId       = threadId;
+        this.threadName     = threadName;
+        this.cpuLoad        = cpuLoad;
+        this.allocationRate = allocationRate;
+    }
+
+    @Override
+    public long getThreadId() {
+        return threadId;
+    }
+
+    @Override
+    public String getThreadName() {
+        return threadName;
+    }
+
+    @Override
+    public double getCpuLoad() {
+        return cpuLoad;
+    }
+
+    @Override
+    public long getAllocationRate() {
+        return allocationRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[threadId=%d, threadName=%s, cpuLoad=%s, allocationRate=%s]", threadId, threadName, formatPercent(cpuLoad), allocationRate < 0 ? "N/A" : formatDecimalBytes(allocationRate) + "/s");
+    }
+
+}
@@ -0,0 +1,195 @@
+package software.leonov.system.monitor;
+
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the threads which used the most CPU time, or allocated the most heap memory, since the previous update.
+ * <p>
+ * The CPU time and allocated bytes of each thread at the previous update are kept in primitive {@link LongLongHashMap
+ * maps}. The top {@code n} threads are selected with a bounded min-heap in {@code O(threads * log(n))} time, without
+ * sorting all threads, and the names of only the selected threads are read from the {@code ThreadMXBean}.
+ * <p>
+ * This class is not thread-safe.
+ * 
+ * @author Zhenya Leonov
+ */
+final class TopThreadsTracker {
+
+    private final int          n;
+    private final ThreadMXBean bean;
+    private final boolean      byAllocatedBytes;
+
+    // The metrics of each thread at the previous update, swapped on every update so that terminated threads are dropped
+    private LongLongHashMap previousCpuTimes       = new LongLongHashMap(256);
+    private LongLongHashMap currentCpuTimes        = new LongLongHashMap(256);
+    private LongLongHashMap previousAllocatedBytes = new LongLongHashMap(256);
+    private LongLongHashMap currentAllocatedBytes  = new LongLongHashMap(256);
+    private long            lastTime               = -1;
+
+    // A min-heap of the top threads ordered by the delta of the ranked metric
+    private final long[] heapDeltas;
+    private final long[] heapIds;
+    private int          heapSize;
+
+    /**
+     * Returns a new tracker which ranks threads by their CPU time.
+     * 
+     * @param n    the number of threads to report
+     * @param bean the {@code ThreadMXBean} used to read thread names
+     */
+    TopThreadsTracker(final int n, final ThreadMXBean bean) {
+        this(n, bean, false);
+    }
+
+    /**
+     * @param n                the number of threads to report
+     * @param bean             the {@code ThreadMXBean} used to read thread names
+     * @param byAllocatedBytes whether threads are ranked by their allocated bytes instead of their CPU time
+     */
+    TopThreadsTracker(final int n, final ThreadMXBean bean, final boolean byAllocatedBytes) {
+        this.n                = n;
+        this.bean             = bean;
+        this.byAllocatedBytes = byAllocatedBytes;
+        heapDeltas            = new long[n];
+        heapIds               = new long[n];
+    }
+
+    /**
+     * Returns the threads which used the most CPU time (or allocated the most bytes) since the previous update, in
+     * descending order, or an empty list if this is the first update.
+     * 
+     * @param times      the CPU time and allocated bytes of each live thread
+     * @param processors the number of available processors
+     * @return the threads which used the most CPU time (or allocated the most bytes) since the previous update
+     */
+    List<ThreadUsage> update(final ThreadTimes times, final int processors) {
+        final long    time  = times.time;
+        final boolean first = lastTime == -1;
+
+        heapSize = 0;
+        currentCpuTimes.clear();
+        currentAllocatedBytes.clear();
+
+        for (int i = 0; i < times.ids.length; i++) {
+            final long id             = times.ids[i];
+            final long cpuTime        = times.cpuTimes[i];
+            final long allocatedBytes = times.allocatedBytes[i];
+
+            if (cpuTime >= 0)
+                currentCpuTimes.put(id, cpuTime);
+            if (allocatedBytes >= 0)
+                currentAllocatedBytes.put(id, allocatedBytes);
+
+            final long value = byAllocatedBytes ? allocatedBytes : cpuTime;
+            if (first || value < 0)
+                continue;
+
+            // The entire CPU time and allocated bytes of a new thread were used since the previous update
+            final long delta = value - (byAllocatedBytes ? previousAllocatedBytes : previousCpuTimes).get(id, 0);
+            if (delta > 0)
+                offer(delta, id);
+        }
+
+        final long elapsed = time - lastTime;
+        lastTime = time;
+
+        final List<ThreadUsage> report = first || elapsed <= 0 || heapSize == 0 ? Collections.emptyList() : report(elapsed, processors);
+
+        LongLongHashMap swap = previousCpuTimes;
+        previousCpuTimes = currentCpuTimes;
+        currentCpuTimes  = swap;
+
+        swap                   = previousAllocatedBytes;
+        previousAllocatedBytes = currentAllocatedBytes;
+        currentAllocatedBytes  = swap;
+
+        return report;
+    }
+
+    private void offer(final long delta, final long id) {
+        if (heapSize < n) {
+            heapDeltas[heapSize] = delta;
+            heapIds[heapSize]    = id;
+            siftUp(heapSize++);
+        } else if (delta > heapDeltas[0]) {
+            heapDeltas[0] = delta;
+            heapIds[0]    = id;
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heapDeltas[parent] <= heapDeltas[i])
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            final int left     = 2 * i + 1;
+            final int right    = left + 1;
+            int       smallest = i;
+
+            if (left < heapSize && heapDeltas[left] < heapDeltas[smallest])
+                smallest = left;
+            if (right < heapSize && heapDeltas[right] < heapDeltas[smallest])
+                smallest = right;
+            if (smallest == i)
+                return;
+
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        final long delta = heapDeltas[i];
+        final long id    = heapIds[i];
+        heapDeltas[i] = heapDeltas[j];
+        heapIds[i]    = heapIds[j];
+        heapDeltas[j] = delta;
+        heapIds[j]    = id;
+    }
+
+    private List<ThreadUsage> report(final long elapsed, final int processors) {
+        final int           size   = heapSize;
+        final long[]        ids    = new long[size];
+        final ThreadUsage[] report = new ThreadUsage[size];
+
+        // Drain the heap, smallest delta first
+        final long[] deltas = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ids[i]    = heapIds[0];
+            deltas[i] = heapDeltas[0];
+            swap(0, --heapSize);
+            siftDown(0);
+        }
+
+        final ThreadInfo[] infos = bean.getThreadInfo(ids, 0);
+
+        for (int i = 0; i < size; i++) {
+            final long   cpuTime        = byAllocatedBytes ? delta(ids[i], currentCpuTimes, previousCpuTimes) : deltas[i];
+            final long   allocatedBytes = byAllocatedBytes ? deltas[i] : delta(ids[i], currentAllocatedBytes, previousAllocatedBytes);
+            final String name           = infos[i] == null ? "" : infos[i].getThreadName();
+            final double cpuLoad        = cpuTime < 0 ? -1.0 : Math.min((double) cpuTime / elapsed / processors * 100.0, 100.0);
+            final long   allocationRate = allocatedBytes < 0 ? -1 : (long) (allocatedBytes * 1e9 / elapsed);
+            report[i] = new ThreadUsageImpl(ids[i], name, cpuLoad, allocationRate);
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(report));
+    }
+
+    private static long delta(final long id, final LongLongHashMap current, final LongLongHashMap previous) {
+        final long value = current.get(id, -1);
+        return value < 0 ? -1 : Math.max(0, value - previous.get(id, 0));
+    }
+
+}
@@ -1,5 +1,7 @@
 package software.leonov.system.monitor;
 
+import java.util.Collections;
+
 /**
  * A {@link SystemMonitor} that does nothing. All metrics return -1.
  */
@@ -7,8 +9,11 @@ public final class UnsupportedSystemMonitor implements SystemMonitor {
 
     private static UnsupportedSystemMonitor INSTANCE = new UnsupportedSystemMonitor();
 
-    final static CpuUsage    NEGATIVE_CPU_USAGE    = new CpuUsageImpl(-1, -1, -1, -1, -1, -1, -1);
-    final static MemoryUsage NEGATIVE_MEMORY_USAGE = new MemoryUsageImpl(-1, -1, -1);
+    final static CpuUsage       NEGATIVE_CPU_USAGE       = new CpuUsageImpl(-1, -1, -1, -1, -1, -1, -1);
+    final static MemoryUsage    NEGATIVE_MEMORY_USAGE    = new MemoryUsageImpl(-1, -1, -1);
+    final static ContainerUsage NEGATIVE_CONTAINER_USAGE = new ContainerUsageImpl(-1, -1, -1, -1, -1, -1, -1);
+    final static GcUsage        NEGATIVE_GC_USAGE        = new GcUsageImpl(-1, -1, -1, -1, -1, GcTotals.EMPTY.pauseHistogram, GcTotals.EMPTY.names, GcTotals.EMPTY.counts, GcTotals.EMPTY.times);
+    final static SnapshotImpl   NEGATIVE_SNAPSHOT        = new SnapshotImpl(-1, -1, 0, NEGATIVE_CPU_USAGE, NEGATIVE_MEMORY_USAGE, NEGATIVE_CONTAINER_USAGE, NEGATIVE_GC_USAGE, Collections.emptyList(), Collections.emptyList());
 
     /**
      * Returns a singleton instance of {@link UnsupportedSystemMonitor}.
@@ -32,4 +37,24 @@ public final class UnsupportedSystemMonitor implements SystemMonitor {
         return NEGATIVE_MEMORY_USAGE;
     }
 
+    @Override
+    public ContainerUsage getContainerUsage() {
+        return NEGATIVE_CONTAINER_USAGE;
+    }
+
+    @Override
+    public GcUsage getGcUsage() {
+        return NEGATIVE_GC_USAGE;
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        return NEGATIVE_SNAPSHOT;
+    }
+
+    @Override
+    public MetricsView getMetricsView() {
+        return MetricsView.NEGATIVE_METRICS_VIEW;
+    }
+
 }
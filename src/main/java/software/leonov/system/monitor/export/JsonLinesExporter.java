@@ -0,0 +1,507 @@
+package software.leonov.system.monitor.export;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import software.leonov.system.monitor.BackgroundSystemMonitor;
+import software.leonov.system.monitor.ContainerUsage;
+import software.leonov.system.monitor.CpuUsage;
+import software.leonov.system.monitor.GcUsage;
+import software.leonov.system.monitor.MemoryPoolUsage;
+import software.leonov.system.monitor.MemoryUsage;
+import software.leonov.system.monitor.Snapshot;
+import software.leonov.system.monitor.ThreadUsage;
+
+/**
+ * Writes every {@link Snapshot} of a {@link BackgroundSystemMonitor} as a line of JSON to a local file for later
+ * analysis, without performing any I/O on the thread which updates the monitor:
+ *
+ * <pre>{@code
+ * final JsonLinesExporter exporter = JsonLinesExporter.writeTo(directory).rotateEvery(Duration.ofHours(1)).start();
+ * monitor.subscribe(Runnable::run, exporter).start();
+ * }</pre>
+ * <p>
+ * {@link #accept(Snapshot) Accepting} a snapshot only adds it to a bounded lock-free queue, so it is safe to subscribe the
+ * exporter with a direct executor as shown above. If the queue is full the snapshot is discarded and
+ * {@link #getDroppedCount() counted}, the monitor never waits for the file system. A background thread drains the queue
+ * at the {@link #flushEvery(Duration) flush interval}: it encodes each snapshot into a reused direct buffer and writes
+ * all of them with as few writes as possible (group commit).
+ * <p>
+ * The lines are written to files named {@code metrics-<n>.jsonl} in the specified directory, where {@code n} increases
+ * with each file. A new file is started when the current file reaches the {@link #rotateAtSize(long) maximum size} or
+ * {@link #rotateEvery(Duration) age}. Old files are never deleted.
+ * <p>
+ * Each line is a JSON object whose names follow the getters of {@link Snapshot}, {@link CpuUsage}, {@link MemoryUsage},
+ * {@link GcUsage}, {@link ContainerUsage}, and {@link ThreadUsage}, for example {@code "cpu":{"processCpuLoad":12.5,...}}.
+ * Metrics are written as reported: metrics which are unsupported or not ready are negative (see
+ * {@link software.leonov.system.monitor.SystemMonitor SystemMonitor}).
+ * <p>
+ * If a write fails the exporter passes the exception to the writer thread's {@link Thread.UncaughtExceptionHandler
+ * uncaught exception handler}, discards the snapshot being written together with the snapshots buffered since the last
+ * flush, counts them as {@link #getDroppedCount() dropped}, and continues in a new file.
+ *
+ * @author Zhenya Leonov
+ * @see BackgroundSystemMonitor#subscribe(Executor, Consumer)
+ */
+public final class JsonLinesExporter implements Consumer<Snapshot>, Closeable {
+
+    private static final String PREFIX = "metrics-";
+    private static final String SUFFIX = ".jsonl";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // The tail of a queue which will never be drained again
+    private static final long SEALED = -1;
+
+    private final Path directory;
+
+    private int  capacity           = 1024;
+    private long flushIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+    private long maxFileSize        = 64L * 1024 * 1024;
+    private long maxFileAgeNanos    = Long.MAX_VALUE;
+
+    // A single-producer single-consumer ring buffer
+    private AtomicReferenceArray<Snapshot> queue;
+    private final AtomicLong               head    = new AtomicLong(); // the next snapshot to be written, written only by the writer thread
+    private final AtomicLong               tail    = new AtomicLong(); // the next snapshot to be queued, written only by the producer until the writer thread seals it
+    private final AtomicLong               dropped = new AtomicLong();
+    private final AtomicLong               written = new AtomicLong();
+
+    private volatile Thread  thread = null;
+    private volatile boolean closed = false;
+
+    // Accessed only by the writer thread once started
+    private final JsonWriter writer = new JsonWriter(BUFFER_SIZE);
+    private FileChannel      channel;
+    private long             fileNumber;
+    private long             fileOpened;
+    private long             buffered; // snapshots encoded since the last flush, counted as written once flushed
+
+    private JsonLinesExporter(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns a new exporter which writes to files in the specified directory. The exporter must be configured and then
+     * {@link #start() started}.
+     *
+     * @param directory the directory to write to, which is created if it does not exist
+     * @return a new exporter which writes to files in the specified directory
+     */
+    public static JsonLinesExporter writeTo(final Path directory) {
+        requireNonNull(directory, "directory == null");
+        return new JsonLinesExporter(directory);
+    }
+
+    /**
+     * Sets the maximum number of snapshots waiting to be written, the default is 1024.
+     *
+     * @param capacity the maximum number of snapshots waiting to be written
+     * @return this {@link JsonLinesExporter} instance
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     * @throws IllegalStateException    if the exporter has already started
+     */
+    public JsonLinesExporter queueCapacity(final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity <= 0");
+        checkNotStarted();
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Sets how often queued snapshots are written to the file, the default is every second. Snapshots accepted during
+     * the interval are written together.
+     *
+     * @param flushInterval how often queued snapshots are written to the file
+     * @return this {@link JsonLinesExporter} instance
+     * @throws IllegalArgumentException if {@code flushInterval} is not positive
+     * @throws IllegalStateException    if the exporter has already started
+     */
+    public JsonLinesExporter flushEvery(final Duration flushInterval) {
+        requireNonNull(flushInterval, "flushInterval == null");
+        if (flushInterval.isNegative() || flushInterval.isZero())
+            throw new IllegalArgumentException("flushInterval <= 0");
+        checkNotStarted();
+        this.flushIntervalNanos = flushInterval.toNanos();
+        return this;
+    }
+
+    /**
+     * Starts a new file once the current file reaches the specified size, the default is 64 MiB.
+     *
+     * @param maxFileSize the maximum size of a file in bytes
+     * @return this {@link JsonLinesExporter} instance
+     * @throws IllegalArgumentException if {@code maxFileSize} is not positive
+     * @throws IllegalStateException    if the exporter has already started
+     */
+    public JsonLinesExporter rotateAtSize(final long maxFileSize) {
+        if (maxFileSize <= 0)
+            throw new IllegalArgumentException("maxFileSize <= 0");
+        checkNotStarted();
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    /**
+     * Starts a new file once the current file reaches the specified age. By default files are rotated only by size.
+     *
+     * @param maxFileAge the maximum age of a file
+     * @return this {@link JsonLinesExporter} instance
+     * @throws IllegalArgumentException if {@code maxFileAge} is not positive
+     * @throws IllegalStateException    if the exporter has already started
+     */
+    public JsonLinesExporter rotateEvery(final Duration maxFileAge) {
+        requireNonNull(maxFileAge, "maxFileAge == null");
+        if (maxFileAge.isNegative() || maxFileAge.isZero())
+            throw new IllegalArgumentException("maxFileAge <= 0");
+        checkNotStarted();
+        this.maxFileAgeNanos = maxFileAge.toNanos();
+        return this;
+    }
+
+    /**
+     * Opens the first file and starts the writer thread.
+     *
+     * @return this {@link JsonLinesExporter} instance
+     * @throws IOException           if the first file cannot be created
+     * @throws IllegalStateException if the exporter has already started
+     */
+    public synchronized JsonLinesExporter start() throws IOException {
+        checkNotStarted();
+
+        Files.createDirectories(directory);
+        fileNumber = lastFileNumber() + 1;
+        rotate();
+
+        queue = new AtomicReferenceArray<>(capacity);
+
+        final Thread thread = new Thread(this::run, "system-monitor-json-writer");
+        thread.setDaemon(true);
+        this.thread = thread;
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Queues the specified snapshot to be written. Never blocks: if the queue is full, or the exporter has not started or
+     * is closed, the snapshot is discarded. Must only be called by one thread at a time.
+     *
+     * @param snapshot the specified snapshot
+     */
+    @Override
+    public void accept(final Snapshot snapshot) {
+        requireNonNull(snapshot, "snapshot == null");
+
+        if (thread == null || closed) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        final long t = tail.get();
+        if (t == SEALED || t - head.get() >= queue.length()) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        queue.set(index(t), snapshot);
+
+        // Fails if the writer thread sealed the queue after its last drain
+        if (!tail.compareAndSet(t, t + 1)) {
+            queue.set(index(t), null);
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of snapshots which were discarded because the queue was full, the exporter was not running, or a
+     * write failed.
+     *
+     * @return the number of discarded snapshots
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of snapshots written. A snapshot is counted once the buffer holding it has been flushed to the
+     * file.
+     *
+     * @return the number of snapshots written
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Returns the directory the files are written to.
+     *
+     * @return the directory the files are written to
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the queued snapshots, closes the current file, and stops the writer thread. Snapshots accepted afterwards are
+     * discarded.
+     */
+    @Override
+    public void close() {
+        final Thread thread;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            thread = this.thread;
+        }
+
+        if (thread == null)
+            return;
+
+        LockSupport.unpark(thread);
+
+        boolean interrupted = false;
+        while (true)
+            try {
+                thread.join();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void checkNotStarted() {
+        if (thread != null || closed)
+            throw new IllegalStateException("exporter has already started");
+    }
+
+    private int index(final long sequence) {
+        return (int) (sequence % queue.length());
+    }
+
+    private void run() {
+        while (true) {
+            // Read the flag before draining, so that the last drain sees every snapshot accepted before close()
+            final boolean closing = closed;
+
+            drain();
+
+            if (closing)
+                break;
+
+            LockSupport.parkNanos(this, flushIntervalNanos);
+        }
+
+        // A snapshot queued after the closed flag was read above is never written: count it as dropped, and make accept()
+        // drop any snapshot it queues from now on
+        dropped.addAndGet(tail.getAndSet(SEALED) - head.get());
+
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (final IOException e) {
+            report(e);
+        }
+    }
+
+    private void drain() {
+        final long end = tail.get();
+
+        for (long h = head.get(); h < end; h++) {
+            final int      i        = index(h);
+            final Snapshot snapshot = queue.get(i);
+
+            queue.set(i, null);
+            head.set(h + 1);
+
+            try {
+                if (channel == null || writer.size() >= maxFileSize || System.nanoTime() - fileOpened >= maxFileAgeNanos) {
+                    if (channel != null) {
+                        flush();
+                        channel.close();
+                    }
+                    rotate();
+                }
+
+                write(snapshot, writer);
+                buffered++;
+            } catch (final IOException e) {
+                failed(e, 1);
+            }
+        }
+
+        try {
+            if (channel != null)
+                flush();
+        } catch (final IOException e) {
+            failed(e, 0);
+        }
+    }
+
+    private void flush() throws IOException {
+        writer.flush();
+        written.addAndGet(buffered);
+        buffered = 0;
+    }
+
+    // Discards the buffer and the file: the snapshots buffered since the last flush are dropped along with the snapshot
+    // being written (if any), even if an automatic flush of a full buffer wrote some of them before the failure
+    private void failed(final IOException e, final int current) {
+        dropped.addAndGet(buffered + current);
+        buffered = 0;
+        writer.reset();
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (final IOException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+        channel = null;
+        report(e);
+    }
+
+    private static void report(final IOException e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    private void rotate() throws IOException {
+        final Path path = directory.resolve(PREFIX + fileNumber++ + SUFFIX);
+        channel    = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        fileOpened = System.nanoTime();
+        writer.setChannel(channel);
+    }
+
+    private long lastFileNumber() throws IOException {
+        long last = 0;
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                try {
+                    last = Math.max(last, Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (final NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return last;
+    }
+
+    static void write(final Snapshot snapshot, final JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("sequenceNumber").value(snapshot.getSequenceNumber());
+        writer.name("timestamp").value(snapshot.getTimestamp());
+        writer.name("stale").value(snapshot.isStale());
+
+        final CpuUsage cpu = snapshot.getCpuUsage();
+
+        writer.name("cpu").beginObject();
+        writer.name("processCpuLoad").value(cpu.getProcessCpuLoad());
+        writer.name("systemCpuLoad").value(cpu.getSystemCpuLoad());
+        writer.name("systemLoadAverage").value(cpu.getSystemLoadAverage());
+        writer.name("averageProcessCpuLoad").value(cpu.getAverageProcessCpuLoad());
+        writer.name("averageSystemCpuLoad").value(cpu.getAverageSystemCpuLoad());
+        writer.name("maxProcessCpuLoad").value(cpu.getMaxProcessCpuLoad());
+        writer.name("maxSystemCpuLoad").value(cpu.getMaxSystemCpuLoad());
+        writer.endObject();
+
+        final MemoryUsage memory = snapshot.getMemoryUsage();
+
+        writer.name("memory").beginObject();
+        writer.name("usedMemory").value(memory.getUsedMemory());
+        writer.name("totalMemory").value(memory.getTotalMemory());
+        writer.name("maxUsedMemory").value(memory.getMaxUsedMemory());
+        writer.name("allocationRate").value(memory.getAllocationRate());
+        writer.name("nonHeapUsedMemory").value(memory.getNonHeapUsedMemory());
+        writer.name("nonHeapTotalMemory").value(memory.getNonHeapTotalMemory());
+        writer.name("directMemoryUsed").value(memory.getDirectMemoryUsed());
+        writer.name("directMemoryCapacity").value(memory.getDirectMemoryCapacity());
+        writer.name("directMemoryLimit").value(memory.getDirectMemoryLimit());
+        writer.name("directBufferCount").value(memory.getDirectBufferCount());
+        writer.name("mappedMemoryUsed").value(memory.getMappedMemoryUsed());
+        writer.name("mappedBufferCount").value(memory.getMappedBufferCount());
+        writer.name("memoryPools").beginArray();
+        for (final MemoryPoolUsage pool : memory.getMemoryPools()) {
+            writer.beginObject();
+            writer.name("name").value(pool.getName());
+            writer.name("heap").value(pool.isHeap());
+            writer.name("usedMemory").value(pool.getUsedMemory());
+            writer.name("totalMemory").value(pool.getTotalMemory());
+            writer.name("maxMemory").value(pool.getMaxMemory());
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+
+        final GcUsage gc = snapshot.getGcUsage();
+
+        writer.name("gc").beginObject();
+        writer.name("pauseCount").value(gc.getPauseCount());
+        writer.name("pauseTime").value(gc.getPauseTime());
+        writer.name("overhead").value(gc.getOverhead());
+        writer.name("totalPauseCount").value(gc.getTotalPauseCount());
+        writer.name("totalPauseTime").value(gc.getTotalPauseTime());
+        collectors(writer, "collectionCounts", gc.getCollectionCounts());
+        collectors(writer, "collectionTimes", gc.getCollectionTimes());
+        writer.endObject();
+
+        final ContainerUsage container = snapshot.getContainerUsage();
+
+        writer.name("container").beginObject();
+        writer.name("cpuLimit").value(container.getCpuLimit());
+        writer.name("cpuLoad").value(container.getCpuLoad());
+        writer.name("throttledPercentage").value(container.getThrottledPercentage());
+        writer.name("throttledPeriods").value(container.getThrottledPeriods());
+        writer.name("throttledTime").value(container.getThrottledTime());
+        writer.name("usedMemory").value(container.getUsedMemory());
+        writer.name("memoryLimit").value(container.getMemoryLimit());
+        writer.endObject();
+
+        threads(writer, "topThreads", snapshot.getTopThreads());
+        threads(writer, "topAllocators", snapshot.getTopAllocators());
+
+        writer.endObject();
+        writer.newLine();
+    }
+
+    private static void collectors(final JsonWriter writer, final String name, final Map<String, Long> values) throws IOException {
+        writer.name(name).beginObject();
+        for (final Map.Entry<String, Long> entry : values.entrySet())
+            writer.name(entry.getKey()).value(entry.getValue().longValue());
+        writer.endObject();
+    }
+
+    private static void threads(final JsonWriter writer, final String name, final List<ThreadUsage> threads) throws IOException {
+        writer.name(name).beginArray();
+        for (final ThreadUsage thread : threads) {
+            writer.beginObject();
+            writer.name("threadId").value(thread.getThreadId());
+            writer.name("threadName").value(thread.getThreadName());
+            writer.name("cpuLoad").value(thread.getCpuLoad());
+            writer.name("allocationRate").value(thread.getAllocationRate());
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+}
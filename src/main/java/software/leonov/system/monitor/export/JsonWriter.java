@@ -0,0 +1,185 @@
+package software.leonov.system.monitor.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes JSON directly into a reusable direct {@link ByteBuffer}, without creating intermediate strings. Numbers are
+ * formatted digit by digit and strings are encoded to UTF-8 and escaped as they are written. Whenever the buffer fills up
+ * its contents are written to the current {@link #setChannel(WritableByteChannel) channel}, so a value of any size can
+ * be written.
+ * <p>
+ * Commas are inserted automatically: within an object call {@link #name(String)} before each value, within an array
+ * just write the values. Non-finite doubles are written as {@code null}.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class JsonWriter {
+
+    private static final int MAX_DEPTH = 63;
+
+    private final ByteBuffer                    buffer;
+    private final TextEncoder.Sink<IOException> sink = this::write;
+    private WritableByteChannel                 channel;
+
+    // Bit i is set if the container at depth i already has a value
+    private long    nonEmpty  = 0;
+    private int     depth     = 0;
+    private boolean afterName = false;
+    private long    flushed   = 0;
+
+    JsonWriter(final int bufferSize) {
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Sets the channel the buffered bytes are written to.
+     *
+     * @param channel the channel the buffered bytes are written to
+     */
+    void setChannel(final WritableByteChannel channel) {
+        this.channel = channel;
+        flushed      = 0;
+    }
+
+    /**
+     * Returns the number of bytes written to the current channel, including the bytes which are still buffered.
+     *
+     * @return the number of bytes written to the current channel
+     */
+    long size() {
+        return flushed + buffer.position();
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                flushed += channel.write(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Discards the buffered bytes and the state of a partially written value.
+     */
+    void reset() {
+        buffer.clear();
+        nonEmpty  = 0;
+        depth     = 0;
+        afterName = false;
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return begin('{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return end('}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return begin('[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return end(']');
+    }
+
+    /**
+     * Writes the name of the next value of the current object.
+     *
+     * @param name the name of the next value
+     */
+    JsonWriter name(final String name) throws IOException {
+        separator();
+        write('"');
+        TextEncoder.escaped(name, true, sink);
+        write('"').write(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(final long value) throws IOException {
+        separator();
+        TextEncoder.number(value, sink);
+        return this;
+    }
+
+    JsonWriter value(final double value) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return ascii("null");
+        TextEncoder.number(value, sink);
+        return this;
+    }
+
+    JsonWriter value(final boolean value) throws IOException {
+        separator();
+        return ascii(value ? "true" : "false");
+    }
+
+    JsonWriter value(final String value) throws IOException {
+        separator();
+        if (value == null)
+            return ascii("null");
+        write('"');
+        TextEncoder.escaped(value, true, sink);
+        return write('"');
+    }
+
+    /**
+     * Ends the current line. Must be called between top-level values.
+     */
+    JsonWriter newLine() throws IOException {
+        nonEmpty = 0;
+        return write('\n');
+    }
+
+    private JsonWriter begin(final char c) throws IOException {
+        if (depth == MAX_DEPTH)
+            throw new IllegalStateException("depth > " + MAX_DEPTH);
+        separator();
+        write(c);
+        depth++;
+        nonEmpty &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter end(final char c) throws IOException {
+        depth--;
+        return write(c);
+    }
+
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if ((nonEmpty & 1L << depth) != 0)
+            write(',');
+        nonEmpty |= 1L << depth;
+    }
+
+    private JsonWriter ascii(final String s) throws IOException {
+        TextEncoder.ascii(s, sink);
+        return this;
+    }
+
+    private JsonWriter write(final char c) throws IOException {
+        if (!buffer.hasRemaining())
+            flush();
+        buffer.put((byte) c);
+        return this;
+    }
+
+}
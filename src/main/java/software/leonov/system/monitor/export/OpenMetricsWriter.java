@@ -0,0 +1,162 @@
+package software.leonov.system.monitor.export;
+
+import java.util.Arrays;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+/**
+ * Writes metrics in the OpenMetrics text format directly into a reusable byte array, without creating intermediate
+ * strings. Numbers are formatted digit by digit and label values are encoded to UTF-8 and escaped as they are written.
+ * <p>
+ * Metric names, types, and help texts must be ASCII. A sample is written by calling {@link #sample(String)}, then
+ * {@link #label(String, String)} any number of times, then {@link #value(long)} or {@link #value(double)}.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zhenya Leonov
+ */
+final class OpenMetricsWriter {
+
+    private final TextEncoder.Sink<RuntimeException> sink = this::write;
+
+    private byte[]  buffer = new byte[4096];
+    private int     size   = 0;
+    private boolean labels = false;
+
+    /**
+     * Discards the contents of this writer, retaining its buffer.
+     */
+    void reset() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes written
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the bytes written.
+     *
+     * @return a copy of the bytes written
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Sets the bytes written as the input of the specified deflater and adds them to the specified checksum.
+     *
+     * @param deflater the specified deflater
+     * @param checksum the specified checksum
+     */
+    void deflate(final Deflater deflater, final Checksum checksum) {
+        deflater.setInput(buffer, 0, size);
+        checksum.update(buffer, 0, size);
+    }
+
+    /**
+     * Writes the {@code TYPE} and {@code HELP} lines of a metric family.
+     *
+     * @param name the name of the metric family
+     * @param type the type of the metric family, for example {@code gauge} or {@code counter}
+     * @param help the description of the metric family
+     */
+    void family(final String name, final String type, final String help) {
+        ascii("# TYPE ").ascii(name).write(' ').ascii(type).write('\n');
+        ascii("# HELP ").ascii(name).write(' ').ascii(help).write('\n');
+    }
+
+    /**
+     * Starts a sample with the specified name.
+     *
+     * @param name the name of the sample
+     */
+    void sample(final String name) {
+        ascii(name);
+        labels = false;
+    }
+
+    /**
+     * Starts a sample with the specified name and suffix, for example {@code _total}.
+     *
+     * @param name   the name of the sample
+     * @param suffix the suffix of the sample
+     */
+    void sample(final String name, final String suffix) {
+        ascii(name).ascii(suffix);
+        labels = false;
+    }
+
+    /**
+     * Writes a label of the current sample.
+     *
+     * @param name  the name of the label
+     * @param value the value of the label
+     */
+    void label(final String name, final String value) {
+        write(labels ? ',' : '{');
+        labels = true;
+        ascii(name).write('=').write('"');
+        TextEncoder.escaped(value, false, sink);
+        write('"');
+    }
+
+    /**
+     * Ends the current sample with the specified value.
+     *
+     * @param value the value of the sample
+     */
+    void value(final long value) {
+        endLabels();
+        TextEncoder.number(value, sink);
+        write('\n');
+    }
+
+    /**
+     * Ends the current sample with the specified value.
+     *
+     * @param value the value of the sample
+     */
+    void value(final double value) {
+        endLabels();
+        if (Double.isNaN(value))
+            ascii("NaN");
+        else if (Double.isInfinite(value))
+            ascii(value > 0 ? "+Inf" : "-Inf");
+        else
+            TextEncoder.number(value, sink);
+        write('\n');
+    }
+
+    /**
+     * Writes the {@code # EOF} line which terminates an exposition.
+     */
+    void eof() {
+        ascii("# EOF\n");
+    }
+
+    private void endLabels() {
+        if (labels)
+            write('}');
+        labels = false;
+        write(' ');
+    }
+
+    private OpenMetricsWriter ascii(final String s) {
+        TextEncoder.ascii(s, sink);
+        return this;
+    }
+
+    private OpenMetricsWriter write(final char c) {
+        if (size == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        buffer[size++] = (byte) c;
+        return this;
+    }
+
+}
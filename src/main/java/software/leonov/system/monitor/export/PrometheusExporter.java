@@ -0,0 +1,366 @@
+package software.leonov.system.monitor.export;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import software.leonov.system.monitor.ContainerUsage;
+import software.leonov.system.monitor.CpuUsage;
+import software.leonov.system.monitor.GcUsage;
+import software.leonov.system.monitor.MemoryPoolUsage;
+import software.leonov.system.monitor.MemoryUsage;
+import software.leonov.system.monitor.Snapshot;
+import software.leonov.system.monitor.SystemMonitor;
+
+/**
+ * An {@link HttpHandler} which exposes the current {@link Snapshot} of a {@link SystemMonitor} in the
+ * <a href="https://openmetrics.io">OpenMetrics</a> text format understood by Prometheus.
+ * <p>
+ * The exporter runs on the JDK's built-in {@code com.sun.net.httpserver} server. Use {@link #start(SystemMonitor,
+ * InetSocketAddress)} to start a dedicated server which serves the metrics at {@code /metrics}, or register the
+ * exporter with an existing server:
+ *
+ * <pre>{@code
+ * server.createContext("/metrics", new PrometheusExporter(monitor));
+ * }</pre>
+ * <p>
+ * Each snapshot is rendered once, directly into a reused byte buffer without building intermediate strings, and
+ * compressed once with a reused {@link Deflater}. The rendered bytes are shared by every scrape of the same snapshot, so
+ * the cost of a scrape does not depend on the number of concurrent scrapers: the only allocations per snapshot are the
+ * two shared copies of the plain and the compressed bytes. Gzip is used if the {@code Accept-Encoding} header of the
+ * request gives it (or {@code *}, when gzip is not listed) a non-zero weight. Metrics which are unsupported or not ready
+ * (see {@link SystemMonitor}) are omitted.
+ * <p>
+ * CPU usage and GC overhead are exported as ratios between 0 and 1 and durations in seconds, following the Prometheus
+ * naming conventions. All metric names start with {@code sysmon_}.
+ *
+ * @author Zhenya Leonov
+ */
+public final class PrometheusExporter implements HttpHandler {
+
+    /**
+     * The content type of the OpenMetrics text format.
+     */
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    // The gzip member header (RFC 1952) written by GZIPOutputStream: deflate, no flags, no modification time, no OS
+    private static final byte[] GZIP_HEADER       = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int    GZIP_TRAILER_SIZE = 8;
+
+    private final SystemMonitor monitor;
+
+    private final Object            lock       = new Object();
+    private final OpenMetricsWriter writer     = new OpenMetricsWriter();                          // guarded by lock
+    private final Deflater          deflater   = new Deflater(Deflater.DEFAULT_COMPRESSION, true); // guarded by lock
+    private final CRC32             crc        = new CRC32();                                      // guarded by lock
+    private byte[]                  compressed = new byte[4096];                                   // guarded by lock
+    private volatile Exposition     exposition = null;
+
+    /**
+     * Creates a new exporter which exposes the metrics of the specified monitor.
+     *
+     * @param monitor the specified monitor
+     */
+    public PrometheusExporter(final SystemMonitor monitor) {
+        requireNonNull(monitor, "monitor == null");
+        this.monitor = monitor;
+    }
+
+    /**
+     * Starts a new {@link HttpServer} bound to the specified address which serves the metrics of the specified monitor at
+     * {@code /metrics}. Stop the server with {@link HttpServer#stop(int)}.
+     *
+     * @param monitor the specified monitor
+     * @param address the address to bind to, a port of 0 selects an ephemeral port
+     * @return the started {@link HttpServer}
+     * @throws IOException if the server cannot be bound to the specified address
+     */
+    public static HttpServer start(final SystemMonitor monitor, final InetSocketAddress address) throws IOException {
+        requireNonNull(monitor, "monitor == null");
+        requireNonNull(address, "address == null");
+        final HttpServer server = HttpServer.create(address, 0);
+        server.createContext("/metrics", new PrometheusExporter(monitor));
+        server.start();
+        return server;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        try {
+            final String  method = exchange.getRequestMethod();
+            final boolean head   = "HEAD".equals(method);
+
+            if (!head && !"GET".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            final Exposition exposition = render(monitor.getSnapshot());
+            final boolean    gzip       = acceptsGzip(exchange.getRequestHeaders().get("Accept-Encoding"));
+            final byte[]     body       = gzip ? exposition.gzip : exposition.plain;
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (gzip)
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+
+            if (head)
+                exchange.sendResponseHeaders(200, -1);
+            else {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns whether the specified {@code Accept-Encoding} header values accept gzip: gzip is listed with a non-zero
+     * weight, or it is not listed and {@code *} is listed with a non-zero weight (RFC 7231 section 5.3.4).
+     *
+     * @param values the specified header values or {@code null} if the header is absent
+     * @return whether the specified {@code Accept-Encoding} header values accept gzip
+     */
+    static boolean acceptsGzip(final List<String> values) {
+        if (values == null)
+            return false;
+
+        boolean any = false;
+        for (final String value : values)
+            for (final String coding : value.split(",")) {
+                final int     semicolon = coding.indexOf(';');
+                final String  name      = (semicolon < 0 ? coding : coding.substring(0, semicolon)).trim();
+                final boolean accepted  = semicolon < 0 || weight(coding.substring(semicolon + 1)) > 0;
+
+                if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip"))
+                    return accepted;
+                if (name.equals("*"))
+                    any = accepted;
+            }
+        return any;
+    }
+
+    // Returns the weight in the specified coding parameters, which is 1 if absent and 0 if malformed
+    private static double weight(final String parameters) {
+        for (final String parameter : parameters.split(";")) {
+            final String p = parameter.trim();
+            if (p.length() > 2 && (p.charAt(0) == 'q' || p.charAt(0) == 'Q') && p.charAt(1) == '=')
+                try {
+                    return Double.parseDouble(p.substring(2));
+                } catch (final NumberFormatException e) {
+                    return 0;
+                }
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the exposition of the specified snapshot, rendering it only if it differs from the snapshot rendered last.
+     *
+     * @param snapshot the specified snapshot
+     * @return the exposition of the specified snapshot
+     */
+    Exposition render(final Snapshot snapshot) {
+        Exposition exposition = this.exposition;
+        if (exposition != null && exposition.sequenceNumber == snapshot.getSequenceNumber() && exposition.nanoTime == snapshot.getNanoTime())
+            return exposition;
+
+        synchronized (lock) {
+            exposition = this.exposition;
+            if (exposition != null && exposition.sequenceNumber == snapshot.getSequenceNumber() && exposition.nanoTime == snapshot.getNanoTime())
+                return exposition;
+
+            writer.reset();
+            write(snapshot, writer);
+
+            exposition = new Exposition(snapshot.getSequenceNumber(), snapshot.getNanoTime(), writer.toByteArray(), gzip());
+            this.exposition = exposition;
+            return exposition;
+        }
+    }
+
+    // Compresses the bytes of the writer into a gzip member, reusing the deflater and the buffer
+    private byte[] gzip() {
+        deflater.reset();
+        crc.reset();
+        writer.deflate(deflater, crc);
+        deflater.finish();
+
+        System.arraycopy(GZIP_HEADER, 0, compressed, 0, GZIP_HEADER.length);
+        int size = GZIP_HEADER.length;
+        while (!deflater.finished()) {
+            if (size == compressed.length)
+                compressed = Arrays.copyOf(compressed, size * 2);
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+
+        if (compressed.length - size < GZIP_TRAILER_SIZE)
+            compressed = Arrays.copyOf(compressed, size + GZIP_TRAILER_SIZE);
+        size = littleEndian((int) crc.getValue(), size);
+        size = littleEndian(writer.size(), size);
+
+        return Arrays.copyOf(compressed, size);
+    }
+
+    private int littleEndian(final int value, final int offset) {
+        for (int i = 0; i < 4; i++)
+            compressed[offset + i] = (byte) (value >>> 8 * i);
+        return offset + 4;
+    }
+
+    private static void write(final Snapshot snapshot, final OpenMetricsWriter writer) {
+        final CpuUsage cpu = snapshot.getCpuUsage();
+
+        gauge(writer, "sysmon_process_cpu_usage_ratio", "Recent CPU usage of the JVM process.", ratio(cpu.getProcessCpuLoad()));
+        gauge(writer, "sysmon_system_cpu_usage_ratio", "Recent CPU usage of the whole system.", ratio(cpu.getSystemCpuLoad()));
+        gauge(writer, "sysmon_system_load_average_1m", "System load average for the last minute.", cpu.getSystemLoadAverage());
+
+        final MemoryUsage memory = snapshot.getMemoryUsage();
+
+        gauge(writer, "sysmon_memory_heap_used_bytes", "Used heap memory.", memory.getUsedMemory());
+        gauge(writer, "sysmon_memory_heap_committed_bytes", "Heap memory committed by the JVM.", memory.getTotalMemory());
+        gauge(writer, "sysmon_memory_heap_max_used_bytes", "Maximum used heap memory observed.", memory.getMaxUsedMemory());
+        gauge(writer, "sysmon_memory_allocation_rate_bytes_per_second", "Rate of heap allocations by all threads.", memory.getAllocationRate());
+        gauge(writer, "sysmon_memory_nonheap_used_bytes", "Used non-heap memory.", memory.getNonHeapUsedMemory());
+        gauge(writer, "sysmon_memory_nonheap_committed_bytes", "Non-heap memory committed by the JVM.", memory.getNonHeapTotalMemory());
+        gauge(writer, "sysmon_memory_direct_used_bytes", "Memory used by direct buffers.", memory.getDirectMemoryUsed());
+        gauge(writer, "sysmon_memory_direct_capacity_bytes", "Total capacity of direct buffers.", memory.getDirectMemoryCapacity());
+        gauge(writer, "sysmon_memory_direct_limit_bytes", "Maximum memory direct buffers can use.", memory.getDirectMemoryLimit());
+        gauge(writer, "sysmon_memory_direct_buffers", "Number of direct buffers.", memory.getDirectBufferCount());
+        gauge(writer, "sysmon_memory_mapped_used_bytes", "Memory used by mapped buffers.", memory.getMappedMemoryUsed());
+        gauge(writer, "sysmon_memory_mapped_buffers", "Number of mapped buffers.", memory.getMappedBufferCount());
+
+        final List<MemoryPoolUsage> pools = memory.getMemoryPools();
+
+        pools(writer, pools, "sysmon_memory_pool_used_bytes", "Used memory of a memory pool.", MemoryPoolUsage::getUsedMemory);
+        pools(writer, pools, "sysmon_memory_pool_committed_bytes", "Memory committed to a memory pool.", MemoryPoolUsage::getTotalMemory);
+        pools(writer, pools, "sysmon_memory_pool_max_bytes", "Maximum size of a memory pool.", MemoryPoolUsage::getMaxMemory);
+
+        final GcUsage gc = snapshot.getGcUsage();
+
+        counter(writer, "sysmon_gc_pauses", "Number of GC pauses.", gc.getTotalPauseCount());
+        counter(writer, "sysmon_gc_pause_seconds", "Total duration of GC pauses.", seconds(gc.getTotalPauseTime()));
+        gauge(writer, "sysmon_gc_overhead_ratio", "Fraction of time paused by the garbage collector during the last update interval.", ratio(gc.getOverhead()));
+        collectors(writer, gc.getCollectionCounts(), "sysmon_gc_collections", "Number of collections of a garbage collector.", false);
+        collectors(writer, gc.getCollectionTimes(), "sysmon_gc_collection_seconds", "Total duration of the collections of a garbage collector.", true);
+
+        final ContainerUsage container = snapshot.getContainerUsage();
+
+        gauge(writer, "sysmon_container_cpu_limit", "CPU quota of the container in CPUs.", container.getCpuLimit());
+        gauge(writer, "sysmon_container_cpu_usage_ratio", "Recent CPU usage of the container relative to its quota.", ratio(container.getCpuLoad()));
+        counter(writer, "sysmon_container_throttled_periods", "Number of CFS periods in which the container was throttled.", container.getThrottledPeriods());
+        counter(writer, "sysmon_container_throttled_seconds", "Total time the container was throttled.", container.getThrottledTime() < 0 ? -1 : container.getThrottledTime() / 1e9);
+        gauge(writer, "sysmon_container_memory_used_bytes", "Memory used by the container.", container.getUsedMemory());
+        gauge(writer, "sysmon_container_memory_limit_bytes", "Memory limit of the container.", container.getMemoryLimit());
+
+        writer.eof();
+    }
+
+    private static double ratio(final double percent) {
+        return percent < 0 ? -1 : percent / 100.0;
+    }
+
+    private static double seconds(final long millis) {
+        return millis < 0 ? -1 : millis / 1000.0;
+    }
+
+    private static void gauge(final OpenMetricsWriter writer, final String name, final String help, final double value) {
+        if (value < 0)
+            return;
+        writer.family(name, "gauge", help);
+        writer.sample(name);
+        writer.value(value);
+    }
+
+    private static void gauge(final OpenMetricsWriter writer, final String name, final String help, final long value) {
+        if (value < 0)
+            return;
+        writer.family(name, "gauge", help);
+        writer.sample(name);
+        writer.value(value);
+    }
+
+    private static void counter(final OpenMetricsWriter writer, final String name, final String help, final double value) {
+        if (value < 0)
+            return;
+        writer.family(name, "counter", help);
+        writer.sample(name, "_total");
+        writer.value(value);
+    }
+
+    private static void counter(final OpenMetricsWriter writer, final String name, final String help, final long value) {
+        if (value < 0)
+            return;
+        writer.family(name, "counter", help);
+        writer.sample(name, "_total");
+        writer.value(value);
+    }
+
+    private static void pools(final OpenMetricsWriter writer, final List<MemoryPoolUsage> pools, final String name, final String help, final ToLongFunction<MemoryPoolUsage> metric) {
+        boolean family = false;
+
+        for (final MemoryPoolUsage pool : pools) {
+            final long value = metric.applyAsLong(pool);
+            if (value < 0)
+                continue;
+
+            if (!family) {
+                writer.family(name, "gauge", help);
+                family = true;
+            }
+
+            writer.sample(name);
+            writer.label("pool", pool.getName());
+            writer.label("area", pool.isHeap() ? "heap" : "nonheap");
+            writer.value(value);
+        }
+    }
+
+    private static void collectors(final OpenMetricsWriter writer, final Map<String, Long> values, final String name, final String help, final boolean millis) {
+        if (values.isEmpty())
+            return;
+
+        writer.family(name, "counter", help);
+
+        for (final Map.Entry<String, Long> entry : values.entrySet()) {
+            writer.sample(name, "_total");
+            writer.label("collector", entry.getKey());
+            if (millis)
+                writer.value(entry.getValue() / 1000.0);
+            else
+                writer.value(entry.getValue());
+        }
+    }
+
+    /**
+     * The rendered metrics of a single snapshot.
+     */
+    static final class Exposition {
+
+        final long   sequenceNumber;
+        final long   nanoTime;
+        final byte[] plain;
+        final byte[] gzip;
+
+        private Exposition(final long sequenceNumber, final long nanoTime, final byte[] plain, final byte[] gzip) {
+            this.sequenceNumber = sequenceNumber;
+            this.nanoTime       = nanoTime;
+            this.plain          = plain;
+            this.gzip           = gzip;
+        }
+
+    }
+
+}
@@ -0,0 +1,184 @@
+package software.leonov.system.monitor.export;
+
+/**
+ * Encodes numbers and strings byte by byte, without creating intermediate strings. Shared by {@link JsonWriter} and
+ * {@link OpenMetricsWriter}, each of which supplies a {@link Sink} that appends a byte to its buffer.
+ * <p>
+ * Numbers are formatted digit by digit: doubles are written with up to 6 fractional digits and without trailing zeros.
+ * Strings are encoded to UTF-8 and escaped as they are written, unpaired surrogates are written as {@code ?}.
+ *
+ * @author Zhenya Leonov
+ */
+final class TextEncoder {
+
+    // Doubles are written with up to this many fractional digits
+    private static final int    FRACTION_DIGITS = 6;
+    private static final double FRACTION_SCALE  = 1_000_000.0;
+
+    private static final double TWO_TO_THE_63 = 0x1p63;
+
+    private TextEncoder() {
+    }
+
+    /**
+     * Appends bytes to a buffer.
+     *
+     * @param <X> the exception thrown when the buffer cannot be written
+     */
+    interface Sink<X extends Exception> {
+
+        /**
+         * Appends the low byte of the specified character.
+         *
+         * @param c the specified character
+         * @throws X if the buffer cannot be written
+         */
+        void write(char c) throws X;
+
+    }
+
+    /**
+     * Writes the specified ASCII string.
+     *
+     * @param s    the specified string
+     * @param sink the sink to write to
+     */
+    static <X extends Exception> void ascii(final String s, final Sink<X> sink) throws X {
+        for (int i = 0; i < s.length(); i++)
+            sink.write(s.charAt(i));
+    }
+
+    /**
+     * Writes the specified value in decimal.
+     *
+     * @param value the specified value
+     * @param sink  the sink to write to
+     */
+    static <X extends Exception> void number(final long value, final Sink<X> sink) throws X {
+        if (value < 0) {
+            sink.write('-');
+            if (value == Long.MIN_VALUE) {
+                ascii("9223372036854775808", sink);
+                return;
+            }
+            digits(-value, sink);
+        } else
+            digits(value, sink);
+    }
+
+    /**
+     * Writes the specified finite value in decimal, rounded to 6 fractional digits. Values too large for a {@code long}
+     * are written in the exponent form of {@link Double#toString(double)}, for example {@code 1.0E20}.
+     *
+     * @param value the specified value, which must not be NaN or infinite
+     * @param sink  the sink to write to
+     */
+    static <X extends Exception> void number(final double value, final Sink<X> sink) throws X {
+        final double abs = Math.abs(value);
+
+        // Math.round() would clamp them to Long.MAX_VALUE, and they are rare enough that the intermediate string does not
+        // matter
+        if (abs >= TWO_TO_THE_63) {
+            ascii(Double.toString(value), sink);
+            return;
+        }
+
+        // Integral or too large to scale: write the rounded value
+        if (abs == Math.rint(abs) || abs >= Long.MAX_VALUE / FRACTION_SCALE) {
+            number(Math.round(value), sink);
+            return;
+        }
+
+        final long scaled = Math.round(abs * FRACTION_SCALE);
+        if (scaled == 0) {
+            sink.write('0');
+            return;
+        }
+
+        if (value < 0)
+            sink.write('-');
+
+        digits(scaled / (long) FRACTION_SCALE, sink);
+
+        long fraction = scaled % (long) FRACTION_SCALE;
+        if (fraction == 0)
+            return;
+
+        sink.write('.');
+        int digits = FRACTION_DIGITS;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        for (long divisor = pow10(digits - 1); divisor > 0; divisor /= 10)
+            sink.write((char) ('0' + fraction / divisor % 10));
+    }
+
+    /**
+     * Writes the specified string encoded to UTF-8. Backslashes, double quotes, and line feeds are always escaped; if
+     * {@code json} is {@code true} the remaining control characters are escaped as JSON requires.
+     *
+     * @param value the specified string
+     * @param json  whether to escape every control character
+     * @param sink  the sink to write to
+     */
+    static <X extends Exception> void escaped(final String value, final boolean json, final Sink<X> sink) throws X {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            if (c == '\\' || c == '"') {
+                sink.write('\\');
+                sink.write(c);
+            } else if (c == '\n') {
+                sink.write('\\');
+                sink.write('n');
+            } else if (json && c < 0x20) {
+                sink.write('\\');
+                if (c == '\r')
+                    sink.write('r');
+                else if (c == '\t')
+                    sink.write('t');
+                else {
+                    ascii("u00", sink);
+                    sink.write(hex(c >> 4));
+                    sink.write(hex(c & 0xF));
+                }
+            } else if (c < 0x80)
+                sink.write(c);
+            else if (c < 0x800) {
+                sink.write((char) (0xC0 | c >> 6));
+                sink.write((char) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, value.charAt(++i));
+                sink.write((char) (0xF0 | cp >> 18));
+                sink.write((char) (0x80 | cp >> 12 & 0x3F));
+                sink.write((char) (0x80 | cp >> 6 & 0x3F));
+                sink.write((char) (0x80 | cp & 0x3F));
+            } else if (Character.isSurrogate(c))
+                sink.write('?');
+            else {
+                sink.write((char) (0xE0 | c >> 12));
+                sink.write((char) (0x80 | c >> 6 & 0x3F));
+                sink.write((char) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private static <X extends Exception> void digits(final long value, final Sink<X> sink) throws X {
+        if (value >= 10)
+            digits(value / 10, sink);
+        sink.write((char) ('0' + value % 10));
+    }
+
+    private static long pow10(final int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++)
+            result *= 10;
+        return result;
+    }
+
+    private static char hex(final int digit) {
+        return (char) (digit < 10 ? '0' + digit : 'a' + digit - 10);
+    }
+
+}
@@ -1,10 +1,19 @@
 package software.leonov.system.monitor.util;
 
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
 /**
  * Basic utility methods for formatting CPU and memory usage metrics.
  * <p>
- * This is a convenience class intended for casual use only (primarily for quick testing and debugging).
- * 
+ * This is a convenience class intended for casual use only (primarily for quick testing and debugging). Each method has
+ * an overload which appends to a caller-supplied {@link StringBuilder} or {@link Appendable} instead of returning a new
+ * string. The overloads produce the same output, but do not allocate, which makes them suitable for frequent log lines.
+ * <p>
+ * Fractional values are formatted with the decimal separator and digits of the default
+ * {@link Locale.Category#FORMAT format} locale, as {@link String#format(String, Object...)} does.
+ *
  * @author Zhenya Leonov
  */
 public final class Formatter {
@@ -13,17 +22,61 @@ public final class Formatter {
     private static final int    DECIMAL_UNIT = 1000;
     private static final int    BINARY_UNIT  = 1024;
 
+    // Larger values are formatted with String.format, since a double no longer has enough precision to round them here
+    private static final double MAX_FIXED = 1e9;
+
+    private static final double[] DECIMAL_POWERS     = powers(DECIMAL_UNIT);
+    private static final double[] BINARY_POWERS      = powers(BINARY_UNIT);
+    private static final long[]   DECIMAL_THRESHOLDS = thresholds(DECIMAL_UNIT);
+    private static final long[]   BINARY_THRESHOLDS  = thresholds(BINARY_UNIT);
+
+    // The symbols of the default format locale, replaced when the default locale changes
+    private static volatile Symbols symbols = new Symbols(Locale.getDefault(Locale.Category.FORMAT));
+
     private Formatter() {
     }
 
     /**
      * Formats the given percent value into a human-readable string.
-     * 
+     *
      * @param pct the percent value to format
      * @return a formatted string (e.g., 12.75%) or "N/A" if the value is negative
      */
     public static String formatPercent(final double pct) {
-        return pct < 0 ? "N/A" : String.format("%.2f%%", pct);
+        return formatPercent(pct, new StringBuilder(8)).toString();
+    }
+
+    /**
+     * Appends the given percent value to the specified {@code StringBuilder} in the same format as
+     * {@link #formatPercent(double)}.
+     *
+     * @param pct the percent value to format
+     * @param sb  the {@code StringBuilder} to append to
+     * @return the specified {@code StringBuilder}
+     */
+    public static StringBuilder formatPercent(final double pct, final StringBuilder sb) {
+        try {
+            formatPercent(pct, (Appendable) sb);
+        } catch (final IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw IOException
+        }
+        return sb;
+    }
+
+    /**
+     * Appends the given percent value to the specified {@code Appendable} in the same format as
+     * {@link #formatPercent(double)}.
+     *
+     * @param pct the percent value to format
+     * @param out the {@code Appendable} to append to
+     * @return the specified {@code Appendable}
+     * @throws IOException if an I/O error occurs
+     */
+    public static Appendable formatPercent(final double pct, final Appendable out) throws IOException {
+        if (pct < 0)
+            return out.append("N/A");
+        fixed(pct, out);
+        return out.append('%');
     }
 
     /**
@@ -33,7 +86,38 @@ public final class Formatter {
      * @return a formatted string (e.g., "1.23 MiB") or "N/A" if the value is negative
      */
     public static String formatBinaryBytes(final long bytes) {
-        return formatBytes(bytes, BINARY_UNIT);
+        return formatBinaryBytes(bytes, new StringBuilder(12)).toString();
+    }
+
+    /**
+     * Appends the given number of bytes to the specified {@code StringBuilder} in the same format as
+     * {@link #formatBinaryBytes(long)}.
+     *
+     * @param bytes the number of bytes to format
+     * @param sb    the {@code StringBuilder} to append to
+     * @return the specified {@code StringBuilder}
+     */
+    public static StringBuilder formatBinaryBytes(final long bytes, final StringBuilder sb) {
+        try {
+            formatBytes(bytes, BINARY_UNIT, sb);
+        } catch (final IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw IOException
+        }
+        return sb;
+    }
+
+    /**
+     * Appends the given number of bytes to the specified {@code Appendable} in the same format as
+     * {@link #formatBinaryBytes(long)}.
+     *
+     * @param bytes the number of bytes to format
+     * @param out   the {@code Appendable} to append to
+     * @return the specified {@code Appendable}
+     * @throws IOException if an I/O error occurs
+     */
+    public static Appendable formatBinaryBytes(final long bytes, final Appendable out) throws IOException {
+        formatBytes(bytes, BINARY_UNIT, out);
+        return out;
     }
 
     /**
@@ -43,21 +127,156 @@ public final class Formatter {
      * @return a formatted string (e.g., "1.23 MB") or "N/A" if the value is negative
      */
     public static String formatDecimalBytes(final long bytes) {
-        return formatBytes(bytes, DECIMAL_UNIT);
+        return formatDecimalBytes(bytes, new StringBuilder(12)).toString();
+    }
+
+    /**
+     * Appends the given number of bytes to the specified {@code StringBuilder} in the same format as
+     * {@link #formatDecimalBytes(long)}.
+     *
+     * @param bytes the number of bytes to format
+     * @param sb    the {@code StringBuilder} to append to
+     * @return the specified {@code StringBuilder}
+     */
+    public static StringBuilder formatDecimalBytes(final long bytes, final StringBuilder sb) {
+        try {
+            formatBytes(bytes, DECIMAL_UNIT, sb);
+        } catch (final IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw IOException
+        }
+        return sb;
+    }
+
+    /**
+     * Appends the given number of bytes to the specified {@code Appendable} in the same format as
+     * {@link #formatDecimalBytes(long)}.
+     *
+     * @param bytes the number of bytes to format
+     * @param out   the {@code Appendable} to append to
+     * @return the specified {@code Appendable}
+     * @throws IOException if an I/O error occurs
+     */
+    public static Appendable formatDecimalBytes(final long bytes, final Appendable out) throws IOException {
+        formatBytes(bytes, DECIMAL_UNIT, out);
+        return out;
+    }
+
+    private static void formatBytes(final long bytes, final int base, final Appendable out) throws IOException {
+        if (bytes < 0) {
+            out.append("N/A");
+            return;
+        }
+
+        if (bytes < base) {
+            digits(bytes, '0', out);
+            out.append(" bytes");
+            return;
+        }
+
+        final long[] thresholds = base == BINARY_UNIT ? BINARY_THRESHOLDS : DECIMAL_THRESHOLDS;
+
+        int exp = 1;
+        while (exp + 1 < thresholds.length && bytes >= thresholds[exp + 1])
+            exp++;
+
+        fixed(bytes / (base == BINARY_UNIT ? BINARY_POWERS : DECIMAL_POWERS)[exp], out);
+        out.append(PRE.charAt(exp - 1));
+        if (base == BINARY_UNIT)
+            out.append('i');
+        out.append('B');
+    }
+
+    /*
+     * Appends the value with two fraction digits exactly as String.format("%.2f", value) does, that is rounding half up
+     * the shortest decimal representation of the value (the digits of Double.toString(value)) rather than its exact
+     * binary value, and using the decimal separator and zero digit of the default format locale. A value whose shortest
+     * representation ends with a 5 in the third fraction digit is exactly the double nearest to that midpoint, which is
+     * what the comparison below checks.
+     */
+    private static void fixed(final double value, final Appendable out) throws IOException {
+        if (!(value < MAX_FIXED)) { // also NaN and infinity
+            out.append(String.format("%.2f", value));
+            return;
+        }
+
+        if (Double.doubleToRawLongBits(value) < 0) // -0.0
+            out.append('-');
+
+        // The product may be rounded across an integer, in which case the value is nowhere near the midpoint
+        long hundredths = (long) (value * 100);
+        if (value >= (hundredths + 0.5) / 100)
+            hundredths++;
+
+        final int     fraction = (int) (hundredths % 100);
+        final Symbols symbols  = symbols();
+
+        digits(hundredths / 100, symbols.zeroDigit, out);
+        out.append(symbols.decimalSeparator).append((char) (symbols.zeroDigit + fraction / 10)).append((char) (symbols.zeroDigit + fraction % 10));
     }
 
-    private static String formatBytes(final long bytes, final int base) {
-        if (bytes < 0)
-            return "N/A";
+    private static void digits(final long value, final char zeroDigit, final Appendable out) throws IOException {
+        if (value >= 10)
+            digits(value / 10, zeroDigit, out);
+        out.append((char) (zeroDigit + value % 10));
+    }
+
+    private static Symbols symbols() {
+        final Locale locale  = Locale.getDefault(Locale.Category.FORMAT);
+        Symbols      symbols = Formatter.symbols;
+        if (symbols.locale != locale)
+            Formatter.symbols = symbols = new Symbols(locale);
+        return symbols;
+    }
+
+    private static final class Symbols {
+
+        private final Locale locale;
+        private final char   decimalSeparator;
+        private final char   zeroDigit;
+
+        private Symbols(final Locale locale) {
+            final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+
+            this.locale           = locale;
+            this.decimalSeparator = symbols.getDecimalSeparator();
+            this.zeroDigit        = symbols.getZeroDigit();
+        }
+
+    }
+
+    private static double[] powers(final int base) {
+        final double[] powers = new double[PRE.length() + 1];
+        for (int exp = 0; exp < powers.length; exp++)
+            powers[exp] = Math.pow(base, exp);
+        return powers;
+    }
+
+    /*
+     * The smallest number of bytes formatted with each unit. Units used to be chosen with Math.log(bytes) / Math.log(base),
+     * which selects the next unit slightly below the exact powers of the base for very large values, so the thresholds
+     * are found with the same logarithm to keep the output unchanged.
+     */
+    private static long[] thresholds(final int base) {
+        final long[] thresholds = new long[PRE.length() + 1];
+        long         power      = 1;
 
-        if (bytes < base)
-            return bytes + " bytes";
+        for (int exp = 1; exp < thresholds.length; exp++) {
+            final long previous = power;
+            power *= base;
 
-        final int    exp     = (int) (Math.log(bytes) / Math.log(base));
-        final char   pre     = PRE.charAt(exp - 1);
-        final String pattern = base == BINARY_UNIT ? "%.2f%siB" : "%.2f%sB";
+            long low  = previous;
+            long high = power;
+            while (low < high) {
+                final long mid = low + (high - low) / 2;
+                if ((int) (Math.log(mid) / Math.log(base)) >= exp)
+                    high = mid;
+                else
+                    low = mid + 1;
+            }
+            thresholds[exp] = low;
+        }
 
-        return String.format(pattern, bytes / Math.pow(base, exp), pre);
+        return thresholds;
     }
 
 }
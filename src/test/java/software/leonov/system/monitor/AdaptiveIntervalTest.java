@@ -0,0 +1,51 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveIntervalTest {
+
+    private static final long MIN = 1_000;
+    private static final long MAX = 8_000;
+    private static final long GB  = 1L << 30;
+
+    @Test
+    public void test_backs_off_to_max_when_quiet() {
+        final AdaptiveInterval interval = new AdaptiveInterval(MIN, MAX, GB, 1.0);
+
+        assertEquals(MIN, interval.getIntervalNanos());
+        assertEquals(2_000, interval.update(0.1, 0.2, GB / 10, -1, -1));
+        assertEquals(4_000, interval.update(0.12, 0.22, GB / 10, -1, -1));
+        assertEquals(8_000, interval.update(0.1, 0.2, GB / 10, -1, -1));
+        assertEquals(MAX, interval.update(0.1, 0.2, GB / 10, -1, -1));
+    }
+
+    @Test
+    public void test_resets_to_min_when_metrics_change_fast() {
+        final AdaptiveInterval interval = new AdaptiveInterval(MIN, MAX, GB, 1.0);
+
+        interval.update(0.1, 0.2, GB / 10, -1, -1);
+        interval.update(0.1, 0.2, GB / 10, -1, -1);
+        assertEquals(MIN, interval.update(0.5, 0.2, GB / 10, -1, -1));
+
+        interval.update(0.5, 0.2, GB / 10, -1, -1);
+        assertEquals(MIN, interval.update(0.5, 0.2, GB / 2, -1, -1));
+    }
+
+    @Test
+    public void test_stays_at_min_near_thresholds() {
+        final AdaptiveInterval interval = new AdaptiveInterval(MIN, MAX, GB, 0.5);
+
+        assertEquals(MIN, interval.update(0.9, 0.2, GB / 10, -1, -1));
+        assertEquals(MIN, interval.update(0.85, 0.2, GB / 10, -1, -1));
+        assertEquals(2_000, interval.update(0.79, 0.2, GB / 10, -1, -1));
+
+        interval.update(0.2, 0.2, GB / 10, -1, -1);
+
+        // 80% of the configured alert fraction
+        assertEquals(MIN, interval.update(0.2, 0.2, GB / 10, 410, 1000));
+        assertEquals(2_000, interval.update(0.2, 0.2, GB / 10, 390, 1000));
+    }
+
+}
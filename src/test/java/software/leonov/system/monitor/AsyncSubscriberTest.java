@@ -0,0 +1,115 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncSubscriberTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null)
+            task.run();
+    }
+
+    @Test
+    public void test_values_are_delivered_in_batches() {
+        final List<List<Integer>>      batches    = new ArrayList<>();
+        final AsyncSubscriber<Integer> subscriber = new AsyncSubscriber<>(tasks::add, 8, OverflowPolicy.DROP_OLDEST, 3, batches::add);
+
+        for (int i = 1; i <= 7; i++)
+            subscriber.offer(i);
+        runTasks();
+
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6)), batches);
+
+        subscriber.close();
+        runTasks();
+
+        assertEquals(Arrays.asList(7), batches.get(2));
+        assertEquals(0, subscriber.getDroppedCount());
+    }
+
+    @Test
+    public void test_drop_oldest() {
+        final List<Integer>            values     = new ArrayList<>();
+        final AsyncSubscriber<Integer> subscriber = new AsyncSubscriber<>(tasks::add, 3, OverflowPolicy.DROP_OLDEST, 1, values::addAll);
+
+        for (int i = 1; i <= 5; i++)
+            subscriber.offer(i);
+        runTasks();
+
+        assertEquals(Arrays.asList(3, 4, 5), values);
+        assertEquals(2, subscriber.getDroppedCount());
+    }
+
+    @Test
+    public void test_drop_newest() {
+        final List<Integer>            values     = new ArrayList<>();
+        final AsyncSubscriber<Integer> subscriber = new AsyncSubscriber<>(tasks::add, 3, OverflowPolicy.DROP_NEWEST, 1, values::addAll);
+
+        for (int i = 1; i <= 5; i++)
+            subscriber.offer(i);
+        runTasks();
+
+        assertEquals(Arrays.asList(1, 2, 3), values);
+        assertEquals(2, subscriber.getDroppedCount());
+    }
+
+    @Test
+    public void test_conflate() {
+        final List<Integer>            values     = new ArrayList<>();
+        final AsyncSubscriber<Integer> subscriber = new AsyncSubscriber<>(tasks::add, 3, OverflowPolicy.CONFLATE, 1, values::addAll);
+
+        for (int i = 1; i <= 5; i++)
+            subscriber.offer(i);
+        runTasks();
+
+        assertEquals(Arrays.asList(4, 5), values);
+        assertEquals(3, subscriber.getDroppedCount());
+    }
+
+    @Test
+    public void test_concurrent_consumer_receives_every_value_once_in_order() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            for (final OverflowPolicy policy : OverflowPolicy.values()) {
+                final List<Integer>            values     = new ArrayList<>(); // accessed only by the executor
+                final AsyncSubscriber<Integer> subscriber = new AsyncSubscriber<>(executor, 16, policy, 4, values::addAll);
+
+                final int count = 200_000;
+                for (int i = 0; i < count; i++)
+                    subscriber.offer(i);
+                subscriber.close();
+
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (executor.submit(values::size).get() + subscriber.getDroppedCount() < count && System.nanoTime() < deadline)
+                    Thread.sleep(10);
+
+                final List<Integer> delivered = executor.submit(() -> new ArrayList<>(values)).get();
+
+                assertEquals(count, delivered.size() + subscriber.getDroppedCount(), policy.name());
+                for (int i = 1; i < delivered.size(); i++)
+                    assertTrue(delivered.get(i - 1) < delivered.get(i), policy.name());
+                if (policy != OverflowPolicy.DROP_NEWEST)
+                    assertEquals(count - 1, (int) delivered.get(delivered.size() - 1), policy.name());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
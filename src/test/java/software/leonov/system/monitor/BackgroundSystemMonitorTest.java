@@ -1,15 +1,28 @@
 package software.leonov.system.monitor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -70,6 +83,7 @@ public class BackgroundSystemMonitorTest {
         assertTrue(cpu.getProcessCpuLoad() == -1.0);
         assertTrue(cpu.getSystemCpuLoad() == -1.0);
         assertTrue(memory.getUsedMemory() == -1L);
+        assertTrue(monitor.getGcUsage().getPauseCount() == -1L);
 
         monitor.close(); // Clean up
     }
@@ -242,6 +256,343 @@ public class BackgroundSystemMonitorTest {
         monitor.close();
     }
 
+    @Test
+    public void test_averageOver_custom_horizons() throws InterruptedException {
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).averageOver(Duration.ofSeconds(10)).start();
+
+        Thread.sleep(200);
+
+        final CpuUsage cpu = monitor.getCpuUsage();
+        monitor.close();
+
+        assertTrue(cpu.getProcessCpuLoad() < 0 || cpu.getMovingAverageProcessCpuLoad(Duration.ofSeconds(10)) >= 0);
+        assertTrue(cpu.getProcessCpuLoad() < 0 || cpu.getExponentialAverageProcessCpuLoad(Duration.ofSeconds(10)) >= 0);
+        assertEquals(-1.0, cpu.getMovingAverageProcessCpuLoad(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void test_averageOver_invalid_horizon_throws_exception() {
+        final String message = assertThrows(IllegalArgumentException.class, () -> {
+            BackgroundSystemMonitor.withDefaultUpdateInterval().averageOver(Duration.ofMinutes(1), Duration.ZERO);
+        }).getMessage();
+
+        assertEquals("horizon <= 0", message);
+    }
+
+    @Test
+    public void test_trackTopThreads_reports_busy_thread() throws InterruptedException {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread        busy    = new Thread(() -> {
+                                        long x = 0;
+                                        while (running.get())
+                                            x += x * 31 + 7;
+                                    }, "busy-test-thread");
+        busy.start();
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(100)).trackTopThreads(3).start()) {
+            Thread.sleep(500);
+
+            final List<ThreadUsage> top = monitor.getSnapshot().getTopThreads();
+
+            assertTrue(top.size() > 0 && top.size() <= 3);
+            assertTrue(top.stream().anyMatch(thread -> thread.getThreadId() == busy.getId() && thread.getThreadName().equals("busy-test-thread")), top.toString());
+            for (int i = 1; i < top.size(); i++)
+                assertTrue(top.get(i - 1).getCpuLoad() >= top.get(i).getCpuLoad());
+        } finally {
+            running.set(false);
+            busy.join();
+        }
+    }
+
+    @Test
+    public void test_trackTopThreads_invalid_n_throws_exception() {
+        assertEquals("n <= 0", assertThrows(IllegalArgumentException.class, () -> BackgroundSystemMonitor.withDefaultUpdateInterval().trackTopThreads(0)).getMessage());
+    }
+
+    @Test
+    public void test_trackTopAllocators_reports_allocating_thread() throws InterruptedException {
+        assumeTrue(SystemMonitor.isAllocationRateSupported());
+
+        final AtomicBoolean running    = new AtomicBoolean(true);
+        final Thread        allocating = new Thread(() -> {
+                                           Object sink = null;
+                                           while (running.get())
+                                               sink = new byte[10_000];
+                                           if (sink == null)
+                                               System.out.print("");
+                                       }, "allocating-test-thread");
+        allocating.start();
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(100)).trackTopAllocators(3).start()) {
+            Thread.sleep(500);
+
+            final List<ThreadUsage> top = monitor.getSnapshot().getTopAllocators();
+
+            assertTrue(top.size() > 0 && top.size() <= 3);
+            assertTrue(top.stream().anyMatch(thread -> thread.getThreadId() == allocating.getId() && thread.getAllocationRate() > 0), top.toString());
+            for (int i = 1; i < top.size(); i++)
+                assertTrue(top.get(i - 1).getAllocationRate() >= top.get(i).getAllocationRate());
+            assertTrue(monitor.getMemoryUsage().getAllocationRate() > 0);
+        } finally {
+            running.set(false);
+            allocating.join();
+        }
+    }
+
+    @Test
+    public void test_trackTopAllocators_invalid_n_throws_exception() {
+        assertEquals("n <= 0", assertThrows(IllegalArgumentException.class, () -> BackgroundSystemMonitor.withDefaultUpdateInterval().trackTopAllocators(0)).getMessage());
+    }
+
+    @Test
+    public void test_updateAdaptively_starts_at_min_interval() {
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateAdaptively(Duration.ofMillis(100), Duration.ofSeconds(10)).start()) {
+            assertEquals(Duration.ofMillis(100), monitor.getUpdateInterval());
+            assertTrue(monitor.getMemoryUsage().getUsedMemory() > 0);
+        }
+    }
+
+    @Test
+    public void test_updateAdaptively_follows_cpu_time_without_process_cpu_load() {
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateAdaptively(Duration.ofHours(1), Duration.ofHours(8)).start()) {
+            final long     second     = 1_000_000_000L;
+            final long     processors = Runtime.getRuntime().availableProcessors();
+            final long     time       = System.nanoTime();
+            final long     cpuTime    = 1_000 * processors * second; // more than the JVM has used so far
+            final GcTotals gc         = Sampler.sample().gc; // the GC totals cannot decrease after the monitor's first sample
+
+            // The process CPU load is unavailable (-1.0), as it is when the CPU time is summed over all threads
+            monitor.updateMetrics(new Sample(time + second, 1000, 1, 1, -1, MemoryPools.EMPTY, -1.0, cpuTime, -1.0, -1.0, null, gc));
+            monitor.updateMetrics(new Sample(time + 2 * second, 2000, 1, 1, -1, MemoryPools.EMPTY, -1.0, cpuTime, -1.0, -1.0, null, gc));
+            monitor.updateMetrics(new Sample(time + 3 * second, 3000, 1, 1, -1, MemoryPools.EMPTY, -1.0, cpuTime, -1.0, -1.0, null, gc));
+
+            assertTrue(monitor.getUpdateInterval().compareTo(Duration.ofHours(1)) > 0);
+
+            monitor.updateMetrics(new Sample(time + 4 * second, 4000, 1, 1, -1, MemoryPools.EMPTY, -1.0, cpuTime + processors * second, -1.0, -1.0, null, gc));
+
+            assertEquals(100.0, monitor.getCpuUsage().getProcessCpuLoad(), 1e-9);
+            assertEquals(Duration.ofHours(1), monitor.getUpdateInterval());
+        }
+    }
+
+    @Test
+    public void test_updateAdaptively_invalid_intervals_throw_exception() {
+        assertEquals("minUpdateInterval <= 0", assertThrows(IllegalArgumentException.class, () -> BackgroundSystemMonitor.updateAdaptively(Duration.ZERO, Duration.ofSeconds(1))).getMessage());
+        assertEquals("maxUpdateInterval < minUpdateInterval", assertThrows(IllegalArgumentException.class, () -> BackgroundSystemMonitor.updateAdaptively(Duration.ofSeconds(2), Duration.ofSeconds(1))).getMessage());
+        assertEquals("maxUpdateInterval == null", assertThrows(NullPointerException.class, () -> BackgroundSystemMonitor.updateAdaptively(Duration.ofSeconds(1), null)).getMessage());
+    }
+
+    @Test
+    public void test_setUpdateInterval_while_running() throws InterruptedException {
+        final AtomicInteger updates = new AtomicInteger();
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofSeconds(10)).onUpdate((cpu, memory) -> updates.incrementAndGet()).start()) {
+            monitor.setUpdateInterval(Duration.ofMillis(20));
+            Thread.sleep(300);
+
+            assertEquals(Duration.ofMillis(20), monitor.getUpdateInterval());
+            assertTrue(updates.get() >= 5, "New interval should be applied, got: " + updates.get());
+        }
+    }
+
+    @Test
+    public void test_scheduleOn_uses_supplied_executor() throws InterruptedException {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "custom-sampler"));
+        final List<String>             threads  = new CopyOnWriteArrayList<>();
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).scheduleOn(executor).onUpdate((cpu, memory) -> threads.add(Thread.currentThread().getName())).start()) {
+            Thread.sleep(200);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(threads.size() > 2);
+        assertTrue(threads.stream().skip(1).allMatch("custom-sampler"::equals), threads.toString());
+    }
+
+    @Test
+    public void test_withThreadFactory_uses_supplied_factory() throws InterruptedException {
+        final List<String> threads = new CopyOnWriteArrayList<>();
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).withThreadFactory(r -> new Thread(r, "factory-sampler")).onUpdate((cpu, memory) -> threads.add(Thread.currentThread().getName())).start()) {
+            Thread.sleep(200);
+        }
+
+        assertTrue(threads.size() > 2);
+        assertTrue(threads.stream().skip(1).allMatch("factory-sampler"::equals), threads.toString());
+    }
+
+    @Test
+    public void test_scheduleOn_after_start_throws_exception() {
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval().start()) {
+            assertEquals("monitor has already started", assertThrows(IllegalStateException.class, () -> monitor.scheduleOn(Executors.newSingleThreadScheduledExecutor())).getMessage());
+        }
+    }
+
+    @Test
+    public void test_slow_subscriber_does_not_delay_updates() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final List<Snapshot>  slow     = new CopyOnWriteArrayList<>();
+        final List<Snapshot>  batched  = new CopyOnWriteArrayList<>();
+        final AtomicInteger   updates  = new AtomicInteger();
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).onUpdate((cpu, memory) -> updates.incrementAndGet()).subscribe(executor, 2, OverflowPolicy.CONFLATE, 1, snapshots -> {
+            slow.addAll(snapshots);
+            try {
+                Thread.sleep(200);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).subscribe(ForkJoinPool.commonPool(), 16, OverflowPolicy.DROP_OLDEST, 4, batched::addAll).start()) {
+            Thread.sleep(500);
+            assertTrue(updates.get() >= 15, "Updates should not wait for the subscriber, got: " + updates.get());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertTrue(slow.size() >= 2 && slow.size() < updates.get(), slow.size() + " of " + updates.get());
+        for (int i = 1; i < slow.size(); i++)
+            assertTrue(slow.get(i - 1).getSequenceNumber() < slow.get(i).getSequenceNumber());
+        // The last batch is delivered asynchronously when the monitor closes
+        for (int i = 0; i < 50 && batched.size() < updates.get() - 1; i++)
+            Thread.sleep(10);
+        assertEquals(updates.get() - 1, batched.size());
+    }
+
+    @Test
+    public void test_subscribe_invalid_arguments_throw_exception() {
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval();
+        assertEquals("capacity <= 0", assertThrows(IllegalArgumentException.class, () -> monitor.subscribe(Runnable::run, 0, OverflowPolicy.CONFLATE, 1, batch -> {})).getMessage());
+        assertEquals("batchSize <= 0", assertThrows(IllegalArgumentException.class, () -> monitor.subscribe(Runnable::run, 1, OverflowPolicy.CONFLATE, 0, batch -> {})).getMessage());
+        assertEquals("batchSize > capacity", assertThrows(IllegalArgumentException.class, () -> monitor.subscribe(Runnable::run, 1, OverflowPolicy.CONFLATE, 2, batch -> {})).getMessage());
+        assertEquals("executor == null", assertThrows(NullPointerException.class, () -> monitor.subscribe(null, snapshot -> {})).getMessage());
+    }
+
+    @Test
+    public void test_suspendWhenIdle_suspends_and_resumes_on_read() throws InterruptedException {
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).suspendWhenIdle(Duration.ofMillis(100)).start()) {
+            assertFalse(monitor.getSnapshot().isStale());
+
+            Thread.sleep(400);
+            assertTrue(monitor.isSuspended());
+
+            final Snapshot resumed = monitor.getSnapshot(); // resumes the monitor
+
+            assertFalse(monitor.isSuspended());
+            assertTrue(resumed.isStale());
+            assertTrue(resumed.getMemoryUsage().getUsedMemory() > 0);
+
+            Thread.sleep(60);
+
+            final Snapshot fresh = monitor.getSnapshot();
+            assertFalse(fresh.isStale());
+            assertTrue(fresh.getSequenceNumber() > resumed.getSequenceNumber());
+        }
+    }
+
+    @Test
+    public void test_suspendWhenIdle_not_suspended_with_listeners() throws InterruptedException {
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).suspendWhenIdle(Duration.ofMillis(50)).onUpdate((cpu, memory) -> {}).start()) {
+            Thread.sleep(200);
+            assertFalse(monitor.isSuspended());
+        }
+    }
+
+    @Test
+    public void test_suspendWhenIdle_invalid_timeout_throws_exception() {
+        assertEquals("idleTimeout <= 0", assertThrows(IllegalArgumentException.class, () -> BackgroundSystemMonitor.withDefaultUpdateInterval().suspendWhenIdle(Duration.ZERO)).getMessage());
+    }
+
+    @Test
+    public void test_onMemoryThreshold_direct_memory_alert() throws InterruptedException {
+        final List<MemoryAlert> alerts = new CopyOnWriteArrayList<>();
+        final ByteBuffer        buffer = ByteBuffer.allocateDirect(1 << 20);
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(100)).onMemoryThreshold(0.000001, alerts::add).start()) {
+            assumeTrue(monitor.getMemoryUsage().getDirectMemoryLimit() > 0);
+            Thread.sleep(500);
+        }
+
+        final List<MemoryAlert> direct = alerts.stream().filter(alert -> alert.getType() == MemoryAlert.Type.DIRECT_MEMORY_THRESHOLD_EXCEEDED).collect(Collectors.toList());
+
+        assertEquals(1, direct.size(), direct.toString());
+        assertEquals("direct", direct.get(0).getPoolName());
+        assertTrue(direct.get(0).getUsedMemory() >= buffer.capacity());
+        assertTrue(direct.get(0).getUsedMemory() >= direct.get(0).getThreshold());
+    }
+
+    @Test
+    public void test_onMemoryThreshold_heap_alert_after_gc() throws InterruptedException {
+        assumeTrue(!MemoryThresholds.getSharedInstance().getPools().isEmpty());
+
+        final List<MemoryAlert> alerts = new CopyOnWriteArrayList<>();
+
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval().onMemoryThreshold(0.000001, alerts::add).start()) {
+            System.gc();
+            for (int i = 0; i < 50 && alerts.stream().noneMatch(alert -> alert.getType() != MemoryAlert.Type.DIRECT_MEMORY_THRESHOLD_EXCEEDED); i++)
+                Thread.sleep(100);
+        }
+
+        final MemoryAlert alert = alerts.stream().filter(a -> a.getType() != MemoryAlert.Type.DIRECT_MEMORY_THRESHOLD_EXCEEDED).findFirst().orElse(null);
+
+        assertNotNull(alert, alerts.toString());
+        assertTrue(alert.getUsedMemory() >= alert.getThreshold());
+        assertTrue(alert.getMaxMemory() > 0);
+        for (final MemoryPoolMXBean pool : MemoryThresholds.getSharedInstance().getPools())
+            assertEquals(0, pool.getUsageThreshold());
+    }
+
+    @Test
+    public void test_onMemoryThreshold_invalid_fraction_throws_exception() {
+        assertEquals("fraction <= 0 || fraction > 1", assertThrows(IllegalArgumentException.class, () -> BackgroundSystemMonitor.withDefaultUpdateInterval().onMemoryThreshold(0, alert -> {})).getMessage());
+        assertEquals("fraction <= 0 || fraction > 1", assertThrows(IllegalArgumentException.class, () -> BackgroundSystemMonitor.withDefaultUpdateInterval().onMemoryThreshold(1.5, alert -> {})).getMessage());
+        assertEquals("alertListener == null", assertThrows(NullPointerException.class, () -> BackgroundSystemMonitor.withDefaultUpdateInterval().onMemoryThreshold(0.5, null)).getMessage());
+    }
+
+    @Test
+    public void test_onMemoryThreshold_twice_throws_exception() {
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval().onMemoryThreshold(0.5, alert -> {});
+        assertEquals("memory threshold listener has already been set", assertThrows(IllegalStateException.class, () -> monitor.onMemoryThreshold(0.9, alert -> {})).getMessage());
+    }
+
+    @Test
+    public void test_top_threads_empty_by_default() {
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval().start()) {
+            assertTrue(monitor.getSnapshot().getTopThreads().isEmpty());
+        }
+    }
+
+    @Test
+    public void test_start_after_close_throws_exception() {
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval();
+        monitor.start();
+        monitor.close();
+
+        final String message = assertThrows(IllegalStateException.class, () -> {
+            monitor.start();
+        }).getMessage();
+
+        assertEquals("monitor has been closed", message);
+    }
+
+    @Test
+    public void test_monitors_with_different_intervals_are_updated() throws InterruptedException {
+        final BackgroundSystemMonitor fast = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(50)).start();
+        final BackgroundSystemMonitor slow = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(100)).start();
+
+        final MemoryUsage fast1 = fast.getMemoryUsage();
+        final MemoryUsage slow1 = slow.getMemoryUsage();
+
+        Thread.sleep(250);
+
+        assertNotSame(fast1, fast.getMemoryUsage(), "Fast monitor should have been updated");
+        assertNotSame(slow1, slow.getMemoryUsage(), "Slow monitor should have been updated");
+
+        fast.close();
+        slow.close();
+    }
+
     @Test
     public void test_close_interrupts_background_thread() throws InterruptedException {
         final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(50));
@@ -0,0 +1,144 @@
+package software.leonov.system.monitor;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CgroupReaderTest {
+
+    @TempDir
+    Path root;
+
+    private Path write(final String path, final String contents) throws IOException {
+        final Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, contents.getBytes(US_ASCII));
+        return file;
+    }
+
+    private CgroupReader open() {
+        return CgroupReader.open(root.resolve("proc/self/cgroup"), root.resolve("proc/self/mountinfo"));
+    }
+
+    @Test
+    public void test_cgroup_v2() throws IOException {
+        final Path mount = root.resolve("sys/fs/cgroup");
+
+        write("proc/self/cgroup", "0::/kubepods/pod1\n");
+        write("proc/self/mountinfo", "25 20 0:23 / /proc rw,relatime - proc proc rw\n" + //
+                "30 24 0:26 / " + mount + " rw,nosuid,nodev,noexec,relatime shared:4 - cgroup2 cgroup2 rw,nsdelegate\n");
+
+        write("sys/fs/cgroup/kubepods/pod1/cpu.max", "150000 100000\n");
+        write("sys/fs/cgroup/kubepods/pod1/cpu.stat", "usage_usec 2000\nuser_usec 1500\nsystem_usec 500\nnr_periods 40\nnr_throttled 10\nthrottled_usec 3000\n");
+        write("sys/fs/cgroup/kubepods/pod1/memory.current", "104857600\n");
+        write("sys/fs/cgroup/kubepods/pod1/memory.max", "536870912\n");
+
+        try (final CgroupReader reader = open()) {
+            assertNotNull(reader);
+            assertTrue(reader.isV2());
+            assertEquals(1.5, reader.getCpuLimit());
+            assertEquals(2_000_000L, reader.getCpuTime());
+            assertEquals(40, reader.getPeriods());
+            assertEquals(10, reader.getThrottledPeriods());
+            assertEquals(3_000_000L, reader.getThrottledTime());
+            assertEquals(104857600L, reader.getUsedMemory());
+            assertEquals(536870912L, reader.getMemoryLimit());
+
+            write("sys/fs/cgroup/kubepods/pod1/cpu.stat", "usage_usec 5000\nnr_periods 41\nnr_throttled 11\nthrottled_usec 3500\n");
+            write("sys/fs/cgroup/kubepods/pod1/cpu.max", "max 100000\n");
+            write("sys/fs/cgroup/kubepods/pod1/memory.max", "max\n");
+
+            assertTrue(reader.update());
+            assertEquals(-1.0, reader.getCpuLimit());
+            assertEquals(5_000_000L, reader.getCpuTime());
+            assertEquals(11, reader.getThrottledPeriods());
+            assertEquals(3_500_000L, reader.getThrottledTime());
+            assertEquals(-1, reader.getMemoryLimit());
+        }
+    }
+
+    @Test
+    public void test_cgroup_v1() throws IOException {
+        final Path cgroup = root.resolve("sys/fs/cgroup");
+
+        write("proc/self/cgroup", "12:memory:/docker/abc\n11:cpu,cpuacct:/docker/abc\n1:name=systemd:/docker/abc\n");
+        write("proc/self/mountinfo", "" + //
+                "33 32 0:29 /docker/abc " + cgroup.resolve("cpu,cpuacct") + " rw,relatime - cgroup cgroup rw,cpu,cpuacct\n" + //
+                "36 32 0:32 /docker/abc " + cgroup.resolve("memory") + " rw,relatime - cgroup cgroup rw,memory\n");
+
+        write("sys/fs/cgroup/cpu,cpuacct/cpu.cfs_quota_us", "50000\n");
+        write("sys/fs/cgroup/cpu,cpuacct/cpu.cfs_period_us", "100000\n");
+        write("sys/fs/cgroup/cpu,cpuacct/cpu.stat", "nr_periods 100\nnr_throttled 25\nthrottled_time 123456789\n");
+        write("sys/fs/cgroup/cpu,cpuacct/cpuacct.usage", "987654321\n");
+        write("sys/fs/cgroup/memory/memory.usage_in_bytes", "796680192\n");
+        write("sys/fs/cgroup/memory/memory.limit_in_bytes", "9223372036854771712\n");
+
+        try (final CgroupReader reader = open()) {
+            assertNotNull(reader);
+            assertFalse(reader.isV2());
+            assertEquals(0.5, reader.getCpuLimit());
+            assertEquals(987654321L, reader.getCpuTime());
+            assertEquals(100, reader.getPeriods());
+            assertEquals(25, reader.getThrottledPeriods());
+            assertEquals(123456789L, reader.getThrottledTime());
+            assertEquals(796680192L, reader.getUsedMemory());
+            assertEquals(-1, reader.getMemoryLimit());
+        }
+    }
+
+    @Test
+    public void test_cgroup_v1_no_quota() throws IOException {
+        final Path cgroup = root.resolve("sys/fs/cgroup");
+
+        write("proc/self/cgroup", "2:cpuacct:/\n1:cpu:/\n0::/\n");
+        write("proc/self/mountinfo", "" + //
+                "33 32 0:29 / " + cgroup.resolve("cpu") + " rw,relatime - cgroup cgroup rw,cpu\n" + //
+                "34 32 0:30 / " + cgroup.resolve("cpuacct") + " rw,relatime - cgroup cgroup rw,cpuacct\n" + //
+                "42 32 0:38 / " + cgroup.resolve("unified") + " rw,relatime - cgroup2 cgroup2 rw\n");
+
+        write("sys/fs/cgroup/cpu/cpu.cfs_quota_us", "-1\n");
+        write("sys/fs/cgroup/cpu/cpu.cfs_period_us", "100000\n");
+        write("sys/fs/cgroup/cpu/cpu.stat", "nr_periods 0\nnr_throttled 0\nthrottled_time 0\n");
+        write("sys/fs/cgroup/cpuacct/cpuacct.usage", "1000\n");
+        write("sys/fs/cgroup/unified/cgroup.procs", "1\n");
+
+        try (final CgroupReader reader = open()) {
+            assertNotNull(reader);
+            assertFalse(reader.isV2(), "v1 controllers take precedence in hybrid mode");
+            assertEquals(-1.0, reader.getCpuLimit());
+            assertEquals(1000, reader.getCpuTime());
+            assertEquals(0, reader.getThrottledPeriods());
+            assertEquals(-1, reader.getUsedMemory());
+        }
+    }
+
+    @Test
+    public void test_no_cgroup() throws IOException {
+        write("proc/self/cgroup", "");
+        write("proc/self/mountinfo", "25 20 0:23 / /proc rw,relatime - proc proc rw\n");
+
+        assertNull(open());
+        assertNull(CgroupReader.open(root.resolve("missing"), root.resolve("missing")));
+    }
+
+    @Test
+    public void test_live_cgroup() {
+        try (final CgroupReader reader = CgroupReader.open()) {
+            assumeTrue(reader != null, "not running in a cgroup");
+            assertTrue(reader.update());
+            assertTrue(reader.getCpuTime() > 0 || reader.getUsedMemory() > 0);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class ExponentialMovingAverageTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void test_no_values_returns_negative() {
+        assertEquals(-1.0, new ExponentialMovingAverage(MINUTE).get());
+    }
+
+    @Test
+    public void test_first_value_is_the_average() {
+        final ExponentialMovingAverage ema = new ExponentialMovingAverage(MINUTE);
+        ema.update(42.0, 0);
+        assertEquals(42.0, ema.get());
+    }
+
+    @Test
+    public void test_negative_values_are_ignored() {
+        final ExponentialMovingAverage ema = new ExponentialMovingAverage(MINUTE);
+        ema.update(-1.0, 0);
+        assertEquals(-1.0, ema.get());
+        ema.update(10.0, SECOND);
+        ema.update(-1.0, 2 * SECOND);
+        assertEquals(10.0, ema.get());
+    }
+
+    @Test
+    public void test_one_time_constant_reaches_63_percent_of_a_step() {
+        final ExponentialMovingAverage ema = new ExponentialMovingAverage(MINUTE);
+        ema.update(0.0, 0);
+
+        for (long t = SECOND; t <= MINUTE; t += SECOND)
+            ema.update(100.0, t);
+
+        assertEquals(100.0 * (1 - Math.exp(-1)), ema.get(), 1e-9);
+    }
+
+    @Test
+    public void test_result_does_not_depend_on_update_frequency() {
+        final ExponentialMovingAverage fast = new ExponentialMovingAverage(MINUTE);
+        final ExponentialMovingAverage slow = new ExponentialMovingAverage(MINUTE);
+
+        fast.update(0.0, 0);
+        slow.update(0.0, 0);
+
+        for (long t = SECOND; t <= 5 * MINUTE; t += SECOND)
+            fast.update(50.0, t);
+        for (long t = 10 * SECOND; t <= 5 * MINUTE; t += 10 * SECOND)
+            slow.update(50.0, t);
+
+        assertEquals(fast.get(), slow.get(), 1e-9);
+    }
+
+}
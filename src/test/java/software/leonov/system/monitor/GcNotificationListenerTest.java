@@ -0,0 +1,82 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class GcNotificationListenerTest {
+
+    @Test
+    public void test_pauses_are_counted_per_collector() {
+        final GcNotificationListener listener = new GcNotificationListener("G1 Young Generation", "G1 Old Generation");
+
+        listener.record("G1 Young Generation", "end of minor GC", 5);
+        listener.record("G1 Young Generation", "end of minor GC", 7);
+        listener.record("G1 Old Generation", "end of major GC", 100);
+
+        final GcTotals totals = listener.read();
+
+        assertArrayEquals(new long[] { 2, 1 }, totals.counts);
+        assertArrayEquals(new long[] { 12, 100 }, totals.times);
+        assertEquals(3, totals.pauseCount);
+        assertEquals(112, totals.pauseTime);
+        assertEquals(3, totals.pauseHistogram.getTotalCount());
+        assertEquals(100.0, totals.pauseHistogram.getMax());
+    }
+
+    @Test
+    public void test_concurrent_cycles_are_not_pauses() {
+        final GcNotificationListener listener = new GcNotificationListener("ZGC Cycles", "ZGC Pauses");
+
+        listener.record("ZGC Cycles", "end of GC cycle", 250);
+        listener.record("ZGC Pauses", "end of GC pause", 1);
+
+        final GcTotals totals = listener.read();
+
+        assertArrayEquals(new long[] { 1, 1 }, totals.counts);
+        assertArrayEquals(new long[] { 250, 1 }, totals.times);
+        assertEquals(1, totals.pauseCount);
+        assertEquals(1, totals.pauseTime);
+    }
+
+    @Test
+    public void test_read_returns_same_totals_until_next_collection() {
+        final GcNotificationListener listener = new GcNotificationListener("Copy");
+
+        final GcTotals first = listener.read();
+        assertSame(first, listener.read());
+
+        listener.record("Copy", "end of minor GC", 3);
+
+        final GcTotals second = listener.read();
+        assertNotSame(first, second);
+        assertEquals(0, first.pauseCount);
+        assertEquals(1, second.pauseCount);
+    }
+
+    @Test
+    public void test_installed_listener_receives_notifications() throws InterruptedException {
+        // Use the listener installed by the Sampler rather than registering another one with every collector
+        final GcNotificationListener listener = Sampler.GC;
+        assumeTrue(listener != null);
+
+        final long before = listener.read().pauseCount;
+
+        System.gc();
+
+        // Notifications are delivered asynchronously
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (listener.read().pauseCount == before && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        assertTrue(listener.read().pauseCount > before);
+    }
+
+}
@@ -0,0 +1,143 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void test_empty_histogram() {
+        final Histogram histogram = Histogram.forCpuUsage().copy();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(-1.0, histogram.getMin());
+        assertEquals(-1.0, histogram.getMax());
+        assertEquals(-1.0, histogram.getMean());
+        assertEquals(-1.0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void test_negative_values_are_ignored() {
+        final Histogram histogram = Histogram.forCpuUsage();
+        histogram.record(-1.0);
+        assertEquals(0, histogram.copy().getTotalCount());
+    }
+
+    @Test
+    public void test_invalid_percentile_throws_exception() {
+        final Histogram histogram = Histogram.forCpuUsage().copy();
+
+        assertEquals("percentile < 0 || percentile > 100", assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1)).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(100.1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(Double.NaN));
+    }
+
+    @Test
+    public void test_cpu_percentiles() {
+        final Histogram histogram = Histogram.forCpuUsage();
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i);
+
+        final Histogram copy = histogram.copy();
+
+        assertEquals(100, copy.getTotalCount());
+        assertEquals(1.0, copy.getMin(), 1e-9);
+        assertEquals(100.0, copy.getMax(), 1e-9);
+        assertEquals(50.5, copy.getMean(), 1e-9);
+        assertEquals(50.0, copy.getValueAtPercentile(50), 50.0 / 64);
+        assertEquals(95.0, copy.getValueAtPercentile(95), 95.0 / 64);
+        assertEquals(99.0, copy.getValueAtPercentile(99), 99.0 / 64);
+        assertEquals(100.0, copy.getValueAtPercentile(100), 1e-9);
+        assertEquals(1.0, copy.getValueAtPercentile(0), 1e-9);
+    }
+
+    @Test
+    public void test_values_above_highest_trackable_value_are_clamped() {
+        final Histogram histogram = Histogram.forCpuUsage();
+        histogram.record(250.0);
+        assertEquals(100.0, histogram.copy().getMax(), 1e-9);
+    }
+
+    @Test
+    public void test_memory_percentiles_are_within_precision() {
+        final Histogram histogram = Histogram.forMemoryUsage();
+        for (long i = 1; i <= 1000; i++)
+            histogram.record(i * 1_000_000L);
+
+        final Histogram copy = histogram.copy();
+
+        for (final double percentile : new double[] { 10, 50, 90, 99, 99.9 }) {
+            final double expected = percentile * 10 * 1_000_000L;
+            assertEquals(expected, copy.getValueAtPercentile(percentile), expected / 64);
+        }
+    }
+
+    @Test
+    public void test_copy_is_not_affected_by_later_values() {
+        final Histogram histogram = Histogram.forCpuUsage();
+        histogram.record(10);
+
+        final Histogram copy = histogram.copy();
+        histogram.record(90);
+
+        assertEquals(1, copy.getTotalCount());
+        assertEquals(10.0, copy.getValueAtPercentile(100), 1e-9);
+    }
+
+    @Test
+    public void test_merge() {
+        final Histogram a = Histogram.forCpuUsage();
+        final Histogram b = Histogram.forCpuUsage();
+
+        for (int i = 1; i <= 50; i++)
+            a.record(i);
+        for (int i = 51; i <= 100; i++)
+            b.record(i);
+
+        final Histogram merged = a.copy().merge(b.copy());
+
+        assertEquals(100, merged.getTotalCount());
+        assertEquals(1.0, merged.getMin(), 1e-9);
+        assertEquals(100.0, merged.getMax(), 1e-9);
+        assertEquals(50.5, merged.getMean(), 1e-9);
+        assertEquals(90.0, merged.getValueAtPercentile(90), 90.0 / 64);
+    }
+
+    @Test
+    public void test_merge_different_resolution_throws_exception() {
+        assertThrows(IllegalArgumentException.class, () -> Histogram.forCpuUsage().copy().merge(Histogram.forMemoryUsage().copy()));
+    }
+
+    @Test
+    public void test_interval_since() {
+        final Histogram histogram = Histogram.forCpuUsage();
+        for (int i = 0; i < 100; i++)
+            histogram.record(5);
+
+        final Histogram earlier = histogram.copy();
+
+        for (int i = 0; i < 100; i++)
+            histogram.record(80);
+
+        final Histogram interval = histogram.copy().intervalSince(earlier);
+
+        assertEquals(100, interval.getTotalCount());
+        assertEquals(80.0, interval.getMean(), 1e-9);
+        assertEquals(80.0, interval.getValueAtPercentile(1), 80.0 / 64);
+        assertEquals(80.0, interval.getMax(), 1e-9);
+    }
+
+    @Test
+    public void test_interval_since_later_snapshot_throws_exception() {
+        final Histogram histogram = Histogram.forCpuUsage();
+        histogram.record(5);
+
+        final Histogram earlier = histogram.copy();
+        histogram.record(6);
+
+        assertThrows(IllegalArgumentException.class, () -> earlier.intervalSince(histogram.copy()));
+    }
+
+}
@@ -0,0 +1,66 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class HistogramWindowTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void test_view_ignores_later_values() {
+        final HistogramWindow window = new HistogramWindow(Histogram::forCpuUsage, Duration.ofMinutes(5));
+
+        window.record(0, 10.0);
+        window.record(1, -1.0);
+        window.record(2, 20.0);
+        final HistogramWindow.Frozen frozen = window.freeze();
+        window.record(3, 90.0);
+
+        final Histogram histogram = frozen.get();
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(20.0, histogram.getMax(), 1e-9);
+        assertSame(histogram, frozen.get());
+
+        assertEquals(3, window.freeze().get().getTotalCount());
+    }
+
+    @Test
+    public void test_values_older_than_the_previous_window_are_discarded() {
+        final HistogramWindow window = new HistogramWindow(Histogram::forCpuUsage, Duration.ofMinutes(5));
+
+        window.record(0, 10.0);
+        window.record(5 * MINUTE, 20.0); // starts the second window
+        window.record(9 * MINUTE, 30.0);
+        assertEquals(3, window.freeze().get().getTotalCount());
+
+        window.record(10 * MINUTE, 40.0); // starts the third window
+        final Histogram histogram = window.freeze().get();
+        assertEquals(3, histogram.getTotalCount());
+        assertEquals(20.0, histogram.getMin(), 1e-9);
+
+        window.record(30 * MINUTE, 50.0); // nothing was recorded during the previous window
+        assertEquals(1, window.freeze().get().getTotalCount());
+    }
+
+    @Test
+    public void test_full_buffer_is_folded() {
+        final HistogramWindow        window = new HistogramWindow(Histogram::forCpuUsage, Duration.ofMinutes(5));
+        final HistogramWindow.Frozen before = window.freeze();
+
+        for (int i = 1; i <= 5000; i++)
+            window.record(i, i % 100);
+
+        final Histogram histogram = window.freeze().get();
+        assertEquals(5000, histogram.getTotalCount());
+        assertEquals(0.0, histogram.getMin(), 1e-9);
+        assertEquals(99.0, histogram.getMax(), 1e-9);
+        assertEquals(0, before.get().getTotalCount());
+    }
+
+}
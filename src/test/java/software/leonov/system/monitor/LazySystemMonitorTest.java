@@ -6,15 +6,22 @@ import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 
 public class LazySystemMonitorTest {
 
+    private static volatile Object sink;
+
     @Test
     public void test_withDefaultRefreshThreshold_not_null() {
         final LazySystemMonitor monitor = LazySystemMonitor.withDefaultUpdateThreshold();
@@ -187,6 +194,255 @@ public class LazySystemMonitorTest {
         }
     }
 
+    @Test
+    public void test_metrics_available_before_first_read() {
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofHours(1));
+
+        final MemoryUsage memory = monitor.getMemoryUsage();
+
+        assertNotNull(memory);
+        assertTrue(memory.getUsedMemory() >= 0, "Used memory should be non-negative");
+        assertTrue(memory.getTotalMemory() > 0, "Total memory should be positive");
+    }
+
+    @Test
+    public void test_concurrent_readers_update_at_most_once_per_threshold() throws InterruptedException {
+        final LazySystemMonitor monitor     = LazySystemMonitor.withUpdateThreshold(Duration.ofMillis(100));
+        final Set<CpuUsage>     observed    = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        final int               threadCount = 16;
+        final long              durationMs  = 500;
+        final Thread[]          threads     = new Thread[threadCount];
+        final Throwable[]       failures    = new Throwable[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    final long end = System.currentTimeMillis() + durationMs;
+                    while (System.currentTimeMillis() < end) {
+                        final CpuUsage cpu = monitor.getCpuUsage();
+                        assertNotNull(cpu);
+                        observed.add(cpu);
+                    }
+                } catch (final Throwable t) {
+                    failures[threadIndex] = t;
+                }
+            });
+        }
+
+        for (final Thread thread : threads)
+            thread.start();
+
+        for (final Thread thread : threads)
+            thread.join();
+
+        for (int i = 0; i < threadCount; i++)
+            if (failures[i] != null)
+                throw new AssertionError("Thread " + i + " failed", failures[i]);
+
+        // One update at creation plus at most one per elapsed threshold (with some slack for scheduling)
+        assertTrue(observed.size() <= durationMs / 100 + 2, "Too many updates: " + observed.size());
+    }
+
+    @Test
+    public void test_snapshot_is_consistent_with_getters() {
+        final LazySystemMonitor monitor  = LazySystemMonitor.withUpdateThreshold(Duration.ofHours(1));
+        final Snapshot          snapshot = monitor.getSnapshot();
+
+        assertSame(snapshot.getCpuUsage(), monitor.getCpuUsage());
+        assertSame(snapshot.getMemoryUsage(), monitor.getMemoryUsage());
+        assertEquals(1, snapshot.getSequenceNumber());
+        assertTrue(snapshot.getTimestamp() > 0);
+        assertTrue(snapshot.getNanoTime() - System.nanoTime() <= 0);
+    }
+
+    @Test
+    public void test_snapshot_sequence_number_increases() throws InterruptedException {
+        final LazySystemMonitor monitor   = LazySystemMonitor.withUpdateThreshold(Duration.ofMillis(50));
+        final Snapshot          snapshot1 = monitor.getSnapshot();
+        final Snapshot          snapshot2 = monitor.getSnapshot();
+
+        assertSame(snapshot1, snapshot2, "Snapshot should not change within the threshold");
+
+        Thread.sleep(100);
+
+        final Snapshot snapshot3 = monitor.getSnapshot();
+
+        assertEquals(snapshot1.getSequenceNumber() + 1, snapshot3.getSequenceNumber());
+        assertTrue(snapshot3.getNanoTime() - snapshot1.getNanoTime() >= Duration.ofMillis(50).toNanos());
+        assertTrue(snapshot3.getTimestamp() >= snapshot1.getTimestamp());
+    }
+
+    @Test
+    public void test_default_moving_average_horizons() {
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofHours(1));
+        final CpuUsage          cpu     = monitor.getCpuUsage();
+
+        for (final Duration horizon : AbstractSystemMonitor.DEFAULT_AVERAGE_HORIZONS) {
+            assertEquals(cpu.getProcessCpuLoad() < 0 ? -1.0 : cpu.getProcessCpuLoad(), cpu.getExponentialAverageProcessCpuLoad(horizon));
+            assertEquals(cpu.getProcessCpuLoad() < 0 ? -1.0 : cpu.getProcessCpuLoad(), cpu.getMovingAverageProcessCpuLoad(horizon));
+            assertEquals(cpu.getSystemCpuLoad() < 0 ? -1.0 : cpu.getSystemCpuLoad(), cpu.getExponentialAverageSystemCpuLoad(horizon));
+            assertEquals(cpu.getSystemCpuLoad() < 0 ? -1.0 : cpu.getSystemCpuLoad(), cpu.getMovingAverageSystemCpuLoad(horizon));
+        }
+
+        assertEquals(-1.0, cpu.getMovingAverageProcessCpuLoad(Duration.ofMinutes(2)));
+        assertEquals(-1.0, cpu.getExponentialAverageSystemCpuLoad(null));
+    }
+
+    @Test
+    public void test_percentiles_are_within_observed_range() throws InterruptedException {
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofMillis(1));
+
+        for (int i = 0; i < 20; i++) {
+            monitor.getCpuUsage();
+            Thread.sleep(2);
+        }
+
+        final CpuUsage    cpu    = monitor.getCpuUsage();
+        final MemoryUsage memory = monitor.getMemoryUsage();
+
+        if (cpu.getMaxProcessCpuLoad() >= 0) {
+            assertTrue(cpu.getProcessCpuLoadHistogram().getTotalCount() > 0);
+            assertTrue(cpu.getProcessCpuLoadPercentile(50) <= cpu.getProcessCpuLoadPercentile(99));
+            assertEquals(cpu.getMaxProcessCpuLoad(), cpu.getProcessCpuLoadPercentile(100), 0.01);
+        }
+
+        assertTrue(memory.getUsedMemoryHistogram().getTotalCount() > 1);
+        assertTrue(memory.getUsedMemoryPercentile(50) <= memory.getUsedMemoryPercentile(99));
+        assertEquals(memory.getMaxUsedMemory(), memory.getUsedMemoryPercentile(100));
+    }
+
+    @Test
+    public void test_container_usage() throws InterruptedException {
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofMillis(1));
+
+        Thread.sleep(50);
+
+        final ContainerUsage container = monitor.getContainerUsage();
+
+        if (SystemMonitor.isContainerUsageSupported()) {
+            assertTrue(container.getCpuLoad() >= 0.0 || container.getUsedMemory() >= 0);
+            assertTrue(container.getCpuLoad() <= 100.0);
+            assertTrue(container.getThrottledPercentage() <= 100.0);
+        } else
+            assertEquals(UnsupportedSystemMonitor.NEGATIVE_CONTAINER_USAGE, container);
+    }
+
+    // A LazySystemMonitor takes a real sample when it is created, whose GC totals cannot be followed by synthetic ones
+    private static AbstractSystemMonitor withoutInitialSample() {
+        return new AbstractSystemMonitor() {
+        };
+    }
+
+    @Test
+    public void test_process_cpu_from_thread_cpu_time_is_normalized() {
+        final AbstractSystemMonitor monitor    = withoutInitialSample();
+        final int                   processors = SystemMonitor.getAvailableProcessors();
+        final long                  second     = TimeUnit.SECONDS.toNanos(1);
+
+        // Half of all processors were busy for one second
+        monitor.updateMetrics(new Sample(second, 1000, 1, 1, -1, MemoryPools.EMPTY, -1.0, 10 * second, -1.0, -1.0, null, GcTotals.EMPTY));
+        monitor.updateMetrics(new Sample(2 * second, 2000, 1, 1, -1, MemoryPools.EMPTY, -1.0, 10 * second + processors * second / 2, -1.0, -1.0, null, GcTotals.EMPTY));
+
+        assertEquals(50.0, monitor.getSnapshot().getCpuUsage().getProcessCpuLoad(), 1e-9);
+    }
+
+    @Test
+    public void test_allocation_rate_from_allocated_bytes() {
+        final AbstractSystemMonitor monitor = withoutInitialSample();
+        final long                  second  = TimeUnit.SECONDS.toNanos(1);
+
+        monitor.updateMetrics(new Sample(second, 1000, 1, 1, 5_000_000, MemoryPools.EMPTY, -1.0, -1, -1.0, -1.0, null, GcTotals.EMPTY));
+        assertEquals(-1, monitor.getSnapshot().getMemoryUsage().getAllocationRate());
+
+        monitor.updateMetrics(new Sample(3 * second, 3000, 1, 1, 25_000_000, MemoryPools.EMPTY, -1.0, -1, -1.0, -1.0, null, GcTotals.EMPTY));
+        assertEquals(10_000_000, monitor.getSnapshot().getMemoryUsage().getAllocationRate());
+    }
+
+    @Test
+    public void test_allocation_rate_is_positive_when_supported() {
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofNanos(1));
+
+        // Requests the allocated bytes, which are then read by the next update
+        monitor.getMemoryUsage().getAllocationRate();
+        monitor.getMemoryUsage();
+        for (int i = 0; i < 100; i++)
+            sink = new byte[100_000];
+
+        final long allocationRate = monitor.getMemoryUsage().getAllocationRate();
+
+        if (SystemMonitor.isAllocationRateSupported())
+            assertTrue(allocationRate > 0, "allocationRate = " + allocationRate);
+        else
+            assertEquals(-1, allocationRate);
+    }
+
+    @Test
+    public void test_memory_pools_and_direct_memory() {
+        final MemoryUsage memory = LazySystemMonitor.withDefaultUpdateThreshold().getMemoryUsage();
+
+        assertTrue(memory.getMemoryPools().stream().anyMatch(MemoryPoolUsage::isHeap));
+        assertTrue(memory.getMemoryPools().stream().anyMatch(pool -> !pool.isHeap() && pool.getUsedMemory() > 0));
+        assertTrue(memory.getNonHeapUsedMemory() > 0);
+        assertTrue(memory.getNonHeapTotalMemory() >= memory.getNonHeapUsedMemory());
+        assertTrue(memory.getDirectMemoryUsed() >= 0);
+        assertTrue(memory.getDirectBufferCount() >= 0);
+        assertTrue(memory.getDirectMemoryLimit() > 0);
+    }
+
+    @Test
+    public void test_gc_overhead_from_pause_time() {
+        assumeTrue(SystemMonitor.isGcUsageSupported());
+
+        final AbstractSystemMonitor  monitor  = withoutInitialSample();
+        final GcNotificationListener listener = new GcNotificationListener("Copy");
+        final long                   second   = TimeUnit.SECONDS.toNanos(1);
+
+        monitor.updateMetrics(new Sample(second, 1000, 1, 1, -1, MemoryPools.EMPTY, -1.0, -1, -1.0, -1.0, null, listener.read()));
+        assertEquals(-1.0, monitor.getSnapshot().getGcUsage().getOverhead());
+
+        listener.record("Copy", "end of minor GC", 20);
+        listener.record("Copy", "end of minor GC", 80);
+        monitor.updateMetrics(new Sample(2 * second, 2000, 1, 1, -1, MemoryPools.EMPTY, -1.0, -1, -1.0, -1.0, null, listener.read()));
+
+        final GcUsage gc = monitor.getSnapshot().getGcUsage();
+
+        assertEquals(2, gc.getPauseCount());
+        assertEquals(100, gc.getPauseTime());
+        assertEquals(10.0, gc.getOverhead(), 1e-9);
+        assertEquals(2, gc.getTotalPauseCount());
+        assertEquals(80, gc.getPauseTimePercentile(100));
+        assertEquals(Long.valueOf(2), gc.getCollectionCounts().get("Copy"));
+        assertEquals(Long.valueOf(100), gc.getCollectionTimes().get("Copy"));
+
+        monitor.updateMetrics(new Sample(3 * second, 3000, 1, 1, -1, MemoryPools.EMPTY, -1.0, -1, -1.0, -1.0, null, listener.read()));
+
+        assertEquals(0, monitor.getSnapshot().getGcUsage().getPauseCount());
+        assertEquals(0.0, monitor.getSnapshot().getGcUsage().getOverhead());
+        assertEquals(2, monitor.getSnapshot().getGcUsage().getTotalPauseCount());
+    }
+
+    @Test
+    public void test_gc_pauses_are_reported() throws InterruptedException {
+        assumeTrue(SystemMonitor.isGcUsageSupported());
+
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofNanos(1));
+
+        System.gc();
+
+        // Notifications are delivered asynchronously
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (monitor.getGcUsage().getTotalPauseCount() == 0 && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        final GcUsage gc = monitor.getGcUsage();
+
+        assertTrue(gc.getTotalPauseCount() > 0);
+        assertTrue(gc.getPauseTimeHistogram().getTotalCount() > 0);
+        assertTrue(gc.getOverhead() >= 0.0 && gc.getOverhead() <= 100.0);
+        assertTrue(gc.getCollectionCounts().values().stream().mapToLong(Long::longValue).sum() > 0);
+    }
+
     @Test
     public void test_usage_after_close_still_works() {
         final LazySystemMonitor monitor = LazySystemMonitor.withDefaultUpdateThreshold();
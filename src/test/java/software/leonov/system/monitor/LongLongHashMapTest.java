@@ -0,0 +1,45 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class LongLongHashMapTest {
+
+    @Test
+    public void test_put_and_get() {
+        final LongLongHashMap map = new LongLongHashMap(4);
+
+        for (long key = 1; key <= 10_000; key++)
+            map.put(key * 31, key);
+
+        assertEquals(10_000, map.size());
+
+        for (long key = 1; key <= 10_000; key++)
+            assertEquals(key, map.get(key * 31, -1));
+
+        assertEquals(-1, map.get(7, -1));
+    }
+
+    @Test
+    public void test_put_replaces_value() {
+        final LongLongHashMap map = new LongLongHashMap(4);
+        map.put(42, 1);
+        map.put(42, 2);
+
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(42, -1));
+    }
+
+    @Test
+    public void test_clear() {
+        final LongLongHashMap map = new LongLongHashMap(4);
+        map.put(1, 1);
+        map.put(2, 2);
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(1, -1));
+    }
+
+}
@@ -0,0 +1,51 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+public class MemoryPoolReaderTest {
+
+    @Test
+    public void test_read_returns_every_memory_pool() {
+        final MemoryPools pools = new MemoryPoolReader().read();
+
+        assertEquals(ManagementFactory.getMemoryPoolMXBeans().size(), pools.names.length);
+
+        boolean heap    = false;
+        boolean nonHeap = false;
+        long    used    = 0;
+
+        for (int i = 0; i < pools.names.length; i++) {
+            heap    |= pools.heap[i];
+            nonHeap |= !pools.heap[i];
+            if (!pools.heap[i])
+                used += pools.usedMemory[i];
+        }
+
+        assertTrue(heap && nonHeap);
+        assertEquals(used, pools.nonHeapUsedMemory);
+        assertTrue(pools.nonHeapTotalMemory >= pools.nonHeapUsedMemory);
+    }
+
+    @Test
+    public void test_read_reports_direct_buffers() {
+        final MemoryPoolReader reader = new MemoryPoolReader();
+        final MemoryPools      before = reader.read();
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+        final MemoryPools after = reader.read();
+
+        assertTrue(after.directBufferCount > before.directBufferCount);
+        assertTrue(after.directMemoryCapacity - before.directMemoryCapacity >= buffer.capacity());
+        assertTrue(after.directMemoryUsed >= after.directMemoryCapacity);
+        assertTrue(after.directMemoryLimit > 0);
+        assertTrue(after.mappedBufferCount >= 0);
+    }
+
+}
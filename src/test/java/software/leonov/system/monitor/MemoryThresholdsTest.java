@@ -0,0 +1,189 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+
+import org.junit.jupiter.api.Test;
+
+public class MemoryThresholdsTest {
+
+    @Test
+    public void test_alerts_are_dispatched_to_reached_fractions_only() {
+        final MemoryThresholds  thresholds = new MemoryThresholds(ManagementFactory.getMemoryMXBean(), new ArrayList<>());
+        final List<MemoryAlert> low        = new ArrayList<>();
+        final List<MemoryAlert> high       = new ArrayList<>();
+
+        final MemoryThresholds.Registration registration = thresholds.register(0.5, low::add);
+        final MemoryThresholds.Registration other        = thresholds.register(0.9, high::add);
+
+        thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, "Old Gen", 600, 1000, 42);
+
+        assertEquals(1, low.size());
+        assertEquals(0, high.size());
+        assertEquals(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, low.get(0).getType());
+        assertEquals("Old Gen", low.get(0).getPoolName());
+        assertEquals(600, low.get(0).getUsedMemory());
+        assertEquals(1000, low.get(0).getMaxMemory());
+        assertEquals(500, low.get(0).getThreshold());
+        assertEquals(42, low.get(0).getTimestamp());
+
+        thresholds.unregister(registration);
+        thresholds.dispatch(MemoryAlert.Type.COLLECTION_USAGE_THRESHOLD_EXCEEDED, "Old Gen", 950, 1000, 43);
+
+        assertEquals(1, low.size());
+        assertEquals(1, high.size());
+        assertEquals(900, high.get(0).getThreshold());
+
+        thresholds.unregister(other);
+    }
+
+    @Test
+    public void test_usage_alerts_are_sent_once_per_crossing() {
+        final MemoryThresholds  thresholds = new MemoryThresholds(ManagementFactory.getMemoryMXBean(), new ArrayList<>());
+        final List<MemoryAlert> alerts     = new ArrayList<>();
+
+        final MemoryThresholds.Registration registration = thresholds.register(0.5, alerts::add);
+
+        try {
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, "Old Gen", 600, 1000, 1);
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, "Old Gen", 950, 1000, 2);
+            assertEquals(1, alerts.size());
+
+            // Collection usage alerts are sent after every collection
+            thresholds.dispatch(MemoryAlert.Type.COLLECTION_USAGE_THRESHOLD_EXCEEDED, "Old Gen", 700, 1000, 3);
+            assertEquals(2, alerts.size());
+
+            // Once the usage was seen below the fraction the next crossing is alerted again
+            thresholds.dispatch(MemoryAlert.Type.COLLECTION_USAGE_THRESHOLD_EXCEEDED, "Old Gen", 400, 1000, 4);
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, "Old Gen", 550, 1000, 5);
+            assertEquals(3, alerts.size());
+            assertEquals(5, alerts.get(2).getTimestamp());
+        } finally {
+            thresholds.unregister(registration);
+        }
+    }
+
+    @Test
+    public void test_usage_below_lowest_fraction_is_polled() {
+        final MemoryThresholds  thresholds = new MemoryThresholds(ManagementFactory.getMemoryMXBean(), new ArrayList<>());
+        final List<MemoryAlert> alerts     = new ArrayList<>();
+
+        final MemoryThresholds.Registration registration = thresholds.register(0.5, alerts::add);
+
+        try {
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, "Old Gen", 600, 1000, 1);
+            assertEquals(1, alerts.size());
+
+            // The JVM sends no collection usage notification below the lowest fraction
+            thresholds.collected("Old Gen", 700, 1000);
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, "Old Gen", 800, 1000, 2);
+            assertEquals(1, alerts.size());
+
+            thresholds.collected("Old Gen", 300, 1000);
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, "Old Gen", 550, 1000, 3);
+            assertEquals(2, alerts.size());
+            assertEquals(3, alerts.get(1).getTimestamp());
+        } finally {
+            thresholds.unregister(registration);
+        }
+    }
+
+    @Test
+    public void test_usage_threshold_is_rearmed_at_next_fraction() {
+        final MemoryThresholds thresholds = new MemoryThresholds(ManagementFactory.getMemoryMXBean(), ManagementFactory.getMemoryPoolMXBeans());
+        assumeTrue(!thresholds.getPools().isEmpty());
+
+        final MemoryPoolMXBean pool = thresholds.getPools().get(0);
+        final long             max  = pool.getUsage().getMax();
+        assumeTrue(max > 0 && pool.getUsage().getUsed() < (long) (0.5 * max));
+
+        final List<MemoryAlert>             low    = new ArrayList<>();
+        final List<MemoryAlert>             high   = new ArrayList<>();
+        final MemoryThresholds.Registration first  = thresholds.register(0.5, low::add);
+        final MemoryThresholds.Registration second = thresholds.register(0.9, high::add);
+
+        try {
+            assertEquals((long) (0.5 * max), pool.getUsageThreshold());
+
+            // Usage climbing past 0.5 re-arms the threshold so that the JVM notifies the 0.9 registration when it gets there
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, pool.getName(), (long) (0.55 * max), max, 1);
+            assertEquals(1, low.size());
+            assertEquals(0, high.size());
+            assertEquals((long) (0.9 * max), pool.getUsageThreshold());
+
+            thresholds.dispatch(MemoryAlert.Type.USAGE_THRESHOLD_EXCEEDED, pool.getName(), (long) (0.95 * max), max, 2);
+            assertEquals(1, low.size());
+            assertEquals(1, high.size());
+            assertEquals((long) (0.9 * max), pool.getUsageThreshold());
+
+            // A collection which brings the usage back down re-arms the lower fraction
+            thresholds.dispatch(MemoryAlert.Type.COLLECTION_USAGE_THRESHOLD_EXCEEDED, pool.getName(), (long) (0.6 * max), max, 3);
+            assertEquals((long) (0.9 * max), pool.getUsageThreshold());
+            assertTrue(!pool.isCollectionUsageThresholdSupported() || pool.getCollectionUsageThreshold() == (long) (0.5 * max));
+
+            // A collection which brings the usage below the lowest fraction is only observed by polling
+            thresholds.collected(pool.getName(), (long) (0.3 * max), max);
+            assertEquals((long) (0.5 * max), pool.getUsageThreshold());
+        } finally {
+            thresholds.unregister(first);
+            thresholds.unregister(second);
+        }
+    }
+
+    @Test
+    public void test_listener_is_removed_with_last_registration() {
+        final MemoryThresholds thresholds = new MemoryThresholds(ManagementFactory.getMemoryMXBean(), new ArrayList<>());
+        assumeTrue(ManagementFactory.getMemoryMXBean() instanceof NotificationEmitter);
+
+        final MemoryThresholds.Registration first  = thresholds.register(0.5, alert -> {});
+        final MemoryThresholds.Registration second = thresholds.register(0.9, alert -> {});
+
+        thresholds.unregister(first);
+        thresholds.unregister(second);
+
+        assertThrows(ListenerNotFoundException.class, () -> ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(thresholds));
+    }
+
+    @Test
+    public void test_lowest_fraction_is_armed_and_disarmed() {
+        final MemoryThresholds thresholds = new MemoryThresholds(ManagementFactory.getMemoryMXBean(), ManagementFactory.getMemoryPoolMXBeans());
+        assumeTrue(!thresholds.getPools().isEmpty());
+
+        final MemoryThresholds.Registration first  = thresholds.register(0.8, alert -> {});
+        final MemoryThresholds.Registration second = thresholds.register(0.6, alert -> {});
+
+        try {
+            for (final MemoryPoolMXBean pool : thresholds.getPools()) {
+                final long max = pool.getUsage().getMax();
+                if (max > 0)
+                    assertEquals((long) (0.6 * max), pool.getUsageThreshold(), pool.getName());
+            }
+
+            thresholds.unregister(second);
+
+            for (final MemoryPoolMXBean pool : thresholds.getPools()) {
+                final long max = pool.getUsage().getMax();
+                if (max > 0)
+                    assertEquals((long) (0.8 * max), pool.getUsageThreshold(), pool.getName());
+            }
+        } finally {
+            thresholds.unregister(first);
+        }
+
+        for (final MemoryPoolMXBean pool : thresholds.getPools()) {
+            assertEquals(0, pool.getUsageThreshold(), pool.getName());
+            assertTrue(!pool.isCollectionUsageThresholdSupported() || pool.getCollectionUsageThreshold() == 0);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricsHistoryTest {
+
+    private static void record(final MetricsHistory history, final long i) {
+        history.record(i, i, i, i, i, i);
+    }
+
+    @Test
+    public void test_empty_history() {
+        final MetricsHistory history = new MetricsHistory(10);
+
+        assertEquals(10, history.getCapacity());
+        assertEquals(0, history.getCount());
+        assertEquals(0, history.size());
+        assertEquals(0, history.read(new long[10], null, null, null, null, null));
+    }
+
+    @Test
+    public void test_read_returns_oldest_first() {
+        final MetricsHistory history = new MetricsHistory(10);
+
+        for (long i = 1; i <= 5; i++)
+            record(history, i);
+
+        final long[]   timestamps = new long[10];
+        final double[] cpu        = new double[10];
+
+        assertEquals(5, history.size());
+        assertEquals(5, history.read(timestamps, cpu, null, null, null, null));
+        assertArrayEquals(new long[] { 1, 2, 3, 4, 5, 0, 0, 0, 0, 0 }, timestamps);
+        assertArrayEquals(new double[] { 1, 2, 3, 4, 5, 0, 0, 0, 0, 0 }, cpu);
+    }
+
+    @Test
+    public void test_oldest_entries_are_replaced() {
+        final MetricsHistory history = new MetricsHistory(4);
+
+        for (long i = 1; i <= 10; i++)
+            record(history, i);
+
+        final long[] used = new long[4];
+
+        assertEquals(10, history.getCount());
+        assertEquals(4, history.size());
+        assertEquals(4, history.read(null, null, null, null, used, null));
+        assertArrayEquals(new long[] { 7, 8, 9, 10 }, used);
+    }
+
+    @Test
+    public void test_read_copies_the_most_recent_window() {
+        final MetricsHistory history = new MetricsHistory(10);
+
+        for (long i = 1; i <= 8; i++)
+            record(history, i);
+
+        final long[]   timestamps = new long[5];
+        final double[] cpu        = new double[3];
+
+        // The shortest array determines the window
+        assertEquals(3, history.read(timestamps, cpu, null, null, null, null));
+        assertArrayEquals(new double[] { 6, 7, 8 }, cpu);
+        assertArrayEquals(new long[] { 6, 7, 8, 0, 0 }, timestamps);
+    }
+
+    @Test
+    public void test_concurrent_reads_are_consistent() throws InterruptedException {
+        final MetricsHistory history = new MetricsHistory(16);
+
+        final Thread writer = new Thread(() -> {
+            for (long i = 1; !Thread.currentThread().isInterrupted(); i++)
+                record(history, i);
+        });
+
+        writer.start();
+
+        try {
+            final long[]   timestamps = new long[16];
+            final double[] cpu        = new double[16];
+            final long[]   total      = new long[16];
+
+            for (int k = 0; k < 10_000; k++) {
+                final int n = history.read(timestamps, cpu, null, null, null, total);
+                for (int j = 0; j < n; j++) {
+                    assertEquals(timestamps[j], (long) cpu[j]);
+                    assertEquals(timestamps[j], total[j]);
+                    if (j > 0)
+                        assertEquals(timestamps[j - 1] + 1, timestamps[j]);
+                }
+            }
+        } finally {
+            writer.interrupt();
+            writer.join();
+        }
+    }
+
+    @Test
+    public void test_background_monitor_keeps_history() throws InterruptedException {
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20));
+
+        assertNull(monitor.getHistory());
+
+        monitor.keepHistory(5).start();
+        Thread.sleep(300);
+        monitor.close();
+
+        final MetricsHistory history = monitor.getHistory();
+        final long[]         used    = new long[5];
+        final long[]         times   = new long[5];
+
+        assertEquals(5, history.size());
+        assertTrue(history.getCount() > 5);
+        assertEquals(5, history.read(times, null, null, null, used, null));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(used[i] > 0);
+            assertTrue(i == 0 || times[i - 1] <= times[i]);
+        }
+    }
+
+    @Test
+    public void test_keepHistory_invalid_arguments() {
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval();
+
+        assertEquals("capacity <= 0", assertThrows(IllegalArgumentException.class, () -> monitor.keepHistory(0)).getMessage());
+
+        monitor.start();
+        assertEquals("monitor has already started", assertThrows(IllegalStateException.class, () -> monitor.keepHistory(10)).getMessage());
+        monitor.close();
+    }
+
+}
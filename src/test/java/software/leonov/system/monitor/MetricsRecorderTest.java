@@ -0,0 +1,188 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MetricsRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    private static void record(final MetricsRecorder recorder, final long i) {
+        recorder.record(i, i, i, i, i, i, i, i);
+    }
+
+    @Test
+    public void test_empty_recording() throws IOException {
+        assertEquals(0, MetricsRecording.open(directory).size());
+
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 10, 3)) {
+            final MetricsRecording recording = MetricsRecording.open(directory);
+
+            assertEquals(0, recording.size());
+            assertEquals(0, recording.indexOf(100));
+            assertEquals(0, recording.read(0, new long[10], null, null, null, null, null, null, null));
+        }
+    }
+
+    @Test
+    public void test_read_spans_segments() throws IOException {
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 4, 10)) {
+            for (long i = 1; i <= 10; i++)
+                record(recorder, i * 10);
+        }
+
+        final MetricsRecording recording = MetricsRecording.open(directory);
+
+        final long[]   timestamps = new long[10];
+        final double[] gc         = new double[10];
+        final long[]   allocation = new long[10];
+
+        assertEquals(10, recording.size());
+        assertEquals(10, recording.read(0, timestamps, null, null, null, null, null, allocation, gc));
+        assertArrayEquals(new long[] { 10, 20, 30, 40, 50, 60, 70, 80, 90, 100 }, timestamps);
+        assertArrayEquals(new long[] { 10, 20, 30, 40, 50, 60, 70, 80, 90, 100 }, allocation);
+        assertArrayEquals(new double[] { 10, 20, 30, 40, 50, 60, 70, 80, 90, 100 }, gc);
+    }
+
+    @Test
+    public void test_indexOf_finds_range() throws IOException {
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 3, 10)) {
+            for (long i = 1; i <= 10; i++)
+                record(recorder, i * 10);
+        }
+
+        final MetricsRecording recording = MetricsRecording.open(directory);
+
+        assertEquals(0, recording.indexOf(Long.MIN_VALUE));
+        assertEquals(0, recording.indexOf(10));
+        assertEquals(4, recording.indexOf(45));
+        assertEquals(4, recording.indexOf(50));
+        assertEquals(10, recording.indexOf(101));
+
+        final long   from = recording.indexOf(35);
+        final long   to   = recording.indexOf(75);
+        final long[] used = new long[(int) (to - from)];
+
+        assertEquals(4, recording.read(from, null, null, null, null, used, null, null, null));
+        assertArrayEquals(new long[] { 40, 50, 60, 70 }, used);
+    }
+
+    @Test
+    public void test_oldest_segments_are_deleted() throws IOException {
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 2, 3)) {
+            for (long i = 1; i <= 10; i++)
+                record(recorder, i);
+        }
+
+        final MetricsRecording recording = MetricsRecording.open(directory);
+        final long[]           times     = new long[10];
+
+        assertEquals(3, MetricsRecording.listSegments(directory).size());
+        assertEquals(6, recording.size());
+        assertEquals(6, recording.read(0, times, null, null, null, null, null, null, null));
+        assertArrayEquals(new long[] { 5, 6, 7, 8, 9, 10, 0, 0, 0, 0 }, times);
+    }
+
+    @Test
+    public void test_recording_is_continued_and_sorted() throws IOException {
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 10, 10)) {
+            record(recorder, 1);
+            record(recorder, 2);
+        }
+
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 10, 10)) {
+            record(recorder, 5);
+
+            // The clock went backwards
+            record(recorder, 3);
+
+            // Records appended to the open segment are visible to an open recording
+            final MetricsRecording recording = MetricsRecording.open(directory);
+            assertEquals(4, recording.size());
+            record(recorder, 6);
+            assertEquals(5, recording.size());
+
+            final long[] times = new long[5];
+            assertEquals(5, recording.read(0, times, null, null, null, null, null, null, null));
+            assertArrayEquals(new long[] { 1, 2, 5, 5, 6 }, times);
+            assertEquals(2, recording.indexOf(3));
+        }
+    }
+
+    @Test
+    public void test_reopened_recording_with_earlier_clock_stays_sorted() throws IOException {
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 10, 10)) {
+            record(recorder, 100);
+            record(recorder, 200);
+        }
+
+        // A recorder which did not record anything leaves an empty segment
+        MetricsRecorder.open(directory, 10, 10).close();
+
+        // The clock went back across a restart
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 10, 10)) {
+            record(recorder, 50);
+            record(recorder, 300);
+        }
+
+        final MetricsRecording recording = MetricsRecording.open(directory);
+        final long[]           times     = new long[4];
+
+        assertEquals(4, recording.read(0, times, null, null, null, null, null, null, null));
+        assertArrayEquals(new long[] { 100, 200, 200, 300 }, times);
+        assertEquals(3, recording.indexOf(250));
+    }
+
+    @Test
+    public void test_background_monitor_records() throws IOException, InterruptedException {
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 8, 4)) {
+            final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).recordTo(recorder);
+
+            monitor.start();
+            Thread.sleep(300);
+            monitor.close();
+        }
+
+        final MetricsRecording recording = MetricsRecording.open(directory);
+        final int              n         = (int) recording.size();
+        final long[]           used      = new long[n];
+        final long[]           times     = new long[n];
+
+        assertTrue(n > 5);
+        assertEquals(n, recording.read(0, times, null, null, null, used, null, null, null));
+
+        for (int i = 0; i < n; i++) {
+            assertTrue(used[i] > 0);
+            assertTrue(i == 0 || times[i - 1] <= times[i]);
+        }
+    }
+
+    @Test
+    public void test_invalid_arguments() throws IOException {
+        assertEquals("recordsPerSegment <= 0", assertThrows(IllegalArgumentException.class, () -> MetricsRecorder.open(directory, 0, 1)).getMessage());
+        assertEquals("maxSegments <= 0", assertThrows(IllegalArgumentException.class, () -> MetricsRecorder.open(directory, 1, 0)).getMessage());
+
+        try (final MetricsRecorder recorder = MetricsRecorder.open(directory, 10, 1)) {
+            final MetricsRecording recording = MetricsRecording.open(directory);
+
+            assertThrows(IndexOutOfBoundsException.class, () -> recording.getTimestamp(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> recording.read(1, new long[1], null, null, null, null, null, null, null));
+
+            final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval();
+            monitor.start();
+            assertEquals("monitor has already started", assertThrows(IllegalStateException.class, () -> monitor.recordTo(recorder)).getMessage());
+            monitor.close();
+        }
+    }
+
+}
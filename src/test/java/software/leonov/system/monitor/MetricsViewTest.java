@@ -0,0 +1,174 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("restriction")
+public class MetricsViewTest {
+
+    @Test
+    public void test_new_view_returns_negative_values() {
+        final MetricsView view = new MetricsView();
+
+        assertEquals(-1.0, view.getProcessCpuLoad());
+        assertEquals(-1.0, view.getSystemCpuLoad());
+        assertEquals(-1.0, view.getSystemLoadAverage());
+        assertEquals(-1.0, view.getAverageProcessCpuLoad());
+        assertEquals(-1.0, view.getAverageSystemCpuLoad());
+        assertEquals(-1.0, view.getMaxProcessCpuLoad());
+        assertEquals(-1.0, view.getMaxSystemCpuLoad());
+        assertEquals(-1L, view.getUsedMemory());
+        assertEquals(-1L, view.getTotalMemory());
+        assertEquals(-1L, view.getMaxUsedMemory());
+    }
+
+    @Test
+    public void test_view_matches_usage_objects() {
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofHours(1));
+        final CpuUsage          cpu     = monitor.getCpuUsage();
+        final MemoryUsage       memory  = monitor.getMemoryUsage();
+        final MetricsView       view    = monitor.getMetricsView();
+
+        assertEquals(cpu.getProcessCpuLoad(), view.getProcessCpuLoad());
+        assertEquals(cpu.getSystemCpuLoad(), view.getSystemCpuLoad());
+        assertEquals(cpu.getSystemLoadAverage(), view.getSystemLoadAverage());
+        assertEquals(cpu.getAverageProcessCpuLoad(), view.getAverageProcessCpuLoad());
+        assertEquals(cpu.getAverageSystemCpuLoad(), view.getAverageSystemCpuLoad());
+        assertEquals(cpu.getMaxProcessCpuLoad(), view.getMaxProcessCpuLoad());
+        assertEquals(cpu.getMaxSystemCpuLoad(), view.getMaxSystemCpuLoad());
+        assertEquals(memory.getUsedMemory(), view.getUsedMemory());
+        assertEquals(memory.getTotalMemory(), view.getTotalMemory());
+        assertEquals(memory.getMaxUsedMemory(), view.getMaxUsedMemory());
+    }
+
+    @Test
+    public void test_unsupported_monitor_returns_negative_view() {
+        assertSame(MetricsView.NEGATIVE_METRICS_VIEW, UnsupportedSystemMonitor.getInstance().getMetricsView());
+    }
+
+    @Test
+    public void test_lazy_view_refreshes_on_read() throws InterruptedException {
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofMillis(50));
+        final MetricsView       view    = monitor.getMetricsView();
+        final long              stamp   = view.beginRead();
+
+        Thread.sleep(100);
+
+        view.getUsedMemory();
+        assertFalse(view.validate(stamp), "Reading a kept view should update the metrics");
+    }
+
+    @Test
+    public void test_background_view_follows_monitor_state() throws InterruptedException {
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(50));
+        final MetricsView             view    = monitor.getMetricsView();
+
+        assertEquals(-1L, view.getUsedMemory(), "View should be negative before start");
+
+        monitor.start();
+        try {
+            assertSame(view, monitor.getMetricsView());
+            assertTrue(view.getUsedMemory() >= 0, "View should be populated after start");
+        } finally {
+            monitor.close();
+        }
+
+        assertEquals(-1L, view.getUsedMemory(), "View should be negative after close");
+        assertEquals(-1.0, view.getProcessCpuLoad(), "View should be negative after close");
+    }
+
+    @Test
+    public void test_validate_fails_after_update() {
+        final MetricsView view  = new MetricsView();
+        final long        stamp = view.beginRead();
+
+        assertTrue(view.validate(stamp));
+        view.update(1, 1, 1, 1, 1, 1, 1, 1, 1, 1);
+        assertFalse(view.validate(stamp));
+    }
+
+    @Test
+    public void test_consistent_reads_during_updates() throws InterruptedException {
+        final MetricsView view = new MetricsView();
+
+        final Thread writer = new Thread(() -> {
+            for (long i = 0; !Thread.currentThread().isInterrupted(); i++)
+                view.update(i, i, i, i, i, i, i, i, i, i);
+        });
+
+        writer.start();
+
+        try {
+            for (int i = 0; i < 100_000; i++) {
+                long   stamp;
+                double cpu;
+                long   memory;
+                long   maxMemory;
+
+                do {
+                    stamp     = view.beginRead();
+                    cpu       = view.getProcessCpuLoad();
+                    memory    = view.getUsedMemory();
+                    maxMemory = view.getMaxUsedMemory();
+                } while (!view.validate(stamp));
+
+                assertEquals((long) cpu, memory);
+                assertEquals(memory, maxMemory);
+            }
+        } finally {
+            writer.interrupt();
+            writer.join();
+        }
+    }
+
+    @Test
+    public void test_reads_do_not_allocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        final LazySystemMonitor monitor = LazySystemMonitor.withUpdateThreshold(Duration.ofHours(1));
+        final long              id      = Thread.currentThread().getId();
+
+        double sum = 0;
+
+        // Warm up so that class loading and compilation do not count
+        for (int i = 0; i < 100_000; i++)
+            sum += read(monitor.getMetricsView());
+
+        // Measuring may allocate as well
+        final long start    = threadBean.getThreadAllocatedBytes(id);
+        final long overhead = threadBean.getThreadAllocatedBytes(id) - start;
+        final long before   = threadBean.getThreadAllocatedBytes(id);
+
+        for (int i = 0; i < 1_000_000; i++)
+            sum += read(monitor.getMetricsView());
+
+        final long allocated = threadBean.getThreadAllocatedBytes(id) - before - overhead;
+
+        assertTrue(sum != 0);
+        assertTrue(allocated < 1024, "1,000,000 reads allocated " + allocated + " bytes");
+    }
+
+    private static double read(final MetricsView view) {
+        long   stamp;
+        double value;
+
+        do {
+            stamp = view.beginRead();
+            value = view.getProcessCpuLoad() + view.getUsedMemory() + view.getTotalMemory();
+        } while (!view.validate(stamp));
+
+        return value;
+    }
+
+}
@@ -0,0 +1,80 @@
+package software.leonov.system.monitor;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+public class ProcStatReaderTest {
+
+    private static ByteBuffer buffer(final String contents) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        buffer.put(contents.getBytes(US_ASCII)).flip();
+        return buffer;
+    }
+
+    @Test
+    public void test_parse_process_ticks() {
+        final ByteBuffer buffer = buffer("4175 (java) S 4168 4175 4168 0 -1 4194304 83 0 0 0 1234 567 0 0 20 0 1 0 211806 2703360 325\n");
+        assertEquals(1234 + 567, ProcStatReader.parseProcessTicks(buffer));
+    }
+
+    @Test
+    public void test_parse_process_ticks_command_with_spaces_and_parentheses() {
+        final ByteBuffer buffer = buffer("4175 (my (odd) cmd) R 4168 4175 4168 0 -1 4194304 83 0 0 0 10 20 0 0 20 0 1 0 211806 2703360 325\n");
+        assertEquals(30, ProcStatReader.parseProcessTicks(buffer));
+    }
+
+    @Test
+    public void test_parse_process_ticks_truncated() {
+        assertEquals(-1, ProcStatReader.parseProcessTicks(buffer("4175 (java) S 4168 4175")));
+        assertEquals(-1, ProcStatReader.parseProcessTicks(buffer("garbage")));
+    }
+
+    @Test
+    public void test_parse_system_ticks() {
+        final long[] ticks = new long[8];
+        assertTrue(ProcStatReader.parseSystemTicks(buffer("cpu  48732 0 2006 159441 1218 0 10 658 0 0\ncpu0 48732 0 2006 159441 1218 0 10 658 0 0\n"), ticks));
+        assertArrayEquals(new long[] { 48732, 0, 2006, 159441, 1218, 0, 10, 658 }, ticks);
+    }
+
+    @Test
+    public void test_parse_system_ticks_old_kernel() {
+        final long[] ticks = new long[8];
+        assertTrue(ProcStatReader.parseSystemTicks(buffer("cpu  100 1 200 300 4\ncpu0 100 1 200 300 4\n"), ticks));
+        assertArrayEquals(new long[] { 100, 1, 200, 300, 4, 0, 0, 0 }, ticks);
+    }
+
+    @Test
+    public void test_parse_system_ticks_invalid() {
+        assertFalse(ProcStatReader.parseSystemTicks(buffer("intr 267517 0 0"), new long[8]));
+        assertFalse(ProcStatReader.parseSystemTicks(buffer("cpu  100 1"), new long[8]));
+    }
+
+    @Test
+    public void test_cpu_load_on_linux() throws InterruptedException {
+        try (final ProcStatReader reader = ProcStatReader.open()) {
+            assumeTrue(reader != null, "/proc is not available");
+
+            assertEquals(-1.0, reader.getProcessCpuLoad());
+            assertEquals(-1.0, reader.getSystemCpuLoad());
+
+            final long end = System.nanoTime() + 200_000_000L;
+            long       x   = 0;
+            while (System.nanoTime() < end)
+                x += x * 31 + 7;
+
+            assertTrue(reader.update(), Long.toString(x));
+
+            assertTrue(reader.getProcessCpuLoad() > 0.0 && reader.getProcessCpuLoad() <= 1.0);
+            assertTrue(reader.getSystemCpuLoad() >= reader.getProcessCpuLoad() - 0.05 && reader.getSystemCpuLoad() <= 1.0);
+        }
+    }
+
+}
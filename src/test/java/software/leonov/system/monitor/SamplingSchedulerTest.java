@@ -0,0 +1,120 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import software.leonov.system.monitor.SamplingScheduler.Subscription;
+
+public class SamplingSchedulerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void test_subscribers_share_samples() throws InterruptedException {
+        final SamplingScheduler scheduler = new SamplingScheduler("test-sampler");
+        final List<Sample>      fast      = new CopyOnWriteArrayList<>();
+        final List<Sample>      slow      = new CopyOnWriteArrayList<>();
+
+        final Subscription s1 = scheduler.subscribe(fast::add, 50 * MILLIS);
+        final Subscription s2 = scheduler.subscribe(slow::add, 100 * MILLIS);
+
+        Thread.sleep(650);
+
+        scheduler.unsubscribe(s1);
+        scheduler.unsubscribe(s2);
+
+        assertTrue(slow.size() >= 3, "Slow subscriber should have been updated, got: " + slow.size());
+        assertTrue(fast.size() > slow.size(), "Fast subscriber should be updated more often");
+
+        // Every sample delivered to the slow subscriber must be the exact same sample delivered to the fast subscriber
+        final Set<Sample> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        shared.addAll(fast);
+        for (final Sample sample : slow)
+            assertTrue(shared.contains(sample), "Sample was not shared between subscribers");
+    }
+
+    @Test
+    public void test_subscribers_use_one_thread() throws InterruptedException {
+        final SamplingScheduler  scheduler     = new SamplingScheduler("test-sampler");
+        final List<Thread>       threads       = new CopyOnWriteArrayList<>();
+        final List<Subscription> subscriptions = new ArrayList<>();
+
+        for (int i = 1; i <= 5; i++)
+            subscriptions.add(scheduler.subscribe(sample -> threads.add(Thread.currentThread()), i * 20 * MILLIS));
+
+        Thread.sleep(300);
+
+        subscriptions.forEach(scheduler::unsubscribe);
+
+        assertFalse(threads.isEmpty());
+        assertEquals(1, threads.stream().distinct().count(), "All subscribers should be updated on the same thread");
+    }
+
+    @Test
+    public void test_unsubscribe_stops_updates() throws InterruptedException {
+        final SamplingScheduler scheduler = new SamplingScheduler("test-sampler");
+        final AtomicInteger     count     = new AtomicInteger();
+
+        final Subscription subscription = scheduler.subscribe(sample -> count.incrementAndGet(), 20 * MILLIS);
+
+        Thread.sleep(150);
+        scheduler.unsubscribe(subscription);
+        final int updates = count.get();
+        Thread.sleep(150);
+
+        assertFalse(subscription.isActive());
+        assertTrue(updates > 0);
+        assertEquals(updates, count.get(), "No updates should be received after unsubscribing");
+    }
+
+    @Test
+    public void test_failing_subscriber_is_cancelled() throws InterruptedException {
+        final SamplingScheduler scheduler = new SamplingScheduler("test-sampler");
+        final AtomicInteger     count     = new AtomicInteger();
+
+        final Subscription failing = scheduler.subscribe(sample -> {
+            throw new IllegalStateException("expected by test_failing_subscriber_is_cancelled");
+        }, 20 * MILLIS);
+        final Subscription working = scheduler.subscribe(sample -> count.incrementAndGet(), 20 * MILLIS);
+
+        Thread.sleep(150);
+
+        assertFalse(failing.isActive());
+        assertTrue(working.isActive());
+        assertTrue(count.get() > 1, "Other subscribers should keep receiving updates");
+
+        scheduler.unsubscribe(working);
+    }
+
+    @Test
+    public void test_setInterval_changes_update_rate() throws InterruptedException {
+        final SamplingScheduler scheduler = new SamplingScheduler("test-sampler");
+        final AtomicInteger     count     = new AtomicInteger();
+
+        final Subscription subscription = scheduler.subscribe(sample -> count.incrementAndGet(), 500 * MILLIS);
+
+        scheduler.setInterval(subscription, 20 * MILLIS);
+        Thread.sleep(300);
+        scheduler.setInterval(subscription, 10_000 * MILLIS);
+        final int updates = count.get();
+        Thread.sleep(300);
+
+        scheduler.unsubscribe(subscription);
+
+        assertTrue(updates >= 5, "Shorter interval should be applied, got: " + updates);
+        assertTrue(count.get() <= updates + 1, "Longer interval should be applied");
+    }
+
+}
@@ -0,0 +1,219 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SharedMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    private static void update(final SharedMetricsWriter writer, final long i) {
+        writer.update(i, i, i, i, i, i, i, i, i, i, i, i, i);
+    }
+
+    @Test
+    public void test_new_file_is_negative() throws IOException {
+        final Path file = directory.resolve("metrics");
+
+        try (final SharedMetricsWriter writer = SharedMetricsWriter.open(file)) {
+            final SharedMetricsReader reader = SharedMetricsReader.open(file);
+
+            assertEquals(SharedMetricsWriter.SIZE, Files.size(file));
+            assertEquals(-1, reader.getSequenceNumber());
+            assertEquals(-1, reader.getTimestamp());
+            assertEquals(-1.0, reader.getProcessCpuLoad());
+            assertEquals(-1.0, reader.getMaxSystemCpuLoad());
+            assertEquals(-1, reader.getUsedMemory());
+            assertEquals(-1, reader.getAllocationRate());
+            assertTrue(reader.validate(reader.beginRead()));
+        }
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void test_reader_sees_updates() throws IOException {
+        final Path file = directory.resolve("metrics");
+
+        try (final SharedMetricsWriter writer = SharedMetricsWriter.open(file)) {
+            final SharedMetricsReader reader = SharedMetricsReader.open(file);
+
+            final long stamp = reader.beginRead();
+            writer.update(7, 1000, 1.5, 2.5, 3.5, 4.5, 5.5, 6.5, 7.5, 100, 200, 300, 400);
+            assertFalse(reader.validate(stamp));
+
+            assertEquals(7, reader.getSequenceNumber());
+            assertEquals(1000, reader.getTimestamp());
+            assertEquals(1.5, reader.getProcessCpuLoad());
+            assertEquals(2.5, reader.getSystemCpuLoad());
+            assertEquals(3.5, reader.getSystemLoadAverage());
+            assertEquals(4.5, reader.getAverageProcessCpuLoad());
+            assertEquals(5.5, reader.getAverageSystemCpuLoad());
+            assertEquals(6.5, reader.getMaxProcessCpuLoad());
+            assertEquals(7.5, reader.getMaxSystemCpuLoad());
+            assertEquals(100, reader.getUsedMemory());
+            assertEquals(200, reader.getTotalMemory());
+            assertEquals(300, reader.getMaxUsedMemory());
+            assertEquals(400, reader.getAllocationRate());
+        }
+    }
+
+    @Test
+    public void test_concurrent_reads_are_consistent() throws IOException, InterruptedException {
+        final Path file = directory.resolve("metrics");
+
+        try (final SharedMetricsWriter writer = SharedMetricsWriter.open(file)) {
+            final SharedMetricsReader reader = SharedMetricsReader.open(file);
+
+            final Thread thread = new Thread(() -> {
+                for (long i = 1; !Thread.currentThread().isInterrupted(); i++)
+                    update(writer, i);
+            });
+
+            thread.start();
+
+            try {
+                for (int k = 0; k < 10_000; k++) {
+                    long   stamp;
+                    long   sequence;
+                    double cpu;
+                    long   rate;
+
+                    do {
+                        stamp    = reader.beginRead();
+                        sequence = reader.getSequenceNumber();
+                        cpu      = reader.getProcessCpuLoad();
+                        rate     = reader.getAllocationRate();
+                    } while (!reader.validate(stamp));
+
+                    if (sequence > 0) {
+                        assertEquals(sequence, (long) cpu);
+                        assertEquals(sequence, rate);
+                    }
+                }
+            } finally {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    public void test_background_monitor_publishes() throws IOException, InterruptedException {
+        final Path file = directory.resolve("sysmon").resolve("metrics");
+
+        try (final SharedMetricsWriter writer = SharedMetricsWriter.open(file)) {
+            final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).publishTo(writer);
+
+            monitor.start();
+            Thread.sleep(200);
+            monitor.close();
+
+            final SharedMetricsReader reader = SharedMetricsReader.open(file);
+
+            assertTrue(reader.getSequenceNumber() > 0);
+            assertTrue(reader.getTimestamp() > 0);
+            assertTrue(reader.getUsedMemory() > 0);
+            assertTrue(reader.getPid() > 0);
+            assertEquals(SharedMetricsWriter.defaultPath(reader.getPid()), SharedMetricsWriter.defaultPath());
+        }
+    }
+
+    @Test
+    public void test_invalid_files() throws IOException {
+        final Path file = directory.resolve("metrics");
+
+        Files.write(file, new byte[SharedMetricsWriter.SIZE]);
+        assertThrows(IOException.class, () -> SharedMetricsReader.open(file));
+
+        final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.withDefaultUpdateInterval();
+        monitor.start();
+
+        try (final SharedMetricsWriter writer = SharedMetricsWriter.open(file)) {
+            assertEquals("monitor has already started", assertThrows(IllegalStateException.class, () -> monitor.publishTo(writer)).getMessage());
+        } finally {
+            monitor.close();
+        }
+    }
+
+    @Test
+    public void test_stale_file_is_replaced() throws IOException {
+        final Path file = directory.resolve("metrics");
+        Files.write(file, new byte[4 * SharedMetricsWriter.SIZE]);
+
+        try (final SharedMetricsWriter writer = SharedMetricsWriter.open(file)) {
+            assertEquals(SharedMetricsWriter.SIZE, Files.size(file));
+            assertEquals(-1, SharedMetricsReader.open(file).getSequenceNumber());
+        }
+    }
+
+    @Test
+    public void test_symbolic_link_is_not_followed() throws IOException {
+        final Path   target = directory.resolve("target");
+        final Path   link   = directory.resolve("metrics");
+        final byte[] data   = { 1, 2, 3 };
+
+        Files.write(target, data);
+        try {
+            Files.createSymbolicLink(link, target);
+        } catch (final UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "symbolic links are not supported");
+        }
+
+        assertThrows(IOException.class, () -> SharedMetricsWriter.open(link));
+        assertTrue(Files.isSymbolicLink(link));
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void test_directory_permissions() throws IOException {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        final Path file = directory.resolve("sysmon").resolve("metrics");
+
+        try (final SharedMetricsWriter writer = SharedMetricsWriter.open(file)) {
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParent(), LinkOption.NOFOLLOW_LINKS)));
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file, LinkOption.NOFOLLOW_LINKS)));
+        }
+
+        final Path shared = Files.createDirectory(directory.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        assertThrows(IOException.class, () -> SharedMetricsWriter.open(shared.resolve("metrics")));
+        assertFalse(Files.exists(shared.resolve("metrics")));
+    }
+
+    @Test
+    public void test_interrupted_update_does_not_hang_reader() throws IOException {
+        final Path       file   = directory.resolve("metrics");
+        final ByteBuffer buffer = ByteBuffer.allocate(SharedMetricsWriter.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        // A file whose writer died during an update
+        buffer.putInt(0, SharedMetricsWriter.MAGIC);
+        buffer.putInt(4, SharedMetricsWriter.VERSION);
+        buffer.putLong(SharedMetricsWriter.SEQLOCK, 3);
+        Files.write(file, buffer.array());
+
+        final SharedMetricsReader reader = SharedMetricsReader.open(file);
+
+        assertThrows(IllegalStateException.class, reader::beginRead);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class SlidingWindowAverageTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void test_no_values_returns_negative() {
+        assertEquals(-1.0, new SlidingWindowAverage(MINUTE).get());
+    }
+
+    @Test
+    public void test_first_value_is_the_average() {
+        final SlidingWindowAverage average = new SlidingWindowAverage(MINUTE);
+        average.update(42.0, 0);
+        assertEquals(42.0, average.get());
+    }
+
+    @Test
+    public void test_time_weighted_average() {
+        final SlidingWindowAverage average = new SlidingWindowAverage(MINUTE);
+        average.update(0.0, 0);
+        average.update(10.0, 10 * SECOND); // 10.0 measured over 10 seconds
+        average.update(40.0, 15 * SECOND); // 40.0 measured over 5 seconds
+
+        assertEquals((10.0 * 10 + 40.0 * 5) / 15, average.get(), 1e-9);
+    }
+
+    @Test
+    public void test_old_values_slide_out_of_the_window() {
+        final SlidingWindowAverage average = new SlidingWindowAverage(MINUTE);
+        average.update(0.0, 0);
+
+        for (long t = SECOND; t <= MINUTE; t += SECOND)
+            average.update(100.0, t);
+
+        assertEquals(100.0, average.get(), 1e-9);
+
+        for (long t = MINUTE + SECOND; t <= 3 * MINUTE; t += SECOND)
+            average.update(20.0, t);
+
+        assertEquals(20.0, average.get(), 1e-9);
+    }
+
+    @Test
+    public void test_long_gap_clears_the_window() {
+        final SlidingWindowAverage average = new SlidingWindowAverage(MINUTE);
+        average.update(0.0, 0);
+
+        for (long t = SECOND; t <= 30 * SECOND; t += SECOND)
+            average.update(100.0, t);
+
+        average.update(50.0, 10 * MINUTE);
+
+        assertEquals(50.0, average.get(), 1e-9);
+    }
+
+    @Test
+    public void test_window_covers_only_the_horizon() {
+        final SlidingWindowAverage average = new SlidingWindowAverage(MINUTE, 60);
+        average.update(0.0, 0);
+
+        for (long t = SECOND; t <= 2 * MINUTE; t += SECOND)
+            average.update(t <= MINUTE ? 0.0 : 60.0, t);
+
+        assertEquals(60.0, average.get(), 1e-9);
+
+        // Half of the window
+        for (long t = 2 * MINUTE + SECOND; t <= 2 * MINUTE + 30 * SECOND; t += SECOND)
+            average.update(0.0, t);
+
+        assertEquals(30.0, average.get(), 1.0);
+    }
+
+}
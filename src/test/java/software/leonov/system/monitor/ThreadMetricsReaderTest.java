@@ -0,0 +1,152 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class ThreadMetricsReaderTest {
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink;
+
+    // Burns the specified amount of CPU time (not wall-clock time, which is longer when the machine is busy)
+    private static void burn(final long millis) {
+        final long end = THREAD_BEAN.getCurrentThreadCpuTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long       x   = 0;
+        while (THREAD_BEAN.getCurrentThreadCpuTime() < end)
+            x += x * 31 + 7;
+        if (x == 42)
+            System.out.print("");
+    }
+
+    @Test
+    public void test_total_includes_new_threads() throws InterruptedException {
+        assumeTrue(THREAD_BEAN.isThreadCpuTimeSupported() && THREAD_BEAN.isThreadCpuTimeEnabled());
+
+        final ThreadMetricsReader reader = new ThreadMetricsReader(THREAD_BEAN);
+        final long                before = reader.readCpuTime();
+
+        final CountDownLatch burned  = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Thread thread = new Thread(() -> {
+            burn(200);
+            burned.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+            }
+        });
+        thread.start();
+        burned.await();
+
+        final long after = reader.readCpuTime();
+
+        release.countDown();
+        thread.join();
+
+        assertTrue(after - before >= TimeUnit.MILLISECONDS.toNanos(100), "after - before = " + (after - before));
+    }
+
+    @Test
+    public void test_allocated_bytes_include_new_and_terminated_threads() throws InterruptedException {
+        assumeTrue(THREAD_BEAN instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+        assumeTrue(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled());
+
+        final ThreadMetricsReader reader = new ThreadMetricsReader(THREAD_BEAN);
+        final long                before = reader.readAllocatedBytes();
+
+        final CountDownLatch allocated = new CountDownLatch(1);
+        final CountDownLatch release   = new CountDownLatch(1);
+
+        final Thread thread = new Thread(() -> {
+            for (int i = 0; i < 100; i++)
+                sink = new byte[100_000];
+            allocated.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+            }
+        });
+        thread.start();
+        allocated.await();
+
+        final long after = reader.readAllocatedBytes();
+
+        release.countDown();
+        thread.join();
+
+        assertTrue(reader.readAllocatedBytes() >= after);
+        assertTrue(after - before >= 10_000_000, "after - before = " + (after - before));
+    }
+
+    @Test
+    public void test_readThreadTimes_reports_allocated_bytes() {
+        assumeTrue(THREAD_BEAN instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+        assumeTrue(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled());
+
+        final ThreadMetricsReader reader = new ThreadMetricsReader(THREAD_BEAN);
+        final long                id     = Thread.currentThread().getId();
+
+        final long before = allocatedBytes(reader.readThreadTimes(), id);
+        for (int i = 0; i < 10; i++)
+            sink = new byte[100_000];
+        final long after = allocatedBytes(reader.readThreadTimes(), id);
+
+        assertTrue(after - before >= 1_000_000, "after - before = " + (after - before));
+    }
+
+    private static long allocatedBytes(final ThreadTimes times, final long id) {
+        for (int i = 0; i < times.ids.length; i++)
+            if (times.ids[i] == id)
+                return times.allocatedBytes[i];
+        return -1;
+    }
+
+    @Test
+    public void test_total_does_not_decrease_when_threads_terminate() throws InterruptedException {
+        assumeTrue(THREAD_BEAN.isThreadCpuTimeSupported() && THREAD_BEAN.isThreadCpuTimeEnabled());
+
+        final ThreadMetricsReader reader = new ThreadMetricsReader(THREAD_BEAN);
+
+        final CountDownLatch burned  = new CountDownLatch(4);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread[]       threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                burn(50);
+                burned.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                }
+            });
+            threads[i].start();
+        }
+
+        burned.await();
+
+        final long alive = reader.readCpuTime();
+        final int  count = reader.getThreadCount();
+
+        release.countDown();
+        for (final Thread thread : threads)
+            thread.join();
+
+        final long terminated = reader.readCpuTime();
+
+        assertTrue(terminated >= alive, "terminated = " + terminated + ", alive = " + alive);
+        assertTrue(reader.getThreadCount() <= count - threads.length);
+    }
+
+}
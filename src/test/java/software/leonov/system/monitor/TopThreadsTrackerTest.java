@@ -0,0 +1,136 @@
+package software.leonov.system.monitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TopThreadsTrackerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // IDs of threads which do not exist, their names are reported as empty strings
+    private static final long ID = Long.MAX_VALUE - 1000;
+
+    private static ThreadTimes times(final long time, final long... cpuTimes) {
+        final long[] ids = new long[cpuTimes.length];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = ID + i;
+        return new ThreadTimes(time, ids, cpuTimes, unavailable(ids.length));
+    }
+
+    private static ThreadTimes allocations(final long time, final long... allocatedBytes) {
+        final long[] ids = new long[allocatedBytes.length];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = ID + i;
+        return new ThreadTimes(time, ids, unavailable(ids.length), allocatedBytes);
+    }
+
+    private static long[] unavailable(final int length) {
+        final long[] values = new long[length];
+        Arrays.fill(values, -1);
+        return values;
+    }
+
+    @Test
+    public void test_first_update_is_empty() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(3, ManagementFactory.getThreadMXBean());
+        assertTrue(tracker.update(times(SECOND, 100, 200, 300), 1).isEmpty());
+    }
+
+    @Test
+    public void test_top_threads_in_descending_order() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(3, ManagementFactory.getThreadMXBean());
+
+        tracker.update(times(SECOND, 0, 0, 0, 0, 0, 0), 1);
+
+        final List<ThreadUsage> top = tracker.update(times(2 * SECOND, SECOND / 10, SECOND / 2, 0, SECOND / 4, SECOND / 20, SECOND / 5), 1);
+
+        assertEquals(3, top.size());
+
+        assertEquals(ID + 1, top.get(0).getThreadId());
+        assertEquals(50.0, top.get(0).getCpuLoad(), 1e-9);
+        assertEquals(ID + 3, top.get(1).getThreadId());
+        assertEquals(25.0, top.get(1).getCpuLoad(), 1e-9);
+        assertEquals(ID + 5, top.get(2).getThreadId());
+        assertEquals(20.0, top.get(2).getCpuLoad(), 1e-9);
+        assertEquals("", top.get(0).getThreadName());
+    }
+
+    @Test
+    public void test_cpu_load_is_normalized_by_processors() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(1, ManagementFactory.getThreadMXBean());
+
+        tracker.update(times(SECOND, 0), 4);
+        final List<ThreadUsage> top = tracker.update(times(2 * SECOND, SECOND), 4);
+
+        assertEquals(25.0, top.get(0).getCpuLoad(), 1e-9);
+    }
+
+    @Test
+    public void test_idle_and_terminated_threads_are_not_reported() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(5, ManagementFactory.getThreadMXBean());
+
+        tracker.update(times(SECOND, 100, 200), 1);
+
+        // The second thread has terminated and the first one was idle
+        assertTrue(tracker.update(new ThreadTimes(2 * SECOND, new long[] { ID }, new long[] { 100 }, new long[] { -1 }), 1).isEmpty());
+    }
+
+    @Test
+    public void test_new_threads_report_all_their_cpu_time() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(5, ManagementFactory.getThreadMXBean());
+
+        tracker.update(times(SECOND, 100), 1);
+        final List<ThreadUsage> top = tracker.update(times(2 * SECOND, 100, SECOND / 10), 1);
+
+        assertEquals(1, top.size());
+        assertEquals(ID + 1, top.get(0).getThreadId());
+        assertEquals(10.0, top.get(0).getCpuLoad(), 1e-9);
+    }
+
+    @Test
+    public void test_names_of_live_threads() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(1, ManagementFactory.getThreadMXBean());
+        final long              id      = Thread.currentThread().getId();
+
+        tracker.update(new ThreadTimes(SECOND, new long[] { id }, new long[] { 0 }, new long[] { 0 }), 1);
+        final List<ThreadUsage> top = tracker.update(new ThreadTimes(2 * SECOND, new long[] { id }, new long[] { SECOND / 2 }, new long[] { 0 }), 1);
+
+        assertEquals(Thread.currentThread().getName(), top.get(0).getThreadName());
+    }
+
+    @Test
+    public void test_top_allocators_in_descending_order() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(2, ManagementFactory.getThreadMXBean(), true);
+
+        tracker.update(allocations(SECOND, 0, 1000, 0), 1);
+
+        final List<ThreadUsage> top = tracker.update(allocations(3 * SECOND, 2000, 1000, 6000), 1);
+
+        assertEquals(2, top.size());
+
+        assertEquals(ID + 2, top.get(0).getThreadId());
+        assertEquals(3000, top.get(0).getAllocationRate());
+        assertEquals(-1.0, top.get(0).getCpuLoad());
+        assertEquals(ID, top.get(1).getThreadId());
+        assertEquals(1000, top.get(1).getAllocationRate());
+    }
+
+    @Test
+    public void test_top_threads_report_allocation_rate() {
+        final TopThreadsTracker tracker = new TopThreadsTracker(1, ManagementFactory.getThreadMXBean());
+
+        tracker.update(new ThreadTimes(SECOND, new long[] { ID }, new long[] { 0 }, new long[] { 500 }), 1);
+        final List<ThreadUsage> top = tracker.update(new ThreadTimes(2 * SECOND, new long[] { ID }, new long[] { SECOND / 2 }, new long[] { 1500 }), 1);
+
+        assertEquals(50.0, top.get(0).getCpuLoad(), 1e-9);
+        assertEquals(1000, top.get(0).getAllocationRate());
+    }
+
+}
@@ -3,6 +3,9 @@ package software.leonov.system.monitor;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
 
 import org.junit.jupiter.api.Test;
 
@@ -33,6 +36,10 @@ public class UnsupportedSystemMonitorTest {
         assertEquals(-1.0, cpu.getAverageSystemCpuLoad(), "Average system CPU should be -1.0");
         assertEquals(-1.0, cpu.getMaxProcessCpuLoad(), "Max process CPU should be -1.0");
         assertEquals(-1.0, cpu.getMaxSystemCpuLoad(), "Max system CPU should be -1.0");
+        assertEquals(-1.0, cpu.getMovingAverageProcessCpuLoad(Duration.ofMinutes(1)), "Moving average process CPU should be -1.0");
+        assertEquals(-1.0, cpu.getExponentialAverageSystemCpuLoad(Duration.ofMinutes(1)), "Exponential average system CPU should be -1.0");
+        assertEquals(-1.0, cpu.getProcessCpuLoadPercentile(99), "Process CPU percentile should be -1.0");
+        assertEquals(-1.0, cpu.getSystemCpuLoadPercentile(99), "System CPU percentile should be -1.0");
     }
 
     @Test
@@ -46,6 +53,53 @@ public class UnsupportedSystemMonitorTest {
         assertEquals(-1L, memory.getUsedMemory(), "Used memory should be -1");
         assertEquals(-1L, memory.getTotalMemory(), "Total memory should be -1");
         assertEquals(-1L, memory.getMaxUsedMemory(), "Max used memory should be -1");
+        assertEquals(-1L, memory.getUsedMemoryPercentile(99), "Used memory percentile should be -1");
+        assertEquals(-1L, memory.getAllocationRate(), "Allocation rate should be -1");
+        assertEquals(-1L, memory.getNonHeapUsedMemory(), "Non-heap used memory should be -1");
+        assertEquals(-1L, memory.getDirectMemoryUsed(), "Direct memory used should be -1");
+        assertEquals(-1L, memory.getDirectMemoryLimit(), "Direct memory limit should be -1");
+        assertEquals(-1L, memory.getMappedMemoryUsed(), "Mapped memory used should be -1");
+        assertTrue(memory.getMemoryPools().isEmpty());
+    }
+
+    @Test
+    public void test_getSnapshot_returns_negative_values() {
+        final Snapshot snapshot = UnsupportedSystemMonitor.getInstance().getSnapshot();
+
+        assertNotNull(snapshot);
+        assertEquals(-1L, snapshot.getSequenceNumber(), "Sequence number should be -1");
+        assertEquals(-1L, snapshot.getTimestamp(), "Timestamp should be -1");
+        assertSame(UnsupportedSystemMonitor.getInstance().getCpuUsage(), snapshot.getCpuUsage());
+        assertSame(UnsupportedSystemMonitor.getInstance().getMemoryUsage(), snapshot.getMemoryUsage());
+        assertSame(UnsupportedSystemMonitor.getInstance().getContainerUsage(), snapshot.getContainerUsage());
+        assertTrue(snapshot.getTopAllocators().isEmpty());
+    }
+
+    @Test
+    public void test_getContainerUsage_returns_negative_values() {
+        final ContainerUsage container = UnsupportedSystemMonitor.getInstance().getContainerUsage();
+
+        assertEquals(-1.0, container.getCpuLimit(), "CPU limit should be -1.0");
+        assertEquals(-1.0, container.getCpuLoad(), "CPU load should be -1.0");
+        assertEquals(-1.0, container.getThrottledPercentage(), "Throttled percentage should be -1.0");
+        assertEquals(-1L, container.getThrottledPeriods(), "Throttled periods should be -1");
+        assertEquals(-1L, container.getThrottledTime(), "Throttled time should be -1");
+        assertEquals(-1L, container.getUsedMemory(), "Used memory should be -1");
+        assertEquals(-1L, container.getMemoryLimit(), "Memory limit should be -1");
+    }
+
+    @Test
+    public void test_getGcUsage_returns_negative_values() {
+        final GcUsage gc = UnsupportedSystemMonitor.getInstance().getGcUsage();
+
+        assertEquals(-1L, gc.getPauseCount());
+        assertEquals(-1L, gc.getPauseTime());
+        assertEquals(-1.0, gc.getOverhead());
+        assertEquals(-1L, gc.getTotalPauseCount());
+        assertEquals(-1L, gc.getTotalPauseTime());
+        assertEquals(-1L, gc.getPauseTimePercentile(99));
+        assertTrue(gc.getCollectionCounts().isEmpty());
+        assertSame(gc, UnsupportedSystemMonitor.getInstance().getSnapshot().getGcUsage());
     }
 
     @Test
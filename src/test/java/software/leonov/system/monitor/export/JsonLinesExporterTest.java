@@ -0,0 +1,153 @@
+package software.leonov.system.monitor.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import software.leonov.system.monitor.BackgroundSystemMonitor;
+import software.leonov.system.monitor.LazySystemMonitor;
+import software.leonov.system.monitor.Snapshot;
+
+public class JsonLinesExporterTest {
+
+    @TempDir
+    Path directory;
+
+    private List<Path> files() throws IOException {
+        try (final Stream<Path> stream = Files.list(directory)) {
+            return stream.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private List<String> lines() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        for (final Path file : files())
+            lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        return lines;
+    }
+
+    @Test
+    public void test_background_monitor_writes_every_snapshot() throws IOException, InterruptedException {
+        final JsonLinesExporter       exporter = JsonLinesExporter.writeTo(directory).flushEvery(Duration.ofMillis(50)).start();
+        final BackgroundSystemMonitor monitor  = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(20)).subscribe(Runnable::run, exporter);
+
+        monitor.start();
+        Thread.sleep(300);
+        monitor.close();
+        exporter.close();
+
+        final List<String> lines = lines();
+
+        assertEquals(1, files().size());
+        assertTrue(lines.size() > 5);
+        assertEquals(exporter.getWrittenCount(), lines.size());
+        assertEquals(0, exporter.getDroppedCount());
+
+        long previous = 0;
+        for (final String line : lines) {
+            assertTrue(line.startsWith("{\"sequenceNumber\":"));
+            assertTrue(line.endsWith("]}"));
+            assertTrue(line.contains("\"memory\":{\"usedMemory\":"));
+
+            final long sequenceNumber = Long.parseLong(line.substring(18, line.indexOf(',')));
+            assertTrue(sequenceNumber > previous);
+            previous = sequenceNumber;
+        }
+    }
+
+    @Test
+    public void test_rotates_by_size() throws IOException {
+        final Snapshot          snapshot = LazySystemMonitor.withDefaultUpdateThreshold().getSnapshot();
+        final JsonLinesExporter exporter = JsonLinesExporter.writeTo(directory).rotateAtSize(1).start();
+
+        for (int i = 0; i < 3; i++)
+            exporter.accept(snapshot);
+        exporter.close();
+
+        final List<Path> files = files();
+
+        assertEquals(3, files.size());
+        assertEquals("metrics-1.jsonl", files.get(0).getFileName().toString());
+        for (final Path file : files)
+            assertEquals(1, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+
+        // A new exporter continues the numbering
+        JsonLinesExporter.writeTo(directory).start().close();
+        assertTrue(Files.exists(directory.resolve("metrics-4.jsonl")));
+    }
+
+    @Test
+    public void test_full_queue_drops_snapshots() throws IOException {
+        final Snapshot          snapshot = LazySystemMonitor.withDefaultUpdateThreshold().getSnapshot();
+        final JsonLinesExporter exporter = JsonLinesExporter.writeTo(directory).queueCapacity(2).flushEvery(Duration.ofDays(1));
+
+        exporter.accept(snapshot); // not started
+        assertEquals(1, exporter.getDroppedCount());
+
+        exporter.start();
+
+        // After its first drain the writer thread does not drain the queue again until it is closed
+        for (int i = 0; i < 10; i++)
+            exporter.accept(snapshot);
+
+        assertTrue(exporter.getDroppedCount() >= 7);
+
+        exporter.close();
+        exporter.accept(snapshot);
+
+        assertEquals(12, exporter.getDroppedCount() + exporter.getWrittenCount());
+        assertTrue(exporter.getWrittenCount() >= 2);
+        assertEquals(exporter.getWrittenCount(), lines().size());
+    }
+
+    @Test
+    public void test_snapshots_accepted_while_closing_are_counted() throws IOException, InterruptedException {
+        final Snapshot snapshot = LazySystemMonitor.withDefaultUpdateThreshold().getSnapshot();
+
+        for (int i = 0; i < 20; i++) {
+            final JsonLinesExporter exporter = JsonLinesExporter.writeTo(directory.resolve(Integer.toString(i))).flushEvery(Duration.ofMillis(1)).start();
+            final int[]             accepted = new int[1];
+
+            final Thread producer = new Thread(() -> {
+                while (accepted[0] < 100_000) {
+                    exporter.accept(snapshot);
+                    accepted[0]++;
+                }
+            });
+            producer.start();
+            Thread.sleep(1);
+            exporter.close();
+            producer.join();
+
+            assertEquals(accepted[0], exporter.getDroppedCount() + exporter.getWrittenCount());
+        }
+    }
+
+    @Test
+    public void test_invalid_arguments() throws IOException {
+        final JsonLinesExporter exporter = JsonLinesExporter.writeTo(directory);
+
+        assertEquals("capacity <= 0", assertThrows(IllegalArgumentException.class, () -> exporter.queueCapacity(0)).getMessage());
+        assertEquals("flushInterval <= 0", assertThrows(IllegalArgumentException.class, () -> exporter.flushEvery(Duration.ZERO)).getMessage());
+        assertEquals("maxFileSize <= 0", assertThrows(IllegalArgumentException.class, () -> exporter.rotateAtSize(0)).getMessage());
+        assertEquals("maxFileAge <= 0", assertThrows(IllegalArgumentException.class, () -> exporter.rotateEvery(Duration.ofSeconds(-1))).getMessage());
+
+        exporter.start();
+        assertEquals("exporter has already started", assertThrows(IllegalStateException.class, () -> exporter.rotateAtSize(10)).getMessage());
+        exporter.close();
+    }
+
+}
@@ -0,0 +1,53 @@
+package software.leonov.system.monitor.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class JsonWriterTest {
+
+    @Test
+    public void test_nested_values_and_escaping() throws IOException {
+        final ByteArrayOutputStream out    = new ByteArrayOutputStream();
+        final JsonWriter            writer = new JsonWriter(8); // smaller than a line, so the buffer is flushed while writing
+
+        writer.setChannel(Channels.newChannel(out));
+
+        writer.beginObject();
+        writer.name("n").value(-42L);
+        writer.name("d").value(0.125);
+        writer.name("nan").value(Double.NaN);
+        writer.name("ok").value(true);
+        writer.name("s").value("G1 \"Old\" Gen\\\n\u0001héap€");
+        writer.name("a").beginArray().value(1L).value(2L).beginObject().endObject().endArray();
+        writer.name("o").beginObject().name("x").value((String) null).endObject();
+        writer.endObject();
+        writer.newLine();
+
+        writer.beginArray().endArray();
+        writer.newLine();
+
+        writer.flush();
+
+        assertEquals("{\"n\":-42,\"d\":0.125,\"nan\":null,\"ok\":true,\"s\":\"G1 \\\"Old\\\" Gen\\\\\\n\\u0001héap€\",\"a\":[1,2,{}],\"o\":{\"x\":null}}\n[]\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(out.size(), writer.size());
+    }
+
+    @Test
+    public void test_doubles() throws IOException {
+        final ByteArrayOutputStream out    = new ByteArrayOutputStream();
+        final JsonWriter            writer = new JsonWriter(64);
+
+        writer.setChannel(Channels.newChannel(out));
+        writer.beginArray().value(0.0).value(42.0).value(0.012345).value(-3.25).value(0.9999999).value(1e20).value(Double.NEGATIVE_INFINITY).endArray();
+        writer.flush();
+
+        assertEquals("[0,42,0.012345,-3.25,1,1.0E20,null]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+}
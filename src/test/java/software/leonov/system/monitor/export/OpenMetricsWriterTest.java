@@ -0,0 +1,55 @@
+package software.leonov.system.monitor.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class OpenMetricsWriterTest {
+
+    private static String write(final double value) {
+        final OpenMetricsWriter writer = new OpenMetricsWriter();
+        writer.sample("m");
+        writer.value(value);
+        return new String(writer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void test_doubles() {
+        assertEquals("m 0\n", write(0.0));
+        assertEquals("m 42\n", write(42.0));
+        assertEquals("m 0.5\n", write(0.5));
+        assertEquals("m 0.012345\n", write(0.012345));
+        assertEquals("m 1.000001\n", write(1.000001));
+        assertEquals("m -3.25\n", write(-3.25));
+        assertEquals("m 1\n", write(0.9999999));
+        assertEquals("m 0\n", write(0.0000001));
+        assertEquals("m 123456789012346\n", write(123456789012345.6));
+        assertEquals("m 9223372036854774784\n", write(0x1p63 - 1024));
+        assertEquals("m 1.0E20\n", write(1e20));
+        assertEquals("m -9.223372036854776E18\n", write(-0x1p63));
+        assertEquals("m NaN\n", write(Double.NaN));
+        assertEquals("m +Inf\n", write(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void test_families_labels_and_longs() {
+        final OpenMetricsWriter writer = new OpenMetricsWriter();
+
+        writer.family("pool_bytes", "gauge", "Pool size.");
+        writer.sample("pool_bytes");
+        writer.label("pool", "G1 \"Old\" Gen\\\n");
+        writer.label("area", "héap€");
+        writer.value(Long.MAX_VALUE);
+        writer.sample("count", "_total");
+        writer.value(-7L);
+        writer.eof();
+
+        assertEquals("# TYPE pool_bytes gauge\n# HELP pool_bytes Pool size.\npool_bytes{pool=\"G1 \\\"Old\\\" Gen\\\\\\n\",area=\"héap€\"} 9223372036854775807\ncount_total -7\n# EOF\n", new String(writer.toByteArray(), StandardCharsets.UTF_8));
+
+        writer.reset();
+        assertEquals(0, writer.size());
+    }
+
+}
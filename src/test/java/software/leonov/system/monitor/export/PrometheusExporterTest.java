@@ -0,0 +1,117 @@
+package software.leonov.system.monitor.export;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import software.leonov.system.monitor.BackgroundSystemMonitor;
+import software.leonov.system.monitor.LazySystemMonitor;
+import software.leonov.system.monitor.Snapshot;
+
+public class PrometheusExporterTest {
+
+    private static byte[] read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out    = new ByteArrayOutputStream();
+        final byte[]                buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) != -1;)
+            out.write(buffer, 0, n);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void test_scrape() throws IOException {
+        final HttpServer server = PrometheusExporter.start(LazySystemMonitor.withDefaultUpdateThreshold(), new InetSocketAddress("127.0.0.1", 0));
+
+        try {
+            final URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/metrics");
+
+            final HttpURLConnection plain = (HttpURLConnection) url.openConnection();
+            plain.setRequestProperty("Accept-Encoding", "identity");
+
+            assertEquals(200, plain.getResponseCode());
+            assertEquals(PrometheusExporter.CONTENT_TYPE, plain.getContentType());
+
+            final String body = new String(read(plain.getInputStream()), StandardCharsets.UTF_8);
+
+            assertTrue(body.contains("# TYPE sysmon_memory_heap_used_bytes gauge\n"), body);
+            assertTrue(body.contains("\nsysmon_memory_heap_used_bytes "), body);
+            assertTrue(body.contains("sysmon_memory_pool_used_bytes{pool=\""), body);
+            assertTrue(body.endsWith("# EOF\n"), body);
+
+            final HttpURLConnection gzip = (HttpURLConnection) url.openConnection();
+            gzip.setRequestProperty("Accept-Encoding", "gzip");
+
+            assertEquals(200, gzip.getResponseCode());
+            assertEquals("gzip", gzip.getContentEncoding());
+
+            final String decompressed = new String(read(new GZIPInputStream(gzip.getInputStream())), StandardCharsets.UTF_8);
+
+            assertTrue(decompressed.endsWith("# EOF\n"), decompressed);
+
+            final HttpURLConnection post = (HttpURLConnection) url.openConnection();
+            post.setRequestMethod("POST");
+
+            assertEquals(405, post.getResponseCode());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void test_snapshot_is_rendered_once() throws IOException, InterruptedException {
+        try (final BackgroundSystemMonitor monitor = BackgroundSystemMonitor.updateEvery(Duration.ofMillis(50)).start()) {
+            final PrometheusExporter exporter = new PrometheusExporter(monitor);
+
+            final Snapshot                      snapshot = monitor.getSnapshot();
+            final PrometheusExporter.Exposition first    = exporter.render(snapshot);
+
+            assertSame(first, exporter.render(snapshot));
+            assertArrayEquals(first.plain, read(new GZIPInputStream(new ByteArrayInputStream(first.gzip))));
+
+            Thread.sleep(150);
+
+            final PrometheusExporter.Exposition second = exporter.render(monitor.getSnapshot());
+
+            assertNotSame(first, second);
+            assertArrayEquals(second.plain, read(new GZIPInputStream(new ByteArrayInputStream(second.gzip))));
+        }
+    }
+
+    @Test
+    public void test_accepts_gzip() {
+        assertTrue(PrometheusExporter.acceptsGzip(Collections.singletonList("gzip")));
+        assertTrue(PrometheusExporter.acceptsGzip(Collections.singletonList("deflate, GZIP;q=0.5")));
+        assertTrue(PrometheusExporter.acceptsGzip(Arrays.asList("identity", "br;q=1.0, *")));
+        assertTrue(PrometheusExporter.acceptsGzip(Collections.singletonList("gzip;q=0.001, *;q=0")));
+
+        assertFalse(PrometheusExporter.acceptsGzip(null));
+        assertFalse(PrometheusExporter.acceptsGzip(Collections.singletonList("identity")));
+        assertFalse(PrometheusExporter.acceptsGzip(Collections.singletonList("gzip;q=0")));
+        assertFalse(PrometheusExporter.acceptsGzip(Collections.singletonList("br, gzip ; q=0.0")));
+        assertFalse(PrometheusExporter.acceptsGzip(Collections.singletonList("notgzip, gzipped")));
+        assertFalse(PrometheusExporter.acceptsGzip(Collections.singletonList("*;q=0")));
+        assertFalse(PrometheusExporter.acceptsGzip(Collections.singletonList("gzip;q=0, *")));
+        assertFalse(PrometheusExporter.acceptsGzip(Collections.singletonList("gzip;q=high")));
+    }
+
+}
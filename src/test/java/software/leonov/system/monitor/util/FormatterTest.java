@@ -1,6 +1,12 @@
 package software.leonov.system.monitor.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
@@ -133,4 +139,79 @@ public class FormatterTest {
     public void test_formatDecimalBytes_exabytes() {
         assertEquals("1.00EB", Formatter.formatDecimalBytes(1000L * 1000L * 1000L * 1000L * 1000L * 1000L));
     }
+
+    @Test
+    public void test_formatPercent_matches_String_format() {
+        final Random random = new Random(0);
+
+        for (int i = 0; i < 100_000; i++) {
+            // Values whose shortest representation ends with a 5 are rounded half up, like String.format does
+            final double tie = (random.nextInt(100_000) + 0.5) / 100;
+            final double pct = random.nextDouble() * 100;
+
+            assertEquals(String.format("%.2f%%", tie), Formatter.formatPercent(tie));
+            assertEquals(String.format("%.2f%%", pct), Formatter.formatPercent(pct));
+        }
+
+        assertEquals("1.01%", Formatter.formatPercent(1.005));
+        assertEquals("-0.00%", Formatter.formatPercent(-0.0));
+        assertEquals("NaN%", Formatter.formatPercent(Double.NaN));
+        assertEquals("Infinity%", Formatter.formatPercent(Double.POSITIVE_INFINITY));
+        assertEquals(String.format("%.2f%%", 1e12 + 0.125), Formatter.formatPercent(1e12 + 0.125));
+    }
+
+    @Test
+    public void test_formatBytes_unit_boundaries() {
+        // The unit has always switched slightly below very large powers of the base
+        assertEquals("1.00PB", Formatter.formatDecimalBytes(999_999_999_999_999L));
+        assertEquals("1.00EiB", Formatter.formatBinaryBytes(1152921504606846975L));
+        assertEquals("1000.00KB", Formatter.formatDecimalBytes(999_999L));
+        assertEquals("1024.00KiB", Formatter.formatBinaryBytes(1024L * 1024L - 1L));
+        assertEquals("8.00EiB", Formatter.formatBinaryBytes(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void test_append_to_StringBuilder() {
+        final StringBuilder sb = new StringBuilder("cpu=");
+
+        assertSame(sb, Formatter.formatPercent(12.346, sb));
+        Formatter.formatDecimalBytes(1500L, sb.append(", memory="));
+        Formatter.formatBinaryBytes(-1L, sb.append(", direct="));
+
+        assertEquals("cpu=12.35%, memory=1.50KB, direct=N/A", sb.toString());
+    }
+
+    @Test
+    public void test_append_to_Appendable() throws IOException {
+        final StringWriter out = new StringWriter();
+
+        assertSame(out, Formatter.formatPercent(-1.0, out));
+        Formatter.formatDecimalBytes(999L, out.append(' '));
+        Formatter.formatBinaryBytes(1536L, out.append(' '));
+
+        assertEquals("N/A 999 bytes 1.50KiB", out.toString());
+    }
+
+    @Test
+    public void test_default_format_locale_is_used() {
+        final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+
+            assertEquals("12,35%", Formatter.formatPercent(12.345));
+            assertEquals(String.format("%.2f%%", 1.5e9), Formatter.formatPercent(1.5e9));
+            assertEquals("1,50KiB", Formatter.formatBinaryBytes(1536L));
+            assertEquals("999 bytes", Formatter.formatDecimalBytes(999L));
+
+            Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag("th-TH-u-nu-thai"));
+
+            assertEquals(String.format("%.2f%%", 12.345), Formatter.formatPercent(12.345));
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+
+        assertEquals("12.35%", Formatter.formatPercent(12.345));
+    }
+
 }
\ No newline at end of file